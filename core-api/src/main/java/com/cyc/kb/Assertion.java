@@ -30,6 +30,7 @@ import com.cyc.kb.exception.KbObjectNotFoundException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.spi.AssertionService;
 import java.util.Collection;
+import java.util.Optional;
 
 
 /**
@@ -152,6 +153,61 @@ public interface Assertion extends KbObjectWithArity {
           throws KbTypeException, CreateException, KbObjectNotFoundException {
     return Cyc.getAssertionService().get(formulaStr, ctxStr);
   }
+
+  /**
+   * Looks up the <code>Assertion</code> with the specified HLID, returning an empty Optional rather
+   * than throwing {@link KbObjectNotFoundException} if there is none. This static method wraps a
+   * call to {@link AssertionService#find(java.lang.String) }; see that method's documentation for
+   * more details.
+   *
+   * @param hlid the <code>hlid</code> of the assertion in the KB
+   *
+   * @return the Assertion, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Assertion> find(String hlid) throws KbTypeException, CreateException {
+    return Cyc.getAssertionService().find(hlid).map(Assertion.class::cast);
+  }
+
+  /**
+   * Looks up the <code>Assertion</code> for <code>formula</code> in <code>ctx</code>, returning an
+   * empty Optional rather than throwing {@link KbObjectNotFoundException} if there is none. This
+   * static method wraps a call to
+   * {@link AssertionService#find(com.cyc.kb.Sentence, com.cyc.kb.Context) }.
+   *
+   * @param formula formula to be found
+   * @param ctx     context of the formula
+   *
+   * @return the Assertion, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Assertion> find(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException {
+    return Cyc.getAssertionService().find(formula, ctx).map(Assertion.class::cast);
+  }
+
+  /**
+   * Looks up the <code>Assertion</code> for <code>formulaStr</code> in the context
+   * <code>ctxStr</code>, returning an empty Optional rather than throwing
+   * {@link KbObjectNotFoundException} if there is none. This static method wraps a call to
+   * {@link AssertionService#find(java.lang.String, java.lang.String) }.
+   *
+   * @param formulaStr string representation of the formula to be found
+   * @param ctxStr     string representation of the context of the formula
+   *
+   * @return the Assertion, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Assertion> find(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    return Cyc.getAssertionService().find(formulaStr, ctxStr).map(Assertion.class::cast);
+  }
   
   public static Assertion findOrCreate(Sentence formula, Context ctx, Strength strength, Direction direction)
           throws CreateException, KbTypeException, InvalidFormulaInContextException {
@@ -230,6 +286,27 @@ public interface Assertion extends KbObjectWithArity {
   public Collection<Assertion> getSupportingAssertions()
           throws KbTypeException, CreateException;
 
+  /**
+   * Returns the supporting assertions of this assertion, and theirs, and so on, to a depth of
+   * <code>maxDepth</code>; i.e., its justification. Assertions which support more than one other
+   * assertion in the graph appear in it only once.
+   *
+   * <p>
+   * The default implementation makes one call to {@link #getSupportingAssertions() } per distinct
+   * assertion; implementations should override it to fetch the whole graph in one request.
+   *
+   * @param maxDepth the number of levels of support to fetch
+   *
+   * @return the support graph
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  default AssertionSupportGraph getSupportGraph(int maxDepth)
+          throws KbTypeException, CreateException {
+    return AssertionSupportGraph.fetch(this, maxDepth);
+  }
+
   /**
    * Returns true if this assertion is supported by other assertions, false if
    * this assertion is not deduced from anything else. Note that an assertion
@@ -0,0 +1,354 @@
+package com.cyc.kb;
+
+/*
+ * #%L
+ * File: AssertionSupportGraph.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The supporting assertions of a deduced assertion, followed recursively to a fixed depth; i.e.,
+ * the assertion's justification, as a directed acyclic graph. Obtained via
+ * {@link Assertion#getSupportGraph(int) }.
+ *
+ * <p>
+ * Assertions are identified by their HLIDs (see {@link KbObject#getId() }), so an assertion which
+ * supports several others in the graph appears in it exactly once, and its own supports are
+ * fetched only once. AssertionSupportGraphs are immutable.
+ */
+public final class AssertionSupportGraph {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Builds the support graph of <code>root</code> by calling
+   * {@link Assertion#getSupportingAssertions() } once for each distinct assertion within
+   * <code>maxDepth</code> levels of it. This is the default implementation of
+   * {@link Assertion#getSupportGraph(int) }; implementations which can retrieve the whole graph in
+   * a single request should do so, and construct the result via {@link #builder(Assertion, int) }.
+   *
+   * @param root     the assertion whose support to fetch
+   * @param maxDepth the number of levels of support to fetch; <code>1</code> is equivalent to
+   *                 {@link Assertion#getSupportingAssertions() }
+   *
+   * @return the support graph
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static AssertionSupportGraph fetch(Assertion root, int maxDepth)
+          throws KbTypeException, CreateException {
+    return fetch(root, maxDepth, null);
+  }
+
+  /**
+   * Builds the support graph of <code>root</code> as per {@link #fetch(Assertion, int) }, looking
+   * up and recording each assertion's direct supports in <code>supportCache</code>, keyed by HLID.
+   * Passing the same cache to several calls (e.g., for every row of an audit view) means that
+   * support which is shared between their graphs is fetched only once. The caller is responsible
+   * for discarding the cache when the KB changes.
+   *
+   * @param root         the assertion whose support to fetch
+   * @param maxDepth     the number of levels of support to fetch
+   * @param supportCache a map from HLIDs to direct supports, or <code>null</code>
+   *
+   * @return the support graph
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static AssertionSupportGraph fetch(
+          Assertion root, int maxDepth, Map<String, Collection<Assertion>> supportCache)
+          throws KbTypeException, CreateException {
+    final Builder builder = builder(root, maxDepth);
+    final Deque<Assertion> queue = new ArrayDeque<>();
+    queue.add(root);
+    while (!queue.isEmpty()) {
+      final Assertion assertion = queue.remove();
+      if (builder.getDepth(assertion) >= maxDepth) {
+        continue;
+      }
+      Collection<Assertion> supports = (supportCache != null)
+                                               ? supportCache.get(assertion.getId())
+                                               : null;
+      if (supports == null) {
+        // Assertions which are not deduced simply have no supporting assertions, so there is no
+        // need for a separate isDeducedAssertion() round trip.
+        supports = assertion.getSupportingAssertions();
+        if (supports == null) {
+          supports = Collections.emptyList();
+        }
+        if (supportCache != null) {
+          supportCache.put(assertion.getId(), supports);
+        }
+      }
+      queue.addAll(builder.addSupports(assertion, supports));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns a Builder for the support graph of <code>root</code>, for use by implementations of
+   * {@link Assertion#getSupportGraph(int) }.
+   *
+   * @param root     the assertion whose support is described
+   * @param maxDepth the number of levels of support which will be added
+   *
+   * @return a new Builder
+   */
+  public static Builder builder(Assertion root, int maxDepth) {
+    return new Builder(root, maxDepth);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Assertion root;
+  private final int maxDepth;
+  private final Map<String, Node> nodes;
+
+  //====|    Construction    |====================================================================//
+
+  private AssertionSupportGraph(Assertion root, int maxDepth, Map<String, Node> nodes) {
+    this.root = root;
+    this.maxDepth = maxDepth;
+    this.nodes = nodes;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Assertion getRoot() {
+    return root;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Returns every assertion in the graph, including the root, in breadth-first order.
+   *
+   * @return the assertions
+   */
+  public List<Assertion> getAssertions() {
+    final List<Assertion> results = new ArrayList<>(nodes.size());
+    nodes.values().forEach(node -> results.add(node.assertion));
+    return results;
+  }
+
+  public Set<String> getIds() {
+    return Collections.unmodifiableSet(nodes.keySet());
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  public boolean contains(Assertion assertion) {
+    return nodes.containsKey(assertion.getId());
+  }
+
+  /**
+   * Returns the assertion in the graph with the specified HLID.
+   *
+   * @param hlid an HLID
+   *
+   * @return the assertion, or <code>null</code> if it is not in the graph
+   */
+  public Assertion getAssertion(String hlid) {
+    final Node node = nodes.get(hlid);
+    return (node != null) ? node.assertion : null;
+  }
+
+  /**
+   * Returns the direct supports of <code>assertion</code>.
+   *
+   * @param assertion an assertion in the graph
+   *
+   * @return the supporting assertions, or an empty list if <code>assertion</code> has none, is not
+   *         in the graph, or lies at the graph's maximum depth
+   *
+   * @see #isExpanded(Assertion)
+   */
+  public List<Assertion> getSupports(Assertion assertion) {
+    final Node node = nodes.get(assertion.getId());
+    return (node != null) ? node.supports : Collections.emptyList();
+  }
+
+  /**
+   * Returns the assertions in the graph which <code>assertion</code> directly supports.
+   *
+   * @param assertion an assertion in the graph
+   *
+   * @return the supported assertions, or an empty list for the root
+   */
+  public List<Assertion> getDependents(Assertion assertion) {
+    final Node node = nodes.get(assertion.getId());
+    return (node != null) ? node.dependents : Collections.emptyList();
+  }
+
+  /**
+   * Returns the length of the shortest chain of support from the root to <code>assertion</code>.
+   *
+   * @param assertion an assertion in the graph
+   *
+   * @return the depth, where the root's depth is <code>0</code>, or <code>-1</code> if
+   *         <code>assertion</code> is not in the graph
+   */
+  public int getDepth(Assertion assertion) {
+    final Node node = nodes.get(assertion.getId());
+    return (node != null) ? node.depth : -1;
+  }
+
+  /**
+   * Returns whether the supports of <code>assertion</code> were fetched. Assertions at the
+   * maximum depth are not expanded, so their supports, if any, are not in the graph.
+   *
+   * @param assertion an assertion in the graph
+   *
+   * @return whether <code>assertion</code>'s supports are in the graph
+   */
+  public boolean isExpanded(Assertion assertion) {
+    final Node node = nodes.get(assertion.getId());
+    return (node != null) && node.expanded;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[root=" + root + ", maxDepth=" + maxDepth
+                   + ", size=" + size() + "]";
+  }
+
+  //====|    Node    |============================================================================//
+
+  private static final class Node {
+
+    private final Assertion assertion;
+    private final int depth;
+    private final List<Assertion> supports;
+    private final List<Assertion> dependents;
+    private boolean expanded;
+
+    private Node(Assertion assertion, int depth) {
+      this(assertion, depth, new ArrayList<>(), new ArrayList<>(), false);
+    }
+
+    private Node(Assertion assertion, int depth, List<Assertion> supports,
+                 List<Assertion> dependents, boolean expanded) {
+      this.assertion = assertion;
+      this.depth = depth;
+      this.supports = supports;
+      this.dependents = dependents;
+      this.expanded = expanded;
+    }
+
+    /**
+     * Returns an unmodifiable copy of this node, so that a graph is unaffected by further use of
+     * the Builder which produced it.
+     */
+    private Node snapshot() {
+      return new Node(assertion, depth,
+                      Collections.unmodifiableList(new ArrayList<>(supports)),
+                      Collections.unmodifiableList(new ArrayList<>(dependents)),
+                      expanded);
+    }
+  }
+
+  //====|    Builder    |=========================================================================//
+
+  /**
+   * Assembles an AssertionSupportGraph. Supports must be added breadth-first, starting with the
+   * root's, so that each assertion is already in the graph when its own supports are added.
+   */
+  public static final class Builder {
+
+    private final Assertion root;
+    private final int maxDepth;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    private Builder(Assertion root, int maxDepth) {
+      this.root = Objects.requireNonNull(root, "Root assertion must not be null");
+      if (maxDepth < 0) {
+        throw new IllegalArgumentException("Max depth must not be negative: " + maxDepth);
+      }
+      this.maxDepth = maxDepth;
+      nodes.put(root.getId(), new Node(root, 0));
+    }
+
+    /**
+     * Records the direct supports of <code>assertion</code>.
+     *
+     * @param assertion an assertion already in the graph
+     * @param supports  its supporting assertions
+     *
+     * @return those of <code>supports</code> which were not previously in the graph
+     *
+     * @throws IllegalArgumentException if <code>assertion</code> is not in the graph
+     */
+    public List<Assertion> addSupports(Assertion assertion, Collection<Assertion> supports) {
+      final Node node = nodes.get(assertion.getId());
+      if (node == null) {
+        throw new IllegalArgumentException(assertion + " is not in the support graph of " + root);
+      }
+      node.expanded = true;
+      final List<Assertion> added = new ArrayList<>();
+      for (Assertion support : supports) {
+        Node supportNode = nodes.get(support.getId());
+        if (supportNode == null) {
+          supportNode = new Node(support, node.depth + 1);
+          nodes.put(support.getId(), supportNode);
+          added.add(support);
+        }
+        if (!node.supports.contains(supportNode.assertion)) {
+          node.supports.add(supportNode.assertion);
+          supportNode.dependents.add(node.assertion);
+        }
+      }
+      return added;
+    }
+
+    /**
+     * Returns a graph of the supports added so far. The graph is a snapshot; supports added to this
+     * Builder afterwards do not affect it.
+     *
+     * @return a new AssertionSupportGraph
+     */
+    public AssertionSupportGraph build() {
+      final Map<String, Node> snapshot = new LinkedHashMap<>(nodes.size() * 4 / 3 + 1);
+      nodes.forEach((id, node) -> snapshot.put(id, node.snapshot()));
+      return new AssertionSupportGraph(root, maxDepth, Collections.unmodifiableMap(snapshot));
+    }
+
+    private int getDepth(Assertion assertion) {
+      return nodes.get(assertion.getId()).depth;
+    }
+  }
+
+}
@@ -25,6 +25,7 @@ import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.spi.ContextService;
 import java.util.Collection;
+import java.util.Optional;
 
 /**
  * The interface for {@link KbIndividual}s that correspond to CycL microtheories.
@@ -158,6 +159,20 @@ public interface Context extends KbIndividual {
     return Cyc.getContextService().existsAsType(nameOrId);
   }
   
+  /**
+   * Looks up the <code>Context</code> <code>nameOrId</code>, returning an empty Optional rather
+   * than throwing an exception if there is none. This static method wraps a call to
+   * {@link ContextService#find(java.lang.String) }; see that method's documentation for more
+   * details.
+   *
+   * @param nameOrId the string representation or the HLID of the #$Microtheory
+   *
+   * @return the Context, or an empty Optional
+   */
+  public static Optional<Context> find(String nameOrId) {
+    return Cyc.getContextService().find(nameOrId);
+  }
+  
   public static KbStatus getStatus(String nameOrId) {
     return Cyc.getContextService().getStatus(nameOrId);
   }
@@ -26,6 +26,7 @@ import com.cyc.kb.exception.InvalidFormulaInContextException;
 import com.cyc.kb.exception.KbObjectNotFoundException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.spi.FactService;
+import java.util.Optional;
 
 /**
  * The interface for {@link Assertion}s that relate {@link KbCollection}s and
@@ -98,6 +99,61 @@ public interface Fact extends Assertion {
           throws KbTypeException, CreateException, KbObjectNotFoundException {
     return Cyc.getFactService().get(formulaStr, ctxStr);
   }
+
+  /**
+   * Looks up the <code>Fact</code> with the specified HLID, returning an empty Optional rather
+   * than throwing {@link KbObjectNotFoundException} if there is none. This static method wraps a
+   * call to {@link FactService#find(java.lang.String) }; see that method's documentation for more
+   * details.
+   *
+   * @param hlid the <code>hlid</code> of the fact in the KB
+   *
+   * @return the Fact, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Fact> find(String hlid) throws KbTypeException, CreateException {
+    return Cyc.getFactService().find(hlid);
+  }
+
+  /**
+   * Looks up the <code>Fact</code> for <code>formula</code> in <code>ctx</code>, returning an
+   * empty Optional rather than throwing {@link KbObjectNotFoundException} if there is none. This
+   * static method wraps a call to
+   * {@link FactService#find(com.cyc.kb.Sentence, com.cyc.kb.Context) }.
+   *
+   * @param formula formula to be found
+   * @param ctx     context of the formula
+   *
+   * @return the Fact, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Fact> find(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException {
+    return Cyc.getFactService().find(formula, ctx);
+  }
+
+  /**
+   * Looks up the <code>Fact</code> for <code>formulaStr</code> in the context
+   * <code>ctxStr</code>, returning an empty Optional rather than throwing
+   * {@link KbObjectNotFoundException} if there is none. This static method wraps a call to
+   * {@link FactService#find(java.lang.String, java.lang.String) }.
+   *
+   * @param formulaStr string representation of the formula to be found
+   * @param ctxStr     string representation of the context of the formula
+   *
+   * @return the Fact, or an empty Optional
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static Optional<Fact> find(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    return Cyc.getFactService().find(formulaStr, ctxStr);
+  }
   
   public static Fact findOrCreate(Sentence formula, Context ctx, Strength strength, Direction direction)
           throws CreateException, KbTypeException, InvalidFormulaInContextException {
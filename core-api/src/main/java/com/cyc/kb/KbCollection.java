@@ -25,6 +25,7 @@ import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.spi.KbCollectionService;
 import java.util.Collection;
+import java.util.Optional;
 
 
 /**
@@ -161,6 +162,20 @@ public interface KbCollection extends KbTerm {
     return Cyc.getKbCollectionService().existsAsType(nameOrId);
   }
   
+  /**
+   * Looks up the <code>KbCollection</code> <code>nameOrId</code>, returning an empty Optional
+   * rather than throwing an exception if there is none. This static method wraps a call to
+   * {@link KbCollectionService#find(java.lang.String) }; see that method's documentation for
+   * more details.
+   *
+   * @param nameOrId the string representation or the HLID of the #$Collection
+   *
+   * @return the KbCollection, or an empty Optional
+   */
+  public static Optional<KbCollection> find(String nameOrId) {
+    return Cyc.getKbCollectionService().find(nameOrId);
+  }
+  
   public static KbStatus getStatus(String nameOrId) {
     return Cyc.getKbCollectionService().getStatus(nameOrId);
   }
@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -167,6 +168,51 @@ public interface KbObject {
    */
   Boolean isAtomic();
   
+  /**
+   * Returns the bitmask of every {@link KbObjectType} which this object is an instance of, for
+   * dispatching on an object's type without a chain of <code>instanceof</code> tests. E.g.:
+   *
+   * <pre>
+   * if (KbObjectType.PREDICATE.isIn(obj.getTypeMask())) { ... }
+   * </pre>
+   *
+   * <p>
+   * The mask reflects the API interfaces which this object's Java class implements, not the
+   * object's collections in the KB: a term which was retrieved as a KbIndividual may lack the
+   * {@link KbObjectType#PREDICATE} bit even if the KB says it is a predicate. Use
+   * {@link KbTerm#isInstanceOf(java.lang.String) } and the like to ask the KB. The default
+   * implementation computes the mask once per implementation class, so this method neither
+   * allocates nor contacts the Cyc server.
+   *
+   * @return the type bitmask
+   *
+   * @see KbObjectType#maskOf(java.lang.Object)
+   */
+  default int getTypeMask() {
+    return KbObjectType.maskOf(this);
+  }
+
+  /**
+   * Returns every {@link KbObjectType} which this object is an instance of.
+   *
+   * @return a new EnumSet of this object's types
+   */
+  default EnumSet<KbObjectType> getTypes() {
+    return KbObjectType.fromMask(getTypeMask());
+  }
+
+  /**
+   * Returns whether this object is an instance of <code>type</code>. Unlike
+   * {@link #getTypes() }, this does not allocate.
+   *
+   * @param type a KB API object type
+   *
+   * @return whether this object is a <code>type</code>
+   */
+  default boolean isType(KbObjectType type) {
+    return type.isIn(getTypeMask());
+  }
+  
   /* *
    * Is this object any kind of {@link Assertion}?
    *
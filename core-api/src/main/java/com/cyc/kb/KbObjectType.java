@@ -0,0 +1,169 @@
+package com.cyc.kb;
+
+/*
+ * #%L
+ * File: KbObjectType.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.EnumSet;
+
+/**
+ * The KB API object types, each of which corresponds to one of the KbObject sub-interfaces. An
+ * object's types can be packed into an <code>int</code> bitmask via {@link #maskOf(Object)}, which
+ * is compact enough to store alongside cached terms.
+ *
+ * <p>
+ * <strong>Note:</strong> masks may be persisted, so new types must only ever be appended.
+ */
+public enum KbObjectType {
+  TERM(KbTerm.class),
+  INDIVIDUAL(KbIndividual.class),
+  COLLECTION(KbCollection.class),
+  FIRST_ORDER_COLLECTION(FirstOrderCollection.class),
+  SECOND_ORDER_COLLECTION(SecondOrderCollection.class),
+  CONTEXT(Context.class),
+  RELATION(Relation.class),
+  PREDICATE(KbPredicate.class),
+  BINARY_PREDICATE(BinaryPredicate.class),
+  FUNCTION(KbFunction.class),
+  ASSERTION(Assertion.class),
+  FACT(Fact.class),
+  RULE(Rule.class),
+  SENTENCE(Sentence.class),
+  SYMBOL(Symbol.class),
+  VARIABLE(Variable.class);
+
+  //====|    Static methods    |==================================================================//
+
+  private static final KbObjectType[] VALUES = values();
+
+  private static final ClassValue<Integer> CLASS_MASKS = new ClassValue<Integer>() {
+    @Override
+    protected Integer computeValue(Class<?> clazz) {
+      int mask = 0;
+      for (KbObjectType type : VALUES) {
+        if (type.apiClass.isAssignableFrom(clazz)) {
+          mask |= type.mask;
+        }
+      }
+      return mask;
+    }
+  };
+
+  /**
+   * Returns the bitmask of every type which <code>obj</code> is an instance of, as a Java object;
+   * i.e., of every API interface which its class implements. This says nothing about the KB's
+   * view of the term, and involves no server call. The mask is computed once per class, so
+   * subsequent calls for objects of the same class do not allocate.
+   *
+   * @param obj an object, typically a KbObject
+   *
+   * @return the bitmask, which is 0 for <code>null</code> and for non-KbObjects
+   *
+   * @see KbObject#getTypeMask()
+   */
+  public static int maskOf(Object obj) {
+    return (obj instanceof KbObject) ? CLASS_MASKS.get(obj.getClass()) : 0;
+  }
+
+  /**
+   * Returns the types in <code>mask</code>.
+   *
+   * @param mask a bitmask, as returned by {@link #maskOf(Object)}
+   *
+   * @return a new EnumSet
+   */
+  public static EnumSet<KbObjectType> fromMask(int mask) {
+    final EnumSet<KbObjectType> result = EnumSet.noneOf(KbObjectType.class);
+    for (KbObjectType type : VALUES) {
+      if ((mask & type.mask) != 0) {
+        result.add(type);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the most specific type in <code>mask</code>; i.e., the type whose API class extends
+   * every other type in the mask. For example, a mask containing {@link #TERM},
+   * {@link #INDIVIDUAL}, {@link #RELATION}, {@link #PREDICATE} and {@link #BINARY_PREDICATE} yields
+   * {@link #BINARY_PREDICATE}.
+   *
+   * @param mask a bitmask, as returned by {@link #maskOf(Object)}
+   *
+   * @return the most specific type, or <code>null</code> if there is no single such type
+   */
+  public static KbObjectType mostSpecificOf(int mask) {
+    for (KbObjectType candidate : VALUES) {
+      if ((mask & candidate.mask) != 0) {
+        boolean extendsAll = true;
+        for (KbObjectType other : VALUES) {
+          if ((mask & other.mask) != 0 && !other.apiClass.isAssignableFrom(candidate.apiClass)) {
+            extendsAll = false;
+            break;
+          }
+        }
+        if (extendsAll) {
+          return candidate;
+        }
+      }
+    }
+    return null;
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Class<? extends KbObject> apiClass;
+  private final int mask;
+
+  //====|    Construction    |====================================================================//
+
+  private KbObjectType(Class<? extends KbObject> apiClass) {
+    this.apiClass = apiClass;
+    this.mask = 1 << ordinal();
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the KB API interface corresponding to this type, e.g. {@link KbCollection} for
+   * {@link #COLLECTION}.
+   *
+   * @return the KB API interface
+   */
+  public Class<? extends KbObject> getApiClass() {
+    return apiClass;
+  }
+
+  public int getMask() {
+    return mask;
+  }
+
+  /**
+   * Returns whether this type is included in <code>mask</code>.
+   *
+   * @param mask a bitmask, as returned by {@link #maskOf(Object)}
+   *
+   * @return whether <code>mask</code> includes this type
+   */
+  public boolean isIn(int mask) {
+    return (mask & this.mask) != 0;
+  }
+
+}
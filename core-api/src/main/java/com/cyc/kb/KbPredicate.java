@@ -27,7 +27,9 @@ import com.cyc.kb.exception.KbException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.kb.spi.KbPredicateService;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The interface for Cyc predicates. <code>KbPredicates</code> are applied to
@@ -446,6 +448,73 @@ public interface KbPredicate extends Relation {
           Object arg, int argPosition, int valuePosition, 
           Object matchArg, int matchArgPos, Context ctx);
   
+  /**
+   * Batched form of {@link #getValuesForArgPosition(java.lang.Object, int, int, Context) }: for
+   * each of <code>args</code>, gets the objects in the <code>valuePosition</code> argument position
+   * of the facts which use this predicate and have that arg in the <code>argPosition</code> arg
+   * position. This allows joins across predicates to be done client-side without a round trip
+   * per arg.
+   * 
+   * <p>
+   * The default implementation simply calls <code>getValuesForArgPosition</code> once per arg;
+   * implementations should override it to retrieve all of the values in a single request.
+   *
+   * @param   <O>            the type of the objects returned
+   * @param   args           the objects to look up
+   * @param   argPosition    the argument position of each arg in the candidate facts
+   * @param   valuePosition  the argument position of the returned objects in the candidate facts
+   * @param   ctx            the context where the facts are found. If null, returns facts from
+   *                         the default context {@link com.cyc.kb.DefaultContext#forQuery()}
+   * 
+   * @return  a map from each of <code>args</code>, in iteration order, to the (possibly empty)
+   *          collection of its values
+   * 
+   * @see     #getValuesForArgsWithMatchArg(java.util.Collection, int, int, java.lang.Object, int,
+   *          com.cyc.kb.Context)
+   */
+  default <O> Map<Object, Collection<O>> getValuesForArgs(
+          Collection<?> args, int argPosition, int valuePosition, Context ctx) {
+    final Map<Object, Collection<O>> results = new LinkedHashMap<>();
+    for (Object arg : args) {
+      if (!results.containsKey(arg)) {
+        results.put(arg, getValuesForArgPosition(arg, argPosition, valuePosition, ctx));
+      }
+    }
+    return results;
+  }
+  
+  /**
+   * Batched form of
+   * {@link #getValuesForArgPositionWithMatchArg(java.lang.Object, int, int, java.lang.Object, int,
+   * com.cyc.kb.Context) }, which returns the values for each of <code>args</code>. As with
+   * {@link #getValuesForArgs(java.util.Collection, int, int, com.cyc.kb.Context) }, the default
+   * implementation makes one call per arg.
+   *
+   * @param   <O>            the type of the objects returned
+   * @param   args           the objects to look up
+   * @param   argPosition    the argument position of each arg in the candidate facts
+   * @param   valuePosition  the argument position of the returned objects in the candidate facts
+   * @param   matchArg       the object in the argument position matchArgPos
+   * @param   matchArgPos    the argument position that must be filled with matchArg
+   * @param   ctx            the context. If null, returns facts from the default context
+   *                         {@link com.cyc.kb.DefaultContext#forQuery()}
+   * 
+   * @return  a map from each of <code>args</code>, in iteration order, to the (possibly empty)
+   *          collection of its values
+   */
+  default <O> Map<Object, Collection<O>> getValuesForArgsWithMatchArg(
+          Collection<?> args, int argPosition, int valuePosition,
+          Object matchArg, int matchArgPos, Context ctx) {
+    final Map<Object, Collection<O>> results = new LinkedHashMap<>();
+    for (Object arg : args) {
+      if (!results.containsKey(arg)) {
+        results.put(arg, getValuesForArgPositionWithMatchArg(
+                arg, argPosition, valuePosition, matchArg, matchArgPos, ctx));
+      }
+    }
+    return results;
+  }
+  
   /* *
    * Similar to {@link #getValuesForArgPosition(java.lang.Object, int, int, com.cyc.kb.Context) }, but ______
    * 
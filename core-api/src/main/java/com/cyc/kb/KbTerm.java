@@ -10,6 +10,8 @@ import com.cyc.kb.spi.KbTermService;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /*
  * #%L
@@ -56,6 +58,42 @@ public interface KbTerm extends KbObjectWithArity {
   public static KbTerm get(String nameOrId) throws KbTypeException, CreateException {
     return Cyc.getKbTermService().get(nameOrId);
   }
+
+  /**
+   * Get the <code>KbTerm</code> with the name <code>nameOrId</code>, along with the related facts
+   * in <code>profile</code>. This static method wraps a call to
+   * {@link KbTermService#get(java.lang.String, com.cyc.kb.PrefetchProfile) }; see that method's
+   * documentation for more details.
+   *
+   * @param nameOrId the string representation or the HLID of the term
+   * @param profile  the related facts to prefetch
+   *
+   * @return a new KbTerm
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  public static KbTerm get(String nameOrId, PrefetchProfile profile)
+          throws KbTypeException, CreateException {
+    return Cyc.getKbTermService().get(nameOrId, profile);
+  }
+
+  /**
+   * Retrieves the requested comments, creator and creation date for each of <code>terms</code>.
+   * This static method wraps a call to
+   * {@link KbTermService#getMetadata(java.util.Collection, java.util.Set, com.cyc.kb.Context) };
+   * see that method's documentation for more details.
+   *
+   * @param terms  the terms
+   * @param fields the metadata to retrieve
+   * @param ctx    the context from which comments are visible
+   *
+   * @return a map from each of <code>terms</code> to its metadata
+   */
+  public static Map<KbTerm, TermMetadata> getMetadata(
+          Collection<? extends KbTerm> terms, Set<TermMetadata.Field> fields, Context ctx) {
+    return Cyc.getKbTermService().getMetadata(terms, fields, ctx);
+  }
   
   public static KbTerm findOrCreate(String nameOrId) throws CreateException, KbTypeException {
     return Cyc.getKbTermService().findOrCreate(nameOrId);
@@ -85,6 +123,20 @@ public interface KbTerm extends KbObjectWithArity {
     return Cyc.getKbTermService().existsAsType(nameOrId);
   }
   
+  /**
+   * Looks up the <code>KbTerm</code> <code>nameOrId</code>, returning an empty Optional rather
+   * than throwing an exception if there is none. This static method wraps a call to
+   * {@link KbTermService#find(java.lang.String) }; see that method's documentation for more
+   * details.
+   *
+   * @param nameOrId the string representation or the HLID of the term
+   *
+   * @return the KbTerm, or an empty Optional
+   */
+  public static Optional<KbTerm> find(String nameOrId) {
+    return Cyc.getKbTermService().find(nameOrId).map(KbTerm.class::cast);
+  }
+  
   public static KbStatus getStatus(String nameOrId) {
     return Cyc.getKbTermService().getStatus(nameOrId);
   }
@@ -0,0 +1,184 @@
+package com.cyc.kb;
+
+/*
+ * #%L
+ * File: PrefetchProfile.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specifies which related facts should be fetched along with a term when it is resolved via
+ * {@link com.cyc.kb.spi.KbTermService#get(String, PrefetchProfile) }, so that a client which
+ * always reads the same facts about a term (e.g., to render a page about it) need not make a
+ * separate request for each. Prefetched facts are retained for the profile's time-to-live.
+ *
+ * <p>
+ * PrefetchProfiles are immutable. E.g.:
+ *
+ * <pre>
+ * PrefetchProfile profile = PrefetchProfile.of(Facet.COMMENTS, Facet.GENERALIZATIONS)
+ *         .withTtl(1, TimeUnit.MINUTES);
+ * KbTerm dog = KbTerm.get("Dog", profile);
+ * </pre>
+ */
+public final class PrefetchProfile {
+
+  //====|    Facet enum    |======================================================================//
+
+  /**
+   * A related fact which may be prefetched. Each facet corresponds to a no-argument KB API method;
+   * facets whose method a term does not support (e.g., {@link #GENERALIZATIONS} for a
+   * KbIndividual) are ignored for that term.
+   */
+  public static enum Facet {
+    COMMENTS("getComments"),
+    INSTANCE_OF("instanceOf"),
+    QUOTED_ISA("getQuotedIsa"),
+    GENERALIZATIONS("getGeneralizations"),
+    SPECIALIZATIONS("getSpecializations");
+
+    private final String methodName;
+
+    private Facet(String methodName) {
+      this.methodName = methodName;
+    }
+
+    /**
+     * Returns the name of the no-argument method whose result this facet prefetches.
+     *
+     * @return the method name
+     */
+    public String getMethodName() {
+      return methodName;
+    }
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * The default time-to-live for prefetched facts, in seconds.
+   */
+  public static final long DEFAULT_TTL_SECONDS = 300;
+
+  /**
+   * A profile which prefetches nothing.
+   */
+  public static final PrefetchProfile NONE
+          = new PrefetchProfile(EnumSet.noneOf(Facet.class), DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+
+  /**
+   * A profile which prefetches the facts typically shown on a page about a term: its comments,
+   * the collections it is an instance of (both directly and quoted), and its generalizations.
+   */
+  public static final PrefetchProfile TERM_PAGE = of(
+          Facet.COMMENTS, Facet.INSTANCE_OF, Facet.QUOTED_ISA, Facet.GENERALIZATIONS);
+
+  public static PrefetchProfile of(Facet facet, Facet... facets) {
+    return new PrefetchProfile(EnumSet.of(facet, facets), DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Set<Facet> facets;
+  private final long ttlNanos;
+
+  //====|    Construction    |====================================================================//
+
+  private PrefetchProfile(EnumSet<Facet> facets, long ttl, TimeUnit unit) {
+    if (ttl <= 0) {
+      throw new IllegalArgumentException("TTL must be positive: " + ttl);
+    }
+    this.facets = Collections.unmodifiableSet(facets);
+    this.ttlNanos = Objects.requireNonNull(unit, "TimeUnit must not be null").toNanos(ttl);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Set<Facet> getFacets() {
+    return facets;
+  }
+
+  public boolean includes(Facet facet) {
+    return facets.contains(facet);
+  }
+
+  public boolean isEmpty() {
+    return facets.isEmpty();
+  }
+
+  public long getTtl(TimeUnit unit) {
+    return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns a copy of this profile which retains prefetched facts for the specified duration.
+   *
+   * @param ttl  the time-to-live
+   * @param unit the unit of <code>ttl</code>
+   *
+   * @return a new PrefetchProfile
+   */
+  public PrefetchProfile withTtl(long ttl, TimeUnit unit) {
+    return new PrefetchProfile(copyOf(facets), ttl, unit);
+  }
+
+  /**
+   * Returns a copy of this profile which also prefetches <code>facet</code>.
+   *
+   * @param facet the facet to add
+   *
+   * @return a new PrefetchProfile
+   */
+  public PrefetchProfile with(Facet facet) {
+    final EnumSet<Facet> result = copyOf(facets);
+    result.add(facet);
+    return new PrefetchProfile(result, ttlNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof PrefetchProfile)) {
+      return false;
+    }
+    final PrefetchProfile other = (PrefetchProfile) obj;
+    return facets.equals(other.facets) && ttlNanos == other.ttlNanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return facets.hashCode() * 31 + Long.hashCode(ttlNanos);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + facets;
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static EnumSet<Facet> copyOf(Set<Facet> facets) {
+    return facets.isEmpty() ? EnumSet.noneOf(Facet.class) : EnumSet.copyOf(facets);
+  }
+
+}
@@ -2,6 +2,7 @@ package com.cyc.kb;
 
 import com.cyc.Cyc;
 import com.cyc.kb.KbObject.KbObjectWithArity;
+import com.cyc.kb.cycl.CycLFormula;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbException;
 import com.cyc.kb.exception.KbTypeException;
@@ -65,6 +66,24 @@ public interface Sentence extends KbObjectWithArity {
     return Cyc.getSentenceService().get(sentStr);
   }
 
+  /**
+   * Converts a locally-parsed CycL formula into a Sentence. This static method wraps a call to
+   * {@link SentenceService#get(com.cyc.kb.cycl.CycLFormula) }; see that method's documentation for
+   * more details.
+   *
+   * @param formula the parsed formula, e.g. from {@link com.cyc.kb.cycl.CycLParser}
+   *
+   * @return a Sentence object
+   *
+   * @throws com.cyc.kb.exception.KbTypeException
+   *
+   * @throws CreateException                      if the formula could not be converted into a
+   *                                              Sentence
+   */
+  public static Sentence get(CycLFormula formula) throws KbTypeException, CreateException {
+    return Cyc.getSentenceService().get(formula);
+  }
+
   /**
    * Builds a sentence based on <code>pred</code> and other <code>args</code>. This static
    * method wraps a call to {@link SentenceService#get(com.cyc.kb.Relation, java.lang.Object...) };
@@ -0,0 +1,196 @@
+package com.cyc.kb;
+
+/*
+ * #%L
+ * File: TermMetadata.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The bookkeeping information about a term which is typically displayed alongside it: its comments,
+ * its creator, and its creation date. Obtained for many terms at once via
+ * {@link KbTerm#getMetadata(Collection, Set, Context) }, so that e.g. a page listing hundreds of
+ * terms need not make three requests per term.
+ *
+ * <p>
+ * Only the requested {@link Field}s are populated; the others are <code>null</code>.
+ * TermMetadata objects are immutable.
+ */
+public final class TermMetadata {
+
+  //====|    Field enum    |======================================================================//
+
+  /**
+   * An item of term metadata, which may be included in or excluded from a bulk request.
+   */
+  public static enum Field {
+    /**
+     * The term's comments, as per {@link KbTerm#getComments(Context) }.
+     */
+    COMMENTS,
+    /**
+     * The term's creator, as per {@link KbTerm#getCreator() }.
+     */
+    CREATOR,
+    /**
+     * The term's creation date, as per {@link KbTerm#getCreationDate() }.
+     */
+    CREATION_DATE;
+
+    /**
+     * Every field.
+     *
+     * @return a new set of all fields
+     */
+    public static Set<Field> all() {
+      return EnumSet.allOf(Field.class);
+    }
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Retrieves the requested metadata for <code>term</code> by calling the corresponding
+   * {@link KbTerm} methods. This is the default way of populating a TermMetadata, used by
+   * {@link com.cyc.kb.spi.KbTermService#getMetadata(Collection, Set, Context) }; implementations
+   * which retrieve the metadata for many terms in one request should use
+   * {@link #TermMetadata(KbTerm, Set, Collection, KbIndividual, Date) }.
+   *
+   * @param term   the term
+   * @param fields the fields to retrieve
+   * @param ctx    the context from which comments are visible
+   *
+   * @return the term's metadata
+   */
+  public static TermMetadata fetch(KbTerm term, Set<Field> fields, Context ctx) {
+    return new TermMetadata(
+            term,
+            fields,
+            fields.contains(Field.COMMENTS) ? term.getComments(ctx) : null,
+            fields.contains(Field.CREATOR) ? term.getCreator() : null,
+            fields.contains(Field.CREATION_DATE) ? term.getCreationDate() : null);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbTerm term;
+  private final Set<Field> fields;
+  private final Collection<String> comments;
+  private final KbIndividual creator;
+  private final Date creationDate;
+
+  //====|    Construction    |====================================================================//
+
+  /**
+   * Creates a TermMetadata. Values for fields which are not in <code>fields</code> are ignored.
+   *
+   * @param term         the term
+   * @param fields       the fields which were retrieved
+   * @param comments     the term's comments
+   * @param creator      the term's creator, or <code>null</code> if unknown
+   * @param creationDate the term's creation date, or <code>null</code> if unknown
+   */
+  public TermMetadata(KbTerm term, Set<Field> fields, Collection<String> comments,
+                      KbIndividual creator, Date creationDate) {
+    this.term = Objects.requireNonNull(term, "Term must not be null");
+    this.fields = fields.isEmpty()
+                          ? Collections.emptySet()
+                          : Collections.unmodifiableSet(EnumSet.copyOf(fields));
+    this.comments = (this.fields.contains(Field.COMMENTS))
+                            ? ((comments != null)
+                                       ? Collections.unmodifiableCollection(comments)
+                                       : Collections.emptyList())
+                            : null;
+    this.creator = (this.fields.contains(Field.CREATOR)) ? creator : null;
+    this.creationDate = (this.fields.contains(Field.CREATION_DATE) && creationDate != null)
+                                ? new Date(creationDate.getTime())
+                                : null;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public KbTerm getTerm() {
+    return term;
+  }
+
+  /**
+   * Returns the fields which were retrieved for this term.
+   *
+   * @return the retrieved fields
+   */
+  public Set<Field> getFields() {
+    return fields;
+  }
+
+  public boolean includes(Field field) {
+    return fields.contains(field);
+  }
+
+  /**
+   * Returns the term's comments.
+   *
+   * @return the comments, or <code>null</code> if {@link Field#COMMENTS} was not requested
+   */
+  public Collection<String> getComments() {
+    return comments;
+  }
+
+  /**
+   * Returns the term's creator.
+   *
+   * @return the creator, or <code>null</code> if unknown or if {@link Field#CREATOR} was not
+   *         requested
+   */
+  public KbIndividual getCreator() {
+    return creator;
+  }
+
+  /**
+   * Returns the term's creation date.
+   *
+   * @return the creation date, or <code>null</code> if unknown or if {@link Field#CREATION_DATE}
+   *         was not requested
+   */
+  public Date getCreationDate() {
+    return (creationDate != null) ? new Date(creationDate.getTime()) : null;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(getClass().getSimpleName())
+            .append('[').append(term);
+    if (comments != null) {
+      sb.append(", comments=").append(comments.size());
+    }
+    if (includes(Field.CREATOR)) {
+      sb.append(", creator=").append(creator);
+    }
+    if (includes(Field.CREATION_DATE)) {
+      sb.append(", creationDate=").append(creationDate);
+    }
+    return sb.append(']').toString();
+  }
+
+}
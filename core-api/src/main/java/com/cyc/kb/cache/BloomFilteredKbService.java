@@ -0,0 +1,99 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: BloomFilteredKbService.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.event.KbChangeEventSource;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.kb.spi.KbService;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link KbService} which answers {@link #existsInKb(String) } with <code>false</code>, without
+ * contacting the Cyc server, when a {@link KbNameBloomFilter} shows that the name or ID is
+ * certainly absent. Possible matches, strings which are not atomic constant names or IDs (see
+ * {@link KbNameBloomFilter#isFilterable}), and all other calls are delegated.
+ *
+ * <p>
+ * For example, for an entity-linking pipeline which mostly checks strings that are not constants:
+ * <pre>
+ * KbNameBloomFilter names = KbNameBloomFilter.fromDump(Paths.get("constants.txt"), 0.001);
+ * KbService kb = new BloomFilteredKbService(Cyc.getKbService(), names);
+ * </pre>
+ */
+public class BloomFilteredKbService implements KbService {
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbService delegate;
+  private final KbNameBloomFilter filter;
+
+  //====|    Construction    |====================================================================//
+
+  public BloomFilteredKbService(KbService delegate, KbNameBloomFilter filter) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate must not be null");
+    this.filter = Objects.requireNonNull(filter, "Filter must not be null");
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public KbNameBloomFilter getFilter() {
+    return filter;
+  }
+
+  @Override
+  public boolean existsInKb(String nameOrId) {
+    return filter.mightContain(nameOrId) && delegate.existsInKb(nameOrId);
+  }
+
+  @Override
+  public Object getKbObject(String cycLOrId) throws KbTypeException, CreateException {
+    return delegate.getKbObject(cycLOrId);
+  }
+
+  @Override
+  public Object getApiObject(Object cycLOrId) throws KbTypeException, CreateException {
+    return delegate.getApiObject(cycLOrId);
+  }
+
+  @Override
+  public Object getApiObject(String cycLOrId) throws KbTypeException, CreateException {
+    return delegate.getApiObject(cycLOrId);
+  }
+
+  @Override
+  public Object getApiObjectDwim(String cycLOrId) throws KbTypeException, CreateException {
+    return delegate.getApiObjectDwim(cycLOrId);
+  }
+
+  @Override
+  public void clearCache() {
+    delegate.clearCache();
+  }
+
+  @Override
+  public Optional<KbChangeEventSource> getChangeEventSource() {
+    return delegate.getChangeEventSource();
+  }
+
+}
@@ -0,0 +1,148 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: BloomFilteredKbTermService.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.KbCollection;
+import com.cyc.kb.KbStatus;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.PrefetchProfile;
+import com.cyc.kb.TermMetadata;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbObjectNotFoundException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.kb.spi.KbTermService;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link KbTermService} which consults a {@link KbNameBloomFilter} before delegating existence
+ * checks and lookups. Names and IDs which the filter shows to be certainly absent are reported as
+ * {@link KbStatus#DOES_NOT_EXIST} without contacting the Cyc server; <code>get</code> throws a
+ * {@link KbObjectNotFoundException} for them, and <code>find</code> returns an empty Optional.
+ * Terms created or found via <code>findOrCreate</code> are added to the filter, along with their
+ * HLIDs. Only atomic constant names and IDs are ruled out by the filter; anything else, such as a
+ * non-atomic term or a variable, is always delegated (see {@link KbNameBloomFilter#isFilterable}).
+ */
+public class BloomFilteredKbTermService implements KbTermService {
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbTermService delegate;
+  private final KbNameBloomFilter filter;
+
+  //====|    Construction    |====================================================================//
+
+  public BloomFilteredKbTermService(KbTermService delegate, KbNameBloomFilter filter) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate must not be null");
+    this.filter = Objects.requireNonNull(filter, "Filter must not be null");
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public KbNameBloomFilter getFilter() {
+    return filter;
+  }
+
+  @Override
+  public KbTerm get(String nameOrId) throws KbTypeException, CreateException {
+    if (!filter.mightContain(nameOrId)) {
+      throw new KbObjectNotFoundException("No KB term named " + nameOrId);
+    }
+    return delegate.get(nameOrId);
+  }
+
+  @Override
+  public KbTerm get(String nameOrId, PrefetchProfile profile)
+          throws KbTypeException, CreateException {
+    if (!filter.mightContain(nameOrId)) {
+      throw new KbObjectNotFoundException("No KB term named " + nameOrId);
+    }
+    return delegate.get(nameOrId, profile);
+  }
+
+  @Override
+  public Map<KbTerm, TermMetadata> getMetadata(
+          Collection<? extends KbTerm> terms, Set<TermMetadata.Field> fields, Context ctx) {
+    return delegate.getMetadata(terms, fields, ctx);
+  }
+
+  @Override
+  public Optional<? extends KbTerm> find(String nameOrId) {
+    return filter.mightContain(nameOrId) ? delegate.find(nameOrId) : Optional.empty();
+  }
+
+  @Override
+  public boolean existsAsType(String nameOrId) {
+    return filter.mightContain(nameOrId) && delegate.existsAsType(nameOrId);
+  }
+
+  @Override
+  public KbStatus getStatus(String nameOrId) {
+    return filter.mightContain(nameOrId)
+                   ? delegate.getStatus(nameOrId)
+                   : KbStatus.DOES_NOT_EXIST;
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId) throws CreateException, KbTypeException {
+    return added(nameOrId, delegate.findOrCreate(nameOrId));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, String constraintColStr)
+          throws CreateException, KbTypeException {
+    return added(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, String constraintColStr, String ctxStr)
+          throws CreateException, KbTypeException {
+    return added(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr, ctxStr));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, KbCollection constraintCol)
+          throws CreateException, KbTypeException {
+    return added(nameOrId, delegate.findOrCreate(nameOrId, constraintCol));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, KbCollection constraintCol, Context ctx)
+          throws CreateException, KbTypeException {
+    return added(nameOrId, delegate.findOrCreate(nameOrId, constraintCol, ctx));
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private KbTerm added(String nameOrId, KbTerm term) {
+    filter.add(nameOrId);
+    if (term != null && term.getId() != null) {
+      filter.add(term.getId());
+    }
+    return term;
+  }
+
+}
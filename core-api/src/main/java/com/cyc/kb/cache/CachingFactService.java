@@ -0,0 +1,188 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: CachingFactService.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Assertion.Direction;
+import com.cyc.kb.Assertion.Strength;
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.Sentence;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.InvalidFormulaInContextException;
+import com.cyc.kb.exception.KbObjectNotFoundException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.kb.spi.FactService;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link FactService} which remembers, in a {@link NegativeLookupCache}, the HLIDs and
+ * formula/context pairs for which the delegate found no fact. Repeated lookups of absent facts,
+ * whether via <code>find</code> or <code>get</code>, are then answered without contacting the Cyc
+ * server until the negative entries expire. Facts created via the <code>findOrCreate</code>
+ * methods are forgotten by the negative cache in every namespace, so that a shared cache's
+ * entries for the same assertion are cleared too.
+ *
+ * <p>
+ * For example:
+ * <pre>
+ * NegativeLookupCache missing = new NegativeLookupCache();
+ * FactService facts = new CachingFactService(Cyc.getFactService(), missing);
+ * Optional&lt;Fact&gt; fact = facts.find(sentence, ctx);
+ * </pre>
+ */
+public class CachingFactService implements FactService {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final String NAMESPACE = "Fact";
+
+  private final FactService delegate;
+  private final NegativeLookupCache missing;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingFactService(FactService delegate, NegativeLookupCache missing) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate must not be null");
+    this.missing = Objects.requireNonNull(missing, "NegativeLookupCache must not be null");
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public NegativeLookupCache getNegativeCache() {
+    return missing;
+  }
+
+  @Override
+  public Optional<Fact> find(String hlid) throws KbTypeException, CreateException {
+    if (missing.isKnownMissing(NAMESPACE, hlid)) {
+      return Optional.empty();
+    }
+    return recordIfMissing(hlid, delegate.find(hlid));
+  }
+
+  @Override
+  public Optional<Fact> find(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException {
+    final String key = keyOf(formula, ctx);
+    if (missing.isKnownMissing(NAMESPACE, key)) {
+      return Optional.empty();
+    }
+    return recordIfMissing(key, delegate.find(formula, ctx));
+  }
+
+  @Override
+  public Optional<Fact> find(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    final String key = keyOf(formulaStr, ctxStr);
+    if (missing.isKnownMissing(NAMESPACE, key)) {
+      return Optional.empty();
+    }
+    return recordIfMissing(key, delegate.find(formulaStr, ctxStr));
+  }
+
+  @Override
+  public Fact get(String hlid) throws KbTypeException, CreateException {
+    return find(hlid).orElseThrow(() -> notFound(hlid));
+  }
+
+  @Override
+  public Fact get(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException, KbObjectNotFoundException {
+    return find(formulaStr, ctxStr).orElseThrow(() -> notFound(keyOf(formulaStr, ctxStr)));
+  }
+
+  @Override
+  public Fact get(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException, KbObjectNotFoundException {
+    return find(formula, ctx).orElseThrow(() -> notFound(keyOf(formula, ctx)));
+  }
+
+  @Override
+  public Fact findOrCreate(String formulaStr)
+          throws CreateException, KbTypeException, InvalidFormulaInContextException {
+    return created(delegate.findOrCreate(formulaStr));
+  }
+
+  @Override
+  public Fact findOrCreate(String formulaStr, String ctxStr)
+          throws CreateException, KbTypeException, InvalidFormulaInContextException {
+    missing.forgetEverywhere(keyOf(formulaStr, ctxStr));
+    return created(delegate.findOrCreate(formulaStr, ctxStr));
+  }
+
+  @Override
+  public Fact findOrCreate(String formulaStr, String ctxStr, Strength strength,
+                           Direction direction)
+          throws CreateException, KbTypeException, InvalidFormulaInContextException {
+    missing.forgetEverywhere(keyOf(formulaStr, ctxStr));
+    return created(delegate.findOrCreate(formulaStr, ctxStr, strength, direction));
+  }
+
+  @Override
+  public Fact findOrCreate(Sentence formula) throws KbTypeException, CreateException {
+    return created(delegate.findOrCreate(formula));
+  }
+
+  @Override
+  public Fact findOrCreate(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException, InvalidFormulaInContextException {
+    missing.forgetEverywhere(keyOf(formula, ctx));
+    return created(delegate.findOrCreate(formula, ctx));
+  }
+
+  @Override
+  public Fact findOrCreate(Sentence formula, Context ctx, Strength strength, Direction direction)
+          throws CreateException, KbTypeException, InvalidFormulaInContextException {
+    missing.forgetEverywhere(keyOf(formula, ctx));
+    return created(delegate.findOrCreate(formula, ctx, strength, direction));
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private Optional<Fact> recordIfMissing(String key, Optional<Fact> result) {
+    if (!result.isPresent()) {
+      missing.recordMissing(NAMESPACE, key);
+    }
+    return result;
+  }
+
+  private Fact created(Fact fact) {
+    if (fact != null) {
+      missing.forgetEverywhere(fact.getId());
+      // A fact created in the default context may have been looked up under another key.
+      if (fact.getContext() != null) {
+        missing.forgetEverywhere(keyOf(fact.getFormula(), fact.getContext()));
+      }
+    }
+    return fact;
+  }
+
+  private static String keyOf(Object formula, Object ctx) {
+    return NegativeLookupCache.formulaKey(formula, ctx);
+  }
+
+  private static KbObjectNotFoundException notFound(String key) {
+    return new KbObjectNotFoundException("No fact found for " + key);
+  }
+
+}
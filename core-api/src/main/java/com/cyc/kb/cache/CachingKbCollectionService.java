@@ -0,0 +1,163 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: CachingKbCollectionService.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.KbCollection;
+import com.cyc.kb.KbStatus;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.PrefetchProfile;
+import com.cyc.kb.TermMetadata;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.kb.spi.KbCollectionService;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A {@link KbCollectionService} which remembers, in a {@link NegativeLookupCache}, the names for
+ * which the delegate found no collection. Subsequent {@link #find(String) } and
+ * {@link #existsAsType(String) } calls for them are answered without contacting the Cyc server
+ * until the negative entries expire. {@link #getStatus(String) } always consults the delegate,
+ * since it distinguishes absent names from names of the wrong type, but records its misses.
+ * Collections created via the <code>findOrCreate</code> methods are forgotten by the negative
+ * cache in every namespace, as lookups of them as terms of other types may now succeed.
+ *
+ * <p>
+ * Misses are recorded in their own namespace, so the NegativeLookupCache may be shared with
+ * services for other types; see {@link CachingKbTermService} for terms in general.
+ */
+public class CachingKbCollectionService implements KbCollectionService {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final String NAMESPACE = "KbCollection";
+
+  private final KbCollectionService delegate;
+  private final NegativeLookupCache missing;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingKbCollectionService(KbCollectionService delegate, NegativeLookupCache missing) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate must not be null");
+    this.missing = Objects.requireNonNull(missing, "NegativeLookupCache must not be null");
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public NegativeLookupCache getNegativeCache() {
+    return missing;
+  }
+
+  @Override
+  public KbCollection get(String nameOrId) throws KbTypeException, CreateException {
+    return delegate.get(nameOrId);
+  }
+
+  @Override
+  public KbTerm get(String nameOrId, PrefetchProfile profile)
+          throws KbTypeException, CreateException {
+    return delegate.get(nameOrId, profile);
+  }
+
+  @Override
+  public Map<KbTerm, TermMetadata> getMetadata(
+          Collection<? extends KbTerm> terms, Set<TermMetadata.Field> fields, Context ctx) {
+    return delegate.getMetadata(terms, fields, ctx);
+  }
+
+  @Override
+  public KbCollection findOrCreate(String nameOrId) throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId));
+  }
+
+  @Override
+  public KbCollection findOrCreate(String nameOrId, String constraintColStr)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr));
+  }
+
+  @Override
+  public KbCollection findOrCreate(String nameOrId, String constraintColStr, String ctxStr)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr, ctxStr));
+  }
+
+  @Override
+  public KbCollection findOrCreate(String nameOrId, KbCollection constraintCol)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintCol));
+  }
+
+  @Override
+  public KbCollection findOrCreate(String nameOrId, KbCollection constraintCol, Context ctx)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintCol, ctx));
+  }
+
+  @Override
+  public boolean existsAsType(String nameOrId) {
+    if (missing.isKnownMissing(NAMESPACE, nameOrId)) {
+      return false;
+    }
+    final boolean result = delegate.existsAsType(nameOrId);
+    if (!result) {
+      missing.recordMissing(NAMESPACE, nameOrId);
+    }
+    return result;
+  }
+
+  @Override
+  public KbStatus getStatus(String nameOrId) {
+    final KbStatus result = delegate.getStatus(nameOrId);
+    if (result != KbStatus.EXISTS_AS_TYPE) {
+      missing.recordMissing(NAMESPACE, nameOrId);
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<KbCollection> find(String nameOrId) {
+    if (missing.isKnownMissing(NAMESPACE, nameOrId)) {
+      return Optional.empty();
+    }
+    final Optional<KbCollection> result = delegate.find(nameOrId);
+    if (!result.isPresent()) {
+      missing.recordMissing(NAMESPACE, nameOrId);
+    }
+    return result;
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private KbCollection created(String nameOrId, KbCollection collection) {
+    missing.forgetEverywhere(nameOrId);
+    if (collection != null) {
+      missing.forgetEverywhere(collection.toString());
+    }
+    return collection;
+  }
+
+}
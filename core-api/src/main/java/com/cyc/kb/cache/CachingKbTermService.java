@@ -0,0 +1,308 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: CachingKbTermService.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.KbCollection;
+import com.cyc.kb.KbObject;
+import com.cyc.kb.KbObjectType;
+import com.cyc.kb.KbStatus;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.PrefetchProfile;
+import com.cyc.kb.TermMetadata;
+import com.cyc.kb.codec.KbObjectResolver;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.kb.spi.KbTermService;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link KbTermService} which consults a {@link MappedTermCache} before delegating to another
+ * KbTermService. Existence checks for cached terms are answered without contacting the Cyc server.
+ * Terms returned by the delegate are added to the cache.
+ *
+ * <p>
+ * Names which are found in the cache are resolved by their HLID. Each term is resolved at most once
+ * per CachingKbTermService; after that, the same KbTerm instance is returned from memory. Terms
+ * which were cached by a previous run are resolved by the {@link KbObjectResolver} supplied at
+ * construction, if any, which lets an implementation that can build terms from their HLIDs avoid
+ * contacting the Cyc server at all. Without a resolver, they are resolved via the delegate.
+ *
+ * <p>
+ * If a {@link NegativeLookupCache} is supplied, names which the delegate reports as absent are
+ * remembered there, and subsequent {@link #find(String) } and {@link #existsAsType(String) } calls
+ * for them are answered without contacting the Cyc server until they expire. Misses are recorded
+ * in their own namespace, so the NegativeLookupCache may be shared with the caching services for
+ * other types. Terms created via the <code>findOrCreate</code> methods are forgotten by the
+ * negative cache in every namespace.
+ *
+ * <p>
+ * For example, to have a worker reuse the terms resolved by its previous run:
+ * <pre>
+ * MappedTermCache cache = MappedTermCache.open(Paths.get("terms.cache"));
+ * KbTermService terms = new CachingKbTermService(Cyc.getKbTermService(), cache);
+ * </pre>
+ */
+public class CachingKbTermService implements KbTermService {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(CachingKbTermService.class);
+
+  private static final String NAMESPACE = "KbTerm";
+
+  private final KbTermService delegate;
+  private final MappedTermCache cache;
+  private final NegativeLookupCache missing;
+  private final KbObjectResolver resolver;
+  private final Map<String, KbTerm> terms = new ConcurrentHashMap<>();
+
+  //====|    Construction    |====================================================================//
+
+  public CachingKbTermService(KbTermService delegate, MappedTermCache cache,
+                              NegativeLookupCache missing, KbObjectResolver resolver) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate must not be null");
+    this.cache = Objects.requireNonNull(cache, "Cache must not be null");
+    this.missing = missing;
+    this.resolver = resolver;
+  }
+
+  public CachingKbTermService(
+          KbTermService delegate, MappedTermCache cache, NegativeLookupCache missing) {
+    this(delegate, cache, missing, null);
+  }
+
+  public CachingKbTermService(KbTermService delegate, MappedTermCache cache) {
+    this(delegate, cache, null);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public MappedTermCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Returns the cache of names known to be absent.
+   *
+   * @return the negative cache, or <code>null</code> if there is none
+   */
+  public NegativeLookupCache getNegativeCache() {
+    return missing;
+  }
+
+  @Override
+  public KbTerm get(String nameOrId) throws KbTypeException, CreateException {
+    final TermCacheEntry entry = cache.get(nameOrId);
+    if (entry != null && entry.isType(KbObjectType.TERM)) {
+      return resolve(entry);
+    }
+    return remember(nameOrId, delegate.get(nameOrId));
+  }
+
+  @Override
+  public KbTerm get(String nameOrId, PrefetchProfile profile)
+          throws KbTypeException, CreateException {
+    final TermCacheEntry entry = cache.get(nameOrId);
+    if (entry != null && entry.isType(KbObjectType.TERM)) {
+      final KbTerm known = terms.get(entry.getId());
+      if (known != null) {
+        return known;
+      }
+      return memoize(delegate.get(entry.getId(), profile));
+    }
+    return remember(nameOrId, delegate.get(nameOrId, profile));
+  }
+
+  /**
+   * Retrieves term metadata from the delegate, and adds each of the terms, and each creator, to
+   * the term cache, so that a page which lists terms and then links to them need not resolve them
+   * again.
+   *
+   * @param terms  the terms
+   * @param fields the metadata to retrieve
+   * @param ctx    the context from which comments are visible
+   *
+   * @return a map from each of <code>terms</code> to its metadata
+   */
+  @Override
+  public Map<KbTerm, TermMetadata> getMetadata(
+          Collection<? extends KbTerm> terms, Set<TermMetadata.Field> fields, Context ctx) {
+    final Map<KbTerm, TermMetadata> results = delegate.getMetadata(terms, fields, ctx);
+    for (TermMetadata metadata : results.values()) {
+      remember(metadata.getTerm().toString(), metadata.getTerm());
+      if (metadata.getCreator() != null) {
+        remember(metadata.getCreator().toString(), metadata.getCreator());
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId) throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, String constraintColStr)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, String constraintColStr, String ctxStr)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintColStr, ctxStr));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, KbCollection constraintCol)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintCol));
+  }
+
+  @Override
+  public KbTerm findOrCreate(String nameOrId, KbCollection constraintCol, Context ctx)
+          throws CreateException, KbTypeException {
+    return created(nameOrId, delegate.findOrCreate(nameOrId, constraintCol, ctx));
+  }
+
+  @Override
+  public boolean existsAsType(String nameOrId) {
+    if (isCached(nameOrId)) {
+      return true;
+    }
+    if (isKnownMissing(nameOrId)) {
+      return false;
+    }
+    final boolean result = delegate.existsAsType(nameOrId);
+    if (!result) {
+      recordMissing(nameOrId);
+    }
+    return result;
+  }
+
+  @Override
+  public KbStatus getStatus(String nameOrId) {
+    if (isCached(nameOrId)) {
+      return KbStatus.EXISTS_AS_TYPE;
+    }
+    final KbStatus result = delegate.getStatus(nameOrId);
+    if (result != KbStatus.EXISTS_AS_TYPE) {
+      recordMissing(nameOrId);
+    }
+    return result;
+  }
+
+  @Override
+  public Optional<? extends KbTerm> find(String nameOrId) {
+    if (isCached(nameOrId)) {
+      try {
+        return Optional.of(get(nameOrId));
+      } catch (KbTypeException | CreateException ex) {
+        LOG.debug("Cached term {} could not be resolved", nameOrId, ex);
+      }
+    } else if (isKnownMissing(nameOrId)) {
+      return Optional.empty();
+    }
+    final Optional<? extends KbTerm> result = delegate.find(nameOrId);
+    if (result.isPresent()) {
+      remember(nameOrId, result.get());
+    } else {
+      recordMissing(nameOrId);
+    }
+    return result;
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private boolean isCached(String nameOrId) {
+    final TermCacheEntry entry = cache.get(nameOrId);
+    return entry != null && entry.isType(KbObjectType.TERM);
+  }
+
+  /**
+   * Returns the term for a cache entry, resolving it only if it has not been seen before.
+   */
+  private KbTerm resolve(TermCacheEntry entry) throws KbTypeException, CreateException {
+    final KbTerm known = terms.get(entry.getId());
+    if (known != null) {
+      return known;
+    }
+    if (resolver != null) {
+      final KbObject resolved = resolver.resolve(entry.getId());
+      if (resolved instanceof KbTerm) {
+        return memoize((KbTerm) resolved);
+      }
+      LOG.debug("Resolver returned {} for cached term {}", resolved, entry);
+    }
+    return memoize(delegate.get(entry.getId()));
+  }
+
+  private KbTerm memoize(KbTerm term) {
+    if (term != null) {
+      terms.put(term.getId(), term);
+    }
+    return term;
+  }
+
+  private boolean isKnownMissing(String nameOrId) {
+    return (missing != null) && missing.isKnownMissing(NAMESPACE, nameOrId);
+  }
+
+  private void recordMissing(String nameOrId) {
+    if (missing != null) {
+      missing.recordMissing(NAMESPACE, nameOrId);
+    }
+  }
+
+  private KbTerm created(String nameOrId, KbTerm term) {
+    if (missing != null) {
+      missing.forgetEverywhere(nameOrId);
+      if (term != null) {
+        missing.forgetEverywhere(term.toString());
+      }
+    }
+    return remember(nameOrId, term);
+  }
+
+  private KbTerm remember(String nameOrId, KbTerm term) {
+    if (term != null) {
+      memoize(term);
+      try {
+        cache.put(nameOrId, term);
+      } catch (IOException ex) {
+        LOG.warn("Could not add {} to term cache {}", nameOrId, cache.getFile(), ex);
+      }
+    }
+    return term;
+  }
+
+}
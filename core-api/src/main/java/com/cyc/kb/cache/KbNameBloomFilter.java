@@ -0,0 +1,356 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: KbNameBloomFilter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.event.KbChangeEvent;
+import com.cyc.kb.event.KbChangeListener;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over KB constant names and HLIDs, for answering most negative existence checks
+ * without contacting the Cyc server. {@link #mightContain(String) } never returns
+ * <code>false</code> for a name or ID which has been added, and returns <code>true</code> for
+ * one which has not with roughly the false-positive probability the filter was sized for.
+ *
+ * <p>
+ * A filter is typically built from a dump of the KB's constant names and IDs, one per line (see
+ * {@link #fromDump(Path, double) }), saved with {@link #writeTo(OutputStream) }, and kept current
+ * by adding the names of terms as they are created. As a {@link KbChangeListener} it also adds the
+ * new names of renamed terms and the IDs referenced by new assertions. Terms which other clients
+ * create between dumps, and which are not reported by a KbChangeEventSource, will be wrongly
+ * reported as absent; rebuild the filter periodically if that matters.
+ *
+ * <p>
+ * Names are normalized by removing any leading <tt>#$</tt>. Only atomic constant names and IDs are
+ * filtered: anything else, such as a non-atomic term like <tt>(#$FruitFn #$AppleTree)</tt> or a
+ * variable, is never reported as absent (see {@link #isFilterable(String) }). The filter is
+ * thread-safe.
+ */
+public final class KbNameBloomFilter implements KbChangeListener {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates an empty filter sized to hold <code>expectedInsertions</code> names with a
+   * false-positive probability of <code>fpp</code>.
+   *
+   * @param expectedInsertions the expected number of names and IDs
+   * @param fpp                the desired false-positive probability, e.g. 0.01
+   *
+   * @return a new KbNameBloomFilter
+   */
+  public static KbNameBloomFilter create(long expectedInsertions, double fpp) {
+    if (expectedInsertions < 0) {
+      throw new IllegalArgumentException(
+              "Expected insertions must not be negative: " + expectedInsertions);
+    }
+    if (!(fpp > 0 && fpp < 1)) {
+      throw new IllegalArgumentException("False-positive probability must be in (0, 1): " + fpp);
+    }
+    final long n = Math.max(1, expectedInsertions);
+    final long bits = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (LN2 * LN2)));
+    if (bits > MAX_BITS) {
+      throw new IllegalArgumentException(
+              "A filter for " + expectedInsertions + " names at fpp " + fpp + " is too large");
+    }
+    final int optimalHashes = (int) Math.round((double) bits / n * LN2);
+    final int numHashes = Math.max(1, Math.min(MAX_HASHES, optimalHashes));
+    return new KbNameBloomFilter(new AtomicLongArray((int) ((bits + 63) / 64)), numHashes);
+  }
+
+  /**
+   * Builds a filter from a text file containing one constant name or HLID per line. Blank lines
+   * are ignored.
+   *
+   * @param dump the dump file
+   * @param fpp  the desired false-positive probability
+   *
+   * @return a new KbNameBloomFilter containing every name and ID in the dump
+   *
+   * @throws IOException if the file cannot be read
+   */
+  public static KbNameBloomFilter fromDump(Path dump, double fpp) throws IOException {
+    long count = 0;
+    try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (!line.trim().isEmpty()) {
+          count++;
+        }
+      }
+    }
+    final KbNameBloomFilter filter = create(count, fpp);
+    try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        final String nameOrId = line.trim();
+        if (!nameOrId.isEmpty()) {
+          filter.add(nameOrId);
+        }
+      }
+    }
+    return filter;
+  }
+
+  /**
+   * Reads a filter written by {@link #writeTo(OutputStream) }.
+   *
+   * @param in the stream to read from; it is not closed
+   *
+   * @return the filter
+   *
+   * @throws IOException if the stream cannot be read or does not contain a filter, or if the
+   *                     stream ends before the number of words given in its header
+   */
+  public static KbNameBloomFilter readFrom(InputStream in) throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    final int magic = data.readInt();
+    final int version = data.readUnsignedByte();
+    if (magic != MAGIC || version != FORMAT_VERSION) {
+      throw new IOException("Not a KbNameBloomFilter (magic " + Integer.toHexString(magic)
+                                    + ", version " + version + ")");
+    }
+    final int numHashes = data.readInt();
+    final int numWords = data.readInt();
+    if (numHashes < 1 || numHashes > MAX_HASHES || numWords < 1) {
+      throw new IOException("Corrupt KbNameBloomFilter: " + numHashes + " hashes, "
+                                    + numWords + " words");
+    }
+    // Read in bounded chunks, so that a corrupt word count fails at the end of the stream rather
+    // than by allocating a huge array up front.
+    final List<long[]> chunks = new ArrayList<>();
+    for (int remaining = numWords; remaining > 0; remaining -= READ_CHUNK_WORDS) {
+      final long[] chunk = new long[Math.min(remaining, READ_CHUNK_WORDS)];
+      for (int i = 0; i < chunk.length; i++) {
+        chunk[i] = data.readLong();
+      }
+      chunks.add(chunk);
+    }
+    final AtomicLongArray words = new AtomicLongArray(numWords);
+    int index = 0;
+    for (long[] chunk : chunks) {
+      for (long word : chunk) {
+        words.set(index++, word);
+      }
+    }
+    return new KbNameBloomFilter(words, numHashes);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final int MAGIC = 0x43594246; // "CYBF"
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final double LN2 = Math.log(2);
+
+  private static final long MAX_BITS = (long) Integer.MAX_VALUE * 64;
+
+  private static final int MAX_HASHES = 255;
+
+  private static final int READ_CHUNK_WORDS = 1 << 20;
+
+  private final AtomicLongArray words;
+  private final long numBits;
+  private final int numHashes;
+
+  //====|    Construction    |====================================================================//
+
+  private KbNameBloomFilter(AtomicLongArray words, int numHashes) {
+    this.words = words;
+    this.numBits = (long) words.length() * 64;
+    this.numHashes = numHashes;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Adds a constant name or HLID.
+   *
+   * @param nameOrId the name or ID
+   */
+  public void add(String nameOrId) {
+    final long hash1 = hash(normalize(nameOrId));
+    final long hash2 = fmix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    long combined = hash1;
+    for (int i = 0; i < numHashes; i++) {
+      final long bit = Math.floorMod(combined, numBits);
+      final long mask = 1L << bit;
+      words.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+      combined += hash2;
+    }
+  }
+
+  public void addAll(Iterable<String> namesOrIds) {
+    for (String nameOrId : namesOrIds) {
+      add(nameOrId);
+    }
+  }
+
+  /**
+   * Returns whether <code>nameOrId</code> may have been added to this filter. A <code>false</code>
+   * result is definite; a <code>true</code> result must be confirmed with the Cyc server.
+   *
+   * @param nameOrId the name or ID
+   *
+   * @return <code>false</code> if <code>nameOrId</code> has certainly not been added; always
+   *         <code>true</code> if it is not {@link #isFilterable(String) filterable}
+   */
+  public boolean mightContain(String nameOrId) {
+    if (!isFilterable(nameOrId)) {
+      return true;
+    }
+    final long hash1 = hash(normalize(nameOrId));
+    final long hash2 = fmix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+    long combined = hash1;
+    for (int i = 0; i < numHashes; i++) {
+      final long bit = Math.floorMod(combined, numBits);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+      combined += hash2;
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether <code>nameOrId</code> is an atomic constant name or HLID, with or without a
+   * <tt>#$</tt> prefix, i.e. the kind of string this filter holds. Strings containing parentheses,
+   * quotes or whitespace, and variables such as <tt>?X</tt>, are not.
+   *
+   * @param nameOrId a string
+   *
+   * @return whether the filter can rule <code>nameOrId</code> out
+   */
+  public static boolean isFilterable(String nameOrId) {
+    final String name = normalize(nameOrId);
+    if (name.isEmpty() || name.charAt(0) == '?') {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      if (c == '(' || c == ')' || c == '"' || Character.isWhitespace(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Estimates the current false-positive probability from the fraction of bits which are set.
+   *
+   * @return the estimated false-positive probability
+   */
+  public double getExpectedFpp() {
+    long setBits = 0;
+    for (int i = 0; i < words.length(); i++) {
+      setBits += Long.bitCount(words.get(i));
+    }
+    return Math.pow((double) setBits / numBits, numHashes);
+  }
+
+  public long getNumBits() {
+    return numBits;
+  }
+
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  /**
+   * Writes this filter in a compact binary form which {@link #readFrom(InputStream) } can read.
+   *
+   * @param out the stream to write to; it is flushed but not closed
+   *
+   * @throws IOException if the stream cannot be written
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeByte(FORMAT_VERSION);
+    data.writeInt(numHashes);
+    data.writeInt(words.length());
+    for (int i = 0; i < words.length(); i++) {
+      data.writeLong(words.get(i));
+    }
+    data.flush();
+  }
+
+  @Override
+  public void kbChanged(KbChangeEvent event) {
+    switch (event.getType()) {
+      case ASSERTED:
+        addAll(event.getReferencedIds());
+        break;
+      case RENAMED:
+        add(event.getId());
+        if (event.getName() != null) {
+          add(event.getName());
+        }
+        break;
+      default:
+        // A Bloom filter cannot forget; removed terms remain possible matches.
+        break;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+                   + "[bits=" + numBits + ", hashes=" + numHashes
+                   + ", expectedFpp=" + getExpectedFpp() + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static String normalize(String nameOrId) {
+    return nameOrId.startsWith("#$") ? nameOrId.substring(2) : nameOrId;
+  }
+
+  private static long hash(String str) {
+    long h = 0xCBF29CE484222325L;
+    for (int i = 0; i < str.length(); i++) {
+      h ^= str.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    return fmix(h);
+  }
+
+  private static long fmix(long k) {
+    k ^= k >>> 33;
+    k *= 0xFF51AFD7ED558CCDL;
+    k ^= k >>> 33;
+    k *= 0xC4CEB9FE1A85EC53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+}
@@ -0,0 +1,621 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: MappedTermCache.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.codec.VarInts;
+import com.cyc.kb.event.KbChangeEvent;
+import com.cyc.kb.event.KbChangeListener;
+import com.cyc.kb.exception.KbCodecException;
+import com.cyc.session.CycSession;
+import com.cyc.session.exception.SessionException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent cache of term names, HLIDs and {@link com.cyc.kb.KbObjectType} masks, stored in a
+ * memory-mapped file so that it survives JVM restarts. Each file is stamped with the KB version
+ * string of the Cyc server whose terms it contains (see
+ * {@link com.cyc.session.CycServerInfo#getCycKbVersionString() }); if the version differs when the
+ * file is opened or {@link #validate(java.lang.String) validated}, the cache is discarded. Caches
+ * opened via {@link #open(java.nio.file.Path) } also re-check the version of the current session's
+ * Cyc server on lookup, at most once per {@link #getVersionCheckInterval() version check interval},
+ * so that a long-running process notices when its Cyc server is switched to a new KB.
+ *
+ * <p>
+ * Entries are appended to the file as they are added, and the index of names and IDs is rebuilt
+ * from the file when it is opened. Records which were only partially written (e.g. because the JVM
+ * died) are ignored. Replaced and invalidated entries leave dead records behind, so once they
+ * outnumber the live entries, on opening or while adding, the file is {@link #compact() compacted}.
+ *
+ * <p>
+ * Individual terms can be removed via {@link #invalidate(java.lang.String) }. The cache is also a
+ * {@link KbChangeListener}, so it can be subscribed to a
+ * {@link com.cyc.kb.event.KbChangeEventSource} to drop terms which are renamed or killed, or whose
+ * types may have been changed by an <code>#$isa</code> or <code>#$genls</code> assertion.
+ *
+ * <p>
+ * This class is thread-safe. Each cache file holds an exclusive lock while it is open, so a file
+ * which is already open in another MappedTermCache, in this JVM or another, cannot be opened again.
+ *
+ * @see CachingKbTermService
+ */
+public class MappedTermCache implements Closeable, KbChangeListener {
+
+  //====|    Static methods    |==================================================================//
+
+  /**
+   * Opens or creates a cache file for the KB version of the current session's Cyc server.
+   *
+   * @param file the cache file
+   *
+   * @return an open MappedTermCache
+   *
+   * @throws IOException      if the file cannot be opened or mapped
+   * @throws SessionException if the KB version cannot be retrieved from the Cyc server
+   */
+  public static MappedTermCache open(Path file) throws IOException, SessionException {
+    final MappedTermCache cache = open(file, currentKbVersion());
+    cache.kbVersionSource = MappedTermCache::currentKbVersion;
+    cache.scheduleVersionCheck();
+    return cache;
+  }
+
+  /**
+   * Opens or creates a cache file for KB version <code>kbVersion</code>. If the file exists but was
+   * written for a different KB version, it is cleared.
+   *
+   * @param file      the cache file
+   * @param kbVersion the KB version string
+   *
+   * @return an open MappedTermCache
+   *
+   * @throws IOException if the file cannot be opened or mapped, or is already open
+   */
+  public static MappedTermCache open(Path file, String kbVersion) throws IOException {
+    final FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      lock(file, channel);
+      return new MappedTermCache(file, channel, kbVersion);
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the KB version string of the current session's Cyc server.
+   *
+   * @return the KB version string
+   *
+   * @throws SessionException if the KB version cannot be retrieved from the Cyc server
+   */
+  public static String currentKbVersion() throws SessionException {
+    return CycSession.getCurrent().getServerInfo().getCycKbVersionString();
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(MappedTermCache.class);
+
+  private static final int MAGIC = 0x43594354; // "CYCT"
+  private static final int FORMAT_VERSION = 1;
+  private static final int OFFSET_MAGIC = 0;
+  private static final int OFFSET_FORMAT_VERSION = 4;
+  private static final int OFFSET_DATA_END = 8;
+  private static final int OFFSET_KB_VERSION = 16;
+  private static final int MAX_KB_VERSION_BYTES = 256;
+  private static final int HEADER_SIZE = 512;
+  private static final int INITIAL_SIZE = 4 * 1024 * 1024;
+
+  /**
+   * The number of records below which the file is never compacted automatically.
+   */
+  private static final int MIN_COMPACTION_RECORDS = 1024;
+
+  /**
+   * The default interval between automatic checks of the Cyc server's KB version.
+   */
+  public static final long DEFAULT_VERSION_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /**
+   * Predicates whose assertions may change the {@link com.cyc.kb.KbObjectType}s of their arguments.
+   */
+  private static final Set<String> TYPE_PREDICATES
+          = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("isa", "genls")));
+
+  private final Path file;
+  private final FileChannel channel;
+  private final Map<String, TermCacheEntry> byName = new ConcurrentHashMap<>();
+  private final Map<String, TermCacheEntry> byId = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> namesById = new HashMap<>();
+  private MappedByteBuffer buffer;
+  private String kbVersion;
+  private int dataEnd;
+  private int size;
+  private int records;
+  private volatile Callable<String> kbVersionSource;
+  private volatile long versionCheckIntervalMillis = DEFAULT_VERSION_CHECK_INTERVAL_MILLIS;
+  private volatile long nextVersionCheckNanos;
+
+  //====|    Construction    |====================================================================//
+
+  private MappedTermCache(Path file, FileChannel channel, String kbVersion) throws IOException {
+    this.file = file;
+    this.channel = channel;
+    this.buffer = channel.map(
+            FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+    if (!load(kbVersion)) {
+      reset(kbVersion);
+    }
+    compactIfWasteful();
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Looks up a term by the name it was requested by, or by its HLID.
+   *
+   * @param nameOrId a name or HLID
+   *
+   * @return the entry, or <code>null</code> if the term is not cached
+   */
+  public TermCacheEntry get(String nameOrId) {
+    if (kbVersionSource != null && System.nanoTime() - nextVersionCheckNanos >= 0) {
+      checkVersion();
+    }
+    final TermCacheEntry entry = byName.get(nameOrId);
+    return (entry != null) ? entry : byId.get(nameOrId);
+  }
+
+  /**
+   * Records that <code>name</code> resolved to <code>term</code>.
+   *
+   * @param name the name or ID by which the term was requested
+   * @param term the resolved term
+   *
+   * @throws IOException if the file cannot be extended
+   */
+  public void put(String name, KbObject term) throws IOException {
+    put(TermCacheEntry.of(name, term));
+  }
+
+  /**
+   * Adds an entry, unless an identical entry is already cached.
+   *
+   * @param entry the entry
+   *
+   * @throws IOException if the file cannot be extended
+   */
+  public synchronized void put(TermCacheEntry entry) throws IOException {
+    if (entry.equals(byName.get(entry.getName()))) {
+      return;
+    }
+    writeRecord(entry);
+    addToIndex(entry);
+    compactIfWasteful();
+  }
+
+  /**
+   * Removes the entry for the name <code>nameOrId</code>, as well as every entry for the HLID
+   * <code>nameOrId</code>.
+   *
+   * @param nameOrId a name or HLID
+   *
+   * @return the number of entries removed
+   *
+   * @throws IOException if the removal could not be recorded in the file; the entries will
+   *                     nevertheless have been removed from memory
+   */
+  public synchronized int invalidate(String nameOrId) throws IOException {
+    final Set<String> names = new LinkedHashSet<>();
+    if (byName.containsKey(nameOrId)) {
+      names.add(nameOrId);
+    }
+    names.addAll(namesById.getOrDefault(nameOrId, Collections.emptySet()));
+    for (String name : names) {
+      removeFromIndex(name);
+    }
+    for (String name : names) {
+      writeTombstone(name);
+    }
+    compactIfWasteful();
+    return names.size();
+  }
+
+  /**
+   * Rewrites the file so that it holds only the live entries, discarding replaced entries and
+   * invalidation records. This is done automatically once dead records outnumber live entries. If
+   * the JVM dies during compaction, the file is left empty rather than corrupt.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public synchronized void compact() throws IOException {
+    final int before = records;
+    setDataEnd(HEADER_SIZE);
+    buffer.force();
+    records = 0;
+    for (TermCacheEntry entry : byName.values()) {
+      writeRecord(entry);
+    }
+    LOG.debug("Compacted term cache {} from {} records to {}", file, before, records);
+  }
+
+  @Override
+  public void kbChanged(KbChangeEvent event) {
+    try {
+      switch (event.getType()) {
+        case RENAMED:
+        case KILLED:
+          invalidate(event.getId());
+          if (event.getPreviousName() != null) {
+            invalidate(event.getPreviousName());
+          }
+          break;
+        case ASSERTED:
+        case UNASSERTED:
+          if (mayChangeTypes(event)) {
+            for (String id : event.getReferencedIds()) {
+              invalidate(id);
+            }
+          }
+          break;
+      }
+    } catch (IOException ex) {
+      LOG.warn("Could not record invalidation in term cache {} for {}", file, event, ex);
+    }
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return the number of entries
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  public synchronized String getKbVersion() {
+    return kbVersion;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Clears the cache if <code>currentKbVersion</code> differs from the version it was written for.
+   *
+   * @param currentKbVersion the current KB version string
+   *
+   * @return true if the cache was retained, false if it was cleared
+   */
+  public synchronized boolean validate(String currentKbVersion) {
+    if (Objects.equals(kbVersion, currentKbVersion)) {
+      return true;
+    }
+    LOG.info("KB version changed from {} to {}; clearing term cache {}",
+            kbVersion, currentKbVersion, file);
+    reset(currentKbVersion);
+    return false;
+  }
+
+  /**
+   * Clears the cache if the KB version of the current session's Cyc server differs from the
+   * version it was written for.
+   *
+   * @return true if the cache was retained, false if it was cleared
+   *
+   * @throws SessionException if the KB version cannot be retrieved from the Cyc server
+   */
+  public boolean validate() throws SessionException {
+    return validate(currentKbVersion());
+  }
+
+  /**
+   * Returns the minimum interval between automatic KB version checks. Only caches opened via
+   * {@link #open(java.nio.file.Path) } check the KB version automatically.
+   *
+   * @return the interval in milliseconds
+   */
+  public long getVersionCheckInterval() {
+    return versionCheckIntervalMillis;
+  }
+
+  /**
+   * Sets the minimum interval between automatic KB version checks.
+   *
+   * @param interval the interval
+   * @param unit     the unit of <code>interval</code>
+   *
+   * @throws IllegalArgumentException if <code>interval</code> is negative
+   */
+  public void setVersionCheckInterval(long interval, TimeUnit unit) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("Interval must not be negative: " + interval);
+    }
+    this.versionCheckIntervalMillis = unit.toMillis(interval);
+    scheduleVersionCheck();
+  }
+
+  public synchronized void clear() {
+    reset(kbVersion);
+  }
+
+  /**
+   * Forces any changes to be written to the storage device.
+   */
+  public synchronized void flush() {
+    buffer.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + file + ", " + getKbVersion() + ", " + size()
+                   + " entries]";
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private static void lock(Path file, FileChannel channel) throws IOException {
+    final FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException ex) {
+      throw new IOException("Term cache " + file + " is already open in this JVM", ex);
+    }
+    if (lock == null) {
+      throw new IOException("Term cache " + file + " is locked by another process");
+    }
+  }
+
+  private void scheduleVersionCheck() {
+    nextVersionCheckNanos = System.nanoTime()
+                                    + TimeUnit.MILLISECONDS.toNanos(versionCheckIntervalMillis);
+  }
+
+  /**
+   * Validates the cache against the current KB version. Failures are logged, and the cache is
+   * retained until the next check.
+   */
+  private void checkVersion() {
+    final Callable<String> source = kbVersionSource;
+    synchronized (this) {
+      if (System.nanoTime() - nextVersionCheckNanos < 0) {
+        return;
+      }
+      scheduleVersionCheck();
+    }
+    try {
+      validate(source.call());
+    } catch (Exception ex) {
+      LOG.warn("Could not check the KB version for term cache {}", file, ex);
+    }
+  }
+
+  /**
+   * Rebuilds the index from the file, returning false if the file is new, malformed, or was written
+   * for a different KB version.
+   */
+  private boolean load(String expectedKbVersion) {
+    if (buffer.getInt(OFFSET_MAGIC) != MAGIC
+                || buffer.getInt(OFFSET_FORMAT_VERSION) != FORMAT_VERSION) {
+      return false;
+    }
+    final ByteBuffer in = buffer.duplicate();
+    try {
+      in.position(OFFSET_KB_VERSION);
+      final int versionLength = VarInts.readUnsignedInt(in);
+      if (versionLength > MAX_KB_VERSION_BYTES) {
+        return false;
+      }
+      final String storedVersion = readString(in, versionLength);
+      if (!storedVersion.equals(expectedKbVersion)) {
+        LOG.info("Term cache {} was written for KB version {}, not {}; clearing it",
+                file, storedVersion, expectedKbVersion);
+        return false;
+      }
+      final long end = buffer.getLong(OFFSET_DATA_END);
+      if (end < HEADER_SIZE || end > buffer.capacity()) {
+        return false;
+      }
+      in.position(HEADER_SIZE).limit((int) end);
+      while (in.hasRemaining()) {
+        final String name = readString(in, VarInts.readUnsignedInt(in));
+        final String id = readString(in, VarInts.readUnsignedInt(in));
+        if (id.isEmpty()) {
+          removeFromIndex(name);
+        } else {
+          addToIndex(new TermCacheEntry(name, id, (int) VarInts.readUnsigned(in)));
+        }
+        records++;
+      }
+      this.kbVersion = storedVersion;
+      this.dataEnd = (int) end;
+      return true;
+    } catch (KbCodecException | IllegalArgumentException ex) {
+      LOG.warn("Term cache {} is corrupt; clearing it", file, ex);
+      clearIndex();
+      return false;
+    }
+  }
+
+  private void reset(String newKbVersion) {
+    final byte[] version = newKbVersion.getBytes(StandardCharsets.UTF_8);
+    if (version.length > MAX_KB_VERSION_BYTES) {
+      throw new IllegalArgumentException("KB version string is too long: " + newKbVersion);
+    }
+    clearIndex();
+    buffer.putInt(OFFSET_MAGIC, MAGIC);
+    buffer.putInt(OFFSET_FORMAT_VERSION, FORMAT_VERSION);
+    buffer.position(OFFSET_KB_VERSION);
+    VarInts.writeUnsigned(buffer, version.length);
+    buffer.put(version);
+    setDataEnd(HEADER_SIZE);
+    this.records = 0;
+    this.kbVersion = newKbVersion;
+  }
+
+  private void setDataEnd(int end) {
+    this.dataEnd = end;
+    buffer.putLong(OFFSET_DATA_END, end);
+  }
+
+  private static boolean mayChangeTypes(KbChangeEvent event) {
+    final String predicate = event.getPredicate();
+    return predicate == null
+                   || TYPE_PREDICATES.contains(
+                           predicate.startsWith("#$") ? predicate.substring(2) : predicate);
+  }
+
+  private void writeRecord(TermCacheEntry entry) throws IOException {
+    final byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+    final byte[] id = entry.getId().getBytes(StandardCharsets.UTF_8);
+    ensureCapacity(name.length + id.length + 3 * VarInts.MAX_LENGTH);
+    buffer.position(dataEnd);
+    VarInts.writeUnsigned(buffer, name.length);
+    buffer.put(name);
+    VarInts.writeUnsigned(buffer, id.length);
+    buffer.put(id);
+    VarInts.writeUnsigned(buffer, entry.getTypeMask() & 0xFFFFFFFFL);
+    setDataEnd(buffer.position());
+    records++;
+  }
+
+  /**
+   * Appends a record with an empty ID, which removes <code>name</code> when the file is loaded.
+   */
+  private void writeTombstone(String name) throws IOException {
+    final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    ensureCapacity(bytes.length + 2 * VarInts.MAX_LENGTH);
+    buffer.position(dataEnd);
+    VarInts.writeUnsigned(buffer, bytes.length);
+    buffer.put(bytes);
+    VarInts.writeUnsigned(buffer, 0);
+    setDataEnd(buffer.position());
+    records++;
+  }
+
+  private void compactIfWasteful() throws IOException {
+    if (records >= MIN_COMPACTION_RECORDS && records > 2L * size) {
+      compact();
+    }
+  }
+
+  private void addToIndex(TermCacheEntry entry) {
+    final TermCacheEntry previous = byName.put(entry.getName(), entry);
+    if (previous == null) {
+      size++;
+    } else {
+      unlinkName(previous);
+    }
+    byId.put(entry.getId(), entry);
+    namesById.computeIfAbsent(entry.getId(), id -> new HashSet<>()).add(entry.getName());
+  }
+
+  private void removeFromIndex(String name) {
+    final TermCacheEntry entry = byName.remove(name);
+    if (entry != null) {
+      size--;
+      unlinkName(entry);
+    }
+  }
+
+  private void unlinkName(TermCacheEntry entry) {
+    final Set<String> names = namesById.get(entry.getId());
+    if (names == null) {
+      return;
+    }
+    names.remove(entry.getName());
+    if (names.isEmpty()) {
+      namesById.remove(entry.getId());
+      byId.remove(entry.getId());
+    } else {
+      byId.put(entry.getId(), byName.get(names.iterator().next()));
+    }
+  }
+
+  private void clearIndex() {
+    byName.clear();
+    byId.clear();
+    namesById.clear();
+    size = 0;
+  }
+
+  private void ensureCapacity(int bytes) throws IOException {
+    long required = (long) dataEnd + bytes;
+    if (required > Integer.MAX_VALUE && records > size) {
+      compact();
+      required = (long) dataEnd + bytes;
+    }
+    if (required > buffer.capacity()) {
+      if (required > Integer.MAX_VALUE) {
+        throw new IOException("Term cache " + file + " is full");
+      }
+      final long newSize = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity()));
+      buffer.force();
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+  }
+
+  private static String readString(ByteBuffer in, int length) {
+    if (in.remaining() < length) {
+      throw new KbCodecException("Truncated string at position " + in.position());
+    }
+    final ByteBuffer slice = in.slice();
+    slice.limit(length);
+    in.position(in.position() + length);
+    return StandardCharsets.UTF_8.decode(slice).toString();
+  }
+
+}
@@ -0,0 +1,233 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: NegativeLookupCache.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.cycl.CycLParser;
+import com.cyc.kb.cycl.CycLWriter;
+import com.cyc.kb.event.KbChangeEvent;
+import com.cyc.kb.event.KbChangeListener;
+import com.cyc.kb.exception.CycLParseException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, expiring record of lookups which found nothing, so that repeated lookups of absent
+ * names, IDs or formulas can be answered without contacting the Cyc server. Entries expire after a
+ * fixed time-to-live; the least recently used entries are evicted once the cache is full.
+ *
+ * <p>
+ * Anything which creates the looked-up entity should {@link #forgetEverywhere(String) } its key,
+ * since an entity created via one service may have been looked up via another. As a
+ * {@link KbChangeListener}, the cache also forgets renamed terms' new names and discards
+ * everything when an assertion is added, since a new assertion may make an absent term or fact
+ * exist.
+ *
+ * <p>
+ * A name which is absent as one type of term (e.g. as a Context) may well exist as another, so
+ * services for different types which share a cache record their misses in separate
+ * <em>namespaces</em>, via the overloads which take a namespace. Formula lookups should be keyed
+ * via {@link #formulaKey(java.lang.Object, java.lang.Object) }, so that the String and Sentence
+ * overloads of a lookup share their entries.
+ */
+public class NegativeLookupCache implements KbChangeListener {
+
+  //====|    Fields    |==========================================================================//
+
+  public static final int DEFAULT_MAX_SIZE = 10000;
+
+  public static final long DEFAULT_TTL_SECONDS = 60;
+
+  private static final char NAMESPACE_SEPARATOR = '\u001F';
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LinkedHashMap<String, Long> expiries;
+  private final Set<String> namespaces = new HashSet<>();
+
+  //====|    Construction    |====================================================================//
+
+  public NegativeLookupCache(int maxSize, long ttl, TimeUnit unit) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+    }
+    if (ttl <= 0) {
+      throw new IllegalArgumentException("TTL must be positive: " + ttl);
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.expiries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > NegativeLookupCache.this.maxSize;
+      }
+    };
+  }
+
+  public NegativeLookupCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  //====|    Static methods    |==================================================================//
+
+  /**
+   * Returns the key for a lookup of <code>formula</code> in <code>ctx</code>. Both may be given as
+   * KbObjects or as CycL strings; the key is the same for a Sentence and for any string which
+   * parses to the same CycL, with or without <tt>#$</tt> prefixes.
+   *
+   * @param formula a Sentence or CycL string
+   * @param ctx     a Context or CycL string
+   *
+   * @return the key
+   */
+  public static String formulaKey(Object formula, Object ctx) {
+    return normalize(formula) + " in " + normalize(ctx);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns whether a recent lookup of <code>key</code> found nothing.
+   *
+   * @param key a name, ID, or other lookup key
+   *
+   * @return whether <code>key</code> is known to be absent
+   */
+  public synchronized boolean isKnownMissing(String key) {
+    final Long expiry = expiries.get(key);
+    if (expiry == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiry >= 0) {
+      expiries.remove(key);
+      return false;
+    }
+    return true;
+  }
+
+  public synchronized void recordMissing(String key) {
+    expiries.put(Objects.requireNonNull(key, "Key must not be null"), System.nanoTime() + ttlNanos);
+  }
+
+  public synchronized void forget(String key) {
+    expiries.remove(key);
+  }
+
+  /**
+   * Returns whether a recent lookup of <code>key</code> in <code>namespace</code> found nothing.
+   *
+   * @param namespace the kind of lookup, e.g. <code>"Context"</code>
+   * @param key       a name, ID, or other lookup key
+   *
+   * @return whether <code>key</code> is known to be absent from <code>namespace</code>
+   */
+  public boolean isKnownMissing(String namespace, String key) {
+    return isKnownMissing(qualify(namespace, key));
+  }
+
+  public synchronized void recordMissing(String namespace, String key) {
+    namespaces.add(namespace);
+    recordMissing(qualify(namespace, key));
+  }
+
+  public void forget(String namespace, String key) {
+    forget(qualify(namespace, key));
+  }
+
+  /**
+   * Forgets <code>key</code>, both unqualified and in every namespace in which a miss has been
+   * recorded; e.g., because the term it names has been created.
+   *
+   * @param key a name, ID, or other lookup key
+   */
+  public synchronized void forgetEverywhere(String key) {
+    forget(key);
+    for (String namespace : namespaces) {
+      forget(qualify(namespace, key));
+    }
+  }
+
+  public synchronized void clear() {
+    expiries.clear();
+  }
+
+  public synchronized int size() {
+    return expiries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getTtl(TimeUnit unit) {
+    return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void kbChanged(KbChangeEvent event) {
+    switch (event.getType()) {
+      case ASSERTED:
+        clear();
+        break;
+      case RENAMED:
+        if (event.getName() != null) {
+          forgetEverywhere(event.getName());
+        }
+        break;
+      default:
+        // Removals cannot make anything exist.
+        break;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+                   + "[size=" + size() + ", maxSize=" + maxSize + ", ttlNanos=" + ttlNanos + "]";
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private static String qualify(String namespace, String key) {
+    Objects.requireNonNull(namespace, "Namespace must not be null");
+    return namespace + NAMESPACE_SEPARATOR + Objects.requireNonNull(key, "Key must not be null");
+  }
+
+  private static String normalize(Object cycl) {
+    if (cycl == null) {
+      return "null";
+    }
+    final String str = (cycl instanceof KbObject)
+                               ? ((KbObject) cycl).stringApiValue()
+                               : cycl.toString();
+    try {
+      return CycLWriter.toCycL(CycLParser.parse(str));
+    } catch (CycLParseException | IllegalArgumentException ex) {
+      return str.trim();
+    }
+  }
+
+}
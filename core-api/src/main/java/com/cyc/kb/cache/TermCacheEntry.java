@@ -0,0 +1,121 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: TermCacheEntry.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.KbObjectType;
+import java.util.EnumSet;
+import java.util.Objects;
+
+/**
+ * A single entry in a {@link MappedTermCache}: the name by which a term was requested, its HLID,
+ * and its {@link KbObjectType} bitmask.
+ */
+public final class TermCacheEntry {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates an entry for <code>term</code>, which was resolved from <code>name</code>.
+   *
+   * @param name the name or ID by which the term was requested
+   * @param term the resolved term
+   *
+   * @return a new TermCacheEntry
+   */
+  public static TermCacheEntry of(String name, KbObject term) {
+    return new TermCacheEntry(name, term.getId(), KbObjectType.maskOf(term));
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final String name;
+  private final String id;
+  private final int typeMask;
+
+  //====|    Construction    |====================================================================//
+
+  public TermCacheEntry(String name, String id, int typeMask) {
+    this.name = Objects.requireNonNull(name, "Name must not be null");
+    this.id = Objects.requireNonNull(id, "ID must not be null");
+    this.typeMask = typeMask;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the HLID of the term, as returned by {@link KbObject#getId() }.
+   *
+   * @return the HLID
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the types of the term as a bitmask.
+   *
+   * @return the bitmask
+   *
+   * @see KbObjectType#maskOf(java.lang.Object)
+   */
+  public int getTypeMask() {
+    return typeMask;
+  }
+
+  public EnumSet<KbObjectType> getTypes() {
+    return KbObjectType.fromMask(typeMask);
+  }
+
+  public boolean isType(KbObjectType type) {
+    return type.isIn(typeMask);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof TermCacheEntry)) {
+      return false;
+    }
+    final TermCacheEntry other = (TermCacheEntry) obj;
+    return this.typeMask == other.typeMask
+                   && this.name.equals(other.name)
+                   && this.id.equals(other.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, id, typeMask);
+  }
+
+  @Override
+  public String toString() {
+    return name + " -> " + id + " " + getTypes();
+  }
+
+}
@@ -0,0 +1,28 @@
+/**
+ * Client-side caches for KB lookups, such as the persistent
+ * {@link com.cyc.kb.cache.MappedTermCache}, the {@link com.cyc.kb.cache.NegativeLookupCache} of
+ * known misses, and the {@link com.cyc.kb.cache.KbNameBloomFilter} of constant names and IDs,
+ * along with decorators for the KB API services which consult them.
+ */
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: package-info.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
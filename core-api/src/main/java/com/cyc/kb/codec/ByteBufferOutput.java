@@ -0,0 +1,128 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: ByteBufferOutput.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.KbCodecException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable heap buffer for encoding, plus the string encoding shared by the codec and the term
+ * dictionary.
+ */
+final class ByteBufferOutput {
+
+  //====|    Fields    |==========================================================================//
+
+  private ByteBuffer buffer;
+
+  //====|    Construction    |====================================================================//
+
+  ByteBufferOutput(int initialCapacity) {
+    this.buffer = ByteBuffer.allocate(Math.max(16, initialCapacity));
+  }
+
+  //====|    Methods    |=========================================================================//
+
+  /**
+   * Returns the underlying buffer, with room for at least <code>bytes</code> more bytes.
+   */
+  ByteBuffer ensure(int bytes) {
+    if (buffer.remaining() < bytes) {
+      final int required = buffer.position() + bytes;
+      final ByteBuffer grown = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+      buffer.flip();
+      grown.put(buffer);
+      buffer = grown;
+    }
+    return buffer;
+  }
+
+  ByteBufferOutput put(byte b) {
+    ensure(1).put(b);
+    return this;
+  }
+
+  ByteBufferOutput putUnsigned(long value) {
+    VarInts.writeUnsigned(ensure(VarInts.MAX_LENGTH), value);
+    return this;
+  }
+
+  ByteBufferOutput putSigned(long value) {
+    VarInts.writeSigned(ensure(VarInts.MAX_LENGTH), value);
+    return this;
+  }
+
+  ByteBufferOutput put(byte[] bytes) {
+    ensure(bytes.length).put(bytes);
+    return this;
+  }
+
+  ByteBufferOutput put(ByteBuffer bytes) {
+    ensure(bytes.remaining()).put(bytes);
+    return this;
+  }
+
+  ByteBufferOutput putString(String string) {
+    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    putUnsigned(bytes.length);
+    return put(bytes);
+  }
+
+  int position() {
+    return buffer.position();
+  }
+
+  /**
+   * Returns a view of the bytes written so far, without copying them.
+   */
+  ByteBuffer toByteBuffer() {
+    final ByteBuffer result = buffer.duplicate();
+    result.flip();
+    return result;
+  }
+
+  //====|    String decoding    |=================================================================//
+
+  /**
+   * Reads a length-prefixed UTF-8 string directly from <code>in</code>. Heap buffers are decoded
+   * from their backing array; direct and memory-mapped buffers are decoded in place.
+   */
+  static String readString(ByteBuffer in) {
+    final int length = VarInts.readUnsignedInt(in);
+    if (in.remaining() < length) {
+      throw new KbCodecException("Truncated string at position " + in.position());
+    }
+    final String result;
+    if (in.hasArray()) {
+      result = new String(in.array(), in.arrayOffset() + in.position(), length,
+                          StandardCharsets.UTF_8);
+    } else {
+      final ByteBuffer slice = in.slice();
+      slice.limit(length);
+      result = StandardCharsets.UTF_8.decode(slice).toString();
+    }
+    in.position(in.position() + length);
+    return result;
+  }
+
+}
@@ -0,0 +1,130 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: DecodedArgPosition.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.ArgPosition;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ArgPosition returned by {@link KbBinaryCodec}. Like other ArgPositions, it is mutable.
+ */
+final class DecodedArgPosition implements ArgPosition {
+
+  //====|    Fields    |==========================================================================//
+
+  private final List<Integer> path;
+
+  //====|    Construction    |====================================================================//
+
+  DecodedArgPosition(Collection<Integer> path) {
+    this.path = new ArrayList<>(path);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public ArgPosition deepCopy() {
+    return new DecodedArgPosition(path);
+  }
+
+  @Override
+  public int depth() {
+    return path.size();
+  }
+
+  @Override
+  public ArgPosition extend(ArgPosition otherArgPos) {
+    path.addAll(otherArgPos.getPath());
+    return this;
+  }
+
+  @Override
+  public ArgPosition extend(Integer argnum) {
+    path.add(argnum);
+    return this;
+  }
+
+  @Override
+  public Integer first() {
+    return path.isEmpty() ? null : path.get(0);
+  }
+
+  @Override
+  public List<Integer> getPath() {
+    return Collections.unmodifiableList(path);
+  }
+
+  @Override
+  public boolean isPrefixOf(ArgPosition otherArgPosition) {
+    final List<Integer> other = otherArgPosition.getPath();
+    return other.size() >= path.size() && other.subList(0, path.size()).equals(path);
+  }
+
+  @Override
+  public Integer last() {
+    return path.isEmpty() ? null : path.get(path.size() - 1);
+  }
+
+  @Override
+  public boolean matchingArgPosition(ArgPosition candidate, boolean matchEmpty) {
+    return (matchEmpty && candidate.depth() == 0) || path.equals(candidate.getPath());
+  }
+
+  @Override
+  public ArgPosition toParent() {
+    if (!path.isEmpty()) {
+      path.remove(path.size() - 1);
+    }
+    return this;
+  }
+
+  @Override
+  public String stringApiValue() {
+    final StringBuilder sb = new StringBuilder("'(");
+    for (int i = 0; i < path.size(); i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(path.get(i));
+    }
+    return sb.append(')').toString();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof ArgPosition) && path.equals(((ArgPosition) obj).getPath());
+  }
+
+  @Override
+  public int hashCode() {
+    return path.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+
+}
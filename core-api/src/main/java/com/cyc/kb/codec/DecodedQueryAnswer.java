@@ -0,0 +1,120 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: DecodedQueryAnswer.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.Variable;
+import com.cyc.query.InferenceAnswerIdentifier;
+import com.cyc.query.QueryAnswer;
+import com.cyc.query.exception.QueryRuntimeException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The QueryAnswer returned by {@link KbBinaryCodec}. It carries the answer's bindings, but is
+ * detached from the inference which produced it: {@link #getId() } returns <code>null</code> and
+ * {@link #getSources() } returns an empty set.
+ */
+final class DecodedQueryAnswer implements QueryAnswer {
+
+  //====|    Fields    |==========================================================================//
+
+  private final Map<Variable, Object> bindings;
+
+  //====|    Construction    |====================================================================//
+
+  DecodedQueryAnswer(Map<Variable, Object> bindings) {
+    this.bindings = Collections.unmodifiableMap(bindings);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public Set<Variable> getVariables() {
+    return bindings.keySet();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <O> O getBinding(Variable var) {
+    return (O) bindings.get(var);
+  }
+
+  @Override
+  public boolean hasBinding(Variable var) {
+    return bindings.containsKey(var);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <O> O getOnlyBinding() throws QueryRuntimeException {
+    if (bindings.size() != 1) {
+      throw new QueryRuntimeException(
+              "Expected exactly one binding, but found " + bindings.size() + ": " + bindings);
+    }
+    return (O) bindings.values().iterator().next();
+  }
+
+  @Override
+  public Map<Variable, Object> getBindings() {
+    return bindings;
+  }
+
+  @Override
+  public InferenceAnswerIdentifier getId() {
+    return null;
+  }
+
+  @Override
+  public Set<KbTerm> getSources() {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public List<String> toPrettyBindingsStrings() {
+    final List<String> result = new ArrayList<>(bindings.size());
+    for (Map.Entry<Variable, Object> binding : bindings.entrySet()) {
+      result.add(binding.getKey() + " -> " + binding.getValue());
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof DecodedQueryAnswer)
+                   && bindings.equals(((DecodedQueryAnswer) obj).bindings);
+  }
+
+  @Override
+  public int hashCode() {
+    return bindings.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + bindings;
+  }
+
+}
@@ -0,0 +1,572 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: KbBinaryCodec.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.Cyc;
+import com.cyc.kb.ArgPosition;
+import com.cyc.kb.KbObject;
+import com.cyc.kb.Sentence;
+import com.cyc.kb.Variable;
+import com.cyc.kb.cycl.CycLFormula;
+import com.cyc.kb.cycl.CycLParser;
+import com.cyc.kb.cycl.CycLTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.CycLParseException;
+import com.cyc.kb.exception.KbCodecException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.query.QueryAnswer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact, versioned binary format for KB API values, suitable for caches, message queues and
+ * on-disk snapshots. Supported values are {@link KbObject}s (including {@link Sentence}s),
+ * {@link ArgPosition}s, {@link QueryAnswer}s, {@link CycLFormula}s and {@link CycLTerm}s, Strings,
+ * Numbers, Dates, and Lists and Sets of any of these (including <code>null</code>).
+ *
+ * <p>
+ * Terms are written once to a {@link TermDictionary}, keyed by {@link KbObject#getId() }, and are
+ * otherwise referred to by their varint-encoded dictionary index. By default each message carries
+ * its own dictionary; a codec created via {@link #create(com.cyc.kb.codec.TermDictionary) } instead
+ * refers to a dictionary which is shared by many messages and persisted separately. Sentences are
+ * written structurally, so that decoding them does not require the Cyc server to re-parse CycL
+ * (see {@link com.cyc.kb.spi.SentenceService#get(com.cyc.kb.cycl.CycLFormula) }).
+ *
+ * <p>
+ * Decoding reads directly from the supplied buffer, whether it is a heap, direct or memory-mapped
+ * buffer, and advances its position past the value. Each dictionary entry is resolved to a
+ * KbObject at most once per decoded message.
+ *
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class KbBinaryCodec {
+
+  //====|    Format constants    |================================================================//
+
+  /**
+   * The version of the binary format written by this class. Decoders accept any version up to and
+   * including this one.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * The maximum nesting depth of encoded values (formulas, sentences, lists, sets and query
+   * answers), which bounds the stack used to encode and decode them. It matches
+   * {@link CycLParser#MAX_DEPTH}.
+   */
+  public static final int MAX_DEPTH = CycLParser.MAX_DEPTH;
+
+  static final byte MAGIC = (byte) 0xCB;
+  static final byte TYPE_VALUE = 'V';
+  static final byte TYPE_DICTIONARY = 'D';
+
+  private static final byte FLAG_SHARED_DICTIONARY = 0x01;
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_KB_OBJECT = 1;
+  private static final byte TAG_SENTENCE = 2;
+  private static final byte TAG_CYCL_TERM = 3;
+  private static final byte TAG_FORMULA = 4;
+  private static final byte TAG_STRING = 5;
+  private static final byte TAG_INT = 6;
+  private static final byte TAG_LONG = 7;
+  private static final byte TAG_FLOAT = 8;
+  private static final byte TAG_DOUBLE = 9;
+  private static final byte TAG_BIG_INTEGER = 10;
+  private static final byte TAG_BIG_DECIMAL = 11;
+  private static final byte TAG_DATE = 12;
+  private static final byte TAG_LIST = 13;
+  private static final byte TAG_SET = 14;
+  private static final byte TAG_ARG_POSITION = 15;
+  private static final byte TAG_QUERY_ANSWER = 16;
+
+  private static final CycLTerm.Kind[] KINDS = CycLTerm.Kind.values();
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Returns a codec whose messages are self-contained, each carrying the dictionary entries it
+   * uses.
+   *
+   * @return a KbBinaryCodec
+   */
+  public static KbBinaryCodec create() {
+    return new KbBinaryCodec(null, Cyc::getKbObject);
+  }
+
+  /**
+   * Returns a codec whose messages refer to <code>dictionary</code>, which must be available
+   * (e.g. via {@link TermDictionary#read(java.nio.ByteBuffer) }) when they are decoded. New terms
+   * are added to the dictionary as values are encoded.
+   *
+   * @param dictionary the shared dictionary
+   *
+   * @return a KbBinaryCodec
+   */
+  public static KbBinaryCodec create(TermDictionary dictionary) {
+    return new KbBinaryCodec(
+            Objects.requireNonNull(dictionary, "Dictionary must not be null"), Cyc::getKbObject);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final TermDictionary sharedDictionary;
+  private final KbObjectResolver resolver;
+
+  //====|    Construction    |====================================================================//
+
+  private KbBinaryCodec(TermDictionary sharedDictionary, KbObjectResolver resolver) {
+    this.sharedDictionary = sharedDictionary;
+    this.resolver = resolver;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns a copy of this codec which uses <code>resolver</code> to turn dictionary entries back
+   * into KbObjects.
+   *
+   * @param resolver the resolver
+   *
+   * @return a new KbBinaryCodec
+   */
+  public KbBinaryCodec withResolver(KbObjectResolver resolver) {
+    return new KbBinaryCodec(
+            sharedDictionary, Objects.requireNonNull(resolver, "Resolver must not be null"));
+  }
+
+  public TermDictionary getSharedDictionary() {
+    return sharedDictionary;
+  }
+
+  /**
+   * Encodes <code>value</code> into a new buffer, which is ready to be read.
+   *
+   * @param value the value to encode
+   *
+   * @return a buffer containing the encoded value
+   *
+   * @throws KbCodecException if <code>value</code> contains anything which cannot be encoded
+   */
+  public ByteBuffer encode(Object value) {
+    final ByteBufferOutput out = new ByteBufferOutput(64);
+    writeHeader(out, TYPE_VALUE);
+    if (sharedDictionary != null) {
+      out.put(FLAG_SHARED_DICTIONARY);
+      writeValue(out, value, sharedDictionary, 0);
+      return out.toByteBuffer();
+    }
+    final TermDictionary local = new TermDictionary();
+    final ByteBufferOutput body = new ByteBufferOutput(64);
+    writeValue(body, value, local, 0);
+    out.put((byte) 0);
+    out.putUnsigned(local.size());
+    for (int i = 0; i < local.size(); i++) {
+      out.putString(local.get(i));
+    }
+    return out.put(body.toByteBuffer()).toByteBuffer();
+  }
+
+  /**
+   * Encodes <code>value</code> into <code>out</code>, starting at its current position.
+   *
+   * @param value the value to encode
+   * @param out   the buffer to write to
+   *
+   * @return the number of bytes written
+   *
+   * @throws KbCodecException        if <code>value</code> contains anything which cannot be
+   *                                 encoded
+   * @throws BufferOverflowException if <code>out</code> does not have enough space remaining
+   */
+  public int encode(Object value, ByteBuffer out) {
+    final ByteBuffer encoded = encode(value);
+    final int length = encoded.remaining();
+    out.put(encoded);
+    return length;
+  }
+
+  /**
+   * Decodes a single value from <code>in</code>, starting at its current position and leaving it
+   * positioned after the value.
+   *
+   * @param in the buffer to read from
+   *
+   * @return the decoded value
+   *
+   * @throws KbCodecException if the input is malformed, of an unsupported version, or refers to a
+   *                          shared dictionary which is not available
+   * @throws KbTypeException  if a term cannot be resolved to the expected type
+   * @throws CreateException  if a term or sentence cannot be resolved
+   */
+  public Object decode(ByteBuffer in) throws KbTypeException, CreateException {
+    readHeader(in, TYPE_VALUE);
+    final byte flags = readByte(in);
+    final DecodeContext context;
+    if ((flags & FLAG_SHARED_DICTIONARY) != 0) {
+      if (sharedDictionary == null) {
+        throw new KbCodecException("Value was encoded against a shared term dictionary");
+      }
+      context = new DecodeContext(null);
+    } else {
+      final String[] keys = new String[readCount(in)];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = ByteBufferOutput.readString(in);
+      }
+      context = new DecodeContext(keys);
+    }
+    return readValue(in, context, 0);
+  }
+
+  /**
+   * Decodes a single value from <code>in</code>, which is expected to be of a particular type.
+   *
+   * @param <T>  the expected type
+   * @param in   the buffer to read from
+   * @param type the expected type
+   *
+   * @return the decoded value
+   *
+   * @throws KbCodecException if the input is malformed or the value is not of the expected type
+   * @throws KbTypeException  if a term cannot be resolved to the expected type
+   * @throws CreateException  if a term or sentence cannot be resolved
+   *
+   * @see #decode(java.nio.ByteBuffer)
+   */
+  public <T> T decode(ByteBuffer in, Class<T> type) throws KbTypeException, CreateException {
+    final Object result = decode(in);
+    if (result != null && !type.isInstance(result)) {
+      throw new KbCodecException(
+              "Expected a " + type.getSimpleName() + " but decoded " + result.getClass().getName());
+    }
+    return type.cast(result);
+  }
+
+  //====|    Headers    |=========================================================================//
+
+  static void writeHeader(ByteBufferOutput out, byte type) {
+    out.put(MAGIC).put(type).put((byte) FORMAT_VERSION);
+  }
+
+  static int readHeader(ByteBuffer in, byte type) {
+    if (in.remaining() < 3 || in.get() != MAGIC || in.get() != type) {
+      throw new KbCodecException("Input is not in the KB API binary format");
+    }
+    final int version = in.get() & 0xFF;
+    if (version < 1 || version > FORMAT_VERSION) {
+      throw new KbCodecException("Unsupported binary format version " + version);
+    }
+    return version;
+  }
+
+  /**
+   * Reads an element count, rejecting counts which could not possibly fit in the rest of the
+   * input (every element takes at least one byte), so that malformed input cannot force a huge
+   * allocation.
+   */
+  static int readCount(ByteBuffer in) {
+    final int count = VarInts.readUnsignedInt(in);
+    if (count > in.remaining()) {
+      throw new KbCodecException("Count " + count + " exceeds the " + in.remaining()
+                                         + " bytes remaining at position " + in.position());
+    }
+    return count;
+  }
+
+  //====|    Encoding    |========================================================================//
+
+  private void writeValue(
+          ByteBufferOutput out, Object value, TermDictionary dictionary, int depth) {
+    if (depth > MAX_DEPTH) {
+      throw new KbCodecException("Cannot encode values nested more than " + MAX_DEPTH
+                                         + " levels deep");
+    }
+    if (value == null) {
+      out.put(TAG_NULL);
+    } else if (value instanceof Sentence) {
+      writeSentence(out, (Sentence) value, dictionary, depth);
+    } else if (value instanceof KbObject) {
+      out.put(TAG_KB_OBJECT).putUnsigned(dictionary.intern(((KbObject) value).getId()));
+    } else if (value instanceof CycLTerm) {
+      final CycLTerm term = (CycLTerm) value;
+      out.put(TAG_CYCL_TERM)
+              .put((byte) term.getKind().ordinal())
+              .putUnsigned(dictionary.intern(term.getName()));
+    } else if (value instanceof CycLFormula) {
+      out.put(TAG_FORMULA);
+      writeElements(out, ((CycLFormula) value).getElements(), dictionary, depth);
+    } else if (value instanceof String) {
+      out.put(TAG_STRING).putString((String) value);
+    } else if (value instanceof Number) {
+      writeNumber(out, (Number) value);
+    } else if (value instanceof Date) {
+      out.put(TAG_DATE).putSigned(((Date) value).getTime());
+    } else if (value instanceof List) {
+      out.put(TAG_LIST);
+      writeElements(out, (List<?>) value, dictionary, depth);
+    } else if (value instanceof Set) {
+      out.put(TAG_SET);
+      writeElements(out, (Set<?>) value, dictionary, depth);
+    } else if (value instanceof ArgPosition) {
+      final List<Integer> path = ((ArgPosition) value).getPath();
+      out.put(TAG_ARG_POSITION).putUnsigned(path.size());
+      for (Integer argnum : path) {
+        out.putUnsigned(argnum);
+      }
+    } else if (value instanceof QueryAnswer) {
+      final Map<Variable, Object> bindings = ((QueryAnswer) value).getBindings();
+      out.put(TAG_QUERY_ANSWER).putUnsigned(bindings.size());
+      for (Map.Entry<Variable, Object> binding : bindings.entrySet()) {
+        writeValue(out, binding.getKey(), dictionary, depth + 1);
+        writeValue(out, binding.getValue(), dictionary, depth + 1);
+      }
+    } else {
+      throw new KbCodecException("Cannot encode values of type " + value.getClass().getName());
+    }
+  }
+
+  private void writeSentence(
+          ByteBufferOutput out, Sentence sentence, TermDictionary dictionary, int depth) {
+    final Object formula;
+    try {
+      formula = CycLParser.parse(sentence.stringApiValue());
+    } catch (CycLParseException ex) {
+      throw KbCodecException.fromThrowable("Cannot encode sentence " + sentence, ex);
+    }
+    if (formula instanceof CycLFormula) {
+      out.put(TAG_SENTENCE);
+      writeElements(out, ((CycLFormula) formula).getElements(), dictionary, depth);
+    } else {
+      out.put(TAG_KB_OBJECT).putUnsigned(dictionary.intern(sentence.getId()));
+    }
+  }
+
+  private void writeElements(
+          ByteBufferOutput out, Collection<?> elements, TermDictionary dictionary, int depth) {
+    out.putUnsigned(elements.size());
+    for (Object element : elements) {
+      writeValue(out, element, dictionary, depth + 1);
+    }
+  }
+
+  private void writeNumber(ByteBufferOutput out, Number value) {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      out.put(TAG_INT).putSigned(value.intValue());
+    } else if (value instanceof Long) {
+      out.put(TAG_LONG).putSigned(value.longValue());
+    } else if (value instanceof Float) {
+      out.put(TAG_FLOAT);
+      out.ensure(4).putInt(Float.floatToIntBits(value.floatValue()));
+    } else if (value instanceof Double) {
+      out.put(TAG_DOUBLE);
+      out.ensure(8).putLong(Double.doubleToLongBits(value.doubleValue()));
+    } else if (value instanceof BigInteger) {
+      final byte[] bytes = ((BigInteger) value).toByteArray();
+      out.put(TAG_BIG_INTEGER).putUnsigned(bytes.length).put(bytes);
+    } else if (value instanceof BigDecimal) {
+      final BigDecimal decimal = (BigDecimal) value;
+      final byte[] bytes = decimal.unscaledValue().toByteArray();
+      out.put(TAG_BIG_DECIMAL).putSigned(decimal.scale()).putUnsigned(bytes.length).put(bytes);
+    } else {
+      throw new KbCodecException("Cannot encode numbers of type " + value.getClass().getName());
+    }
+  }
+
+  //====|    Decoding    |========================================================================//
+
+  private Object readValue(ByteBuffer in, DecodeContext context, int depth)
+          throws KbTypeException, CreateException {
+    if (depth > MAX_DEPTH) {
+      throw new KbCodecException("Value is nested more than " + MAX_DEPTH
+                                         + " levels deep at position " + in.position());
+    }
+    final byte tag = readByte(in);
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_KB_OBJECT:
+        return context.resolve(VarInts.readUnsignedInt(in));
+      case TAG_SENTENCE:
+        return Sentence.get(CycLFormula.of(readElements(in, context, depth)));
+      case TAG_CYCL_TERM:
+        return readTerm(in, context);
+      case TAG_FORMULA:
+        return CycLFormula.of(readElements(in, context, depth));
+      case TAG_STRING:
+        return ByteBufferOutput.readString(in);
+      case TAG_INT:
+        return (int) VarInts.readSigned(in);
+      case TAG_LONG:
+        return VarInts.readSigned(in);
+      case TAG_FLOAT:
+        return Float.intBitsToFloat((int) readFixed(in, 4));
+      case TAG_DOUBLE:
+        return Double.longBitsToDouble(readFixed(in, 8));
+      case TAG_BIG_INTEGER:
+        return new BigInteger(readBytes(in));
+      case TAG_BIG_DECIMAL: {
+        final int scale = (int) VarInts.readSigned(in);
+        return new BigDecimal(new BigInteger(readBytes(in)), scale);
+      }
+      case TAG_DATE:
+        return new Date(VarInts.readSigned(in));
+      case TAG_LIST:
+        return readElements(in, context, depth);
+      case TAG_SET:
+        return new LinkedHashSet<>(readElements(in, context, depth));
+      case TAG_ARG_POSITION: {
+        final int length = readCount(in);
+        final List<Integer> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+          path.add(VarInts.readUnsignedInt(in));
+        }
+        return new DecodedArgPosition(path);
+      }
+      case TAG_QUERY_ANSWER:
+        return readQueryAnswer(in, context, depth);
+      default:
+        throw new KbCodecException("Unknown tag " + tag + " at position " + (in.position() - 1));
+    }
+  }
+
+  private CycLTerm readTerm(ByteBuffer in, DecodeContext context) {
+    final int kind = readByte(in);
+    if (kind < 0 || kind >= KINDS.length) {
+      throw new KbCodecException("Unknown CycL term kind " + kind);
+    }
+    final String name = context.key(VarInts.readUnsignedInt(in));
+    switch (KINDS[kind]) {
+      case CONSTANT:
+        return CycLTerm.constant(name);
+      case VARIABLE:
+        return CycLTerm.variable(name);
+      case KEYWORD:
+        return CycLTerm.keyword(name);
+      default:
+        return CycLTerm.symbol(name);
+    }
+  }
+
+  private List<Object> readElements(ByteBuffer in, DecodeContext context, int depth)
+          throws KbTypeException, CreateException {
+    final int size = readCount(in);
+    final List<Object> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(readValue(in, context, depth + 1));
+    }
+    return result;
+  }
+
+  private QueryAnswer readQueryAnswer(ByteBuffer in, DecodeContext context, int depth)
+          throws KbTypeException, CreateException {
+    final int size = readCount(in);
+    final Map<Variable, Object> bindings = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      final Object var = readValue(in, context, depth + 1);
+      if (!(var instanceof Variable)) {
+        throw new KbCodecException("Expected a Variable in query answer but decoded " + var);
+      }
+      bindings.put((Variable) var, readValue(in, context, depth + 1));
+    }
+    return new DecodedQueryAnswer(bindings);
+  }
+
+  private static byte[] readBytes(ByteBuffer in) {
+    final int length = VarInts.readUnsignedInt(in);
+    require(in, length);
+    final byte[] bytes = new byte[length];
+    in.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads a big-endian value byte by byte, regardless of the byte order of <code>in</code>.
+   */
+  private static long readFixed(ByteBuffer in, int bytes) {
+    require(in, bytes);
+    long result = 0;
+    for (int i = 0; i < bytes; i++) {
+      result = (result << 8) | (in.get() & 0xFF);
+    }
+    return result;
+  }
+
+  private static byte readByte(ByteBuffer in) {
+    require(in, 1);
+    return in.get();
+  }
+
+  private static void require(ByteBuffer in, int bytes) {
+    if (in.remaining() < bytes) {
+      throw new KbCodecException("Truncated input at position " + in.position());
+    }
+  }
+
+  //====|    DecodeContext    |===================================================================//
+
+  /**
+   * Per-message dictionary lookups, resolving each referenced term at most once.
+   */
+  private final class DecodeContext {
+
+    private final String[] keys;
+    private final Map<Integer, KbObject> resolved = new HashMap<>();
+
+    DecodeContext(String[] keys) {
+      this.keys = keys;
+    }
+
+    String key(int index) {
+      if (keys == null) {
+        return sharedDictionary.get(index);
+      }
+      if (index >= keys.length) {
+        throw new KbCodecException(
+                "No entry " + index + " in term dictionary of size " + keys.length);
+      }
+      return keys[index];
+    }
+
+    KbObject resolve(int index) throws KbTypeException, CreateException {
+      KbObject result = resolved.get(index);
+      if (result == null) {
+        result = resolver.resolve(key(index));
+        resolved.put(index, result);
+      }
+      return result;
+    }
+  }
+
+}
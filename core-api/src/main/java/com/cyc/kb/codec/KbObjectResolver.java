@@ -0,0 +1,47 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: KbObjectResolver.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+
+/**
+ * Turns the term keys stored in a {@link TermDictionary} back into KbObjects when a value is
+ * decoded. The default resolver is {@link com.cyc.Cyc#getKbObject(java.lang.String) }.
+ */
+@FunctionalInterface
+public interface KbObjectResolver {
+
+  /**
+   * Returns the KbObject identified by <code>cycLOrId</code>.
+   *
+   * @param cycLOrId an HLID or CycL string, as returned by {@link KbObject#getId() }
+   *
+   * @return the KbObject
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  KbObject resolve(String cycLOrId) throws KbTypeException, CreateException;
+
+}
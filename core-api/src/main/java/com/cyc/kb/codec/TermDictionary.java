@@ -0,0 +1,156 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: TermDictionary.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.KbCodecException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only table mapping term keys (HLIDs or CycL strings) to small integer indices. Encoded
+ * values refer to terms by their varint index, so each distinct term is spelled out only once per
+ * dictionary.
+ *
+ * <p>
+ * A dictionary may be shared by many messages, e.g. by every entry in a cache or on-disk snapshot,
+ * via {@link KbBinaryCodec#create(com.cyc.kb.codec.TermDictionary) }. Because indices
+ * are never reassigned, values written against a dictionary can be read by any copy of it which is
+ * at least as large as it was when they were written. The dictionary itself can be persisted or
+ * shipped via {@link #toByteBuffer() } and {@link #read(java.nio.ByteBuffer) }.
+ *
+ * <p>
+ * This class is thread-safe.
+ */
+public class TermDictionary {
+
+  //====|    Static methods    |==================================================================//
+
+  /**
+   * Reads a dictionary which was written by {@link #toByteBuffer() }, advancing the position of
+   * <code>in</code> past it.
+   *
+   * @param in the buffer to read from
+   *
+   * @return a new TermDictionary
+   *
+   * @throws KbCodecException if the dictionary is malformed, of an unsupported version, or
+   *                          contains the same key more than once
+   */
+  public static TermDictionary read(ByteBuffer in) {
+    KbBinaryCodec.readHeader(in, KbBinaryCodec.TYPE_DICTIONARY);
+    final int size = KbBinaryCodec.readCount(in);
+    final TermDictionary result = new TermDictionary();
+    for (int i = 0; i < size; i++) {
+      final String key = ByteBufferOutput.readString(in);
+      if (result.intern(key) != i) {
+        throw new KbCodecException("Duplicate key in term dictionary at index " + i + ": " + key);
+      }
+    }
+    return result;
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final List<String> keys = new ArrayList<>();
+  private final Map<String, Integer> indices = new HashMap<>();
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the index of <code>key</code>, adding it to the dictionary if necessary.
+   *
+   * @param key a term key
+   *
+   * @return the index of the key
+   */
+  public synchronized int intern(String key) {
+    final Integer existing = indices.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    final int index = keys.size();
+    keys.add(key);
+    indices.put(key, index);
+    return index;
+  }
+
+  /**
+   * Returns the index of <code>key</code>, or -1 if it is not in the dictionary.
+   *
+   * @param key a term key
+   *
+   * @return the index of the key, or -1
+   */
+  public synchronized int indexOf(String key) {
+    final Integer index = indices.get(key);
+    return (index != null) ? index : -1;
+  }
+
+  /**
+   * Returns the key at <code>index</code>.
+   *
+   * @param index the index
+   *
+   * @return the key
+   *
+   * @throws KbCodecException if there is no such entry
+   */
+  public synchronized String get(int index) {
+    if (index < 0 || index >= keys.size()) {
+      throw new KbCodecException(
+              "No entry " + index + " in term dictionary of size " + keys.size());
+    }
+    return keys.get(index);
+  }
+
+  public synchronized int size() {
+    return keys.size();
+  }
+
+  /**
+   * Writes this dictionary to a new buffer, which is ready to be read.
+   *
+   * @return a buffer containing the versioned dictionary
+   */
+  public ByteBuffer toByteBuffer() {
+    final List<String> snapshot;
+    synchronized (this) {
+      snapshot = new ArrayList<>(keys);
+    }
+    final ByteBufferOutput out = new ByteBufferOutput(16 + snapshot.size() * 16);
+    KbBinaryCodec.writeHeader(out, KbBinaryCodec.TYPE_DICTIONARY);
+    out.putUnsigned(snapshot.size());
+    for (String key : snapshot) {
+      out.putString(key);
+    }
+    return out.toByteBuffer();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getClass().getSimpleName() + "[" + keys.size() + " terms]";
+  }
+
+}
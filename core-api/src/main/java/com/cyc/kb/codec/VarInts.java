@@ -0,0 +1,124 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: VarInts.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.KbCodecException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes variable-length integers, seven bits per byte, least-significant group first.
+ * Small values, such as dictionary indices and argument numbers, occupy a single byte. Signed
+ * values are zig-zag encoded so that small negative numbers are also compact.
+ */
+public final class VarInts {
+
+  //====|    Fields    |==========================================================================//
+
+  /**
+   * The largest number of bytes that a single encoded <code>long</code> may occupy.
+   */
+  public static final int MAX_LENGTH = 10;
+
+  //====|    Construction    |====================================================================//
+
+  private VarInts() {
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the number of bytes which {@link #writeUnsigned(java.nio.ByteBuffer, long) } would use
+   * to encode <code>value</code>.
+   *
+   * @param value the value
+   *
+   * @return the encoded length, between 1 and {@link #MAX_LENGTH}
+   */
+  public static int sizeOfUnsigned(long value) {
+    int size = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  public static void writeUnsigned(ByteBuffer out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  public static void writeSigned(ByteBuffer out, long value) {
+    writeUnsigned(out, (value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * Reads an unsigned varint from the current position of <code>in</code>, advancing it.
+   *
+   * @param in the buffer to read from
+   *
+   * @return the decoded value
+   *
+   * @throws KbCodecException if the varint is truncated or longer than {@link #MAX_LENGTH} bytes
+   */
+  public static long readUnsigned(ByteBuffer in) {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (!in.hasRemaining()) {
+        throw new KbCodecException("Truncated varint at position " + in.position());
+      }
+      final byte b = in.get();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new KbCodecException("Malformed varint ending at position " + in.position());
+  }
+
+  public static long readSigned(ByteBuffer in) {
+    final long raw = readUnsigned(in);
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  /**
+   * Reads an unsigned varint which is expected to fit in a non-negative <code>int</code>, such as
+   * a length or an index.
+   *
+   * @param in the buffer to read from
+   *
+   * @return the decoded value
+   *
+   * @throws KbCodecException if the value is malformed or out of range
+   */
+  public static int readUnsignedInt(ByteBuffer in) {
+    final long value = readUnsigned(in);
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new KbCodecException("Varint out of range: " + Long.toUnsignedString(value));
+    }
+    return (int) value;
+  }
+
+}
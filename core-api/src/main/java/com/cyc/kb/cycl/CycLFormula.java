@@ -0,0 +1,177 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLFormula.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, non-atomic CycL expression which has been read locally by {@link CycLParser}.
+ * Arguments are numbered the same way that {@link com.cyc.kb.KbObject.KbObjectWithArity} numbers
+ * them: the operator is argument 0, and the first "real" argument is argument 1.
+ *
+ * <p>
+ * Each argument is a {@link CycLTerm}, a nested CycLFormula, a {@link String}, or a
+ * {@link Number}. The hash code is computed on construction, from the already-computed hash codes
+ * of nested formulas. Writing and comparing formulas recurse through their nesting, which
+ * {@link CycLParser} limits to {@link CycLParser#MAX_DEPTH}; formulas built directly via
+ * {@link #of(java.lang.Object...) } should be kept similarly shallow.
+ */
+public final class CycLFormula {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates a new formula. The first element of <code>args</code> is the operator.
+   *
+   * @param args the operator followed by its arguments
+   *
+   * @return a new CycLFormula
+   */
+  public static CycLFormula of(Object... args) {
+    return new CycLFormula(args.clone());
+  }
+
+  /**
+   * Creates a new formula from a list. The first element of <code>args</code> is the operator.
+   *
+   * @param args the operator followed by its arguments
+   *
+   * @return a new CycLFormula
+   */
+  public static CycLFormula of(List<?> args) {
+    return new CycLFormula(args.toArray());
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Object[] args;
+  private final int hash;
+
+  //====|    Construction    |====================================================================//
+
+  /**
+   * Takes ownership of <code>args</code>; callers must not subsequently modify the array.
+   */
+  CycLFormula(Object[] args) {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("A CycL formula must have an operator");
+    }
+    for (Object arg : args) {
+      if (arg == null) {
+        throw new IllegalArgumentException("CycL formulas may not contain null arguments");
+      }
+    }
+    this.args = args;
+    this.hash = Arrays.hashCode(args);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Object getOperator() {
+    return args[0];
+  }
+
+  /**
+   * Returns whether the operator of this formula is the Cyc constant <code>constantName</code>.
+   *
+   * @param constantName the unprefixed name of a constant
+   *
+   * @return whether this formula's operator is the named constant
+   */
+  public boolean hasOperator(String constantName) {
+    return (args[0] instanceof CycLTerm)
+                   && ((CycLTerm) args[0]).isConstant()
+                   && ((CycLTerm) args[0]).getName().equals(constantName);
+  }
+
+  /**
+   * Returns the number of arguments, not counting the operator.
+   *
+   * @return the arity of this formula
+   */
+  public int getArity() {
+    return args.length - 1;
+  }
+
+  /**
+   * Returns the argument at <code>argPosition</code>, where the operator is at position 0.
+   *
+   * @param argPosition the argument position
+   *
+   * @return the argument
+   *
+   * @throws IndexOutOfBoundsException if there is no such argument
+   */
+  public Object getArgument(int argPosition) {
+    return args[argPosition];
+  }
+
+  /**
+   * Returns the operator followed by all arguments, as an unmodifiable list.
+   *
+   * @return the elements of this formula
+   */
+  public List<Object> getElements() {
+    return Collections.unmodifiableList(Arrays.asList(args));
+  }
+
+  /**
+   * Returns a copy of the operator followed by all arguments, suitable for passing to
+   * {@link com.cyc.kb.spi.SentenceService#get(java.lang.Object...) }.
+   *
+   * @return a new array containing the elements of this formula
+   */
+  public Object[] toArray() {
+    return args.clone();
+  }
+
+  /**
+   * Returns the fully-prefixed CycL representation of this formula, in the same format as
+   * {@link com.cyc.kb.KbObject#stringApiValue()}.
+   *
+   * @return the CycL string
+   */
+  public String toCycL() {
+    return CycLWriter.toCycL(this);
+  }
+
+  @Override
+  public String toString() {
+    return CycLWriter.append(new StringBuilder(), this, false).toString();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    return (obj instanceof CycLFormula) && Arrays.equals(this.args, ((CycLFormula) obj).args);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+}
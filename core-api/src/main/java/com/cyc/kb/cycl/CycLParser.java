@@ -0,0 +1,241 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLParser.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.cycl.CycLTokenizer.TokenType;
+import com.cyc.kb.exception.CycLParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CycL strings into {@link CycLFormula}s and {@link CycLTerm}s without consulting a Cyc
+ * server. The parser is non-recursive, and rejects expressions nested more than
+ * {@value #MAX_DEPTH} levels deep, so that the formulas it returns can be safely written, compared
+ * and hashed, which {@link CycLWriter} and {@link CycLFormula} do recursively.
+ *
+ * <p>
+ * The parser only establishes the <em>syntactic</em> structure of a CycL expression; it does not
+ * check whether constants exist, or whether a formula is well-formed with respect to arity or
+ * argument constraints. Those checks still require the KB API services, e.g.
+ * {@link com.cyc.kb.spi.SentenceService#get(com.cyc.kb.cycl.CycLFormula) }.
+ *
+ * <p>
+ * Instances are not thread-safe, but are cheap to create; the static methods create a new parser
+ * per call.
+ */
+public final class CycLParser {
+
+  //====|    Static methods    |==================================================================//
+
+  /**
+   * Parses a single CycL expression.
+   *
+   * @param cycl the CycL string
+   *
+   * @return a {@link CycLFormula}, {@link CycLTerm}, {@link String}, or {@link Number}
+   *
+   * @throws CycLParseException if <code>cycl</code> is not a single, syntactically valid CycL
+   *                            expression
+   */
+  public static Object parse(CharSequence cycl) throws CycLParseException {
+    return new CycLParser(false).read(cycl);
+  }
+
+  /**
+   * Parses a single CycL expression, additionally permitting <tt>{...}</tt> and <tt>[...]</tt> as
+   * shorthand for <tt>(#$TheSet ...)</tt> and <tt>(#$TheList ...)</tt>, at any depth. This mirrors
+   * the conventions of {@link com.cyc.kb.spi.KbService#getApiObjectDwim(java.lang.String) }.
+   *
+   * @param cycl the CycL string
+   *
+   * @return a {@link CycLFormula}, {@link CycLTerm}, {@link String}, or {@link Number}
+   *
+   * @throws CycLParseException if <code>cycl</code> is not a single, syntactically valid CycL
+   *                            expression
+   */
+  public static Object parseDwim(CharSequence cycl) throws CycLParseException {
+    return new CycLParser(true).read(cycl);
+  }
+
+  /**
+   * Parses a single non-atomic CycL expression, such as a sentence.
+   *
+   * @param cycl the CycL string
+   *
+   * @return the formula
+   *
+   * @throws CycLParseException if <code>cycl</code> is not a single, syntactically valid CycL
+   *                            formula
+   */
+  public static CycLFormula parseFormula(CharSequence cycl) throws CycLParseException {
+    final Object result = parse(cycl);
+    if (!(result instanceof CycLFormula)) {
+      throw new CycLParseException("Expected a CycL formula but found '" + cycl + "'");
+    }
+    return (CycLFormula) result;
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  /**
+   * The maximum nesting depth of formulas, sets and lists.
+   */
+  public static final int MAX_DEPTH = 1000;
+
+  private final boolean dwim;
+  private final CycLTokenizer tokenizer = new CycLTokenizer("");
+
+  //====|    Construction    |====================================================================//
+
+  /**
+   * Creates a reusable parser.
+   *
+   * @param dwim whether to accept <tt>{...}</tt> and <tt>[...]</tt> shorthand
+   */
+  public CycLParser(boolean dwim) {
+    this.dwim = dwim;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Parses a single CycL expression.
+   *
+   * @param cycl the CycL string
+   *
+   * @return a {@link CycLFormula}, {@link CycLTerm}, {@link String}, or {@link Number}
+   *
+   * @throws CycLParseException if <code>cycl</code> is not a single, syntactically valid CycL
+   *                            expression
+   */
+  public Object read(CharSequence cycl) throws CycLParseException {
+    tokenizer.reset(cycl);
+    final List<Frame> stack = new ArrayList<>();
+    Object result = null;
+    while (result == null) {
+      final TokenType type = tokenizer.next();
+      Object value = null;
+      switch (type) {
+        case END:
+          throw new CycLParseException(stack.isEmpty()
+                                               ? "Empty CycL expression"
+                                               : "Unbalanced parentheses", tokenizer.getStart());
+        case OPEN_PAREN:
+          open(stack, new Frame(TokenType.CLOSE_PAREN, null));
+          break;
+        case OPEN_BRACE:
+          requireDwim();
+          open(stack, new Frame(TokenType.CLOSE_BRACE, CycLTerm.THE_SET));
+          break;
+        case OPEN_BRACKET:
+          requireDwim();
+          open(stack, new Frame(TokenType.CLOSE_BRACKET, CycLTerm.THE_LIST));
+          break;
+        case CLOSE_PAREN:
+        case CLOSE_BRACE:
+        case CLOSE_BRACKET:
+          value = close(stack, type);
+          break;
+        default:
+          value = readAtom(type);
+      }
+      if (value != null) {
+        if (stack.isEmpty()) {
+          result = value;
+        } else {
+          stack.get(stack.size() - 1).elements.add(value);
+        }
+      }
+    }
+    if (tokenizer.next() != TokenType.END) {
+      throw new CycLParseException("Unexpected trailing input", tokenizer.getStart());
+    }
+    return result;
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private void open(List<Frame> stack, Frame frame) throws CycLParseException {
+    if (stack.size() >= MAX_DEPTH) {
+      throw new CycLParseException(
+              "CycL expression is nested more than " + MAX_DEPTH + " levels deep",
+              tokenizer.getStart());
+    }
+    stack.add(frame);
+  }
+
+  private Object close(List<Frame> stack, TokenType type) throws CycLParseException {
+    if (stack.isEmpty()) {
+      throw new CycLParseException("Unbalanced parentheses", tokenizer.getStart());
+    }
+    final Frame frame = stack.remove(stack.size() - 1);
+    if (frame.closer != type) {
+      throw new CycLParseException("Mismatched delimiter", tokenizer.getStart());
+    }
+    if (frame.elements.isEmpty()) {
+      throw new CycLParseException("Empty CycL formula", tokenizer.getStart());
+    }
+    return new CycLFormula(frame.elements.toArray());
+  }
+
+  private Object readAtom(TokenType type) throws CycLParseException {
+    switch (type) {
+      case CONSTANT:
+        return CycLTerm.constant(tokenizer.getText());
+      case VARIABLE:
+        return CycLTerm.variable(tokenizer.getText());
+      case KEYWORD:
+        return CycLTerm.keyword(tokenizer.getText());
+      case SYMBOL:
+        return CycLTerm.symbol(tokenizer.getText());
+      case STRING:
+        return tokenizer.getStringValue();
+      case NUMBER:
+        return tokenizer.getNumberValue();
+      default:
+        throw new CycLParseException("Unexpected token " + type, tokenizer.getStart());
+    }
+  }
+
+  private void requireDwim() throws CycLParseException {
+    if (!dwim) {
+      throw new CycLParseException(
+              "Set and list shorthand is only supported by parseDwim()", tokenizer.getStart());
+    }
+  }
+
+  //====|    Frame    |===========================================================================//
+
+  private static final class Frame {
+
+    final TokenType closer;
+    final List<Object> elements = new ArrayList<>();
+
+    Frame(TokenType closer, CycLTerm operator) {
+      this.closer = closer;
+      if (operator != null) {
+        elements.add(operator);
+      }
+    }
+  }
+
+}
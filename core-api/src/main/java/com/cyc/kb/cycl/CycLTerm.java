@@ -0,0 +1,183 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLTerm.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Objects;
+
+/**
+ * An atomic CycL term which has been read locally by {@link CycLParser}, but which has not been
+ * resolved against a Cyc server. A CycLTerm is little more than a name and a {@link Kind}; turning
+ * it into a {@link com.cyc.kb.KbObject} is the job of the KB API services.
+ *
+ * @see CycLFormula
+ */
+public final class CycLTerm {
+
+  //====|    Kind enum    |=======================================================================//
+
+  public static enum Kind {
+    /**
+     * A Cyc constant, written as <tt>#$Name</tt> or simply <tt>Name</tt>.
+     */
+    CONSTANT("#$"),
+    /**
+     * A CycL variable, written as <tt>?NAME</tt>.
+     */
+    VARIABLE("?"),
+    /**
+     * A SubL keyword, written as <tt>:NAME</tt>.
+     */
+    KEYWORD(":"),
+    /**
+     * Any other SubL symbol.
+     */
+    SYMBOL("");
+
+    private final String prefix;
+
+    private Kind(String prefix) {
+      this.prefix = prefix;
+    }
+
+    /**
+     * Returns the prefix which distinguishes this kind of term in a CycL string.
+     *
+     * @return the prefix, which may be empty
+     */
+    public String getPrefix() {
+      return prefix;
+    }
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  public static CycLTerm constant(String name) {
+    return new CycLTerm(Kind.CONSTANT, name);
+  }
+
+  public static CycLTerm variable(String name) {
+    return new CycLTerm(Kind.VARIABLE, name);
+  }
+
+  public static CycLTerm keyword(String name) {
+    return new CycLTerm(Kind.KEYWORD, name);
+  }
+
+  public static CycLTerm symbol(String name) {
+    return new CycLTerm(Kind.SYMBOL, name);
+  }
+
+  //====|    Constants    |=======================================================================//
+
+  /**
+   * <tt>#$TheSet</tt>, which {@link CycLParser#parseDwim(java.lang.CharSequence)} uses in place of
+   * <tt>{...}</tt>.
+   */
+  public static final CycLTerm THE_SET = constant("TheSet");
+
+  /**
+   * <tt>#$TheList</tt>, which {@link CycLParser#parseDwim(java.lang.CharSequence)} uses in place of
+   * <tt>[...]</tt>.
+   */
+  public static final CycLTerm THE_LIST = constant("TheList");
+
+  //====|    Fields    |==========================================================================//
+
+  private final Kind kind;
+  private final String name;
+
+  //====|    Construction    |====================================================================//
+
+  private CycLTerm(Kind kind, String name) {
+    this.kind = Objects.requireNonNull(kind, "Kind must not be null");
+    this.name = Objects.requireNonNull(name, "Name must not be null");
+    if (name.isEmpty()) {
+      throw new IllegalArgumentException("CycL term names must not be empty");
+    }
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the name of this term, without any prefix such as <tt>#$</tt> or <tt>?</tt>.
+   *
+   * @return the unprefixed name
+   */
+  public String getName() {
+    return name;
+  }
+
+  public boolean isConstant() {
+    return kind == Kind.CONSTANT;
+  }
+
+  public boolean isVariable() {
+    return kind == Kind.VARIABLE;
+  }
+
+  public boolean isKeyword() {
+    return kind == Kind.KEYWORD;
+  }
+
+  /**
+   * Returns the fully-prefixed CycL representation of this term, in the same format as
+   * {@link com.cyc.kb.KbObject#stringApiValue()}.
+   *
+   * @return the CycL string
+   */
+  public String toCycL() {
+    return kind.getPrefix() + name;
+  }
+
+  /**
+   * Returns this term as it would be rendered by {@link com.cyc.kb.KbObject#toString()}; i.e.,
+   * constants are not prefixed with <tt>#$</tt>.
+   *
+   * @return the string representation of this term
+   */
+  @Override
+  public String toString() {
+    return (kind == Kind.CONSTANT) ? name : toCycL();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CycLTerm)) {
+      return false;
+    }
+    final CycLTerm other = (CycLTerm) obj;
+    return (this.kind == other.kind) && this.name.equals(other.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * kind.hashCode() + name.hashCode();
+  }
+
+}
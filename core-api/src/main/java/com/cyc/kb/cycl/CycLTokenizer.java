@@ -0,0 +1,368 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLTokenizer.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.CycLParseException;
+import java.math.BigInteger;
+
+/**
+ * A cursor-style tokenizer for CycL strings. Rather than producing token objects, the tokenizer
+ * exposes the type and bounds of the current token; token text is only materialized when one of
+ * the value accessors is called. A single tokenizer instance may be {@link #reset(CharSequence)
+ * reset} and reused for multiple inputs.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class CycLTokenizer {
+
+  //====|    TokenType enum    |==================================================================//
+
+  public static enum TokenType {
+    OPEN_PAREN,
+    CLOSE_PAREN,
+    OPEN_BRACE,
+    CLOSE_BRACE,
+    OPEN_BRACKET,
+    CLOSE_BRACKET,
+    /**
+     * A constant, with or without the <tt>#$</tt> prefix.
+     */
+    CONSTANT,
+    VARIABLE,
+    KEYWORD,
+    SYMBOL,
+    STRING,
+    NUMBER,
+    END
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private CharSequence input;
+  private int length;
+  private int pos;
+  private TokenType type;
+  private int start;
+  private int end;
+  private boolean escaped;
+  private boolean integral;
+
+  //====|    Construction    |====================================================================//
+
+  public CycLTokenizer(CharSequence input) {
+    reset(input);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Points this tokenizer at a new input, discarding any state from the previous one.
+   *
+   * @param input the CycL to tokenize
+   *
+   * @return this tokenizer
+   */
+  public CycLTokenizer reset(CharSequence input) {
+    this.input = input;
+    this.length = input.length();
+    this.pos = 0;
+    this.type = null;
+    this.start = 0;
+    this.end = 0;
+    return this;
+  }
+
+  /**
+   * Advances to the next token.
+   *
+   * @return the type of the new current token; {@link TokenType#END} at the end of input
+   *
+   * @throws CycLParseException if the input is not lexically valid CycL
+   */
+  public TokenType next() throws CycLParseException {
+    skipWhitespace();
+    start = pos;
+    escaped = false;
+    if (pos >= length) {
+      end = pos;
+      return type = TokenType.END;
+    }
+    final char c = input.charAt(pos);
+    switch (c) {
+      case '(':
+        return single(TokenType.OPEN_PAREN);
+      case ')':
+        return single(TokenType.CLOSE_PAREN);
+      case '{':
+        return single(TokenType.OPEN_BRACE);
+      case '}':
+        return single(TokenType.CLOSE_BRACE);
+      case '[':
+        return single(TokenType.OPEN_BRACKET);
+      case ']':
+        return single(TokenType.CLOSE_BRACKET);
+      case '"':
+        return readString();
+      default:
+        return readAtom();
+    }
+  }
+
+  public TokenType getType() {
+    return type;
+  }
+
+  /**
+   * Returns the offset of the first character of the current token's value. For prefixed tokens
+   * such as <tt>#$Dog</tt> or <tt>?X</tt>, the prefix is not included; for strings, the opening
+   * quote is not included.
+   *
+   * @return the start offset
+   */
+  public int getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the offset just past the last character of the current token's value.
+   *
+   * @return the end offset
+   */
+  public int getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns the current offset into the input.
+   *
+   * @return the offset
+   */
+  public int getPosition() {
+    return pos;
+  }
+
+  /**
+   * Returns the raw text of the current token's value, without prefix or string quotes.
+   *
+   * @return the token text
+   */
+  public String getText() {
+    return input.subSequence(start, end).toString();
+  }
+
+  /**
+   * Returns whether the current token's text equals <code>str</code>, without allocating.
+   *
+   * @param str the string to compare against
+   *
+   * @return whether the current token's text equals str
+   */
+  public boolean textEquals(String str) {
+    final int len = end - start;
+    if (len != str.length()) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      if (input.charAt(start + i) != str.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the value of the current {@link TokenType#STRING} token, with escapes processed.
+   *
+   * @return the string value
+   */
+  public String getStringValue() {
+    if (!escaped) {
+      return getText();
+    }
+    final StringBuilder sb = new StringBuilder(end - start);
+    for (int i = start; i < end; i++) {
+      char c = input.charAt(i);
+      if (c == '\\' && (i + 1) < end) {
+        c = input.charAt(++i);
+      }
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the value of the current {@link TokenType#NUMBER} token. Integers which fit in a
+   * <code>long</code> are returned as {@link Long}s and are parsed without intermediate
+   * allocation; larger integers are returned as {@link BigInteger}s and all other numbers as
+   * {@link Double}s.
+   *
+   * @return the numeric value
+   */
+  public Number getNumberValue() {
+    if (!integral) {
+      return Double.valueOf(getText());
+    }
+    int i = start;
+    boolean negative = false;
+    final char first = input.charAt(i);
+    if (first == '-' || first == '+') {
+      negative = (first == '-');
+      i++;
+    }
+    if ((end - i) > 18) {
+      final BigInteger big = new BigInteger(getText());
+      return (big.bitLength() < 64) ? (Number) big.longValue() : big;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      value = (value * 10) + (input.charAt(i) - '0');
+    }
+    return negative ? -value : value;
+  }
+
+  //====|    Internal    |========================================================================//
+
+  private TokenType single(TokenType tokenType) {
+    pos++;
+    end = pos;
+    return type = tokenType;
+  }
+
+  private void skipWhitespace() {
+    while (pos < length) {
+      final char c = input.charAt(pos);
+      if (c == ';') {
+        while (pos < length && input.charAt(pos) != '\n') {
+          pos++;
+        }
+      } else if (Character.isWhitespace(c)) {
+        pos++;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private TokenType readString() throws CycLParseException {
+    final int open = pos;
+    pos++;
+    start = pos;
+    while (pos < length) {
+      final char c = input.charAt(pos);
+      if (c == '\\') {
+        escaped = true;
+        pos += 2;
+      } else if (c == '"') {
+        end = pos;
+        pos++;
+        return type = TokenType.STRING;
+      } else {
+        pos++;
+      }
+    }
+    throw new CycLParseException("Unterminated string", open);
+  }
+
+  private TokenType readAtom() throws CycLParseException {
+    final int atomStart = pos;
+    while (pos < length && !isDelimiter(input.charAt(pos))) {
+      pos++;
+    }
+    end = pos;
+    final char c = input.charAt(atomStart);
+    if (c == '#') {
+      if ((end - atomStart) > 2 && input.charAt(atomStart + 1) == '$') {
+        start = atomStart + 2;
+        return type = TokenType.CONSTANT;
+      }
+      throw new CycLParseException("Unsupported reader macro '" + getText() + "'", atomStart);
+    }
+    if (c == '?' && (end - atomStart) > 1) {
+      start = atomStart + 1;
+      return type = TokenType.VARIABLE;
+    }
+    if (c == ':' && (end - atomStart) > 1) {
+      start = atomStart + 1;
+      return type = TokenType.KEYWORD;
+    }
+    if (scanNumber(atomStart)) {
+      return type = TokenType.NUMBER;
+    }
+    return type = Character.isLetter(c) ? TokenType.CONSTANT : TokenType.SYMBOL;
+  }
+
+  /**
+   * Determines whether the atom starting at <code>atomStart</code> and ending at {@link #end} is a
+   * number, and whether it is integral.
+   */
+  private boolean scanNumber(int atomStart) {
+    int i = atomStart;
+    final char first = input.charAt(i);
+    if (first == '-' || first == '+') {
+      i++;
+    }
+    int digits = 0;
+    boolean dot = false;
+    boolean exp = false;
+    for (; i < end; i++) {
+      final char c = input.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits++;
+      } else if (c == '.' && !dot && !exp) {
+        dot = true;
+      } else if ((c == 'e' || c == 'E') && !exp && digits > 0) {
+        exp = true;
+        if ((i + 1) < end && (input.charAt(i + 1) == '-' || input.charAt(i + 1) == '+')) {
+          i++;
+        }
+        if ((i + 1) >= end) {
+          return false;
+        }
+      } else {
+        return false;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    integral = !dot && !exp;
+    return true;
+  }
+
+  private static boolean isDelimiter(char c) {
+    switch (c) {
+      case '(':
+      case ')':
+      case '{':
+      case '}':
+      case '[':
+      case ']':
+      case '"':
+      case ';':
+        return true;
+      default:
+        return Character.isWhitespace(c);
+    }
+  }
+
+}
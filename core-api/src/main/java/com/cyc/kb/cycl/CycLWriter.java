@@ -0,0 +1,147 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLWriter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders CycL expressions as strings. The output of {@link #toCycL(java.lang.Object) } is in the
+ * same format as {@link KbObject#stringApiValue()}, and can be read back by {@link CycLParser}.
+ *
+ * <p>
+ * In addition to {@link CycLFormula}s and {@link CycLTerm}s, the writer accepts the same kinds of
+ * arguments as {@link com.cyc.kb.spi.SentenceService#get(java.lang.Object...) }: KbObjects,
+ * Strings, Numbers, and Lists and Sets of those objects, which are rendered as
+ * <tt>(#$TheList ...)</tt> and <tt>(#$TheSet ...)</tt> respectively.
+ */
+public final class CycLWriter {
+
+  //====|    Construction    |====================================================================//
+
+  private CycLWriter() {
+  }
+
+  //====|    Static methods    |==================================================================//
+
+  /**
+   * Returns the fully-prefixed CycL representation of <code>obj</code>.
+   *
+   * @param obj the object to render
+   *
+   * @return the CycL string
+   *
+   * @throws IllegalArgumentException if obj cannot be represented in CycL without help from a Cyc
+   *                                  server, e.g. a {@link java.util.Date}
+   */
+  public static String toCycL(Object obj) {
+    return append(new StringBuilder(), obj, true).toString();
+  }
+
+  /**
+   * Appends the fully-prefixed CycL representation of <code>obj</code> to <code>sb</code>.
+   *
+   * @param sb  the builder to append to
+   * @param obj the object to render
+   *
+   * @return sb
+   *
+   * @throws IllegalArgumentException if obj cannot be represented in CycL without help from a Cyc
+   *                                  server, e.g. a {@link java.util.Date}
+   */
+  public static StringBuilder append(StringBuilder sb, Object obj) {
+    return append(sb, obj, true);
+  }
+
+  /**
+   * Appends <code>str</code> to <code>sb</code> as a double-quoted CycL string, escaping any
+   * embedded quotes and backslashes.
+   *
+   * @param sb  the builder to append to
+   * @param str the string to quote
+   *
+   * @return sb
+   */
+  public static StringBuilder appendQuotedString(StringBuilder sb, CharSequence str) {
+    sb.append('"');
+    final int len = str.length();
+    for (int i = 0; i < len; i++) {
+      final char c = str.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\');
+      }
+      sb.append(c);
+    }
+    return sb.append('"');
+  }
+
+  //====|    Internal    |========================================================================//
+
+  /**
+   * @param prefixed whether constants should carry the <tt>#$</tt> prefix
+   */
+  static StringBuilder append(StringBuilder sb, Object obj, boolean prefixed) {
+    if (obj instanceof CycLTerm) {
+      final CycLTerm term = (CycLTerm) obj;
+      if (prefixed || !term.isConstant()) {
+        sb.append(term.getKind().getPrefix());
+      }
+      return sb.append(term.getName());
+    } else if (obj instanceof CycLFormula) {
+      final CycLFormula formula = (CycLFormula) obj;
+      sb.append('(');
+      for (int i = 0; i <= formula.getArity(); i++) {
+        if (i > 0) {
+          sb.append(' ');
+        }
+        append(sb, formula.getArgument(i), prefixed);
+      }
+      return sb.append(')');
+    } else if (obj instanceof KbObject) {
+      return sb.append(prefixed ? ((KbObject) obj).stringApiValue() : obj.toString());
+    } else if (obj instanceof CharSequence) {
+      return appendQuotedString(sb, (CharSequence) obj);
+    } else if (obj instanceof Number) {
+      return sb.append(obj);
+    } else if (obj instanceof List) {
+      return appendCollection(sb, CycLTerm.THE_LIST, (Collection<?>) obj, prefixed);
+    } else if (obj instanceof Set) {
+      return appendCollection(sb, CycLTerm.THE_SET, (Collection<?>) obj, prefixed);
+    }
+    throw new IllegalArgumentException("Cannot render "
+            + ((obj != null) ? obj.getClass().getName() : null) + " as CycL: " + obj);
+  }
+
+  private static StringBuilder appendCollection(
+          StringBuilder sb, CycLTerm operator, Collection<?> elements, boolean prefixed) {
+    sb.append('(');
+    append(sb, operator, prefixed);
+    for (Object element : elements) {
+      sb.append(' ');
+      append(sb, element, prefixed);
+    }
+    return sb.append(')');
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Local, server-independent reading and writing of CycL strings.
+ *
+ * <p>
+ * {@link com.cyc.kb.cycl.CycLParser} reads CycL into lightweight
+ * {@link com.cyc.kb.cycl.CycLFormula} and {@link com.cyc.kb.cycl.CycLTerm} objects without a round
+ * trip to a Cyc server, and
+ * {@link com.cyc.kb.cycl.CycLWriter} renders them (and KbObjects, Strings, Numbers, Lists and Sets)
+ * back into the format produced by {@link com.cyc.kb.KbObject#stringApiValue()}. A parsed formula
+ * may be turned into a {@link com.cyc.kb.Sentence} via
+ * {@link com.cyc.kb.Sentence#get(com.cyc.kb.cycl.CycLFormula) }, although unless the KB API
+ * implementation overrides {@link com.cyc.kb.spi.SentenceService#get(com.cyc.kb.cycl.CycLFormula) }
+ * this still asks the Cyc server to parse the formula:
+ * <pre>
+ * CycLFormula formula = CycLParser.parseFormula("(#$isa ?X #$Dog)");
+ * Sentence sentence = Sentence.get(formula);
+ * </pre>
+ */
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: package-info.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
@@ -0,0 +1,232 @@
+package com.cyc.kb.event;
+
+/*
+ * #%L
+ * File: KbChangeEvent.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describes a single change to the KB. Events identify KB entities by their HLIDs (see
+ * {@link com.cyc.kb.KbObject#getId() }), so that listeners can invalidate cached objects
+ * precisely.
+ *
+ * <p>
+ * For {@link Type#ASSERTED} and {@link Type#UNASSERTED} events, {@link #getId() } identifies the
+ * assertion, {@link #getPredicate() } names its predicate (where known), and
+ * {@link #getReferencedIds() } identifies the terms which appear in it; e.g., the two collections
+ * in a <code>#$genls</code> link. For {@link Type#RENAMED} and {@link Type#KILLED} events,
+ * {@link #getId() } identifies the term.
+ */
+public final class KbChangeEvent {
+
+  //====|    Type enum    |=======================================================================//
+
+  public static enum Type {
+    ASSERTED,
+    UNASSERTED,
+    RENAMED,
+    KILLED;
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates an event for a new assertion.
+   *
+   * @param assertionId   the HLID of the assertion
+   * @param predicate     the name of the assertion's predicate, e.g. <tt>genls</tt>, or
+   *                      <code>null</code> if unknown
+   * @param referencedIds the HLIDs of the terms which appear in the assertion
+   *
+   * @return a new KbChangeEvent
+   */
+  public static KbChangeEvent asserted(
+          String assertionId, String predicate, Collection<String> referencedIds) {
+    return new KbChangeEvent(Type.ASSERTED, assertionId, predicate, null, null, referencedIds);
+  }
+
+  /**
+   * Creates an event for a removed assertion.
+   *
+   * @param assertionId   the HLID of the assertion
+   * @param predicate     the name of the assertion's predicate, e.g. <tt>genls</tt>, or
+   *                      <code>null</code> if unknown
+   * @param referencedIds the HLIDs of the terms which appeared in the assertion
+   *
+   * @return a new KbChangeEvent
+   */
+  public static KbChangeEvent unasserted(
+          String assertionId, String predicate, Collection<String> referencedIds) {
+    return new KbChangeEvent(Type.UNASSERTED, assertionId, predicate, null, null, referencedIds);
+  }
+
+  /**
+   * Creates an event for a renamed term.
+   *
+   * @param termId       the HLID of the term
+   * @param previousName the term's old name
+   * @param name         the term's new name
+   *
+   * @return a new KbChangeEvent
+   */
+  public static KbChangeEvent renamed(String termId, String previousName, String name) {
+    return new KbChangeEvent(Type.RENAMED, termId, null, previousName, name, null);
+  }
+
+  /**
+   * Creates an event for a term which has been removed from the KB.
+   *
+   * @param termId the HLID of the term
+   * @param name   the term's name, or <code>null</code> if unknown
+   *
+   * @return a new KbChangeEvent
+   */
+  public static KbChangeEvent killed(String termId, String name) {
+    return new KbChangeEvent(Type.KILLED, termId, null, name, null, null);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Type type;
+  private final String id;
+  private final String predicate;
+  private final String previousName;
+  private final String name;
+  private final Set<String> referencedIds;
+
+  //====|    Construction    |====================================================================//
+
+  private KbChangeEvent(Type type, String id, String predicate, String previousName, String name,
+                        Collection<String> referencedIds) {
+    this.type = type;
+    this.id = Objects.requireNonNull(id, "ID must not be null");
+    this.predicate = predicate;
+    this.previousName = previousName;
+    this.name = name;
+    this.referencedIds = (referencedIds == null || referencedIds.isEmpty())
+                                 ? Collections.emptySet()
+                                 : Collections.unmodifiableSet(
+                                         new LinkedHashSet<>(referencedIds));
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the HLID of the assertion or term which changed.
+   *
+   * @return the HLID
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Returns the name of the predicate of the assertion which was asserted or unasserted.
+   *
+   * @return the predicate name, or <code>null</code> if unknown or not applicable
+   */
+  public String getPredicate() {
+    return predicate;
+  }
+
+  /**
+   * Returns the name of the term before it was renamed or killed.
+   *
+   * @return the previous name, or <code>null</code> if unknown or not applicable
+   */
+  public String getPreviousName() {
+    return previousName;
+  }
+
+  /**
+   * Returns the new name of a renamed term.
+   *
+   * @return the new name, or <code>null</code> if not applicable
+   */
+  public String getName() {
+    return name;
+  }
+
+  public Set<String> getReferencedIds() {
+    return referencedIds;
+  }
+
+  /**
+   * Returns whether this event may affect the KB entity identified by <code>hlid</code>; i.e.,
+   * whether it is the subject of the event or referenced by it.
+   *
+   * @param hlid an HLID
+   *
+   * @return whether this event concerns <code>hlid</code>
+   */
+  public boolean affects(String hlid) {
+    return id.equals(hlid) || referencedIds.contains(hlid);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof KbChangeEvent)) {
+      return false;
+    }
+    final KbChangeEvent other = (KbChangeEvent) obj;
+    return this.type == other.type
+                   && this.id.equals(other.id)
+                   && Objects.equals(this.predicate, other.predicate)
+                   && Objects.equals(this.previousName, other.previousName)
+                   && Objects.equals(this.name, other.name)
+                   && this.referencedIds.equals(other.referencedIds);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, id, predicate, previousName, name, referencedIds);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(type.name()).append('[').append(id);
+    if (predicate != null) {
+      sb.append(", predicate=").append(predicate);
+    }
+    if (previousName != null) {
+      sb.append(", previousName=").append(previousName);
+    }
+    if (name != null) {
+      sb.append(", name=").append(name);
+    }
+    if (!referencedIds.isEmpty()) {
+      sb.append(", references=").append(referencedIds);
+    }
+    return sb.append(']').toString();
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.cyc.kb.event;
+
+/*
+ * #%L
+ * File: KbChangeEventSource.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A stream of {@link KbChangeEvent}s to which listeners may subscribe. KB API implementations which
+ * can observe KB changes expose one via
+ * {@link com.cyc.kb.spi.KbService#getChangeEventSource() }.
+ */
+public interface KbChangeEventSource {
+
+  /**
+   * Registers <code>listener</code> to receive every subsequent event.
+   *
+   * @param listener the listener
+   *
+   * @return a subscription which may be used to unregister the listener
+   */
+  KbChangeSubscription subscribe(KbChangeListener listener);
+
+  /**
+   * Registers <code>listener</code> to receive subsequent events of the specified types.
+   *
+   * @param listener the listener
+   * @param types    the types of event to deliver
+   *
+   * @return a subscription which may be used to unregister the listener
+   */
+  default KbChangeSubscription subscribe(KbChangeListener listener, Set<KbChangeEvent.Type> types) {
+    final Set<KbChangeEvent.Type> wanted = EnumSet.noneOf(KbChangeEvent.Type.class);
+    wanted.addAll(types);
+    return subscribe(event -> {
+      if (wanted.contains(event.getType())) {
+        listener.kbChanged(event);
+      }
+    });
+  }
+
+}
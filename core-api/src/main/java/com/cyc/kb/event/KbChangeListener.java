@@ -0,0 +1,33 @@
+package com.cyc.kb.event;
+
+/*
+ * #%L
+ * File: KbChangeListener.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Receives {@link KbChangeEvent}s from a {@link KbChangeEventSource}. Listeners are typically
+ * invoked on the event source's delivery thread, so they should return quickly.
+ */
+@FunctionalInterface
+public interface KbChangeListener {
+
+  void kbChanged(KbChangeEvent event);
+
+}
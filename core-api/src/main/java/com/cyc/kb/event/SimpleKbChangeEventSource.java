@@ -0,0 +1,97 @@
+package com.cyc.kb.event;
+
+/*
+ * #%L
+ * File: SimpleKbChangeEventSource.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A KbChangeEventSource which delivers events passed to {@link #publish(KbChangeEvent)}
+ * synchronously, on the publishing thread, to every active subscriber. Implementations may use it
+ * to fan out the changes they observe, and tests may use it to simulate KB changes.
+ *
+ * <p>
+ * An exception thrown by one listener is logged, and does not prevent delivery to the others.
+ */
+public class SimpleKbChangeEventSource implements KbChangeEventSource {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(SimpleKbChangeEventSource.class);
+
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public KbChangeSubscription subscribe(KbChangeListener listener) {
+    final Subscription subscription
+            = new Subscription(Objects.requireNonNull(listener, "Listener must not be null"));
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  /**
+   * Delivers <code>event</code> to every active subscriber.
+   *
+   * @param event the event
+   */
+  public void publish(KbChangeEvent event) {
+    Objects.requireNonNull(event, "Event must not be null");
+    for (Subscription subscription : subscriptions) {
+      try {
+        subscription.listener.kbChanged(event);
+      } catch (RuntimeException ex) {
+        LOG.error("KbChangeListener {} failed to handle {}", subscription.listener, event, ex);
+      }
+    }
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  //====|    Subscription    |====================================================================//
+
+  private final class Subscription implements KbChangeSubscription {
+
+    private final KbChangeListener listener;
+
+    private Subscription(KbChangeListener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public boolean isActive() {
+      return subscriptions.contains(this);
+    }
+
+    @Override
+    public void close() {
+      subscriptions.remove(this);
+    }
+  }
+
+}
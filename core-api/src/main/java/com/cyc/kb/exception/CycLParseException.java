@@ -0,0 +1,103 @@
+package com.cyc.kb.exception;
+
+import java.util.Objects;
+
+/*
+ * #%L
+ * File: CycLParseException.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Thrown when a CycL string cannot be parsed locally, e.g. by
+ * {@link com.cyc.kb.cycl.CycLParser}. The offset of the offending character is available via
+ * {@link #getOffset()}.
+ */
+public class CycLParseException extends CreateException {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Converts a Throwable to a CycLParseException. If the Throwable is a
+   * CycLParseException, it will be passed through unmodified; otherwise, it will be wrapped
+   * in a new CycLParseException.
+   *
+   * @param cause the Throwable to convert
+   *
+   * @return a CycLParseException
+   */
+  public static CycLParseException fromThrowable(Throwable cause) {
+    return (cause instanceof CycLParseException)
+                   ? (CycLParseException) cause
+                   : new CycLParseException(cause);
+  }
+
+  /**
+   * Converts a Throwable to a CycLParseException with the specified detail message. If the
+   * Throwable is a CycLParseException and if the Throwable's message is identical to the
+   * one supplied, the Throwable will be passed through unmodified; otherwise, it will be wrapped in
+   * a new CycLParseException with the detail message.
+   *
+   * @param cause       the Throwable to convert
+   * @param message the specified detail message
+   *
+   * @return a CycLParseException
+   */
+  public static CycLParseException fromThrowable(String message, Throwable cause) {
+    return (cause instanceof CycLParseException && Objects.equals(message, cause.getMessage()))
+                   ? (CycLParseException) cause
+                   : new CycLParseException(message, cause);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final int offset;
+
+  //====|    Construction    |====================================================================//
+
+  protected CycLParseException(Throwable cause) {
+    super(cause);
+    this.offset = -1;
+  }
+
+  public CycLParseException(String msg) {
+    this(msg, -1);
+  }
+
+  public CycLParseException(String msg, int offset) {
+    super((offset >= 0) ? msg + " (at offset " + offset + ")" : msg);
+    this.offset = offset;
+  }
+
+  protected CycLParseException(String msg, Throwable cause) {
+    super(msg, cause);
+    this.offset = -1;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the character offset in the input at which parsing failed.
+   *
+   * @return the offset, or -1 if unknown
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+}
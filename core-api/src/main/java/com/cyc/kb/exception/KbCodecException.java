@@ -0,0 +1,82 @@
+package com.cyc.kb.exception;
+
+import java.util.Objects;
+
+/*
+ * #%L
+ * File: KbCodecException.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Thrown when a value cannot be written to, or read from, the KB API binary format; e.g. because
+ * the input is truncated, was written by an unsupported version of the format, or refers to a
+ * dictionary entry which is not available.
+ *
+ * @see com.cyc.kb.codec.KbBinaryCodec
+ */
+public class KbCodecException extends KbRuntimeException {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Converts a Throwable to a KbCodecException. If the Throwable is a KbCodecException, it will be
+   * passed through unmodified; otherwise, it will be wrapped in a new KbCodecException.
+   *
+   * @param cause the Throwable to convert
+   *
+   * @return a KbCodecException
+   */
+  public static KbCodecException fromThrowable(Throwable cause) {
+    return (cause instanceof KbCodecException)
+                   ? (KbCodecException) cause
+                   : new KbCodecException(cause);
+  }
+
+  /**
+   * Converts a Throwable to a KbCodecException with the specified detail message. If the
+   * Throwable is a KbCodecException and if the Throwable's message is identical to the one
+   * supplied, the Throwable will be passed through unmodified; otherwise, it will be wrapped in a
+   * new KbCodecException with the detail message.
+   *
+   * @param cause   the Throwable to convert
+   * @param message the specified detail message
+   *
+   * @return a KbCodecException
+   */
+  public static KbCodecException fromThrowable(String message, Throwable cause) {
+    return (cause instanceof KbCodecException && Objects.equals(message, cause.getMessage()))
+                   ? (KbCodecException) cause
+                   : new KbCodecException(message, cause);
+  }
+
+  //====|    Construction    |====================================================================//
+
+  public KbCodecException(String msg) {
+    super(msg);
+  }
+
+  protected KbCodecException(Throwable cause) {
+    super(cause);
+  }
+
+  protected KbCodecException(String msg, Throwable cause) {
+    super(msg, cause);
+  }
+
+}
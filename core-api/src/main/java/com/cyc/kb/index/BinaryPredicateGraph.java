@@ -0,0 +1,490 @@
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: BinaryPredicateGraph.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.BinaryPredicate;
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable, in-memory snapshot of the extent of a {@link BinaryPredicate} in a context, for
+ * graph traversals which would otherwise take one round trip per hop; e.g., finding a path between
+ * two regions via <tt>#$geographicalSubRegions</tt>. Each fact <tt>(pred arg1 arg2)</tt> becomes
+ * an edge from <tt>arg1</tt> to <tt>arg2</tt>.
+ *
+ * <p>
+ * Nodes are numbered densely, and edges are stored in compressed sparse row (CSR) form in both
+ * directions, so a snapshot of <em>E</em> facts over <em>N</em> terms occupies roughly
+ * <code>8E + 8N</code> bytes of int arrays, plus an index from terms to node numbers; see
+ * {@link #estimateMemoryBytes() }. Traversals use primitive arrays throughout. Each traversal also
+ * needs 16 bytes of scratch space per node; threads keep theirs for reuse only for graphs of up to
+ * 65,536 nodes, and release it after each traversal of a larger graph.
+ *
+ * <p>
+ * A snapshot does not track later changes to the KB; call {@link #refresh() } to take a new one.
+ * Taking a snapshot of a large extent is slow, as it retrieves the arguments of each fact
+ * separately; see {@link #snapshot(BinaryPredicate, Context) }. Snapshots are safe for concurrent
+ * use.
+ */
+public final class BinaryPredicateGraph {
+
+  //====|    Direction enum    |==================================================================//
+
+  /**
+   * The direction in which to follow edges.
+   */
+  public static enum Direction {
+    /**
+     * From <tt>arg1</tt> to <tt>arg2</tt>.
+     */
+    FORWARD,
+    /**
+     * From <tt>arg2</tt> to <tt>arg1</tt>.
+     */
+    BACKWARD,
+    /**
+     * Either way, treating the predicate as symmetric.
+     */
+    BOTH;
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Takes a snapshot of the extent of <code>predicate</code> in <code>ctx</code>.
+   *
+   * <p>
+   * <strong>Note:</strong> this retrieves the extent in one call, but then each fact's two
+   * arguments separately, so it costs <code>2E + 1</code> round trips for <em>E</em> facts. For
+   * large extents, it is much cheaper to run a single query which binds both arguments, e.g.
+   * <tt>(#$geographicalSubRegions ?FROM ?TO)</tt> with transformation disabled, and add each
+   * answer to a {@link #builder() } via {@link Builder#addEdge(Object, Object) }; note that
+   * inference may also return answers which are not asserted in <code>ctx</code>.
+   *
+   * @param predicate the predicate
+   * @param ctx       the context whose facts to include
+   *
+   * @return a new BinaryPredicateGraph
+   *
+   * @throws KbTypeException if a fact's arguments cannot be retrieved
+   * @throws CreateException if a fact's arguments cannot be retrieved
+   */
+  public static BinaryPredicateGraph snapshot(BinaryPredicate predicate, Context ctx)
+          throws KbTypeException, CreateException {
+    Objects.requireNonNull(predicate, "Predicate must not be null");
+    final Builder builder = builder();
+    for (Fact fact : predicate.getExtent(ctx)) {
+      builder.addEdge(fact.getArgument(1), fact.getArgument(2));
+    }
+    return builder.build(predicate, ctx);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
+
+  /**
+   * The largest workspace, in nodes, which a thread keeps between traversals.
+   */
+  private static final int MAX_RETAINED_WORKSPACE_NODES = 1 << 16;
+
+  private final BinaryPredicate predicate;
+  private final Context context;
+  private final long snapshotTimeMillis;
+  private final Object[] nodes;
+  private final Map<Object, Integer> nodeIndex;
+  private final int[] outOffsets;
+  private final int[] outTargets;
+  private final int[] inOffsets;
+  private final int[] inSources;
+
+  //====|    Construction    |====================================================================//
+
+  private BinaryPredicateGraph(BinaryPredicate predicate, Context context, Object[] nodes,
+                               Map<Object, Integer> nodeIndex, int[] sources, int[] targets) {
+    this.predicate = predicate;
+    this.context = context;
+    this.snapshotTimeMillis = System.currentTimeMillis();
+    this.nodes = nodes;
+    this.nodeIndex = nodeIndex;
+    this.outOffsets = new int[nodes.length + 1];
+    this.outTargets = new int[sources.length];
+    this.inOffsets = new int[nodes.length + 1];
+    this.inSources = new int[sources.length];
+    toCsr(sources, targets, outOffsets, outTargets);
+    toCsr(targets, sources, inOffsets, inSources);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Takes a new snapshot of the same predicate and context.
+   *
+   * @return a new BinaryPredicateGraph
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   * @throws IllegalStateException if this graph was not created by
+   *                               {@link #snapshot(BinaryPredicate, Context) }
+   */
+  public BinaryPredicateGraph refresh() throws KbTypeException, CreateException {
+    if (predicate == null) {
+      throw new IllegalStateException(
+              "Graph was built from explicit edges; it cannot be refreshed");
+    }
+    return snapshot(predicate, context);
+  }
+
+  /**
+   * Returns the predicate whose extent this graph holds.
+   *
+   * @return the predicate, or <code>null</code> if the graph was built from explicit edges
+   */
+  public BinaryPredicate getPredicate() {
+    return predicate;
+  }
+
+  public Context getContext() {
+    return context;
+  }
+
+  /**
+   * Returns when this snapshot was taken.
+   *
+   * @return the time, in milliseconds since the epoch
+   */
+  public long getSnapshotTimeMillis() {
+    return snapshotTimeMillis;
+  }
+
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  public int getEdgeCount() {
+    return outTargets.length;
+  }
+
+  public boolean contains(Object node) {
+    return nodeIndex.containsKey(node);
+  }
+
+  /**
+   * Returns the nodes adjacent to <code>node</code>.
+   *
+   * @param node      a node, i.e. an argument of one of the predicate's facts
+   * @param direction the direction in which to follow edges
+   *
+   * @return the adjacent nodes, or an empty list if <code>node</code> is not in the graph
+   */
+  public List<Object> getNeighbors(Object node, Direction direction) {
+    final Integer idx = nodeIndex.get(node);
+    if (idx == null) {
+      return Collections.emptyList();
+    }
+    final List<Object> results = new ArrayList<>();
+    if (direction != Direction.BACKWARD) {
+      for (int i = outOffsets[idx]; i < outOffsets[idx + 1]; i++) {
+        results.add(nodes[outTargets[i]]);
+      }
+    }
+    if (direction != Direction.FORWARD) {
+      for (int i = inOffsets[idx]; i < inOffsets[idx + 1]; i++) {
+        results.add(nodes[inSources[i]]);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Returns every node reachable from <code>from</code> within <code>maxDepth</code> hops, in
+   * breadth-first order. <code>from</code> itself is included only if it lies on a cycle.
+   *
+   * @param from      the starting node
+   * @param direction the direction in which to follow edges
+   * @param maxDepth  the maximum number of hops, or a negative number for no limit
+   *
+   * @return the reachable nodes
+   */
+  public Set<Object> getReachable(Object from, Direction direction, int maxDepth) {
+    final Integer start = nodeIndex.get(from);
+    if (start == null) {
+      return Collections.emptySet();
+    }
+    final Workspace ws = acquireWorkspace();
+    try {
+      final Set<Object> results = new LinkedHashSet<>();
+      bfs(ws, start, -1, direction, maxDepth, results);
+      return results;
+    } finally {
+      releaseWorkspace(ws);
+    }
+  }
+
+  public boolean isReachable(Object from, Object to, Direction direction) {
+    return !getShortestPath(from, to, direction).isEmpty();
+  }
+
+  /**
+   * Returns a shortest path from <code>from</code> to <code>to</code>.
+   *
+   * @param from      the starting node
+   * @param to        the destination node
+   * @param direction the direction in which to follow edges
+   *
+   * @return the nodes on the path, including both ends, or an empty list if <code>to</code> is
+   *         not reachable from <code>from</code>
+   */
+  public List<Object> getShortestPath(Object from, Object to, Direction direction) {
+    final Integer start = nodeIndex.get(from);
+    final Integer goal = nodeIndex.get(to);
+    if (start == null || goal == null) {
+      return Collections.emptyList();
+    }
+    if (start.equals(goal)) {
+      return Collections.singletonList(nodes[start]);
+    }
+    final Workspace ws = acquireWorkspace();
+    try {
+      if (!bfs(ws, start, goal, direction, -1, null)) {
+        return Collections.emptyList();
+      }
+      final List<Object> path = new ArrayList<>();
+      for (int n = goal; n != start; n = ws.parent[n]) {
+        path.add(nodes[n]);
+      }
+      path.add(nodes[start]);
+      Collections.reverse(path);
+      return path;
+    } finally {
+      releaseWorkspace(ws);
+    }
+  }
+
+  /**
+   * Estimates the heap occupied by this snapshot's arrays and node index, in bytes. The nodes
+   * themselves, which are shared with the rest of the application, are not counted, nor is the
+   * transient scratch space used by traversals in progress (16 bytes per node per traversal).
+   *
+   * @return the estimated size in bytes
+   */
+  public long estimateMemoryBytes() {
+    final long intArrays = 4L * (outOffsets.length + outTargets.length
+                                         + inOffsets.length + inSources.length);
+    final long nodeArray = 8L * nodes.length;
+    final long indexEntries = 64L * nodeIndex.size();
+    return intArrays + nodeArray + indexEntries;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[predicate=" + predicate + ", context=" + context
+                   + ", nodes=" + getNodeCount() + ", edges=" + getEdgeCount() + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private Workspace acquireWorkspace() {
+    return WORKSPACES.get().prepare(nodes.length);
+  }
+
+  /**
+   * Drops the calling thread's workspace if it is too large to keep, so that one traversal of a
+   * large graph does not pin its scratch arrays for the life of the thread.
+   */
+  private static void releaseWorkspace(Workspace ws) {
+    if (ws.capacity() > MAX_RETAINED_WORKSPACE_NODES) {
+      WORKSPACES.remove();
+    }
+  }
+
+  /**
+   * Breadth-first search from <code>start</code>. Stops early if <code>goal</code> is reached, in
+   * which case the workspace's parent array describes a shortest path; otherwise adds every
+   * reached node to <code>reached</code>, if it is non-null.
+   */
+  private boolean bfs(Workspace ws, int start, int goal, Direction direction, int maxDepth,
+                      Set<Object> reached) {
+    int head = 0;
+    int tail = 0;
+    ws.queue[tail++] = start;
+    ws.depth[start] = 0;
+    ws.visit(start);
+    boolean startReached = false;
+    while (head < tail) {
+      final int node = ws.queue[head++];
+      if (maxDepth >= 0 && ws.depth[node] >= maxDepth) {
+        continue;
+      }
+      for (int pass = 0; pass < 2; pass++) {
+        final boolean forward = (pass == 0);
+        if ((forward && direction == Direction.BACKWARD)
+                    || (!forward && direction == Direction.FORWARD)) {
+          continue;
+        }
+        final int[] offsets = forward ? outOffsets : inOffsets;
+        final int[] adjacent = forward ? outTargets : inSources;
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+          final int next = adjacent[i];
+          if (next == start && reached != null && !startReached) {
+            startReached = true;
+            reached.add(nodes[start]);
+          }
+          if (ws.isVisited(next)) {
+            continue;
+          }
+          ws.visit(next);
+          ws.parent[next] = node;
+          ws.depth[next] = ws.depth[node] + 1;
+          if (next == goal) {
+            return true;
+          }
+          if (reached != null) {
+            reached.add(nodes[next]);
+          }
+          ws.queue[tail++] = next;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void toCsr(int[] from, int[] to, int[] offsets, int[] adjacent) {
+    for (int node : from) {
+      offsets[node + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    final int[] fill = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int i = 0; i < from.length; i++) {
+      adjacent[fill[from[i]]++] = to[i];
+    }
+  }
+
+  //====|    Workspace    |=======================================================================//
+
+  /**
+   * Per-thread traversal state, reused across queries. Visited marks are generation stamps, so
+   * preparing for a query does not clear the arrays.
+   */
+  private static final class Workspace {
+
+    private int[] stamps = new int[0];
+    private int[] parent = new int[0];
+    private int[] depth = new int[0];
+    private int[] queue = new int[0];
+    private int generation;
+
+    private Workspace prepare(int numNodes) {
+      if (stamps.length < numNodes) {
+        stamps = new int[numNodes];
+        parent = new int[numNodes];
+        depth = new int[numNodes];
+        queue = new int[numNodes];
+        generation = 0;
+      }
+      if (++generation == 0) {
+        Arrays.fill(stamps, 0);
+        generation = 1;
+      }
+      return this;
+    }
+
+    private int capacity() {
+      return stamps.length;
+    }
+
+    private boolean isVisited(int node) {
+      return stamps[node] == generation;
+    }
+
+    private void visit(int node) {
+      stamps[node] = generation;
+    }
+  }
+
+  //====|    Builder    |=========================================================================//
+
+  /**
+   * Accumulates edges for a BinaryPredicateGraph which is not taken directly from the KB; e.g.,
+   * one assembled from query results or from several predicates. Duplicate edges are kept.
+   */
+  public static final class Builder {
+
+    private final List<Object> nodes = new ArrayList<>();
+    private final Map<Object, Integer> nodeIndex = new HashMap<>();
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int numEdges;
+
+    private Builder() {
+    }
+
+    public Builder addEdge(Object from, Object to) {
+      if (numEdges == sources.length) {
+        sources = Arrays.copyOf(sources, numEdges * 2);
+        targets = Arrays.copyOf(targets, numEdges * 2);
+      }
+      sources[numEdges] = indexOf(Objects.requireNonNull(from, "Edge source must not be null"));
+      targets[numEdges] = indexOf(Objects.requireNonNull(to, "Edge target must not be null"));
+      numEdges++;
+      return this;
+    }
+
+    public BinaryPredicateGraph build() {
+      return build(null, null);
+    }
+
+    private BinaryPredicateGraph build(BinaryPredicate predicate, Context ctx) {
+      return new BinaryPredicateGraph(predicate, ctx, nodes.toArray(), new HashMap<>(nodeIndex),
+                                      Arrays.copyOf(sources, numEdges),
+                                      Arrays.copyOf(targets, numEdges));
+    }
+
+    private int indexOf(Object node) {
+      final Integer idx = nodeIndex.get(node);
+      if (idx != null) {
+        return idx;
+      }
+      nodeIndex.put(node, nodes.size());
+      nodes.add(node);
+      return nodes.size() - 1;
+    }
+  }
+
+}
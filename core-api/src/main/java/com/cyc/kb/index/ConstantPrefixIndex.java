@@ -0,0 +1,517 @@
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: ConstantPrefixIndex.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.KbObjectType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * An immutable, in-memory index of constant names for type-ahead completion. Given a prefix, it
+ * returns the best <em>k</em> constants whose names start with it, optionally restricted to
+ * particular {@link KbObjectType}s. Matching is case-insensitive, and any leading <tt>#$</tt> is
+ * ignored.
+ *
+ * <p>
+ * Matches are ranked by weight (highest first; e.g. a usage or assertion count supplied with the
+ * name), then by name length (shortest first), then alphabetically.
+ *
+ * <p>
+ * Names are stored in a single character array, sorted, so that the names sharing a prefix form
+ * a contiguous range. For every prefix shared by more than a few hundred names (the upper nodes of
+ * the implied radix trie), the best matches are precomputed, both overall and for each of
+ * {@link #INDEXED_TYPES}; queries for those prefixes take time proportional only to the prefix's
+ * length and <em>k</em>. Queries which fall outside the precomputed lists (large <em>k</em>, or a
+ * type filter other than a single indexed type) scan the prefix's range.
+ *
+ * <p>
+ * Indexes are built with a {@link Builder}, or from a dump via {@link #fromDump(Path) }, and are
+ * safe for concurrent use.
+ */
+public final class ConstantPrefixIndex {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Builds an index from a text file with one constant per line, in the form
+   * <tt>name[&lt;TAB&gt;types[&lt;TAB&gt;weight]]</tt>, where <tt>types</tt> is a comma-separated
+   * list of {@link KbObjectType} names (e.g. <tt>TERM,COLLECTION,FIRST_ORDER_COLLECTION</tt>) and
+   * <tt>weight</tt> is an integer. Constants without types are indexed as
+   * {@link KbObjectType#TERM}s with weight 0. Blank lines are ignored.
+   *
+   * @param dump the dump file
+   *
+   * @return a new ConstantPrefixIndex
+   *
+   * @throws IOException if the file cannot be read or contains a malformed line
+   */
+  public static ConstantPrefixIndex fromDump(Path dump) throws IOException {
+    final Builder builder = builder();
+    try (BufferedReader reader = Files.newBufferedReader(dump, StandardCharsets.UTF_8)) {
+      int lineNum = 0;
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        lineNum++;
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        final String[] fields = line.split("\t");
+        try {
+          final int typeMask = (fields.length > 1) ? parseTypes(fields[1]) : TERM_MASK;
+          final int weight = (fields.length > 2) ? Integer.parseInt(fields[2].trim()) : 0;
+          builder.add(fields[0].trim(), typeMask, weight);
+        } catch (IllegalArgumentException ex) {
+          throw new IOException("Malformed line " + lineNum + " of " + dump + ": " + line, ex);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  /**
+   * The types for which the best matches of common prefixes are precomputed.
+   */
+  public static final List<KbObjectType> INDEXED_TYPES = Collections.unmodifiableList(
+          Arrays.asList(KbObjectType.COLLECTION,
+                        KbObjectType.PREDICATE,
+                        KbObjectType.FUNCTION,
+                        KbObjectType.INDIVIDUAL,
+                        KbObjectType.CONTEXT));
+
+  /**
+   * The largest <em>k</em> for which precomputed matches are used.
+   */
+  public static final int MAX_PRECOMPUTED_K = 16;
+
+  private static final int SCAN_THRESHOLD = 256;
+
+  private static final int TERM_MASK = KbObjectType.TERM.getMask();
+
+  private final char[] chars;
+  private final int[] offsets;
+  private final int[] typeMasks;
+  private final int[] weights;
+  private final Map<Long, int[][]> precomputed = new HashMap<>();
+  private final Comparator<Integer> ranking;
+
+  //====|    Construction    |====================================================================//
+
+  private ConstantPrefixIndex(char[] chars, int[] offsets, int[] typeMasks, int[] weights) {
+    this.chars = chars;
+    this.offsets = offsets;
+    this.typeMasks = typeMasks;
+    this.weights = weights;
+    this.ranking = (i, j) -> {
+      if (weights[i] != weights[j]) {
+        return Integer.compare(weights[j], weights[i]);
+      }
+      final int lengthDiff = length(i) - length(j);
+      return (lengthDiff != 0) ? lengthDiff : Integer.compare(i, j);
+    };
+    if (size() > SCAN_THRESHOLD) {
+      precompute(0, size(), 0);
+    }
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public int size() {
+    return typeMasks.length;
+  }
+
+  /**
+   * Returns the best <code>k</code> constants whose names start with <code>prefix</code>.
+   *
+   * @param prefix the prefix, matched case-insensitively
+   * @param k      the maximum number of matches to return
+   *
+   * @return the matches, best first
+   */
+  public List<PrefixMatch> complete(String prefix, int k) {
+    return complete(prefix, k, 0);
+  }
+
+  /**
+   * Returns the best <code>k</code> constants of the specified type whose names start with
+   * <code>prefix</code>.
+   *
+   * @param prefix the prefix, matched case-insensitively
+   * @param k      the maximum number of matches to return
+   * @param type   the type which matches must have
+   *
+   * @return the matches, best first
+   */
+  public List<PrefixMatch> complete(String prefix, int k, KbObjectType type) {
+    return complete(prefix, k, type.getMask());
+  }
+
+  /**
+   * Returns the best <code>k</code> constants whose names start with <code>prefix</code> and which
+   * have at least one of the specified types.
+   *
+   * @param prefix the prefix, matched case-insensitively
+   * @param k      the maximum number of matches to return
+   * @param types  the types, any of which a match must have; empty for no restriction
+   *
+   * @return the matches, best first
+   */
+  public List<PrefixMatch> complete(String prefix, int k, Set<KbObjectType> types) {
+    int mask = 0;
+    for (KbObjectType type : types) {
+      mask |= type.getMask();
+    }
+    return complete(prefix, k, mask);
+  }
+
+  /**
+   * Returns the number of constants whose names start with <code>prefix</code>.
+   *
+   * @param prefix the prefix, matched case-insensitively
+   *
+   * @return the number of matching constants
+   */
+  public int count(String prefix) {
+    final String key = normalize(prefix);
+    return upperBound(key) - lowerBound(key);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+                   + "[size=" + size() + ", precomputedPrefixes=" + precomputed.size() + "]";
+  }
+
+  //====|    Querying    |========================================================================//
+
+  private List<PrefixMatch> complete(String prefix, int k, int typeMask) {
+    if (k <= 0) {
+      return Collections.emptyList();
+    }
+    final String key = normalize(prefix);
+    final int lo = lowerBound(key);
+    final int hi = upperBound(key);
+    if (lo >= hi) {
+      return Collections.emptyList();
+    }
+    final int slot = slotOf(typeMask);
+    if (slot >= 0 && k <= MAX_PRECOMPUTED_K) {
+      final int[][] lists = precomputed.get(rangeKey(lo, hi));
+      if (lists != null) {
+        final int[] best = lists[slot];
+        final List<PrefixMatch> results = new ArrayList<>(Math.min(k, best.length));
+        for (int i = 0; i < best.length && i < k; i++) {
+          results.add(matchAt(best[i]));
+        }
+        return results;
+      }
+    }
+    final int[] best = scan(lo, hi, k, typeMask);
+    final List<PrefixMatch> results = new ArrayList<>(best.length);
+    for (int idx : best) {
+      results.add(matchAt(idx));
+    }
+    return results;
+  }
+
+  private int[] scan(int lo, int hi, int k, int typeMask) {
+    final PriorityQueue<Integer> worstFirst = new PriorityQueue<>(k + 1, ranking.reversed());
+    for (int i = lo; i < hi; i++) {
+      if (typeMask == 0 || (typeMasks[i] & typeMask) != 0) {
+        worstFirst.add(i);
+        if (worstFirst.size() > k) {
+          worstFirst.poll();
+        }
+      }
+    }
+    final int[] results = new int[worstFirst.size()];
+    for (int i = results.length - 1; i >= 0; i--) {
+      results[i] = worstFirst.poll();
+    }
+    return results;
+  }
+
+  private int lowerBound(String key) {
+    int lo = 0;
+    int hi = size();
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (comparePrefix(mid, key) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int upperBound(String key) {
+    int lo = 0;
+    int hi = size();
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (comparePrefix(mid, key) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Compares the name at <code>idx</code> to <code>key</code>, treating names which start with
+   * <code>key</code> as equal to it.
+   */
+  private int comparePrefix(int idx, String key) {
+    final int start = offsets[idx];
+    final int length = length(idx);
+    final int max = Math.min(length, key.length());
+    for (int i = 0; i < max; i++) {
+      final char c = fold(chars[start + i]);
+      final char k = key.charAt(i);
+      if (c != k) {
+        return c - k;
+      }
+    }
+    return (length < key.length()) ? -1 : 0;
+  }
+
+  private PrefixMatch matchAt(int idx) {
+    return new PrefixMatch(
+            new String(chars, offsets[idx], length(idx)), typeMasks[idx], weights[idx]);
+  }
+
+  //====|    Precomputation    |==================================================================//
+
+  /**
+   * Precomputes the best matches for every prefix with more than SCAN_THRESHOLD names, by walking
+   * the radix trie implied by the sorted names. The names in [lo, hi) share their first
+   * <code>depth</code> characters.
+   */
+  private void precompute(int lo, int hi, int depth) {
+    final long key = rangeKey(lo, hi);
+    if (!precomputed.containsKey(key)) {
+      precomputed.put(key, computeBest(lo, hi));
+    }
+    int start = lo;
+    while (start < hi && length(start) <= depth) {
+      start++;
+    }
+    while (start < hi) {
+      final char c = fold(chars[offsets[start] + depth]);
+      int end = start + 1;
+      while (end < hi && fold(chars[offsets[end] + depth]) == c) {
+        end++;
+      }
+      if (end - start > SCAN_THRESHOLD) {
+        precompute(start, end, depth + 1);
+      }
+      start = end;
+    }
+  }
+
+  private int[][] computeBest(int lo, int hi) {
+    final int[][] results = new int[INDEXED_TYPES.size() + 1][];
+    results[0] = scan(lo, hi, MAX_PRECOMPUTED_K, 0);
+    for (int slot = 1; slot < results.length; slot++) {
+      results[slot] = scan(lo, hi, MAX_PRECOMPUTED_K, INDEXED_TYPES.get(slot - 1).getMask());
+    }
+    return results;
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private int length(int idx) {
+    return offsets[idx + 1] - offsets[idx];
+  }
+
+  private static int slotOf(int typeMask) {
+    if (typeMask == 0) {
+      return 0;
+    }
+    for (int i = 0; i < INDEXED_TYPES.size(); i++) {
+      if (INDEXED_TYPES.get(i).getMask() == typeMask) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static long rangeKey(int lo, int hi) {
+    return ((long) lo << 32) | hi;
+  }
+
+  private static char fold(char c) {
+    return Character.toLowerCase(c);
+  }
+
+  private static String stripPrefix(String name) {
+    return name.startsWith("#$") ? name.substring(2) : name;
+  }
+
+  private static String normalize(String prefix) {
+    final String name = stripPrefix(prefix);
+    final char[] folded = new char[name.length()];
+    for (int i = 0; i < folded.length; i++) {
+      folded[i] = fold(name.charAt(i));
+    }
+    return new String(folded);
+  }
+
+  private static int compareFolded(String a, String b) {
+    final int max = Math.min(a.length(), b.length());
+    for (int i = 0; i < max; i++) {
+      final char c1 = fold(a.charAt(i));
+      final char c2 = fold(b.charAt(i));
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return a.length() - b.length();
+  }
+
+  private static int parseTypes(String types) {
+    int mask = 0;
+    for (String type : types.split(",")) {
+      if (!type.trim().isEmpty()) {
+        mask |= KbObjectType.valueOf(type.trim().toUpperCase()).getMask();
+      }
+    }
+    return (mask != 0) ? mask : TERM_MASK;
+  }
+
+  //====|    Builder    |=========================================================================//
+
+  /**
+   * Accumulates constants for a new ConstantPrefixIndex. A name which is added more than once is
+   * indexed once, with the union of its types and the greatest of its weights.
+   */
+  public static final class Builder {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a constant.
+     *
+     * @param name     the constant's name, with or without a leading <tt>#$</tt>
+     * @param typeMask the constant's types; see {@link KbObjectType#getMask() }
+     * @param weight   the constant's ranking weight; higher is better
+     *
+     * @return this Builder
+     */
+    public Builder add(String name, int typeMask, int weight) {
+      final String stripped = stripPrefix(Objects.requireNonNull(name, "Name must not be null"));
+      if (stripped.isEmpty()) {
+        throw new IllegalArgumentException("Name must not be empty");
+      }
+      entries.add(new Entry(stripped, typeMask, weight));
+      return this;
+    }
+
+    /**
+     * Adds a constant, with the types of <code>term</code> and weight 0.
+     *
+     * @param name the constant's name
+     * @param term the KbObject which the name denotes
+     *
+     * @return this Builder
+     */
+    public Builder add(String name, KbObject term) {
+      return add(name, KbObjectType.maskOf(term), 0);
+    }
+
+    public int size() {
+      return entries.size();
+    }
+
+    public ConstantPrefixIndex build() {
+      entries.sort((e1, e2) -> {
+        final int result = compareFolded(e1.name, e2.name);
+        return (result != 0) ? result : e1.name.compareTo(e2.name);
+      });
+      final List<Entry> merged = new ArrayList<>(entries.size());
+      int numChars = 0;
+      for (Entry entry : entries) {
+        final Entry last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+        if (last != null && last.name.equals(entry.name)) {
+          merged.set(merged.size() - 1, new Entry(last.name,
+                                                  last.typeMask | entry.typeMask,
+                                                  Math.max(last.weight, entry.weight)));
+        } else {
+          merged.add(entry);
+          numChars += entry.name.length();
+        }
+      }
+      final char[] chars = new char[numChars];
+      final int[] offsets = new int[merged.size() + 1];
+      final int[] typeMasks = new int[merged.size()];
+      final int[] weights = new int[merged.size()];
+      int pos = 0;
+      for (int i = 0; i < merged.size(); i++) {
+        final Entry entry = merged.get(i);
+        offsets[i] = pos;
+        entry.name.getChars(0, entry.name.length(), chars, pos);
+        pos += entry.name.length();
+        typeMasks[i] = entry.typeMask;
+        weights[i] = entry.weight;
+      }
+      offsets[merged.size()] = pos;
+      return new ConstantPrefixIndex(chars, offsets, typeMasks, weights);
+    }
+  }
+
+  private static final class Entry {
+
+    private final String name;
+    private final int typeMask;
+    private final int weight;
+
+    private Entry(String name, int typeMask, int weight) {
+      this.name = name;
+      this.typeMask = typeMask;
+      this.weight = weight;
+    }
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: PrefixMatch.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObjectType;
+import java.util.EnumSet;
+
+/**
+ * A constant name returned by {@link ConstantPrefixIndex}, along with its KB API types and
+ * ranking weight.
+ */
+public final class PrefixMatch {
+
+  //====|    Fields    |==========================================================================//
+
+  private final String name;
+  private final int typeMask;
+  private final int weight;
+
+  //====|    Construction    |====================================================================//
+
+  PrefixMatch(String name, int typeMask, int weight) {
+    this.name = name;
+    this.typeMask = typeMask;
+    this.weight = weight;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the constant's KB API types as a bitmask; see {@link KbObjectType#getMask() }.
+   *
+   * @return the type bitmask
+   */
+  public int getTypeMask() {
+    return typeMask;
+  }
+
+  public EnumSet<KbObjectType> getTypes() {
+    return KbObjectType.fromMask(typeMask);
+  }
+
+  public boolean isType(KbObjectType type) {
+    return type.isIn(typeMask);
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof PrefixMatch)) {
+      return false;
+    }
+    final PrefixMatch other = (PrefixMatch) obj;
+    return name.equals(other.name) && typeMask == other.typeMask && weight == other.weight;
+  }
+
+  @Override
+  public int hashCode() {
+    return (name.hashCode() * 31 + typeMask) * 31 + weight;
+  }
+
+  @Override
+  public String toString() {
+    return name + getTypes();
+  }
+
+}
@@ -0,0 +1,28 @@
+/**
+ * Read-only, in-memory indexes over KB data which has been exported from a Cyc server, for
+ * queries which the KB API does not support directly, such as
+ * {@link com.cyc.kb.index.ConstantPrefixIndex prefix completion} of constant names and
+ * {@link com.cyc.kb.index.BinaryPredicateGraph multi-hop traversal} of binary predicates.
+ */
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: package-info.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
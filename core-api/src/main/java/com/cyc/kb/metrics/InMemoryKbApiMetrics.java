@@ -0,0 +1,96 @@
+package com.cyc.kb.metrics;
+
+/*
+ * #%L
+ * File: InMemoryKbApiMetrics.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A KbApiMetrics which aggregates calls in memory, per interface method. Use
+ * {@link #getTopByTotalTime(int) } to see which KB API calls dominate a request or workload.
+ */
+public class InMemoryKbApiMetrics implements KbApiMetrics {
+
+  //====|    Fields    |==========================================================================//
+
+  private final Map<Method, KbApiCallStats> stats = new ConcurrentHashMap<>();
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public void recordCall(Method method, long elapsedNanos, Throwable thrown) {
+    stats.computeIfAbsent(method, KbApiCallStats::new).record(elapsedNanos, thrown);
+  }
+
+  /**
+   * Returns the statistics for <code>method</code>.
+   *
+   * @param method an interface method
+   *
+   * @return the statistics, or <code>null</code> if the method has not been called
+   */
+  public KbApiCallStats getStats(Method method) {
+    return stats.get(method);
+  }
+
+  /**
+   * Returns the statistics for every method which has been called, ordered by name.
+   *
+   * @return the statistics
+   */
+  public List<KbApiCallStats> getAllStats() {
+    final List<KbApiCallStats> result = new ArrayList<>(stats.values());
+    result.sort(Comparator.comparing(KbApiCallStats::getName));
+    return result;
+  }
+
+  /**
+   * Returns the statistics for the <code>limit</code> methods which have taken the most time in
+   * total, most expensive first.
+   *
+   * @param limit the maximum number of methods to return
+   *
+   * @return the statistics
+   */
+  public List<KbApiCallStats> getTopByTotalTime(int limit) {
+    final List<KbApiCallStats> result = new ArrayList<>(stats.values());
+    result.sort(Comparator.comparingLong(KbApiCallStats::getTotalNanos).reversed());
+    return result.subList(0, Math.min(limit, result.size()));
+  }
+
+  /**
+   * Discards all statistics.
+   */
+  public void reset() {
+    stats.clear();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + getAllStats();
+  }
+
+}
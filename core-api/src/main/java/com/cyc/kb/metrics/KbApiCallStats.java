@@ -0,0 +1,202 @@
+package com.cyc.kb.metrics;
+
+/*
+ * #%L
+ * File: KbApiCallStats.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate statistics for calls to a single KB API method: call and exception counts, total and
+ * maximum latency, and a latency histogram. The histogram has one bucket per power of two
+ * nanoseconds, so percentiles are accurate to within a factor of two.
+ *
+ * <p>
+ * Instances are updated concurrently by {@link InMemoryKbApiMetrics}; reads return a consistent
+ * value for each individual statistic, but not necessarily across statistics.
+ */
+public final class KbApiCallStats {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final int NUM_BUCKETS = 64;
+
+  private final Method method;
+  private final String name;
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+  private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+  private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+
+  //====|    Construction    |====================================================================//
+
+  KbApiCallStats(Method method) {
+    this.method = method;
+    this.name = nameOf(method);
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Method getMethod() {
+    return method;
+  }
+
+  /**
+   * Returns a short, readable name for the method, e.g.
+   * <tt>KbCollection#getGeneralizations(Context)</tt>.
+   *
+   * @return the method name
+   */
+  public String getName() {
+    return name;
+  }
+
+  public long getCallCount() {
+    return calls.sum();
+  }
+
+  public long getExceptionCount() {
+    long count = 0;
+    for (LongAdder adder : exceptions.values()) {
+      count += adder.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of calls which threw each type of exception, keyed by exception class name.
+   *
+   * @return exception counts
+   */
+  public Map<String, Long> getExceptionCounts() {
+    final Map<String, Long> result = new TreeMap<>();
+    exceptions.forEach((type, count) -> result.put(type, count.sum()));
+    return Collections.unmodifiableMap(result);
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  public long getMeanNanos() {
+    final long count = getCallCount();
+    return (count == 0) ? 0 : getTotalNanos() / count;
+  }
+
+  /**
+   * Returns an upper bound for the specified latency percentile, i.e. the upper edge of the
+   * histogram bucket in which it falls.
+   *
+   * @param percentile a percentile between 0 and 100, e.g. 99.9
+   *
+   * @return the latency in nanoseconds, or 0 if no calls have been recorded
+   */
+  public long getPercentileNanos(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    final long[] counts = getHistogram();
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), getMaxNanos());
+      }
+    }
+    return getMaxNanos();
+  }
+
+  /**
+   * Returns the latency histogram. Element <code>i</code> is the number of calls which took less
+   * than <code>2^i</code> nanoseconds, but no less than <code>2^(i-1)</code>.
+   *
+   * @return the bucket counts
+   */
+  public long[] getHistogram() {
+    final long[] result = new long[NUM_BUCKETS];
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      result[i] = buckets[i].sum();
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return name + "[calls=" + getCallCount()
+                   + ", exceptions=" + getExceptionCount()
+                   + ", meanNanos=" + getMeanNanos()
+                   + ", p99Nanos=" + getPercentileNanos(99)
+                   + ", maxNanos=" + getMaxNanos() + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  void record(long elapsedNanos, Throwable thrown) {
+    final long nanos = Math.max(0, elapsedNanos);
+    calls.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+    buckets[bucketOf(nanos)].increment();
+    if (thrown != null) {
+      exceptions.computeIfAbsent(thrown.getClass().getName(), type -> new LongAdder()).increment();
+    }
+  }
+
+  static int bucketOf(long nanos) {
+    return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+  }
+
+  private static long upperBoundOf(int bucket) {
+    return (bucket >= 63) ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  private static String nameOf(Method method) {
+    final StringBuilder sb = new StringBuilder(method.getDeclaringClass().getSimpleName())
+            .append('#').append(method.getName()).append('(');
+    final Class<?>[] params = method.getParameterTypes();
+    for (int i = 0; i < params.length; i++) {
+      sb.append((i > 0) ? ", " : "").append(params[i].getSimpleName());
+    }
+    return sb.append(')').toString();
+  }
+
+}
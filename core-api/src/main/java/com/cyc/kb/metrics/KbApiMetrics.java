@@ -0,0 +1,84 @@
+package com.cyc.kb.metrics;
+
+/*
+ * #%L
+ * File: KbApiMetrics.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * A sink for KB API call measurements, as reported by the decorators which {@link KbApiTiming}
+ * creates. Implementations may aggregate calls in memory (see {@link InMemoryKbApiMetrics}) or
+ * forward them to an external metrics system.
+ *
+ * <p>
+ * Implementations are called on the calling thread, once per call, so they should be thread-safe
+ * and cheap. Providers may be registered in <tt>META-INF/services</tt>, in which case they are
+ * picked up by {@link #loadProviders() }.
+ */
+@FunctionalInterface
+public interface KbApiMetrics {
+
+  /**
+   * Records one call to an API method.
+   *
+   * @param method       the interface method which was called
+   * @param elapsedNanos the duration of the call, in nanoseconds
+   * @param thrown       the exception thrown by the call, or <code>null</code> if it returned
+   *                     normally
+   */
+  void recordCall(Method method, long elapsedNanos, Throwable thrown);
+
+  /**
+   * Returns a KbApiMetrics which discards everything.
+   *
+   * @return a no-op KbApiMetrics
+   */
+  static KbApiMetrics none() {
+    return (method, elapsedNanos, thrown) -> {
+    };
+  }
+
+  /**
+   * Returns a KbApiMetrics which forwards each call to every KbApiMetrics service provider on the
+   * classpath, or which discards everything if there are none.
+   *
+   * @return the KbApiMetrics service providers
+   */
+  static KbApiMetrics loadProviders() {
+    final List<KbApiMetrics> providers = new ArrayList<>();
+    ServiceLoader.load(KbApiMetrics.class).forEach(providers::add);
+    if (providers.isEmpty()) {
+      return none();
+    }
+    if (providers.size() == 1) {
+      return providers.get(0);
+    }
+    return (method, elapsedNanos, thrown) -> {
+      for (KbApiMetrics provider : providers) {
+        provider.recordCall(method, elapsedNanos, thrown);
+      }
+    };
+  }
+
+}
@@ -0,0 +1,203 @@
+package com.cyc.kb.metrics;
+
+/*
+ * #%L
+ * File: KbApiTiming.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.spi.ApiProxies;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Creates timing decorators for KB API objects and services. A decorator is a dynamic proxy which
+ * delegates every interface call to the wrapped object, much like the classes in
+ * {@link com.cyc.kb.wrapper}, and reports the call's latency and outcome to a
+ * {@link KbApiMetrics}. E.g.:
+ *
+ * <pre>
+ * InMemoryKbApiMetrics metrics = new InMemoryKbApiMetrics();
+ * KbCollection dog = KbApiTiming.wrap(KbCollection.get("Dog"), metrics);
+ * KbTermService terms = KbApiTiming.wrap(Cyc.getKbTermService(), KbTermService.class, metrics);
+ * ...
+ * metrics.getTopByTotalTime(10).forEach(System.out::println);
+ * </pre>
+ *
+ * <p>
+ * Only calls made on the decorator itself are measured; objects returned from those calls are not
+ * wrapped. Decorators passed as arguments (including varargs) to other decorators are unwrapped
+ * before the call is delegated, so implementations never see them. The methods of
+ * <code>Object</code> are delegated without being measured. A decorator equals the object it
+ * wraps, but not vice versa; see {@link ApiProxies}.
+ */
+public final class KbApiTiming {
+
+  //====|    Construction    |====================================================================//
+
+  private KbApiTiming() {
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Wraps <code>target</code> in a timing decorator which implements only
+   * <code>apiInterface</code>.
+   *
+   * @param <T>          the API interface type
+   * @param target       the object to wrap
+   * @param apiInterface the interface to decorate, e.g. <code>KbTermService.class</code>
+   * @param metrics      the sink for call measurements
+   *
+   * @return the timing decorator
+   */
+  public static <T> T wrap(T target, Class<T> apiInterface, KbApiMetrics metrics) {
+    Objects.requireNonNull(target, "Target must not be null");
+    if (!apiInterface.isInterface()) {
+      throw new IllegalArgumentException(apiInterface + " is not an interface");
+    }
+    return apiInterface.cast(Proxy.newProxyInstance(
+            apiInterface.getClassLoader(),
+            new Class<?>[]{apiInterface},
+            new TimingHandler(target, metrics)));
+  }
+
+  /**
+   * Wraps <code>target</code> in a timing decorator which implements every Cyc API interface that
+   * <code>target</code> implements. The result may therefore be cast to, or assigned to, any of
+   * those interfaces, but not to <code>target</code>'s class.
+   *
+   * @param <T>     the API interface type
+   * @param target  the object to wrap, e.g. a KbCollection
+   * @param metrics the sink for call measurements
+   *
+   * @return the timing decorator
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T wrap(T target, KbApiMetrics metrics) {
+    Objects.requireNonNull(target, "Target must not be null");
+    final Class<?>[] interfaces = ApiProxies.getApiInterfaces(target.getClass());
+    if (interfaces.length == 0) {
+      throw new IllegalArgumentException(
+              target.getClass() + " does not implement any Cyc API interfaces");
+    }
+    return (T) Proxy.newProxyInstance(
+            target.getClass().getClassLoader(), interfaces, new TimingHandler(target, metrics));
+  }
+
+  /**
+   * Returns whether <code>obj</code> is a timing decorator created by this class.
+   *
+   * @param obj an object
+   *
+   * @return whether <code>obj</code> is a timing decorator
+   */
+  public static boolean isWrapped(Object obj) {
+    return (obj != null)
+                   && Proxy.isProxyClass(obj.getClass())
+                   && (Proxy.getInvocationHandler(obj) instanceof TimingHandler);
+  }
+
+  /**
+   * Returns the object wrapped by a timing decorator, or <code>obj</code> itself if it is not a
+   * timing decorator.
+   *
+   * @param <T> the type of the object
+   * @param obj an object
+   *
+   * @return the undecorated object
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T unwrap(T obj) {
+    Object result = obj;
+    while (isWrapped(result)) {
+      result = ((TimingHandler) Proxy.getInvocationHandler(result)).target;
+    }
+    return (T) result;
+  }
+
+  //====|    TimingHandler    |===================================================================//
+
+  private static final class TimingHandler implements ApiProxies.Decorator {
+
+    private final Object target;
+    private final KbApiMetrics metrics;
+
+    private TimingHandler(Object target, KbApiMetrics metrics) {
+      this.target = unwrap(target);
+      this.metrics = Objects.requireNonNull(metrics, "KbApiMetrics must not be null");
+    }
+
+    @Override
+    public Object getTarget() {
+      return target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      final Object[] targetArgs = unwrapArgs(args);
+      if (method.getDeclaringClass() == Object.class) {
+        if ("equals".equals(method.getName())) {
+          return ApiProxies.decoratorEquals(target, targetArgs[0]);
+        }
+        return invokeTarget(method, targetArgs);
+      }
+      final long start = System.nanoTime();
+      Throwable thrown = null;
+      try {
+        return invokeTarget(method, targetArgs);
+      } catch (Throwable t) {
+        thrown = t;
+        throw t;
+      } finally {
+        metrics.recordCall(method, System.nanoTime() - start, thrown);
+      }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException ex) {
+        throw ex.getCause();
+      }
+    }
+
+    private static Object[] unwrapArgs(Object[] args) {
+      if (args == null) {
+        return null;
+      }
+      Object[] results = args;
+      for (int i = 0; i < args.length; i++) {
+        final Object arg = (args[i] instanceof Object[])
+                                   ? unwrapArgs((Object[]) args[i])
+                                   : unwrap(args[i]);
+        if (arg != args[i]) {
+          if (results == args) {
+            results = Arrays.copyOf(args, args.length);
+          }
+          results[i] = arg;
+        }
+      }
+      return results;
+    }
+  }
+
+}
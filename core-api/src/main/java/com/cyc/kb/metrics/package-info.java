@@ -0,0 +1,28 @@
+/**
+ * Latency instrumentation for the KB API. {@link com.cyc.kb.metrics.KbApiTiming} wraps KB objects
+ * and services in timing decorators which report every interface call to a
+ * {@link com.cyc.kb.metrics.KbApiMetrics} sink, such as
+ * {@link com.cyc.kb.metrics.InMemoryKbApiMetrics}.
+ */
+package com.cyc.kb.metrics;
+
+/*
+ * #%L
+ * File: package-info.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
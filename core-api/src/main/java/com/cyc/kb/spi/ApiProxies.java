@@ -0,0 +1,144 @@
+package com.cyc.kb.spi;
+
+/*
+ * #%L
+ * File: ApiProxies.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Support for the dynamic-proxy decorators of KB API objects, such as those created by
+ * {@link PrefetchedTerms} and {@link com.cyc.kb.metrics.KbApiTiming}.
+ *
+ * <p>
+ * A decorator's <code>equals</code> unwraps decorators on both sides, so decorators of equal
+ * objects are equal, whichever kinds of decorator they are, and a decorator equals the object it
+ * wraps. The converse cannot hold: the wrapped object's own <code>equals</code> does not know
+ * about decorators, so <code>target.equals(decorator)</code> is generally <code>false</code>. Do
+ * not mix decorated and undecorated objects in a hash-based collection; {@link #unwrap(Object) }
+ * them first.
+ */
+public final class ApiProxies {
+
+  //====|    Decorator interface    |=============================================================//
+
+  /**
+   * Implemented by the invocation handlers of decorators which {@link #unwrap(Object) } should
+   * see through.
+   */
+  public static interface Decorator extends InvocationHandler {
+
+    /**
+     * Returns the object to which this decorator delegates.
+     *
+     * @return the wrapped object
+     */
+    Object getTarget();
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final String API_PACKAGE_PREFIX = "com.cyc.";
+
+  private static final Map<Class<?>, Class<?>[]> API_INTERFACES = new ConcurrentHashMap<>();
+
+  //====|    Construction    |====================================================================//
+
+  private ApiProxies() {
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns every Cyc API interface which <code>clazz</code> or its superclasses implement
+   * directly, for use as a decorator's interfaces. The result is computed once per class.
+   *
+   * @param clazz a class, e.g. the implementation class of a KbCollection
+   *
+   * @return the API interfaces, which callers must not modify
+   */
+  public static Class<?>[] getApiInterfaces(Class<?> clazz) {
+    return API_INTERFACES.computeIfAbsent(clazz, ApiProxies::findApiInterfaces);
+  }
+
+  /**
+   * Returns whether <code>obj</code> is a decorator; i.e., a proxy whose handler is a
+   * {@link Decorator}.
+   *
+   * @param obj an object
+   *
+   * @return whether <code>obj</code> is a decorator
+   */
+  public static boolean isDecorator(Object obj) {
+    return (obj != null)
+                   && Proxy.isProxyClass(obj.getClass())
+                   && (Proxy.getInvocationHandler(obj) instanceof Decorator);
+  }
+
+  /**
+   * Strips every layer of decoration from <code>obj</code>.
+   *
+   * @param <T> the type of the object
+   * @param obj an object
+   *
+   * @return the undecorated object, or <code>obj</code> itself if it is not a decorator
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T unwrap(T obj) {
+    Object result = obj;
+    while (isDecorator(result)) {
+      result = ((Decorator) Proxy.getInvocationHandler(result)).getTarget();
+    }
+    return (T) result;
+  }
+
+  /**
+   * Implements <code>equals</code> for a decorator of <code>target</code>, unwrapping
+   * <code>other</code> so that decorators of equal objects are equal.
+   *
+   * @param target the decorated object
+   * @param other  the object to compare against
+   *
+   * @return whether the undecorated objects are equal
+   */
+  public static boolean decoratorEquals(Object target, Object other) {
+    return unwrap(target).equals(unwrap(other));
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static Class<?>[] findApiInterfaces(Class<?> clazz) {
+    final Set<Class<?>> results = new LinkedHashSet<>();
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      for (Class<?> iface : c.getInterfaces()) {
+        if (iface.getName().startsWith(API_PACKAGE_PREFIX)) {
+          results.add(iface);
+        }
+      }
+    }
+    return results.toArray(new Class<?>[results.size()]);
+  }
+
+}
@@ -29,6 +29,7 @@ import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.InvalidFormulaInContextException;
 import com.cyc.kb.exception.KbObjectNotFoundException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Optional;
 
 /**
  * Provides implementations of {@link com.cyc.kb.Assertion}.
@@ -102,6 +103,75 @@ public interface AssertionService {
   Assertion get(String formulaStr, String ctxStr)
           throws KbTypeException, CreateException, KbObjectNotFoundException;
 
+  /**
+   * Looks up the assertion with the specified HLID, returning an empty Optional rather than
+   * throwing {@link KbObjectNotFoundException} if there is none.
+   *
+   * <p>
+   * The default implementation delegates to {@link #get(String) }, so a miss still constructs
+   * (and discards) an exception; implementations which can test for existence more cheaply should
+   * override it. Callers which repeatedly look up absent assertions should also consider
+   * {@link com.cyc.kb.cache.NegativeLookupCache}.
+   *
+   * @param hlid the <code>hlid</code> of the assertion in the KB
+   *
+   * @return the assertion, or an empty Optional if none exists
+   *
+   * @throws KbTypeException if the KB object is not an assertion
+   * @throws CreateException if the lookup fails for a reason other than the assertion's absence
+   */
+  default Optional<? extends Assertion> find(String hlid) throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(hlid));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks up the assertion for <code>formula</code> in <code>ctx</code>, returning an empty
+   * Optional rather than throwing {@link KbObjectNotFoundException} if there is none. See
+   * {@link #find(String) } regarding the cost of the default implementation.
+   *
+   * @param formula formula to be found
+   * @param ctx     context of the formula
+   *
+   * @return the assertion, or an empty Optional if none exists
+   *
+   * @throws KbTypeException
+   * @throws CreateException if the lookup fails for a reason other than the assertion's absence
+   */
+  default Optional<? extends Assertion> find(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(formula, ctx));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks up the assertion for <code>formulaStr</code> in the context <code>ctxStr</code>,
+   * returning an empty Optional rather than throwing {@link KbObjectNotFoundException} if there is
+   * none. See {@link #find(String) } regarding the cost of the default implementation.
+   *
+   * @param formulaStr string representation of the formula to be found
+   * @param ctxStr     string representation of the context of the formula
+   *
+   * @return the assertion, or an empty Optional if none exists
+   *
+   * @throws KbTypeException
+   * @throws CreateException if the lookup fails for a reason other than the assertion's absence
+   */
+  default Optional<? extends Assertion> find(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(formulaStr, ctxStr));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
   /**
    * Finds or creates the <code>Assertion</code> object that corresponds to <code>formula</code> in
    * <code>ctx</code>. Tries to assert if no such formula is found in the specified context in the
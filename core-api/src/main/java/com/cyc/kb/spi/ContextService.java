@@ -26,6 +26,7 @@ import com.cyc.kb.KbCollection;
 import com.cyc.kb.KbStatus;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Optional;
 
 /**
  * Provides implementations of {@link com.cyc.kb.Context}.
@@ -226,4 +227,27 @@ public interface ContextService extends KbIndividualService {
   @Override
   KbStatus getStatus(String nameOrId);
 
+  /**
+   * Looks up the context <code>nameOrId</code> without throwing an exception if there is none. This
+   * is the cheap way to test for, and fetch, a context which may well not exist: the default
+   * implementation checks {@link #getStatus(String) } first, so misses never construct an
+   * exception.
+   *
+   * @param nameOrId either the name or HL ID of an entity in the KB
+   *
+   * @return the context, or an empty Optional if no such context exists
+   */
+  @Override
+  default Optional<Context> find(String nameOrId) {
+    if (getStatus(nameOrId) != KbStatus.EXISTS_AS_TYPE) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(get(nameOrId));
+    } catch (KbTypeException | CreateException ex) {
+      // It was removed or retyped between the two calls.
+      return Optional.empty();
+    }
+  }
+
 }
@@ -29,6 +29,7 @@ import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.InvalidFormulaInContextException;
 import com.cyc.kb.exception.KbObjectNotFoundException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Optional;
 
 /**
  * Provides implementations of {@link com.cyc.kb.Fact}.
@@ -95,6 +96,78 @@ public interface FactService extends AssertionService {
   Fact get(Sentence formula, Context ctx)
           throws KbTypeException, CreateException, KbObjectNotFoundException;
 
+  /**
+   * Looks up the fact with the specified HLID, returning an empty Optional rather than
+   * throwing {@link KbObjectNotFoundException} if there is none.
+   *
+   * <p>
+   * The default implementation delegates to {@link #get(String) }, so a miss still constructs
+   * (and discards) an exception; implementations which can test for existence more cheaply should
+   * override it. Callers which repeatedly look up absent facts should also consider
+   * {@link com.cyc.kb.cache.NegativeLookupCache}.
+   *
+   * @param hlid the <code>hlid</code> of the fact in the KB
+   *
+   * @return the fact, or an empty Optional if none exists
+   *
+   * @throws KbTypeException if the KB object is not a fact
+   * @throws CreateException if the lookup fails for a reason other than the fact's absence
+   */
+  @Override
+  default Optional<Fact> find(String hlid) throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(hlid));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks up the fact for <code>formula</code> in <code>ctx</code>, returning an empty Optional
+   * rather than throwing {@link KbObjectNotFoundException} if there is none. See
+   * {@link #find(String) } regarding the cost of the default implementation.
+   *
+   * @param formula formula to be found
+   * @param ctx     context of the formula
+   *
+   * @return the fact, or an empty Optional if none exists
+   *
+   * @throws KbTypeException
+   * @throws CreateException if the lookup fails for a reason other than the fact's absence
+   */
+  @Override
+  default Optional<Fact> find(Sentence formula, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(formula, ctx));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Looks up the fact for <code>formulaStr</code> in the context <code>ctxStr</code>,
+   * returning an empty Optional rather than throwing {@link KbObjectNotFoundException} if there is
+   * none. See {@link #find(String) } regarding the cost of the default implementation.
+   *
+   * @param formulaStr string representation of the formula to be found
+   * @param ctxStr     string representation of the context of the formula
+   *
+   * @return the fact, or an empty Optional if none exists
+   *
+   * @throws KbTypeException
+   * @throws CreateException if the lookup fails for a reason other than the fact's absence
+   */
+  @Override
+  default Optional<Fact> find(String formulaStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return Optional.of(get(formulaStr, ctxStr));
+    } catch (KbObjectNotFoundException ex) {
+      return Optional.empty();
+    }
+  }
+
   /**
    * Finds or creates the <code>Fact</code> object that corresponds to <code>formulaStr</code> in
    * the default assertion context. Tries to assert if no such formula is found in the specified
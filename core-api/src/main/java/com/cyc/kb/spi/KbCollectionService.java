@@ -25,6 +25,7 @@ import com.cyc.kb.KbCollection;
 import com.cyc.kb.KbStatus;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Optional;
 
 /**
  *
@@ -200,4 +201,27 @@ public interface KbCollectionService extends KbTermService {
   @Override
   KbStatus getStatus(String nameOrId);
 
+  /**
+   * Looks up the collection <code>nameOrId</code> without throwing an exception if there is none.
+   * This is the cheap way to test for, and fetch, a collection which may well not exist: the
+   * default implementation checks {@link #getStatus(String) } first, so misses never construct an
+   * exception.
+   *
+   * @param nameOrId either the name or HL ID of an entity in the KB
+   *
+   * @return the collection, or an empty Optional if no such collection exists
+   */
+  @Override
+  default Optional<KbCollection> find(String nameOrId) {
+    if (getStatus(nameOrId) != KbStatus.EXISTS_AS_TYPE) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(get(nameOrId));
+    } catch (KbTypeException | CreateException ex) {
+      // It was removed or retyped between the two calls.
+      return Optional.empty();
+    }
+  }
+
 }
@@ -20,8 +20,10 @@ package com.cyc.kb.spi;
  * limitations under the License.
  * #L%
  */
+import com.cyc.kb.event.KbChangeEventSource;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Optional;
 
 /**
  * Provides various methods which facilitate working with the Cyc KB.
@@ -248,4 +250,17 @@ public interface KbService {
    */
   void clearCache();
 
+  /**
+   * Returns a source of notifications about changes to the KB, if the implementation supports
+   * them. Listeners may use these events to invalidate cached objects more precisely than
+   * {@link #clearCache() } allows.
+   * <p>
+   * The default implementation returns an empty Optional.
+   *
+   * @return the change event source, if supported
+   */
+  default Optional<KbChangeEventSource> getChangeEventSource() {
+    return Optional.empty();
+  }
+
 }
@@ -24,8 +24,15 @@ import com.cyc.kb.Context;
 import com.cyc.kb.KbCollection;
 import com.cyc.kb.KbStatus;
 import com.cyc.kb.KbTerm;
+import com.cyc.kb.PrefetchProfile;
+import com.cyc.kb.TermMetadata;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  *
@@ -48,6 +55,29 @@ public interface KbTermService {
    */
   KbTerm get(String nameOrId) throws KbTypeException, CreateException;
 
+  /**
+   * Get the <code>KbTerm</code> with the name <code>nameOrId</code>, along with the related facts
+   * in <code>profile</code>. Calls to the returned term's methods for those facts are answered
+   * from memory for the profile's time-to-live.
+   *
+   * <p>
+   * The default implementation resolves the term and then fetches each fact in turn, via
+   * {@link PrefetchedTerms#prefetch(KbTerm, PrefetchProfile) }. Implementations which can fetch
+   * them in the same exchange as the term should override it.
+   *
+   * @param nameOrId the string representation or the HLID of the term
+   * @param profile  the related facts to prefetch
+   *
+   * @return the KbTerm
+   *
+   * @throws KbTypeException
+   * @throws CreateException
+   */
+  default KbTerm get(String nameOrId, PrefetchProfile profile)
+          throws KbTypeException, CreateException {
+    return PrefetchedTerms.prefetch(get(nameOrId), profile);
+  }
+
   /**
    * Find or create a <code>KbTerm</code> object named <code>nameOrId</code>. If no object exists in
    * the KB with the name <code>nameOrId</code>, one will be created, and it will be asserted to be
@@ -180,4 +210,53 @@ public interface KbTermService {
    */
   KbStatus getStatus(String nameOrId);
 
+  /**
+   * Looks up the term <code>nameOrId</code> without throwing an exception if there is none. This
+   * is the cheap way to test for, and fetch, a term which may well not exist: the default
+   * implementation checks {@link #getStatus(String) } first, so misses never construct an
+   * exception.
+   *
+   * @param nameOrId either the name or HL ID of an entity in the KB
+   *
+   * @return the term, or an empty Optional if no such term exists
+   */
+  default Optional<? extends KbTerm> find(String nameOrId) {
+    if (getStatus(nameOrId) != KbStatus.EXISTS_AS_TYPE) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(get(nameOrId));
+    } catch (KbTypeException | CreateException ex) {
+      // It was removed or retyped between the two calls.
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Retrieves the requested {@link TermMetadata} (comments, creator and creation date) for each
+   * of <code>terms</code>. Term listings which display these for many terms should use this rather
+   * than the individual {@link KbTerm} methods.
+   *
+   * <p>
+   * The default implementation calls the individual methods for each term in turn;
+   * implementations should override it to retrieve the metadata for all of the terms in a single
+   * request.
+   *
+   * @param terms  the terms
+   * @param fields the metadata to retrieve
+   * @param ctx    the context from which comments are visible
+   *
+   * @return a map from each of <code>terms</code>, in iteration order, to its metadata
+   */
+  default Map<KbTerm, TermMetadata> getMetadata(
+          Collection<? extends KbTerm> terms, Set<TermMetadata.Field> fields, Context ctx) {
+    final Map<KbTerm, TermMetadata> results = new LinkedHashMap<>();
+    for (KbTerm term : terms) {
+      if (!results.containsKey(term)) {
+        results.put(term, TermMetadata.fetch(term, fields, ctx));
+      }
+    }
+    return results;
+  }
+
 }
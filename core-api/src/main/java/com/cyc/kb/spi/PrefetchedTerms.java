@@ -0,0 +1,255 @@
+package com.cyc.kb.spi;
+
+/*
+ * #%L
+ * File: PrefetchedTerms.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.PrefetchProfile;
+import com.cyc.kb.PrefetchProfile.Facet;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a {@link PrefetchProfile} to a resolved term. The term's profiled facts are fetched
+ * immediately, and the term is wrapped in a decorator which answers subsequent calls for them from
+ * memory until the profile's time-to-live expires. Unlike the caching wrapper classes (e.g.
+ * {@link com.cyc.kb.wrapper.CachingKbCollectionWrapper}), the decorator is a dynamic proxy, so it
+ * implements every KB API interface which the term does; e.g., a prefetched BinaryPredicate is
+ * still a BinaryPredicate.
+ *
+ * <p>
+ * Any call which may modify the term (<tt>add*</tt>, <tt>set*</tt>, <tt>instantiates</tt>,
+ * <tt>rename</tt> and <tt>delete</tt>) discards the prefetched facts. A facet which the term does
+ * not support, or whose fetch fails, is skipped; calling its method later simply delegates. A
+ * decorator equals the term it wraps, but not vice versa; see {@link ApiProxies}.
+ *
+ * <p>
+ * This is the default strategy behind {@link KbTermService#get(String, PrefetchProfile) }. It
+ * makes one request per facet; implementations which can fetch a term and its facts in a single
+ * exchange should override that method, and may use this class to expose the results.
+ */
+public final class PrefetchedTerms {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(PrefetchedTerms.class);
+
+  private static final String[] MUTATOR_PREFIXES = {
+    "add", "set", "instantiates", "rename", "delete"
+  };
+
+  //====|    Construction    |====================================================================//
+
+  private PrefetchedTerms() {
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Fetches the facts in <code>profile</code> for <code>term</code>, and returns a decorator which
+   * serves them from memory.
+   *
+   * @param <T>     the term's API type
+   * @param term    the term
+   * @param profile the facts to prefetch
+   *
+   * @return the decorated term, or <code>term</code> itself if the profile is empty
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends KbTerm> T prefetch(T term, PrefetchProfile profile) {
+    Objects.requireNonNull(term, "Term must not be null");
+    if (profile.isEmpty()) {
+      return term;
+    }
+    final Object target = unwrap(term);
+    final Class<?>[] interfaces = ApiProxies.getApiInterfaces(target.getClass());
+    final PrefetchHandler handler = new PrefetchHandler(target, profile);
+    for (Facet facet : profile.getFacets()) {
+      final Method method = findNoArgMethod(interfaces, facet.getMethodName());
+      if (method != null) {
+        try {
+          handler.invoke(null, method, null);
+        } catch (Throwable t) {
+          LOG.debug("Could not prefetch {} for {}", facet, target, t);
+        }
+      }
+    }
+    return (T) Proxy.newProxyInstance(target.getClass().getClassLoader(), interfaces, handler);
+  }
+
+  /**
+   * Returns whether <code>obj</code> is a decorator created by {@link #prefetch }.
+   *
+   * @param obj an object
+   *
+   * @return whether <code>obj</code> is a prefetching decorator
+   */
+  public static boolean isPrefetched(Object obj) {
+    return (obj != null)
+                   && Proxy.isProxyClass(obj.getClass())
+                   && (Proxy.getInvocationHandler(obj) instanceof PrefetchHandler);
+  }
+
+  /**
+   * Returns the term wrapped by a prefetching decorator, or <code>obj</code> itself if it is not
+   * one.
+   *
+   * @param <T> the type of the object
+   * @param obj an object
+   *
+   * @return the undecorated object
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> T unwrap(T obj) {
+    return isPrefetched(obj)
+                   ? (T) ((PrefetchHandler) Proxy.getInvocationHandler(obj)).target
+                   : obj;
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static Method findNoArgMethod(Class<?>[] interfaces, String name) {
+    for (Class<?> iface : interfaces) {
+      try {
+        return iface.getMethod(name);
+      } catch (NoSuchMethodException ex) {
+        // Try the next interface.
+      }
+    }
+    return null;
+  }
+
+  private static boolean isMutator(String methodName) {
+    for (String prefix : MUTATOR_PREFIXES) {
+      if (methodName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  //====|    PrefetchHandler    |=================================================================//
+
+  private static final class PrefetchHandler implements ApiProxies.Decorator {
+
+    private final Object target;
+    private final Set<String> facetMethods = new HashSet<>();
+    private final long ttlNanos;
+    private final Map<String, Fetched> fetched = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private PrefetchHandler(Object target, PrefetchProfile profile) {
+      this.target = target;
+      for (Facet facet : profile.getFacets()) {
+        facetMethods.add(facet.getMethodName());
+      }
+      this.ttlNanos = profile.getTtl(TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Object getTarget() {
+      return target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      final String name = method.getName();
+      if (method.getDeclaringClass() == Object.class) {
+        if ("equals".equals(name)) {
+          return ApiProxies.decoratorEquals(target, args[0]);
+        }
+        return invokeTarget(method, args);
+      }
+      if (method.getParameterCount() == 0 && facetMethods.contains(name)) {
+        return getFacet(method);
+      }
+      if (isMutator(name)) {
+        try {
+          return invokeTarget(method, args);
+        } finally {
+          generation.incrementAndGet();
+          fetched.clear();
+        }
+      }
+      return invokeTarget(method, args);
+    }
+
+    /**
+     * Returns a facet's value from memory, fetching it again once it expires. A value fetched
+     * across a mutation is returned, but not kept.
+     */
+    private Object getFacet(Method method) throws Exception {
+      final long now = System.nanoTime();
+      final Fetched cached = fetched.get(method.getName());
+      if (cached != null && !cached.isExpired(now)) {
+        return cached.value;
+      }
+      final long fetchedAt = generation.get();
+      final Object value = invokeTarget(method, null);
+      if (generation.get() == fetchedAt) {
+        final Fetched entry = new Fetched(value, now + ttlNanos);
+        fetched.put(method.getName(), entry);
+        if (generation.get() != fetchedAt) {
+          fetched.remove(method.getName(), entry);
+        }
+      }
+      return value;
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Exception {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException ex) {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw (Exception) cause;
+      }
+    }
+  }
+
+  private static final class Fetched {
+
+    private final Object value;
+    private final long expiresAt;
+
+    private Fetched(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return (now - expiresAt) >= 0;
+    }
+  }
+
+}
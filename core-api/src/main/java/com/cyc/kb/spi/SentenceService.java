@@ -22,6 +22,7 @@ package com.cyc.kb.spi;
  */
 import com.cyc.kb.Relation;
 import com.cyc.kb.Sentence;
+import com.cyc.kb.cycl.CycLFormula;
 import com.cyc.kb.exception.CreateException;
 import com.cyc.kb.exception.KbTypeException;
 import java.util.Collection;
@@ -49,6 +50,28 @@ public interface SentenceService {
    */
   Sentence get(String sentStr) throws KbTypeException, CreateException;
 
+  /**
+   * Converts a CycL formula which has already been parsed locally (e.g. via
+   * {@link com.cyc.kb.cycl.CycLParser}) into a Sentence.
+   * <p>
+   * The default implementation renders the formula as a CycL string and delegates to
+   * {@link #get(java.lang.String) }, so it costs the same server round trip as that method (plus
+   * the local rendering), and saves nothing over it. Implementations which can build a Sentence
+   * from the formula's structure without asking the Cyc server to re-parse it should override it.
+   *
+   * @param formula the parsed formula
+   *
+   * @return a Sentence object
+   *
+   * @throws com.cyc.kb.exception.KbTypeException
+   *
+   * @throws CreateException                      if the formula could not be converted into a
+   *                                              Sentence
+   */
+  default Sentence get(CycLFormula formula) throws KbTypeException, CreateException {
+    return get(formula.toCycL());
+  }
+
   /**
    * Builds a sentence based on <code>pred</code> and other <code>args</code>. Note that
    * <code>args</code> should be KbObjects,
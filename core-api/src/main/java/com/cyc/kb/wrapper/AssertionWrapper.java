@@ -21,6 +21,7 @@ package com.cyc.kb.wrapper;
  * #L%
  */
 import com.cyc.kb.Assertion;
+import com.cyc.kb.AssertionSupportGraph;
 import com.cyc.kb.Context;
 import com.cyc.kb.Fact;
 import com.cyc.kb.KbCollection;
@@ -61,6 +62,12 @@ public abstract class AssertionWrapper extends KbObjectWrapper implements Assert
     return wrapped().getSupportingAssertions();
   }
 
+  @Override
+  public AssertionSupportGraph getSupportGraph(int maxDepth)
+          throws KbTypeException, CreateException {
+    return wrapped().getSupportGraph(maxDepth);
+  }
+
   @Override
   public Boolean isDeducedAssertion() {
     return wrapped().isDeducedAssertion();
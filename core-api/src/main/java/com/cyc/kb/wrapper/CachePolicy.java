@@ -0,0 +1,135 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachePolicy.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specifies how long the caching wrappers (e.g. {@link CachingKbCollectionWrapper}) may retain the
+ * results of read-only calls. Each method has a time-to-live, identified by method name and shared
+ * by all of its overloads; methods without a TTL of their own use the policy's default TTL. A TTL
+ * of zero disables caching for that method.
+ *
+ * <p>
+ * CachePolicies are immutable; {@link #withTtl(String, long, TimeUnit) } returns a new policy.
+ * E.g.:
+ *
+ * <pre>
+ * CachePolicy policy = CachePolicy.withDefaultTtl(5, TimeUnit.MINUTES)
+ *         .withTtl("getComments", 1, TimeUnit.HOURS)
+ *         .withTtl("getArgIsa", 0, TimeUnit.SECONDS);
+ * </pre>
+ */
+public final class CachePolicy {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Returns a policy which caches every supported method for the specified duration.
+   *
+   * @param duration the default time-to-live
+   * @param unit     the unit of <code>duration</code>
+   *
+   * @return a new CachePolicy
+   */
+  public static CachePolicy withDefaultTtl(long duration, TimeUnit unit) {
+    return new CachePolicy(toNanos(duration, unit), Collections.emptyMap());
+  }
+
+  /**
+   * Returns a policy which caches every supported method until it is invalidated, either by a
+   * write through the same wrapper or by {@link CachingWrapper#invalidateCache() }.
+   *
+   * @return a new CachePolicy
+   */
+  public static CachePolicy unbounded() {
+    return new CachePolicy(Long.MAX_VALUE, Collections.emptyMap());
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final long defaultTtlNanos;
+  private final Map<String, Long> ttlNanosByMethod;
+
+  //====|    Construction    |====================================================================//
+
+  private CachePolicy(long defaultTtlNanos, Map<String, Long> ttlNanosByMethod) {
+    this.defaultTtlNanos = defaultTtlNanos;
+    this.ttlNanosByMethod = ttlNanosByMethod;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns a copy of this policy which caches the results of <code>methodName</code> (and all of
+   * its overloads) for the specified duration.
+   *
+   * @param methodName the name of a method, e.g. <tt>getGeneralizations</tt>
+   * @param duration   the time-to-live; zero to disable caching for the method
+   * @param unit       the unit of <code>duration</code>
+   *
+   * @return a new CachePolicy
+   */
+  public CachePolicy withTtl(String methodName, long duration, TimeUnit unit) {
+    Objects.requireNonNull(methodName, "Method name must not be null");
+    final Map<String, Long> ttls = new HashMap<>(ttlNanosByMethod);
+    ttls.put(methodName, toNanos(duration, unit));
+    return new CachePolicy(defaultTtlNanos, Collections.unmodifiableMap(ttls));
+  }
+
+  /**
+   * Returns the time-to-live for the results of <code>methodName</code>, in nanoseconds.
+   * {@link Long#MAX_VALUE} means that results never expire.
+   *
+   * @param methodName the name of a method
+   *
+   * @return the TTL in nanoseconds
+   */
+  public long getTtlNanos(String methodName) {
+    final Long ttl = ttlNanosByMethod.get(methodName);
+    return (ttl != null) ? ttl : defaultTtlNanos;
+  }
+
+  public boolean isCached(String methodName) {
+    return getTtlNanos(methodName) > 0;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName()
+                   + "[default=" + defaultTtlNanos + "ns, methods=" + ttlNanosByMethod + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static long toNanos(long duration, TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("TTL must not be negative: " + duration);
+    }
+    return Objects.requireNonNull(unit, "TimeUnit must not be null").toNanos(duration);
+  }
+
+}
@@ -0,0 +1,179 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachingContextWrapper.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.DeleteException;
+import com.cyc.kb.exception.InvalidNameException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A ContextWrapper which memoizes the context's extensions and the contexts it inherits from,
+ * along with its comments and arity, according to a {@link CachePolicy}. Adding an extension or
+ * an inheritance link through this wrapper invalidates the corresponding cached results.
+ */
+public class CachingContextWrapper extends ContextWrapper implements CachingWrapper {
+
+  //====|    Fields    |==========================================================================//
+
+  private final Context wrapped;
+  private final WrapperCache cache;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingContextWrapper(Context wrapped, CachePolicy policy) {
+    this.wrapped = Objects.requireNonNull(wrapped, "Wrapped context must not be null");
+    this.cache = new WrapperCache(policy);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public CachePolicy getCachePolicy() {
+    return cache.getPolicy();
+  }
+
+  @Override
+  public void invalidateCache() {
+    cache.invalidateAll();
+  }
+
+  //====|    Cached methods    |==================================================================//
+
+  @Override
+  public Integer getArity() {
+    return cache.get("getArity", super::getArity);
+  }
+
+  @Override
+  public Collection<String> getComments() {
+    return cache.get("getComments", super::getComments);
+  }
+
+  @Override
+  public Collection<String> getComments(Context ctx) {
+    return cache.get("getComments", () -> super.getComments(ctx), ctx);
+  }
+
+  @Override
+  public Collection<Context> getExtensions() {
+    return cache.get("getExtensions", super::getExtensions);
+  }
+
+  @Override
+  public Collection<Context> getInheritsFrom() {
+    return cache.get("getInheritsFrom", super::getInheritsFrom);
+  }
+
+  //====|    Invalidating methods    |============================================================//
+
+  @Override
+  public Fact addComment(String comment, Context ctx) throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+/*
+  @Override
+  public Fact addComment(String comment, String ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+*/
+
+  @Override
+  public KbTerm rename(String name) throws InvalidNameException {
+    try {
+      return super.rename(name);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void delete() throws DeleteException {
+    try {
+      super.delete();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public Context addExtension(Context moreSpecific) throws KbTypeException, CreateException {
+    try {
+      return super.addExtension(moreSpecific);
+    } finally {
+      cache.invalidate("getExtensions");
+    }
+  }
+/*
+  @Override
+  public Context addExtension(String moreSpecificStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addExtension(moreSpecificStr);
+    } finally {
+      cache.invalidate("getExtensions");
+    }
+  }
+*/
+
+  @Override
+  public Context addInheritsFrom(Context moreGeneral) throws KbTypeException, CreateException {
+    try {
+      return super.addInheritsFrom(moreGeneral);
+    } finally {
+      cache.invalidate("getInheritsFrom");
+    }
+  }
+/*
+  @Override
+  public Context addInheritsFrom(String moreGeneralStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addInheritsFrom(moreGeneralStr);
+    } finally {
+      cache.invalidate("getInheritsFrom");
+    }
+  }
+*/
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected Context wrapped() {
+    return wrapped;
+  }
+
+}
@@ -0,0 +1,259 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachingKbCollectionWrapper.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.KbCollection;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.DeleteException;
+import com.cyc.kb.exception.InvalidNameException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A KbCollectionWrapper which memoizes the collection's generalizations and specializations, along
+ * with its comments and arity, according to a {@link CachePolicy}. Adding a generalization or
+ * specialization through this wrapper invalidates the corresponding cached results.
+ *
+ * <p>
+ * Note that the cache is per-object: adding a generalization to one collection does not
+ * invalidate the cached <code>allSpecializations</code> of another. Use TTLs to bound such
+ * staleness.
+ */
+public class CachingKbCollectionWrapper extends KbCollectionWrapper implements CachingWrapper {
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbCollection wrapped;
+  private final WrapperCache cache;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingKbCollectionWrapper(KbCollection wrapped, CachePolicy policy) {
+    this.wrapped = Objects.requireNonNull(wrapped, "Wrapped collection must not be null");
+    this.cache = new WrapperCache(policy);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public CachePolicy getCachePolicy() {
+    return cache.getPolicy();
+  }
+
+  @Override
+  public void invalidateCache() {
+    cache.invalidateAll();
+  }
+
+  //====|    Cached methods    |==================================================================//
+
+  @Override
+  public Integer getArity() {
+    return cache.get("getArity", super::getArity);
+  }
+
+  @Override
+  public Collection<String> getComments() {
+    return cache.get("getComments", super::getComments);
+  }
+
+  @Override
+  public Collection<String> getComments(Context ctx) {
+    return cache.get("getComments", () -> super.getComments(ctx), ctx);
+  }
+
+  @Override
+  public Collection<? extends KbCollection> getGeneralizations() {
+    return cache.get("getGeneralizations", super::getGeneralizations);
+  }
+
+  @Override
+  public Collection<? extends KbCollection> getGeneralizations(Context ctx) {
+    return cache.get("getGeneralizations", () -> super.getGeneralizations(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbCollection> allGeneralizations() {
+    return cache.get("allGeneralizations", super::allGeneralizations);
+  }
+
+  @Override
+  public Collection<KbCollection> allGeneralizations(Context ctx) {
+    return cache.get("allGeneralizations", () -> super.allGeneralizations(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbCollection> getSpecializations() {
+    return cache.get("getSpecializations", super::getSpecializations);
+  }
+
+  @Override
+  public Collection<KbCollection> getSpecializations(Context ctx) {
+    return cache.get("getSpecializations", () -> super.getSpecializations(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbCollection> allSpecializations() {
+    return cache.get("allSpecializations", super::allSpecializations);
+  }
+
+  @Override
+  public Collection<KbCollection> allSpecializations(Context ctx) {
+    return cache.get("allSpecializations", () -> super.allSpecializations(ctx), ctx);
+  }
+
+  //====|    Invalidating methods    |============================================================//
+
+  @Override
+  public Fact addComment(String comment, Context ctx) throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+/*
+  @Override
+  public Fact addComment(String comment, String ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+*/
+
+  @Override
+  public KbTerm rename(String name) throws InvalidNameException {
+    try {
+      return super.rename(name);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void delete() throws DeleteException {
+    try {
+      super.delete();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public KbCollection addGeneralization(KbCollection moreGeneral)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneral);
+    } finally {
+      cache.invalidate("getGeneralizations", "allGeneralizations");
+    }
+  }
+
+  @Override
+  public KbCollection addGeneralization(KbCollection moreGeneral, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneral, ctx);
+    } finally {
+      cache.invalidate("getGeneralizations", "allGeneralizations");
+    }
+  }
+/*
+  @Override
+  public KbCollection addGeneralization(String moreGeneralStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneralStr);
+    } finally {
+      cache.invalidate("getGeneralizations", "allGeneralizations");
+    }
+  }
+*/
+/*
+  @Override
+  public KbCollection addGeneralization(String moreGeneralStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneralStr, ctxStr);
+    } finally {
+      cache.invalidate("getGeneralizations", "allGeneralizations");
+    }
+  }
+*/
+
+  @Override
+  public KbCollection addSpecialization(KbCollection moreSpecific)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecific);
+    } finally {
+      cache.invalidate("getSpecializations", "allSpecializations");
+    }
+  }
+
+  @Override
+  public KbCollection addSpecialization(KbCollection moreSpecific, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecific, ctx);
+    } finally {
+      cache.invalidate("getSpecializations", "allSpecializations");
+    }
+  }
+/*
+  @Override
+  public KbCollection addSpecialization(String moreSpecificStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecificStr);
+    } finally {
+      cache.invalidate("getSpecializations", "allSpecializations");
+    }
+  }
+*/
+/*
+  @Override
+  public KbCollection addSpecialization(String moreSpecificStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecificStr, ctxStr);
+    } finally {
+      cache.invalidate("getSpecializations", "allSpecializations");
+    }
+  }
+*/
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected KbCollection wrapped() {
+    return wrapped;
+  }
+
+}
@@ -0,0 +1,298 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachingKbPredicateWrapper.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.KbCollection;
+import com.cyc.kb.KbPredicate;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.Relation;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.DeleteException;
+import com.cyc.kb.exception.InvalidNameException;
+import com.cyc.kb.exception.KbException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A KbPredicateWrapper which memoizes the predicate's generalizations and specializations, along
+ * with its argument constraints, arity, and comments, according to a {@link CachePolicy}. Writes
+ * through this wrapper invalidate the corresponding cached results. See
+ * {@link CachingRelationWrapper} regarding shared TTLs.
+ */
+public class CachingKbPredicateWrapper extends KbPredicateWrapper implements CachingWrapper {
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbPredicate wrapped;
+  private final WrapperCache cache;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingKbPredicateWrapper(KbPredicate wrapped, CachePolicy policy) {
+    this.wrapped = Objects.requireNonNull(wrapped, "Wrapped predicate must not be null");
+    this.cache = new WrapperCache(policy);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public CachePolicy getCachePolicy() {
+    return cache.getPolicy();
+  }
+
+  @Override
+  public void invalidateCache() {
+    cache.invalidateAll();
+  }
+
+  //====|    Cached methods    |==================================================================//
+
+  @Override
+  public Integer getArity() {
+    return cache.get("getArity", super::getArity);
+  }
+
+  @Override
+  public Collection<String> getComments() {
+    return cache.get("getComments", super::getComments);
+  }
+
+  @Override
+  public Collection<String> getComments(Context ctx) {
+    return cache.get("getComments", () -> super.getComments(ctx), ctx);
+  }
+
+  @Override
+  public List<Collection<KbCollection>> getArgIsaList() {
+    return cache.get("getArgIsa", super::getArgIsaList);
+  }
+
+  @Override
+  public List<Collection<KbCollection>> getArgIsaList(Context ctx) {
+    return cache.get("getArgIsa", () -> super.getArgIsaList(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbCollection> getArgIsa(int argPos) {
+    return cache.get("getArgIsa", () -> super.getArgIsa(argPos), argPos);
+  }
+
+  @Override
+  public Collection<KbCollection> getArgIsa(int argPos, Context ctx) {
+    return cache.get("getArgIsa", () -> super.getArgIsa(argPos, ctx), argPos, ctx);
+  }
+
+  @Override
+  public List<Collection<KbCollection>> getArgGenlList() {
+    return cache.get("getArgGenl", super::getArgGenlList);
+  }
+
+  @Override
+  public List<Collection<KbCollection>> getArgGenlList(Context ctx) {
+    return cache.get("getArgGenl", () -> super.getArgGenlList(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbCollection> getArgGenl(int argPos) {
+    return cache.get("getArgGenl", () -> super.getArgGenl(argPos), argPos);
+  }
+
+  @Override
+  public Collection<KbCollection> getArgGenl(int argPos, Context ctx) {
+    return cache.get("getArgGenl", () -> super.getArgGenl(argPos, ctx), argPos, ctx);
+  }
+
+  @Override
+  public Integer getArityMin() {
+    return cache.get("getArity", super::getArityMin);
+  }
+
+  @Override
+  public Integer getArityMax() {
+    return cache.get("getArity", super::getArityMax);
+  }
+
+  @Override
+  public Collection<KbPredicate> getGeneralizations() throws KbException {
+    return cache.get("getGeneralizations", super::getGeneralizations);
+  }
+
+  @Override
+  public Collection<KbPredicate> getGeneralizations(Context ctx) {
+    return cache.get("getGeneralizations", () -> super.getGeneralizations(ctx), ctx);
+  }
+
+  @Override
+  public Collection<KbPredicate> getSpecializations() {
+    return cache.get("getSpecializations", super::getSpecializations);
+  }
+
+  @Override
+  public Collection<KbPredicate> getSpecializations(Context ctx) {
+    return cache.get("getSpecializations", () -> super.getSpecializations(ctx), ctx);
+  }
+
+  //====|    Invalidating methods    |============================================================//
+
+  @Override
+  public Fact addComment(String comment, Context ctx) throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+/*
+  @Override
+  public Fact addComment(String comment, String ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+*/
+
+  @Override
+  public KbTerm rename(String name) throws InvalidNameException {
+    try {
+      return super.rename(name);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void delete() throws DeleteException {
+    try {
+      super.delete();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public Relation addArgIsa(int argPos, KbCollection col, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addArgIsa(argPos, col, ctx);
+    } finally {
+      cache.invalidate("getArgIsa");
+    }
+  }
+/*
+  @Override
+  public Relation addArgIsa(int argPos, String colStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addArgIsa(argPos, colStr, ctxStr);
+    } finally {
+      cache.invalidate("getArgIsa");
+    }
+  }
+*/
+
+  @Override
+  public Relation addArgGenl(int argPos, KbCollection col, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addArgGenl(argPos, col, ctx);
+    } finally {
+      cache.invalidate("getArgGenl");
+    }
+  }
+/*
+  @Override
+  public Relation addArgGenl(int argPos, String colStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addArgGenl(argPos, colStr, ctxStr);
+    } finally {
+      cache.invalidate("getArgGenl");
+    }
+  }
+*/
+
+  @Override
+  public Relation setArity(int arityValue) throws KbTypeException, CreateException {
+    try {
+      return super.setArity(arityValue);
+    } finally {
+      cache.invalidate("getArity");
+    }
+  }
+
+  @Override
+  public KbPredicate addGeneralization(KbPredicate moreGeneral, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneral, ctx);
+    } finally {
+      cache.invalidate("getGeneralizations");
+    }
+  }
+/*
+  @Override
+  public KbPredicate addGeneralization(String moreGeneralStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addGeneralization(moreGeneralStr, ctxStr);
+    } finally {
+      cache.invalidate("getGeneralizations");
+    }
+  }
+*/
+
+  @Override
+  public KbPredicate addSpecialization(KbPredicate moreSpecific, Context ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecific, ctx);
+    } finally {
+      cache.invalidate("getSpecializations");
+    }
+  }
+/*
+  @Override
+  public KbPredicate addSpecialization(String moreSpecificStr, String ctxStr)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addSpecialization(moreSpecificStr, ctxStr);
+    } finally {
+      cache.invalidate("getSpecializations");
+    }
+  }
+*/
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected KbPredicate wrapped() {
+    return wrapped;
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachingKbTermWrapper.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.Fact;
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.DeleteException;
+import com.cyc.kb.exception.InvalidNameException;
+import com.cyc.kb.exception.KbTypeException;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * A KbTermWrapper which memoizes {@link #getComments() } and {@link #getArity() } according to a
+ * {@link CachePolicy}. Adding a comment through this wrapper invalidates the cached comments, and
+ * renaming or deleting the term invalidates everything.
+ */
+public class CachingKbTermWrapper extends KbTermWrapper implements CachingWrapper {
+
+  //====|    Fields    |==========================================================================//
+
+  private final KbTerm wrapped;
+  private final WrapperCache cache;
+
+  //====|    Construction    |====================================================================//
+
+  public CachingKbTermWrapper(KbTerm wrapped, CachePolicy policy) {
+    this.wrapped = Objects.requireNonNull(wrapped, "Wrapped term must not be null");
+    this.cache = new WrapperCache(policy);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public CachePolicy getCachePolicy() {
+    return cache.getPolicy();
+  }
+
+  @Override
+  public void invalidateCache() {
+    cache.invalidateAll();
+  }
+
+  //====|    Cached methods    |==================================================================//
+
+  @Override
+  public Integer getArity() {
+    return cache.get("getArity", super::getArity);
+  }
+
+  @Override
+  public Collection<String> getComments() {
+    return cache.get("getComments", super::getComments);
+  }
+
+  @Override
+  public Collection<String> getComments(Context ctx) {
+    return cache.get("getComments", () -> super.getComments(ctx), ctx);
+  }
+
+  //====|    Invalidating methods    |============================================================//
+
+  @Override
+  public Fact addComment(String comment, Context ctx) throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+/*
+  @Override
+  public Fact addComment(String comment, String ctx)
+          throws KbTypeException, CreateException {
+    try {
+      return super.addComment(comment, ctx);
+    } finally {
+      cache.invalidate("getComments");
+    }
+  }
+*/
+
+  @Override
+  public KbTerm rename(String name) throws InvalidNameException {
+    try {
+      return super.rename(name);
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  @Override
+  public void delete() throws DeleteException {
+    try {
+      super.delete();
+    } finally {
+      cache.invalidateAll();
+    }
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected KbTerm wrapped() {
+    return wrapped;
+  }
+
+}
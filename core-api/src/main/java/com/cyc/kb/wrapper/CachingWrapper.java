@@ -0,0 +1,50 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: CachingWrapper.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A wrapper which memoizes the results of some of its read-only methods according to a
+ * {@link CachePolicy}. Writes made through the wrapper invalidate the results which they may
+ * change; writes made elsewhere are only seen once the affected results expire, or after
+ * {@link #invalidateCache() } is called.
+ *
+ * <p>
+ * Collections returned by memoized methods are unmodifiable, as the same instance is shared by
+ * every caller until it expires. Each wrapper retains at most 1024 results, discarding the least
+ * recently used.
+ *
+ * <p>
+ * Every overload of a write method must invalidate the results it may change. The String-based
+ * overloads (e.g. <code>addGeneralization(String, String)</code>) are currently commented out of
+ * the KB API; the caching wrappers carry matching commented-out overrides, which must be restored
+ * along with them.
+ */
+public interface CachingWrapper {
+
+  CachePolicy getCachePolicy();
+
+  /**
+   * Discards all cached results, so that subsequent calls consult the wrapped object.
+   */
+  void invalidateCache();
+
+}
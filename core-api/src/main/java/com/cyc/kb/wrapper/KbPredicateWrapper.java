@@ -29,6 +29,7 @@ import com.cyc.kb.exception.KbException;
 import com.cyc.kb.exception.KbTypeException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An abstract base class for implementing KbPredicates per the decorator pattern. To use, extend this
@@ -146,4 +147,18 @@ public abstract class KbPredicateWrapper extends RelationWrapper implements KbPr
             arg, argPosition, valuePosition, matchArg, matchArgPos, ctx);
   }
 
+  @Override
+  public <O> Map<Object, Collection<O>> getValuesForArgs(
+          Collection<?> args, int argPosition, int valuePosition, Context ctx) {
+    return wrapped().getValuesForArgs(args, argPosition, valuePosition, ctx);
+  }
+
+  @Override
+  public <O> Map<Object, Collection<O>> getValuesForArgsWithMatchArg(
+          Collection<?> args, int argPosition, int valuePosition,
+          Object matchArg, int matchArgPos, Context ctx) {
+    return wrapped().getValuesForArgsWithMatchArg(
+            args, argPosition, valuePosition, matchArg, matchArgPos, ctx);
+  }
+
 }
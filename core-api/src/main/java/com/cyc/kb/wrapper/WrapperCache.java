@@ -0,0 +1,210 @@
+package com.cyc.kb.wrapper;
+
+/*
+ * #%L
+ * File: WrapperCache.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The memo table behind the caching wrappers. Results are keyed by method name plus arguments,
+ * and expire according to the TTL which the {@link CachePolicy} assigns to the method name.
+ * Concurrent misses for the same key may each call the wrapped object; the last result wins.
+ * Collections are cached (and returned) as unmodifiable copies, since every caller shares them.
+ * At most {@link #MAX_ENTRIES} results are kept, the least recently used being discarded first,
+ * and expired results are discarded when they are next looked up.
+ *
+ * <p>
+ * Every invalidation advances a generation counter. A result is only kept if no invalidation
+ * happened while it was being loaded, so a load which races with a mutation cannot re-insert a
+ * stale result after the mutation has invalidated it.
+ */
+final class WrapperCache {
+
+  //====|    Loader interface    |================================================================//
+
+  @FunctionalInterface
+  static interface Loader<T, E extends Exception> {
+
+    T load() throws E;
+
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  static final int MAX_ENTRIES = 1024;
+
+  private final CachePolicy policy;
+  private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Key, WrapperCache.Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  private final AtomicLong generation = new AtomicLong();
+
+  //====|    Construction    |====================================================================//
+
+  WrapperCache(CachePolicy policy) {
+    this.policy = Objects.requireNonNull(policy, "CachePolicy must not be null");
+  }
+
+  //====|    Methods    |=========================================================================//
+
+  CachePolicy getPolicy() {
+    return policy;
+  }
+
+  @SuppressWarnings("unchecked")
+  <T, E extends Exception> T get(String method, Loader<T, E> loader, Object... args) throws E {
+    final long ttl = policy.getTtlNanos(method);
+    if (ttl <= 0) {
+      return loader.load();
+    }
+    final Key key = new Key(method, args);
+    final long now = System.nanoTime();
+    synchronized (entries) {
+      final Entry cached = entries.get(key);
+      if (cached != null) {
+        if (!cached.isExpired(now)) {
+          return (T) cached.value;
+        }
+        entries.remove(key);
+      }
+    }
+    final long loadedAt = generation.get();
+    final T value = (T) freeze(loader.load());
+    synchronized (entries) {
+      // Invalidations also lock entries, so none can intervene between this check and the put:
+      if (generation.get() == loadedAt) {
+        entries.put(key, new Entry(value, ttl, now));
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Discards the cached results of every overload of the specified methods.
+   *
+   * @param methods method names
+   */
+  void invalidate(String... methods) {
+    final List<String> names = Arrays.asList(methods);
+    synchronized (entries) {
+      generation.incrementAndGet();
+      entries.keySet().removeIf(key -> names.contains(key.method));
+    }
+  }
+
+  void invalidateAll() {
+    synchronized (entries) {
+      generation.incrementAndGet();
+      entries.clear();
+    }
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Returns an unmodifiable copy of <code>value</code> if it is a collection (including the
+   * collections within it, e.g. the result of <code>getArgIsa(int)</code>), or else value itself.
+   */
+  private static Object freeze(Object value) {
+    if (value instanceof List) {
+      final List<Object> copy = new ArrayList<>(((List<?>) value).size());
+      for (Object element : (List<?>) value) {
+        copy.add(freeze(element));
+      }
+      return Collections.unmodifiableList(copy);
+    } else if (value instanceof Set) {
+      final Set<Object> copy = new LinkedHashSet<>();
+      for (Object element : (Set<?>) value) {
+        copy.add(freeze(element));
+      }
+      return Collections.unmodifiableSet(copy);
+    } else if (value instanceof Collection) {
+      final List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+      for (Object element : (Collection<?>) value) {
+        copy.add(freeze(element));
+      }
+      return Collections.unmodifiableCollection(copy);
+    }
+    return value;
+  }
+
+  //====|    Key & Entry    |=====================================================================//
+
+  private static final class Key {
+
+    private final String method;
+    private final List<Object> args;
+
+    private Key(String method, Object[] args) {
+      this.method = method;
+      this.args = Arrays.asList(args);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return method.equals(other.method) && args.equals(other.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * method.hashCode() + args.hashCode();
+    }
+  }
+
+  private static final class Entry {
+
+    private final Object value;
+    private final long expiresAt;
+    private final boolean expires;
+
+    private Entry(Object value, long ttl, long now) {
+      this.value = value;
+      this.expires = ttl != Long.MAX_VALUE;
+      this.expiresAt = now + (expires ? ttl : 0);
+    }
+
+    private boolean isExpired(long now) {
+      return expires && (now - expiresAt) >= 0;
+    }
+  }
+
+}
@@ -1,5 +1,7 @@
 /**
- * Abstract classes for implementing KbObjects per the decorator pattern.
+ * Abstract classes for implementing KbObjects per the decorator pattern, and caching decorators
+ * (e.g. {@link com.cyc.kb.wrapper.CachingKbCollectionWrapper}) which memoize read-only calls
+ * according to a {@link com.cyc.kb.wrapper.CachePolicy}.
  */
 package com.cyc.kb.wrapper;
 
@@ -0,0 +1,456 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: AbstractQueryResultSet.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A skeletal {@link QueryResultSet} over a sequence of {@link QueryAnswer}s, which subclasses
+ * supply via {@link #getAnswerAt(int) }. This class implements the cursor and the value getters;
+ * subclasses decide how answers are stored or fetched.
+ */
+public abstract class AbstractQueryResultSet implements QueryResultSet {
+
+  //====|    Fields    |==========================================================================//
+
+  private final List<Variable> columns;
+  private final List<String> columnNames;
+  private int row = 0;
+  private boolean afterLast = false;
+
+  //====|    Construction    |====================================================================//
+
+  protected AbstractQueryResultSet(Collection<Variable> columns) {
+    this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    final List<String> names = new ArrayList<>(columns.size());
+    for (Variable column : columns) {
+      names.add(column.toString());
+    }
+    this.columnNames = Collections.unmodifiableList(names);
+  }
+
+  //====|    Abstract methods    |================================================================//
+
+  /**
+   * Returns the answer at <code>index</code>, where the first answer is 0.
+   *
+   * @param index the index of the answer
+   *
+   * @return the answer, or <code>null</code> if there is no answer at <code>index</code>
+   */
+  protected abstract QueryAnswer getAnswerAt(int index);
+
+  /**
+   * Returns the total number of answers, which is used to move relative to the end of the result
+   * set; e.g., by {@link #last() }.
+   *
+   * @return the number of answers
+   */
+  protected abstract int getAnswerCount();
+
+  //====|    Protected methods    |===============================================================//
+
+  /**
+   * Returns whether there is an answer at <code>index</code>. Subclasses which can tell without
+   * materializing the answer should override this.
+   *
+   * @param index the index of the answer
+   *
+   * @return whether {@link #getAnswerAt(int) } would return an answer
+   */
+  protected boolean hasAnswerAt(int index) {
+    return getAnswerAt(index) != null;
+  }
+
+  /**
+   * Returns the binding of a column in the answer at <code>index</code>, which exists. Subclasses
+   * which can look a binding up without materializing the answer should override this.
+   *
+   * @param index       the index of the answer
+   * @param columnIndex the index of the column, which is valid
+   *
+   * @return the binding, or <code>null</code> if the column is unbound
+   */
+  protected Object getBindingAt(int index, int columnIndex) {
+    final QueryAnswer answer = getAnswerAt(index);
+    final Variable column = columns.get(columnIndex);
+    return answer.hasBinding(column) ? answer.getBinding(column) : null;
+  }
+
+  /**
+   * Returns the index of the answer at the cursor, for the getters.
+   *
+   * @return the index of the current answer
+   *
+   * @throws ArrayIndexOutOfBoundsException if the cursor is not on a row
+   */
+  protected final int getCurrentIndex() {
+    if (afterLast || row < 1) {
+      throw new ArrayIndexOutOfBoundsException("Cursor is not on a row: " + getRow());
+    }
+    if (!hasAnswerAt(row - 1)) {
+      throw new ArrayIndexOutOfBoundsException("No answer at row " + row);
+    }
+    return row - 1;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  @Override
+  public List<Variable> getColumns() {
+    return columns;
+  }
+
+  @Override
+  public int findColumn(Variable columnVar) {
+    final int idx = columns.indexOf(columnVar);
+    if (idx < 0) {
+      throw new IllegalArgumentException("No column for " + columnVar + " in " + columns);
+    }
+    return idx;
+  }
+
+  @Override
+  public int findColumn(String columnLabel) {
+    final String name = columnLabel.startsWith("?") ? columnLabel : "?" + columnLabel;
+    final int idx = columnNames.indexOf(name);
+    if (idx < 0) {
+      throw new IllegalArgumentException("No column named " + columnLabel + " in " + columnNames);
+    }
+    return idx;
+  }
+
+  @Override
+  public boolean next() {
+    if (afterLast) {
+      return false;
+    }
+    return moveTo(row + 1);
+  }
+
+  @Override
+  public boolean previous() {
+    if (afterLast) {
+      afterLast = false;
+      row = getAnswerCount();
+    } else if (row > 0) {
+      row--;
+    }
+    return row > 0 && exists(row);
+  }
+
+  @Override
+  public void beforeFirst() {
+    row = 0;
+    afterLast = false;
+  }
+
+  @Override
+  public void afterLast() {
+    afterLast = true;
+  }
+
+  @Override
+  public boolean first() {
+    return moveTo(1);
+  }
+
+  @Override
+  public boolean last() {
+    final int count = getAnswerCount();
+    if (count < 1) {
+      beforeFirst();
+      return false;
+    }
+    return moveTo(count);
+  }
+
+  @Override
+  public boolean absolute(int row) {
+    if (row == 0) {
+      beforeFirst();
+      return false;
+    }
+    final int target = (row > 0) ? row : getAnswerCount() + 1 + row;
+    if (target < 1) {
+      beforeFirst();
+      return false;
+    }
+    return moveTo(target);
+  }
+
+  @Override
+  public boolean relative(int rows) {
+    final int current = afterLast ? getAnswerCount() + 1 : row;
+    final long target = (long) current + rows;
+    if (target < 1) {
+      beforeFirst();
+      return false;
+    }
+    return moveTo((int) Math.min(target, Integer.MAX_VALUE));
+  }
+
+  @Override
+  public int getRow() {
+    return afterLast ? 0 : row;
+  }
+
+  @Override
+  public boolean isBeforeFirst() {
+    return !afterLast && row == 0 && exists(1);
+  }
+
+  @Override
+  public boolean isAfterLast() {
+    return afterLast && exists(1);
+  }
+
+  @Override
+  public boolean isFirst() {
+    return !afterLast && row == 1;
+  }
+
+  @Override
+  public boolean isLast() {
+    return !afterLast && row > 0 && !exists(row + 1);
+  }
+
+  //====|    Getters    |=========================================================================//
+
+  @Override
+  public <O> O getObject(int columnIndex, Class<O> type) {
+    final Object value = objectValue(columnIndex);
+    if (value == null || type.isInstance(value)) {
+      return type.cast(value);
+    }
+    throw new IllegalArgumentException(
+            "Value " + value + " in column " + columnNames.get(columnIndex)
+                    + " is not a " + type.getName());
+  }
+
+  @Override
+  public <O> O getObject(String columnLabel, Class<O> type) {
+    return getObject(findColumn(columnLabel), type);
+  }
+
+  @Override
+  public <O> O getObject(Variable columnVar, Class<O> type) {
+    return getObject(findColumn(columnVar), type);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <O> O getKbObject(int columnIndex, Class<O> type) {
+    return (O) objectValue(columnIndex);
+  }
+
+  @Override
+  public <O> O getKbObject(String columnLabel, Class<O> type) {
+    return getKbObject(findColumn(columnLabel), type);
+  }
+
+  @Override
+  public <O> O getKbObject(Variable columnVar, Class<O> type) {
+    return getKbObject(findColumn(columnVar), type);
+  }
+
+  @Override
+  public String getString(int columnIndex) {
+    final Object value = value(columnIndex);
+    return (value != null) ? value.toString() : null;
+  }
+
+  @Override
+  public String getString(String columnLabel) {
+    return getString(findColumn(columnLabel));
+  }
+
+  @Override
+  public String getString(Variable columnVar) {
+    return getString(findColumn(columnVar));
+  }
+
+  @Override
+  public boolean getBoolean(int columnIndex) {
+    final Object value = value(columnIndex);
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw new ClassCastException(value + " is not a boolean");
+  }
+
+  @Override
+  public boolean getBoolean(String columnLabel) {
+    return getBoolean(findColumn(columnLabel));
+  }
+
+  @Override
+  public boolean getBoolean(Variable columnVar) {
+    return getBoolean(findColumn(columnVar));
+  }
+
+  @Override
+  public int getInt(int columnIndex) {
+    return number(columnIndex).intValue();
+  }
+
+  @Override
+  public int getInt(String columnLabel) {
+    return getInt(findColumn(columnLabel));
+  }
+
+  @Override
+  public int getInt(Variable columnVar) {
+    return getInt(findColumn(columnVar));
+  }
+
+  @Override
+  public long getLong(int columnIndex) {
+    return number(columnIndex).longValue();
+  }
+
+  @Override
+  public long getLong(String columnLabel) {
+    return getLong(findColumn(columnLabel));
+  }
+
+  @Override
+  public long getLong(Variable columnVar) {
+    return getLong(findColumn(columnVar));
+  }
+
+  @Override
+  public float getFloat(int columnIndex) {
+    return number(columnIndex).floatValue();
+  }
+
+  @Override
+  public float getFloat(String columnLabel) {
+    return getFloat(findColumn(columnLabel));
+  }
+
+  @Override
+  public float getFloat(Variable columnVar) {
+    return getFloat(findColumn(columnVar));
+  }
+
+  @Override
+  public double getDouble(int columnIndex) {
+    return number(columnIndex).doubleValue();
+  }
+
+  @Override
+  public double getDouble(String columnLabel) {
+    return getDouble(findColumn(columnLabel));
+  }
+
+  @Override
+  public double getDouble(Variable columnVar) {
+    return getDouble(findColumn(columnVar));
+  }
+
+  @Override
+  public Date getDate(int columnIndex) {
+    final Object value = value(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof java.util.Date) {
+      return new Date(((java.util.Date) value).getTime());
+    }
+    throw new ClassCastException(value + " is not a date");
+  }
+
+  @Override
+  public Date getDate(String columnLabel) {
+    return getDate(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(Variable columnVar) {
+    return getDate(findColumn(columnVar));
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private boolean moveTo(int target) {
+    if (exists(target)) {
+      row = target;
+      afterLast = false;
+      return true;
+    }
+    afterLast = true;
+    return false;
+  }
+
+  private boolean exists(int row) {
+    return row > 0 && hasAnswerAt(row - 1);
+  }
+
+  private Object value(int columnIndex) {
+    if (columnIndex < 0 || columnIndex >= columns.size()) {
+      throw new IllegalArgumentException("Invalid column index: " + columnIndex);
+    }
+    return binding(columnIndex);
+  }
+
+  /**
+   * As {@link #value(int) }, for {@link #getObject(int, Class) } and
+   * {@link #getKbObject(int, Class) }, which are documented to throw
+   * ArrayIndexOutOfBoundsException rather than IllegalArgumentException for an invalid index.
+   */
+  private Object objectValue(int columnIndex) {
+    if (columnIndex < 0 || columnIndex >= columns.size()) {
+      throw new ArrayIndexOutOfBoundsException("Invalid column index: " + columnIndex);
+    }
+    return binding(columnIndex);
+  }
+
+  private Object binding(int columnIndex) {
+    return getBindingAt(getCurrentIndex(), columnIndex);
+  }
+
+  private Number number(int columnIndex) {
+    final Object value = value(columnIndex);
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    throw new ClassCastException(value + " is not a number");
+  }
+
+}
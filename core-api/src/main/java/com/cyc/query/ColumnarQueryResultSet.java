@@ -0,0 +1,789 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: ColumnarQueryResultSet.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbTerm;
+import com.cyc.kb.Variable;
+import com.cyc.query.exception.QueryRuntimeException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable, in-memory {@link QueryResultSet} which stores each column in its own array, for
+ * queries which return large numbers of numeric bindings. Columns whose values are all integral
+ * numbers, all numbers, all booleans or all dates are stored as primitive arrays, so
+ * {@link #getLong(int) }, {@link #getDouble(int) }, etc. do not allocate; other columns are
+ * dictionary-encoded, so a term which appears in many rows is stored once. Numbers are returned
+ * by {@link #getObject(int, Class) } and {@link #iterator() } with the class they were added with,
+ * and integers which a double cannot represent exactly are never stored as doubles.
+ *
+ * <p>
+ * A ColumnarQueryResultSet is a snapshot: it is built from the answers which are available when
+ * it is created, and does not track a running inference. Column indexes are positions in
+ * {@link #getColumns() }, as returned by {@link #findColumn(Variable) }; rows are numbered from 1.
+ * As with JDBC, the primitive getters return <code>0</code> or <code>false</code> for unbound
+ * values.
+ */
+public class ColumnarQueryResultSet extends AbstractQueryResultSet {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Copies the rows of <code>source</code> into a new ColumnarQueryResultSet. The cursor of
+   * <code>source</code> is left after its last row.
+   *
+   * @param source a result set
+   *
+   * @return a new ColumnarQueryResultSet
+   */
+  public static ColumnarQueryResultSet from(QueryResultSet source) {
+    final List<Variable> columns = source.getColumns();
+    final Builder builder = builder(columns);
+    final Object[] row = new Object[columns.size()];
+    source.beforeFirst();
+    while (source.next()) {
+      for (int col = 0; col < row.length; col++) {
+        row[col] = source.getObject(col, Object.class);
+      }
+      builder.addRow(row);
+    }
+    return builder.build(columns.isEmpty() && source.getTruthValue(),
+                         source.getInferenceIdentifier(), source.isInferenceComplete());
+  }
+
+  /**
+   * Creates a ColumnarQueryResultSet from a list of answers, e.g. those returned by
+   * {@link Query#getAnswers() }.
+   *
+   * @param columns the variables whose bindings to include
+   * @param answers the answers
+   *
+   * @return a new ColumnarQueryResultSet
+   */
+  public static ColumnarQueryResultSet from(List<Variable> columns,
+                                            List<? extends QueryAnswer> answers) {
+    final Builder builder = builder(columns);
+    for (QueryAnswer answer : answers) {
+      builder.addRow(answer);
+    }
+    return builder.build();
+  }
+
+  public static Builder builder(List<Variable> columns) {
+    return new Builder(columns);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Column[] data;
+  private final int rowCount;
+  private final boolean truthValue;
+  private final InferenceIdentifier inferenceIdentifier;
+  private final boolean inferenceComplete;
+  private boolean closed;
+
+  //====|    Construction    |====================================================================//
+
+  protected ColumnarQueryResultSet(List<Variable> columns, Column[] data, int rowCount,
+                                   boolean truthValue, InferenceIdentifier inferenceIdentifier,
+                                   boolean inferenceComplete) {
+    super(columns);
+    this.data = data;
+    this.rowCount = rowCount;
+    this.truthValue = truthValue;
+    this.inferenceIdentifier = inferenceIdentifier;
+    this.inferenceComplete = inferenceComplete;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public boolean getTruthValue() {
+    if (!getColumns().isEmpty()) {
+      throw new QueryRuntimeException("Query has open variables: " + getColumns());
+    }
+    return truthValue;
+  }
+
+  @Override
+  public InferenceIdentifier getInferenceIdentifier() {
+    return inferenceIdentifier;
+  }
+
+  @Override
+  public Integer getCurrentRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public boolean isInferenceComplete() {
+    return inferenceComplete;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Returns how the values in a column are stored.
+   *
+   * @param columnIndex the column index
+   *
+   * @return the column's storage type
+   */
+  public ColumnType getColumnType(int columnIndex) {
+    return column(columnIndex).type;
+  }
+
+  /**
+   * Returns whether the value at the current row in a column is unbound.
+   *
+   * @param columnIndex the column index
+   *
+   * @return whether the value is <code>null</code>
+   */
+  public boolean isNull(int columnIndex) {
+    return column(columnIndex).isNull(getCurrentIndex());
+  }
+
+  //====|    Getters    |=========================================================================//
+
+  @Override
+  public boolean getBoolean(int columnIndex) {
+    final Column column = column(columnIndex);
+    final int idx = getCurrentIndex();
+    if (column.type == ColumnType.BOOLEAN || column.type == ColumnType.EMPTY) {
+      return column.getLong(idx) != 0;
+    }
+    final Object value = column.get(idx);
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw new ClassCastException(value + " is not a boolean");
+  }
+
+  @Override
+  public int getInt(int columnIndex) {
+    return (int) getLong(columnIndex);
+  }
+
+  @Override
+  public long getLong(int columnIndex) {
+    final Column column = column(columnIndex);
+    final int idx = getCurrentIndex();
+    switch (column.type) {
+      case LONG:
+      case EMPTY:
+        return column.getLong(idx);
+      case DOUBLE:
+        return (long) column.doubles[idx];
+      default:
+        return number(column.get(idx)).longValue();
+    }
+  }
+
+  @Override
+  public float getFloat(int columnIndex) {
+    return (float) getDouble(columnIndex);
+  }
+
+  @Override
+  public double getDouble(int columnIndex) {
+    final Column column = column(columnIndex);
+    final int idx = getCurrentIndex();
+    switch (column.type) {
+      case DOUBLE:
+        return column.doubles[idx];
+      case LONG:
+      case EMPTY:
+        return column.getLong(idx);
+      default:
+        return number(column.get(idx)).doubleValue();
+    }
+  }
+
+  /**
+   * Returns the value at the current row in a column as a date. Unlike the numeric getters, this
+   * allocates a new Date, as Dates are mutable.
+   *
+   * @param columnIndex the column index
+   *
+   * @return the date, or <code>null</code> if the value is unbound
+   */
+  @Override
+  public Date getDate(int columnIndex) {
+    final Column column = column(columnIndex);
+    final int idx = getCurrentIndex();
+    if (column.isNull(idx)) {
+      return null;
+    }
+    if (column.type == ColumnType.DATE) {
+      return new Date(column.longs[idx]);
+    }
+    final Object value = column.get(idx);
+    if (value instanceof java.util.Date) {
+      return new Date(((java.util.Date) value).getTime());
+    }
+    throw new ClassCastException(value + " is not a date");
+  }
+
+  /**
+   * Iterates over the rows as QueryAnswers, independently of the cursor. Unlike the typed getters,
+   * this boxes each value.
+   *
+   * @return an iterator over the rows
+   */
+  @Override
+  public Iterator<QueryAnswer> iterator() {
+    return new Iterator<QueryAnswer>() {
+      private int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < rowCount;
+      }
+
+      @Override
+      public QueryAnswer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return getAnswerAt(next++);
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[columns=" + getColumnNames() + ", rows=" + rowCount
+                   + "]";
+  }
+
+  //====|    Protected methods    |===============================================================//
+
+  /**
+   * Returns the row at <code>index</code> as a QueryAnswer, boxing each value.
+   */
+  @Override
+  protected QueryAnswer getAnswerAt(int index) {
+    if (!hasAnswerAt(index)) {
+      return null;
+    }
+    final List<Variable> columns = getColumns();
+    final Map<Variable, Object> bindings = new LinkedHashMap<>();
+    for (int col = 0; col < data.length; col++) {
+      final Object value = data[col].get(index);
+      if (value != null) {
+        bindings.put(columns.get(col), value);
+      }
+    }
+    return new RowAnswer(bindings);
+  }
+
+  @Override
+  protected int getAnswerCount() {
+    return rowCount;
+  }
+
+  @Override
+  protected boolean hasAnswerAt(int index) {
+    return index >= 0 && index < rowCount;
+  }
+
+  @Override
+  protected Object getBindingAt(int index, int columnIndex) {
+    return data[columnIndex].get(index);
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private Column column(int columnIndex) {
+    if (columnIndex < 0 || columnIndex >= data.length) {
+      throw new IllegalArgumentException("Invalid column index: " + columnIndex);
+    }
+    return data[columnIndex];
+  }
+
+  private static Number number(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof Number) {
+      return (Number) value;
+    }
+    throw new ClassCastException(value + " is not a number");
+  }
+
+  //====|    ColumnType enum    |=================================================================//
+
+  /**
+   * How the values in a column are stored.
+   */
+  public static enum ColumnType {
+    /**
+     * Every value is unbound.
+     */
+    EMPTY,
+    /**
+     * Integral numbers, in a <code>long[]</code>.
+     */
+    LONG,
+    /**
+     * Numbers, at least one non-integral, in a <code>double[]</code>. A column which also contains
+     * integers too large to be represented exactly as doubles is stored as {@link #OBJECT}.
+     */
+    DOUBLE,
+    /**
+     * Booleans, in a <code>long[]</code>.
+     */
+    BOOLEAN,
+    /**
+     * Dates, as milliseconds since the epoch, in a <code>long[]</code>.
+     */
+    DATE,
+    /**
+     * Other objects, such as KbObjects, as indexes into a dictionary of distinct values.
+     */
+    OBJECT;
+
+    private static ColumnType of(Object value) {
+      if (value instanceof Long || value instanceof Integer
+                  || value instanceof Short || value instanceof Byte) {
+        return LONG;
+      } else if (value instanceof Double || value instanceof Float) {
+        return DOUBLE;
+      } else if (value instanceof Boolean) {
+        return BOOLEAN;
+      } else if (value instanceof java.util.Date) {
+        return DATE;
+      }
+      return OBJECT;
+    }
+  }
+
+  //====|    Column    |==========================================================================//
+
+  /**
+   * The values of one column. Only the array corresponding to the column's type is populated.
+   * Numbers are returned by {@link #get(int) } with the class they were added with (e.g. Integer
+   * rather than Long): <code>numberKind</code> records it for the whole column, or, once a column
+   * has mixed the classes, <code>numberKinds</code> records it for each row.
+   */
+  protected static final class Column {
+
+    private static final byte KIND_NONE = -1;
+    private static final byte KIND_LONG = 0;
+    private static final byte KIND_INTEGER = 1;
+    private static final byte KIND_SHORT = 2;
+    private static final byte KIND_BYTE = 3;
+    private static final byte KIND_DOUBLE = 4;
+    private static final byte KIND_FLOAT = 5;
+
+    /**
+     * Integers of at most this magnitude can be represented exactly as doubles.
+     */
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private ColumnType type = ColumnType.EMPTY;
+    private long[] longs = new long[0];
+    private double[] doubles;
+    private int[] codes;
+    private List<Object> dictionary;
+    private Map<Object, Integer> dictionaryIndex;
+    private byte numberKind = KIND_NONE;
+    private byte[] numberKinds;
+    private boolean inexactAsDouble;
+    private final BitSet nulls = new BitSet();
+    private int size;
+
+    private boolean isNull(int idx) {
+      return nulls.get(idx);
+    }
+
+    private long getLong(int idx) {
+      return (type == ColumnType.EMPTY) ? 0 : longs[idx];
+    }
+
+    private Object get(int idx) {
+      if (nulls.get(idx)) {
+        return null;
+      }
+      switch (type) {
+        case LONG:
+          return boxLong(longs[idx], kindAt(idx));
+        case DOUBLE:
+          return boxDouble(doubles[idx], kindAt(idx));
+        case BOOLEAN:
+          return longs[idx] != 0;
+        case DATE:
+          return new java.util.Date(longs[idx]);
+        case OBJECT:
+          return dictionary.get(codes[idx]);
+        default:
+          return null;
+      }
+    }
+
+    private void add(Object value) {
+      final int idx = size++;
+      ensureCapacity(size);
+      if (value == null) {
+        nulls.set(idx);
+        if (type == ColumnType.OBJECT) {
+          codes[idx] = -1;
+        }
+        return;
+      }
+      final ColumnType valueType = ColumnType.of(value);
+      if (type == ColumnType.EMPTY) {
+        convertTo(valueType, idx);
+      } else if (type != valueType && type != ColumnType.OBJECT) {
+        if (type == ColumnType.LONG && valueType == ColumnType.DOUBLE && !inexactAsDouble) {
+          convertTo(ColumnType.DOUBLE, idx);
+        } else if (!(type == ColumnType.DOUBLE && valueType == ColumnType.LONG
+                             && isExactAsDouble(((Number) value).longValue()))) {
+          convertTo(ColumnType.OBJECT, idx);
+        }
+      }
+      switch (type) {
+        case LONG:
+          longs[idx] = ((Number) value).longValue();
+          inexactAsDouble |= !isExactAsDouble(longs[idx]);
+          setKind(idx, kindOf((Number) value));
+          break;
+        case DOUBLE:
+          doubles[idx] = ((Number) value).doubleValue();
+          setKind(idx, kindOf((Number) value));
+          break;
+        case BOOLEAN:
+          longs[idx] = ((Boolean) value) ? 1 : 0;
+          break;
+        case DATE:
+          longs[idx] = ((java.util.Date) value).getTime();
+          break;
+        default:
+          codes[idx] = encode(value);
+          break;
+      }
+    }
+
+    /**
+     * Converts the first <code>count</code> values to <code>newType</code>.
+     */
+    private void convertTo(ColumnType newType, int count) {
+      final int capacity = Math.max(capacity(), 16);
+      if (newType == ColumnType.OBJECT) {
+        final Object[] previous = new Object[count];
+        for (int i = 0; i < count; i++) {
+          previous[i] = get(i);
+        }
+        dictionary = new ArrayList<>();
+        dictionaryIndex = new HashMap<>();
+        codes = new int[capacity];
+        for (int i = 0; i < count; i++) {
+          codes[i] = (previous[i] != null) ? encode(previous[i]) : -1;
+        }
+        longs = null;
+        doubles = null;
+        numberKinds = null;
+      } else if (newType == ColumnType.DOUBLE) {
+        doubles = new double[capacity];
+        for (int i = 0; i < count; i++) {
+          doubles[i] = (type == ColumnType.LONG) ? longs[i] : 0;
+        }
+        longs = null;
+      } else if (longs == null || longs.length < capacity) {
+        longs = new long[capacity];
+      }
+      type = newType;
+    }
+
+    private int capacity() {
+      switch (type) {
+        case DOUBLE:
+          return doubles.length;
+        case OBJECT:
+          return codes.length;
+        default:
+          return longs.length;
+      }
+    }
+
+    private void ensureCapacity(int capacity) {
+      switch (type) {
+        case DOUBLE:
+          if (doubles.length < capacity) {
+            doubles = Arrays.copyOf(doubles, Math.max(capacity, doubles.length * 2));
+          }
+          break;
+        case OBJECT:
+          if (codes.length < capacity) {
+            codes = Arrays.copyOf(codes, Math.max(capacity, codes.length * 2));
+          }
+          break;
+        default:
+          if (longs.length < capacity) {
+            longs = Arrays.copyOf(longs, Math.max(capacity, Math.max(16, longs.length * 2)));
+          }
+          break;
+      }
+      if (numberKinds != null && numberKinds.length < capacity) {
+        numberKinds = Arrays.copyOf(numberKinds, Math.max(capacity, numberKinds.length * 2));
+      }
+    }
+
+    private byte kindAt(int idx) {
+      return (numberKinds != null) ? numberKinds[idx] : numberKind;
+    }
+
+    private void setKind(int idx, byte kind) {
+      if (numberKinds != null) {
+        numberKinds[idx] = kind;
+      } else if (numberKind == KIND_NONE) {
+        numberKind = kind;
+      } else if (numberKind != kind) {
+        numberKinds = new byte[Math.max(capacity(), size)];
+        Arrays.fill(numberKinds, 0, idx, numberKind);
+        numberKinds[idx] = kind;
+      }
+    }
+
+    private static byte kindOf(Number value) {
+      if (value instanceof Integer) {
+        return KIND_INTEGER;
+      } else if (value instanceof Short) {
+        return KIND_SHORT;
+      } else if (value instanceof Byte) {
+        return KIND_BYTE;
+      } else if (value instanceof Float) {
+        return KIND_FLOAT;
+      } else if (value instanceof Double) {
+        return KIND_DOUBLE;
+      }
+      return KIND_LONG;
+    }
+
+    private static boolean isExactAsDouble(long value) {
+      return value >= -MAX_EXACT_DOUBLE && value <= MAX_EXACT_DOUBLE;
+    }
+
+    private static Number boxLong(long value, byte kind) {
+      switch (kind) {
+        case KIND_INTEGER:
+          return (int) value;
+        case KIND_SHORT:
+          return (short) value;
+        case KIND_BYTE:
+          return (byte) value;
+        default:
+          return value;
+      }
+    }
+
+    private static Number boxDouble(double value, byte kind) {
+      switch (kind) {
+        case KIND_FLOAT:
+          return (float) value;
+        case KIND_DOUBLE:
+        case KIND_NONE:
+          return value;
+        default:
+          return boxLong((long) value, kind);
+      }
+    }
+
+    private int encode(Object value) {
+      Integer code = dictionaryIndex.get(value);
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.add(value);
+        dictionaryIndex.put(value, code);
+      }
+      return code;
+    }
+
+    private void trim() {
+      if (longs != null) {
+        longs = Arrays.copyOf(longs, size);
+      }
+      if (doubles != null) {
+        doubles = Arrays.copyOf(doubles, size);
+      }
+      if (codes != null) {
+        codes = Arrays.copyOf(codes, size);
+      }
+      if (numberKinds != null) {
+        numberKinds = Arrays.copyOf(numberKinds, size);
+      }
+      dictionaryIndex = null;
+    }
+  }
+
+  //====|    RowAnswer    |=======================================================================//
+
+  /**
+   * A row, as returned by {@link #iterator() }. It is detached from the inference which produced
+   * it, so it has no ID or sources.
+   */
+  private static final class RowAnswer implements QueryAnswer {
+
+    private final Map<Variable, Object> bindings;
+
+    private RowAnswer(Map<Variable, Object> bindings) {
+      this.bindings = Collections.unmodifiableMap(bindings);
+    }
+
+    @Override
+    public Set<Variable> getVariables() {
+      return bindings.keySet();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <O> O getBinding(Variable var) {
+      return (O) bindings.get(var);
+    }
+
+    @Override
+    public boolean hasBinding(Variable var) {
+      return bindings.containsKey(var);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <O> O getOnlyBinding() throws QueryRuntimeException {
+      if (bindings.size() != 1) {
+        throw new QueryRuntimeException(
+                "Expected exactly one binding, but found " + bindings.size() + ": " + bindings);
+      }
+      return (O) bindings.values().iterator().next();
+    }
+
+    @Override
+    public Map<Variable, Object> getBindings() {
+      return bindings;
+    }
+
+    @Override
+    public InferenceAnswerIdentifier getId() {
+      return null;
+    }
+
+    @Override
+    public Set<KbTerm> getSources() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public List<String> toPrettyBindingsStrings() {
+      final List<String> result = new ArrayList<>(bindings.size());
+      for (Map.Entry<Variable, Object> binding : bindings.entrySet()) {
+        result.add(binding.getKey() + " -> " + binding.getValue());
+      }
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return bindings.toString();
+    }
+  }
+
+  //====|    Builder    |=========================================================================//
+
+  /**
+   * Accumulates rows for a ColumnarQueryResultSet; e.g., as answers arrive from a running query.
+   */
+  public static final class Builder {
+
+    private final List<Variable> columns;
+    private final Column[] data;
+    private int rowCount;
+
+    private Builder(List<Variable> columns) {
+      this.columns = new ArrayList<>(Objects.requireNonNull(columns, "Columns must not be null"));
+      this.data = new Column[columns.size()];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = new Column();
+      }
+    }
+
+    /**
+     * Adds a row, with a value for each column in order. <code>null</code> values are unbound.
+     *
+     * @param values the row's values
+     *
+     * @return this Builder
+     */
+    public Builder addRow(Object... values) {
+      if (values.length != data.length) {
+        throw new IllegalArgumentException(
+                "Expected " + data.length + " values but got " + values.length);
+      }
+      for (int i = 0; i < data.length; i++) {
+        data[i].add(values[i]);
+      }
+      rowCount++;
+      return this;
+    }
+
+    public Builder addRow(QueryAnswer answer) {
+      for (int i = 0; i < data.length; i++) {
+        final Variable column = columns.get(i);
+        data[i].add(answer.hasBinding(column) ? answer.getBinding(column) : null);
+      }
+      rowCount++;
+      return this;
+    }
+
+    public ColumnarQueryResultSet build() {
+      return build(rowCount > 0, null, true);
+    }
+
+    public ColumnarQueryResultSet build(boolean truthValue, InferenceIdentifier inferenceId,
+                                        boolean inferenceComplete) {
+      for (Column column : data) {
+        column.trim();
+      }
+      return new ColumnarQueryResultSet(
+              columns, data, rowCount, truthValue, inferenceId, inferenceComplete);
+    }
+  }
+
+}
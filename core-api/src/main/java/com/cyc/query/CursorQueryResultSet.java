@@ -0,0 +1,296 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: CursorQueryResultSet.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.kb.exception.KbException;
+import com.cyc.query.exception.QueryRuntimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link QueryResultSet} which fetches a Query's answers lazily, in blocks of
+ * <code>fetchSize</code> rows, as its cursor moves. Only a window of blocks around the cursor is
+ * held in memory, so e.g. scrolling to row 10 of an inference with a million answers only
+ * transfers the first block or two.
+ *
+ * <p>
+ * When the cursor moves forward past the rows which have been fetched, the next
+ * <code>readAhead</code> blocks are fetched in the same round trip. Random moves (e.g.
+ * {@link #absolute(int) }) fetch only the block containing the target row. Answers are fetched via
+ * {@link Query#getAnswers(int, int) }.
+ *
+ * <p>
+ * {@link #getCurrentRowCount() } reflects the rows fetched so far: it is the number of the furthest
+ * row which has been fetched, not the number of answers which the inference has found. Use
+ * {@link Query#getAnswerCount() } for the latter. Moves relative to the end of the result set, such
+ * as {@link #last() }, consult {@link Query#getAnswerCount() }.
+ *
+ * <p>
+ * Like other result sets, a CursorQueryResultSet is not thread-safe, and should be used from the
+ * thread whose session the Query uses.
+ */
+public class CursorQueryResultSet extends AbstractQueryResultSet {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static CursorQueryResultSet of(Query query) {
+    return of(query, DEFAULT_FETCH_SIZE, DEFAULT_READ_AHEAD);
+  }
+
+  /**
+   * Creates a cursor-based result set for <code>query</code>, which should already have been
+   * started.
+   *
+   * @param query     the query whose answers to fetch
+   * @param fetchSize the number of rows per block
+   * @param readAhead the number of additional blocks to fetch when the cursor moves forward past
+   *                  the rows which have been fetched
+   *
+   * @return a new CursorQueryResultSet
+   */
+  public static CursorQueryResultSet of(Query query, int fetchSize, int readAhead) {
+    return new CursorQueryResultSet(query, fetchSize, readAhead);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(CursorQueryResultSet.class);
+
+  public static final int DEFAULT_FETCH_SIZE = 100;
+
+  public static final int DEFAULT_READ_AHEAD = 1;
+
+  private final Query query;
+  private final int fetchSize;
+  private final int readAhead;
+  private final Map<Integer, List<QueryAnswer>> blocks;
+  private int lastFetchedBlock = -1;
+  private int fetchedRowCount = 0;
+  private int knownRowCount = -1;
+  private int fetchCount = 0;
+  private boolean closed = false;
+
+  //====|    Construction    |====================================================================//
+
+  protected CursorQueryResultSet(Query query, int fetchSize, int readAhead) {
+    super(variablesOf(query));
+    this.query = query;
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+    }
+    if (readAhead < 0) {
+      throw new IllegalArgumentException("Read-ahead must not be negative: " + readAhead);
+    }
+    this.fetchSize = fetchSize;
+    this.readAhead = readAhead;
+    final int window = readAhead + 2;
+    this.blocks = new LinkedHashMap<Integer, List<QueryAnswer>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, List<QueryAnswer>> eldest) {
+        return size() > window;
+      }
+    };
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Query getQuery() {
+    return query;
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  public int getReadAhead() {
+    return readAhead;
+  }
+
+  /**
+   * Returns the number of round trips which have been made to fetch answers.
+   *
+   * @return the number of fetches
+   */
+  public int getFetchCount() {
+    return fetchCount;
+  }
+
+  @Override
+  public boolean getTruthValue() {
+    if (!getColumns().isEmpty()) {
+      throw new QueryRuntimeException("Query has open variables: " + getColumns());
+    }
+    return query.isTrue();
+  }
+
+  @Override
+  public InferenceIdentifier getInferenceIdentifier() {
+    return query.getInferenceIdentifier();
+  }
+
+  /**
+   * Returns the number of rows fetched so far; i.e., the number of the furthest row which has been
+   * fetched.
+   *
+   * @return the number of rows fetched so far
+   */
+  @Override
+  public Integer getCurrentRowCount() {
+    return fetchedRowCount;
+  }
+
+  @Override
+  public boolean isInferenceComplete() {
+    return query.getStatus().indicatesDone();
+  }
+
+  /**
+   * Discards the fetched answers. The Query itself is not closed.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    blocks.clear();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Iterates over every answer, independently of the cursor, fetching <code>fetchSize</code>
+   * answers at a time.
+   *
+   * @return an iterator over the answers
+   */
+  @Override
+  public Iterator<QueryAnswer> iterator() {
+    return new Iterator<QueryAnswer>() {
+      private List<QueryAnswer> block = Collections.emptyList();
+      private int blockStart = 0;
+      private int idx = 0;
+      private boolean exhausted = false;
+
+      @Override
+      public boolean hasNext() {
+        if (idx < block.size()) {
+          return true;
+        }
+        if (exhausted) {
+          return false;
+        }
+        blockStart += block.size();
+        block = fetch(blockStart, fetchSize);
+        idx = 0;
+        exhausted = block.size() < fetchSize;
+        return !block.isEmpty();
+      }
+
+      @Override
+      public QueryAnswer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return block.get(idx++);
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[columns=" + getColumnNames() + ", fetchSize=" + fetchSize
+                   + ", row=" + getRow() + ", fetched=" + fetchedRowCount + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  /**
+   * Returns the answer at <code>index</code>, fetching its block if necessary.
+   */
+  @Override
+  protected QueryAnswer getAnswerAt(int index) {
+    if (knownRowCount >= 0 && index >= knownRowCount) {
+      return null;
+    }
+    final int blockIdx = index / fetchSize;
+    List<QueryAnswer> block = blocks.get(blockIdx);
+    if (block == null || (block.size() < fetchSize && index % fetchSize >= block.size())) {
+      // Fetch missing blocks, and re-fetch partial ones, which a running inference may have grown:
+      final int blockCount = (blockIdx == lastFetchedBlock + 1) ? 1 + readAhead : 1;
+      final List<QueryAnswer> answers = fetch(blockIdx * fetchSize, blockCount * fetchSize);
+      for (int i = 0; i < blockCount; i++) {
+        final int from = i * fetchSize;
+        if (from >= answers.size() && i > 0) {
+          break;
+        }
+        blocks.put(blockIdx + i, Collections.unmodifiableList(new ArrayList<>(
+                answers.subList(Math.min(from, answers.size()),
+                                Math.min(from + fetchSize, answers.size())))));
+      }
+      lastFetchedBlock = blockIdx + blockCount - 1;
+      block = blocks.get(blockIdx);
+    }
+    final int offset = index % fetchSize;
+    return (block != null && offset < block.size()) ? block.get(offset) : null;
+  }
+
+  @Override
+  protected int getAnswerCount() {
+    return query.getAnswerCount();
+  }
+
+  private List<QueryAnswer> fetch(int fromIndex, int count) {
+    if (closed) {
+      throw new QueryRuntimeException("Result set is closed");
+    }
+    fetchCount++;
+    final boolean wasComplete = isInferenceComplete();
+    final List<QueryAnswer> answers = query.getAnswers(fromIndex, count);
+    fetchedRowCount = Math.max(fetchedRowCount, fromIndex + answers.size());
+    if (wasComplete && answers.size() < count) {
+      // The inference had finished, so there are no more answers to wait for:
+      knownRowCount = fromIndex + answers.size();
+    }
+    LOG.trace("Fetched {} answers from index {} for {}", answers.size(), fromIndex, query);
+    return answers;
+  }
+
+  private static Collection<Variable> variablesOf(Query query) {
+    try {
+      return Objects.requireNonNull(query, "Query must not be null").getQueryVariables();
+    } catch (KbException ex) {
+      throw QueryRuntimeException.fromThrowable(ex);
+    }
+  }
+
+}
@@ -0,0 +1,314 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: PreparedQuery.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.KbObject;
+import com.cyc.kb.Sentence;
+import com.cyc.kb.Variable;
+import com.cyc.kb.exception.KbException;
+import com.cyc.query.exception.QueryConstructionException;
+import com.cyc.query.exception.QueryRuntimeException;
+import com.cyc.query.parameters.InferenceParameterGetter;
+import com.cyc.query.parameters.ProblemReusePolicy;
+import com.cyc.session.CycSession;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A query template which is run many times with different bindings for some of its variables;
+ * e.g., the same query about each of a user's entities. E.g.:
+ *
+ * <pre>
+ * try (PreparedQuery prepared = PreparedQuery.prepare(template, ownerVar)) {
+ *   for (KbIndividual owner : owners) {
+ *     List&lt;QueryAnswer&gt; answers = prepared.execute(owner);
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>
+ * The template's sentence, context, inference parameters and substitutions are retrieved once,
+ * when the PreparedQuery is created, so later changes to the template do not affect it. Unless the
+ * template's {@link ProblemReusePolicy} is {@link ProblemReusePolicy#NONE}, the first execution
+ * in each {@link CycSession} retains its inference, and later executions in that session run in
+ * the same problem store, so that the inference engine can reuse the problems which the
+ * executions have in common. Retained inferences are released when the PreparedQuery is closed.
+ *
+ * <p>
+ * PreparedQueries are safe for concurrent use; each execution runs in the calling thread's
+ * session.
+ */
+public class PreparedQuery implements AutoCloseable {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Prepares <code>template</code> to be executed with bindings for <code>parameters</code>.
+   *
+   * @param template   the query template
+   * @param parameters the variables which are bound at each execution, in the order of the
+   *                   values passed to {@link #execute(Object...) }
+   *
+   * @return a new PreparedQuery
+   *
+   * @throws KbException              if the template's sentence cannot be retrieved
+   * @throws IllegalArgumentException if a parameter is not one of the template's query variables
+   */
+  public static PreparedQuery prepare(QuerySpecification<?> template, Variable... parameters)
+          throws KbException {
+    return new PreparedQuery(template, Arrays.asList(parameters));
+  }
+
+  public static PreparedQuery prepare(QuerySpecification<?> template, List<Variable> parameters)
+          throws KbException {
+    return new PreparedQuery(template, parameters);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(PreparedQuery.class);
+
+  private final Sentence sentence;
+  private final Context context;
+  private final InferenceParameterGetter parameters;
+  private final Map<KbObject, Object> substitutions;
+  private final List<Variable> variables;
+  private final boolean reuseProblemStore;
+  private final Map<CycSession, Integer> problemStores = new ConcurrentHashMap<>();
+  private final Queue<Query> retainedQueries = new ConcurrentLinkedQueue<>();
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder reusedExecutions = new LongAdder();
+  private volatile boolean closed;
+
+  //====|    Construction    |====================================================================//
+
+  protected PreparedQuery(QuerySpecification<?> template, List<Variable> variables)
+          throws KbException {
+    this.sentence = template.getQuerySentence();
+    this.context = template.getContext();
+    this.parameters = (template.getInferenceParameters() != null)
+                              ? (InferenceParameterGetter) template.getInferenceParameters().clone()
+                              : null;
+    this.substitutions = (template.getSubstitutions() != null)
+                                 ? Collections.unmodifiableMap(
+                                         new HashMap<>(template.getSubstitutions()))
+                                 : Collections.emptyMap();
+    final Set<Variable> queryVariables = template.getQueryVariables();
+    for (Variable variable : variables) {
+      if (!queryVariables.contains(variable)) {
+        throw new IllegalArgumentException(
+                variable + " is not a query variable of " + template.getQuerySentence());
+      }
+    }
+    this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    this.reuseProblemStore = (parameters == null)
+                                     || (parameters.getProblemReusePolicy()
+                                                 != ProblemReusePolicy.NONE);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Runs the query with the parameters bound to <code>values</code>, in order.
+   *
+   * @param values a value for each parameter
+   *
+   * @return the answers
+   *
+   * @throws QueryConstructionException if the query cannot be constructed
+   * @throws QueryRuntimeException      if an exception is thrown during inference
+   * @throws IllegalArgumentException   if the number of values does not match the number of
+   *                                    parameters
+   */
+  public List<QueryAnswer> execute(Object... values) throws QueryConstructionException {
+    if (values.length != variables.size()) {
+      throw new IllegalArgumentException("Expected " + variables.size() + " values for "
+                                                 + variables + " but got " + values.length);
+    }
+    final Map<Variable, Object> bindings = new LinkedHashMap<>();
+    for (int i = 0; i < values.length; i++) {
+      bindings.put(variables.get(i), values[i]);
+    }
+    return execute(bindings);
+  }
+
+  /**
+   * Runs the query with the specified bindings.
+   *
+   * @param bindings a value for each parameter
+   *
+   * @return the answers
+   *
+   * @throws QueryConstructionException if the query cannot be constructed
+   * @throws QueryRuntimeException      if an exception is thrown during inference
+   * @throws IllegalArgumentException   if a parameter is unbound, or a non-parameter is bound
+   */
+  public List<QueryAnswer> execute(Map<Variable, Object> bindings)
+          throws QueryConstructionException {
+    if (closed) {
+      throw new IllegalStateException("PreparedQuery has been closed");
+    }
+    if (!bindings.keySet().equals(new HashSet<>(variables))) {
+      throw new IllegalArgumentException(
+              "Bindings " + bindings.keySet() + " do not match parameters " + variables);
+    }
+    executions.increment();
+    final Query query = newQuery(bindings);
+    final CycSession session = query.getCycSession();
+    final Integer problemStore = reuseProblemStore ? problemStores.get(session) : null;
+    if (problemStore != null) {
+      try {
+        final List<QueryAnswer> answers = run(query, problemStore, false);
+        reusedExecutions.increment();
+        return answers;
+      } catch (QueryRuntimeException ex) {
+        LOG.warn("Could not reuse problem store {}; running {} in a new one",
+                 problemStore, sentence, ex);
+        problemStores.remove(session, problemStore);
+      }
+      return run(newQuery(bindings), null, true);
+    }
+    return run(query, null, reuseProblemStore);
+  }
+
+  public List<Variable> getParameters() {
+    return variables;
+  }
+
+  /**
+   * Returns the number of times this query has been executed.
+   *
+   * @return the number of executions
+   */
+  public long getExecutionCount() {
+    return executions.sum();
+  }
+
+  /**
+   * Returns the number of executions which ran in a previously-created problem store.
+   *
+   * @return the number of executions which reused a problem store
+   */
+  public long getReusedProblemStoreCount() {
+    return reusedExecutions.sum();
+  }
+
+  /**
+   * Releases the inferences which were retained in order to reuse their problem stores.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    problemStores.clear();
+    for (Query query = retainedQueries.poll(); query != null; query = retainedQueries.poll()) {
+      try {
+        query.close();
+      } catch (RuntimeException ex) {
+        LOG.warn("Could not close retained query {}", query, ex);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + sentence + " in " + context
+                   + ", parameters=" + variables + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private Query newQuery(Map<Variable, Object> bindings) throws QueryConstructionException {
+    final Query query = Query.get(sentence, context);
+    try {
+      if (parameters != null) {
+        query.getInferenceParameters().putAll(parameters);
+      }
+      if (!substitutions.isEmpty()) {
+        query.addSubstitutions(substitutions);
+      }
+      bindings.forEach(query::bindVariable);
+      return query;
+    } catch (RuntimeException ex) {
+      query.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Runs <code>query</code> and returns its answers. The query is closed, unless it is retained
+   * for its problem store.
+   */
+  private List<QueryAnswer> run(Query query, Integer problemStore, boolean retain) {
+    boolean retained = false;
+    try {
+      if (problemStore != null) {
+        query.getInferenceParameters().setProblemStoreId(problemStore);
+      }
+      if (retain) {
+        query.retainInference();
+      }
+      query.performInference();
+      final List<QueryAnswer> answers
+              = Collections.unmodifiableList(new ArrayList<>(query.getAnswers()));
+      if (retain) {
+        retained = retain(query);
+      }
+      return answers;
+    } finally {
+      if (!retained) {
+        query.close();
+      }
+    }
+  }
+
+  private boolean retain(Query query) {
+    try {
+      final int problemStore = query.getInferenceIdentifier().getProblemStoreId();
+      if (problemStores.putIfAbsent(query.getCycSession(), problemStore) == null) {
+        retainedQueries.add(query);
+        if (closed) {
+          close();
+        }
+        return true;
+      }
+    } catch (RuntimeException ex) {
+      LOG.warn("Could not retain problem store of {}", query, ex);
+    }
+    return false;
+  }
+
+}
@@ -39,7 +39,9 @@ import com.cyc.session.exception.OpenCycUnsupportedFeatureException;
 import com.cyc.session.exception.SessionCommunicationException;
 import com.cyc.session.exception.UnsupportedCycOperationException;
 import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -149,6 +151,35 @@ public interface Query extends ModifiableQuerySpecification<Query>, Closeable {
     return Cyc.getQueryService().getQuery(sent, ctx);
   }
 
+  /**
+   * Constructs a Query with the same sentence, context, inference parameters and substitutions as
+   * <code>spec</code>, bound to the current thread's session. This static method wraps a call to
+   * {@link com.cyc.query.spi.QueryService#getQuery(com.cyc.query.QuerySpecification) }; see that
+   * method's documentation for more details.
+   *
+   * @param spec the query specification to copy
+   *
+   * @return a new Query instance
+   *
+   * @throws QueryConstructionException
+   */
+  public static Query get(QuerySpecification<?> spec) throws QueryConstructionException {
+    return Cyc.getQueryService().getQuery(spec);
+  }
+
+  /**
+   * Runs a batch of queries, and returns the outcome of each. This static method wraps a call to
+   * {@link com.cyc.query.spi.QueryService#runQueries(java.util.List) }; see that method's
+   * documentation for more details.
+   *
+   * @param requests the queries to run
+   *
+   * @return the outcome of each query, in the same order as <code>requests</code>
+   */
+  public static List<QueryOutcome> runAll(List<QueryRequest> requests) {
+    return Cyc.getQueryService().runQueries(requests);
+  }
+
   /**
    * Constructs a Query from a KbIndividual corresponding to #$CycLQuerySpecification.
    *
@@ -508,6 +539,36 @@ public interface Query extends ModifiableQuerySpecification<Query>, Closeable {
    */
   QueryAnswer getAnswer(final int answerIndex) throws SessionCommunicationException;
 
+  /**
+   * Returns up to <code>count</code> answers for this Query, starting with the answer at
+   * <code>fromIndex</code>. For running queries, fewer answers may be returned than are eventually
+   * found.
+   *
+   * <p>
+   * The default implementation calls {@link #getAnswer(int) } once per answer; implementations
+   * should override it to transfer the whole range in a single round trip.
+   *
+   * @param fromIndex the index of the first answer, where the first answer is 0
+   * @param count     the maximum number of answers to return
+   *
+   * @return the answers, which may be fewer than <code>count</code>
+   *
+   * @throws SessionCommunicationException if there is a problem communicating with Cyc
+   */
+  default List<QueryAnswer> getAnswers(int fromIndex, int count)
+          throws SessionCommunicationException {
+    if (fromIndex < 0 || count < 0) {
+      throw new IllegalArgumentException(
+              "Invalid answer range: fromIndex=" + fromIndex + ", count=" + count);
+    }
+    final int toIndex = (int) Math.min((long) fromIndex + count, getAnswerCount());
+    final List<QueryAnswer> answers = new ArrayList<>(Math.max(0, toIndex - fromIndex));
+    for (int i = fromIndex; i < toIndex; i++) {
+      answers.add(getAnswer(i));
+    }
+    return answers;
+  }
+
   /**
    * Returns the nth answer for this Query. For the first answer, n == 0.
    *
@@ -601,4 +662,21 @@ public interface Query extends ModifiableQuerySpecification<Query>, Closeable {
    */
   QueryResultSet getResultSet();
 
+  /**
+   * Returns a result set which fetches this Query's answers lazily, <code>fetchSize</code> rows at
+   * a time, as its cursor moves. Unlike {@link #getResultSet() }, only the answers near the cursor
+   * are transferred from the Cyc server.
+   *
+   * @param fetchSize the number of answers to fetch per round trip
+   * @param readAhead the number of additional blocks of <code>fetchSize</code> answers to fetch
+   *                  when the cursor moves forward past the answers which have been fetched
+   *
+   * @return a new cursor-based result set
+   *
+   * @see CursorQueryResultSet
+   */
+  default QueryResultSet getResultSet(int fetchSize, int readAhead) {
+    return CursorQueryResultSet.of(this, fetchSize, readAhead);
+  }
+
 }
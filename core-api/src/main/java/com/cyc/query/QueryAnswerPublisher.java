@@ -0,0 +1,508 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: QueryAnswerPublisher.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.query.exception.QueryRuntimeException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the answers to a {@link Query} as the inference finds them, with flow control: the
+ * subscriber {@link Subscription#request(long) requests} answers, and the inference is suspended
+ * (via {@link Query#stop(Integer) }) when more than a buffer's worth of unrequested answers have
+ * accumulated, and continued (via {@link Query#continueQuery() }) once the subscriber has caught
+ * up. Cancelling the subscription stops the inference. This allows interactive clients to display
+ * the first answers as soon as they are found, rather than when {@link Query#performInference() }
+ * returns.
+ *
+ * <p>
+ * The {@link Subscriber} and {@link Subscription} interfaces follow the contract of
+ * <code>java.util.concurrent.Flow</code>, which is not available on this API's minimum Java
+ * version; adapting them to Flow or to Reactive Streams is straightforward. E.g.:
+ *
+ * <pre>
+ * QueryAnswerPublisher.of(query, executor).subscribe(new QueryAnswerPublisher.Subscriber() {
+ *   private Subscription subscription;
+ *   public void onSubscribe(Subscription subscription) {
+ *     this.subscription = subscription;
+ *     subscription.request(20);
+ *   }
+ *   public void onNext(QueryAnswer answer) {
+ *     display(answer);
+ *   }
+ *   ...
+ * });
+ * </pre>
+ *
+ * <p>
+ * Subscribing starts the query if it has not been started; if it is already running, only answers
+ * found after subscription are published, and if it has already finished, its existing answers are
+ * published. A QueryAnswerPublisher supports a single subscriber. Inferences which are not
+ * {@link Query#isContinuable() continuable} cannot be suspended, so their answers are buffered
+ * without limit until requested.
+ *
+ * <p>
+ * The publisher starts and continues the inference on a caller-supplied {@link Executor}, as both
+ * calls may block until the inference stops. The API does not guarantee that a Query may be used
+ * from any thread: sessions are assigned to threads (see
+ * {@link com.cyc.session.CycSession#getCurrent() }), so the executor should run its tasks on
+ * threads where the query's session is current, such as a thread which waits for the subscriber
+ * to finish; see {@link com.cyc.query.export.QueryAnswerExporter#export(Query) } for an example.
+ */
+public class QueryAnswerPublisher {
+
+  //====|    Subscriber & Subscription interfaces    |============================================//
+
+  /**
+   * Receives answers from a QueryAnswerPublisher. As with <code>Flow.Subscriber</code>, methods are
+   * invoked serially, and no answers are delivered beyond those requested.
+   */
+  public static interface Subscriber {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(QueryAnswer answer);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+
+  }
+
+  /**
+   * Links a Subscriber to a QueryAnswerPublisher.
+   */
+  public static interface Subscription {
+
+    /**
+     * Adds <code>n</code> answers to the subscriber's outstanding demand.
+     *
+     * @param n the number of additional answers to deliver; must be positive
+     */
+    void request(long n);
+
+    /**
+     * Stops the delivery of answers and stops the inference.
+     */
+    void cancel();
+
+  }
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates a publisher of the answers to <code>query</code>, which suspends the inference when
+   * {@value #DEFAULT_BUFFER_SIZE} unrequested answers have accumulated.
+   *
+   * @param query    the query
+   * @param executor the executor on which to start and continue the inference, both of which may
+   *                 block until it stops; see above regarding its threads
+   *
+   * @return a new QueryAnswerPublisher
+   */
+  public static QueryAnswerPublisher of(Query query, Executor executor) {
+    return new QueryAnswerPublisher(query, DEFAULT_BUFFER_SIZE, executor);
+  }
+
+  /**
+   * Creates a publisher of the answers to <code>query</code>.
+   *
+   * @param query      the query
+   * @param bufferSize the number of unrequested answers at which the inference is suspended; it
+   *                   is continued when half of them have been delivered
+   * @param executor   the executor on which to start and continue the inference, both of which
+   *                   may block until it stops; see above regarding its threads
+   *
+   * @return a new QueryAnswerPublisher
+   */
+  public static QueryAnswerPublisher of(Query query, int bufferSize, Executor executor) {
+    return new QueryAnswerPublisher(query, bufferSize, executor);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  public static final int DEFAULT_BUFFER_SIZE = 256;
+
+  private static final Logger LOG = LoggerFactory.getLogger(QueryAnswerPublisher.class);
+
+  private static enum State {
+    /**
+     * The inference is (or may be) running.
+     */
+    RUNNING,
+    /**
+     * We have asked the inference to stop, and are waiting for it to suspend.
+     */
+    PAUSING,
+    /**
+     * The inference has suspended at our request.
+     */
+    PAUSED,
+    /**
+     * We have asked the inference to continue.
+     */
+    RESUMING;
+  }
+
+  private final Query query;
+  private final int highWater;
+  private final int lowWater;
+  private final Executor executor;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+  private final Queue<QueryAnswer> buffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger buffered = new AtomicInteger();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicInteger received = new AtomicInteger();
+  private Subscriber subscriber;
+  private volatile boolean ready;
+  private volatile boolean cancelled;
+  private volatile boolean rejected;
+  private volatile boolean done;
+  private volatile Throwable error;
+
+  //====|    Construction    |====================================================================//
+
+  protected QueryAnswerPublisher(Query query, int bufferSize, Executor executor) {
+    this.query = Objects.requireNonNull(query, "Query must not be null");
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+    }
+    this.highWater = bufferSize;
+    this.lowWater = bufferSize / 2;
+    this.executor = Objects.requireNonNull(executor, "Executor must not be null");
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Subscribes <code>subscriber</code> to the query's answers. If this publisher already has a
+   * subscriber, <code>subscriber</code> is instead sent an IllegalStateException.
+   *
+   * @param subscriber the subscriber
+   */
+  public void subscribe(Subscriber subscriber) {
+    Objects.requireNonNull(subscriber, "Subscriber must not be null");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException(
+              "A QueryAnswerPublisher supports only one subscriber"));
+      return;
+    }
+    this.subscriber = subscriber;
+    final InferenceStatus status = query.getStatus();
+    final boolean alreadyDone = status != null && status.indicatesDone();
+    if (!alreadyDone) {
+      // Register before onSubscribe, so nothing found while the subscriber sets up is missed.
+      // Signals are held back by drain() until the subscriber is ready.
+      query.addListener(new AnswerListener());
+    }
+    subscriber.onSubscribe(new AnswerSubscription());
+    ready = true;
+    if (alreadyDone) {
+      publishExistingAnswers();
+    } else {
+      recheckStatus();
+    }
+    drain();
+  }
+
+  public Query getQuery() {
+    return query;
+  }
+
+  /**
+   * Returns the number of answers which have been found but not yet delivered.
+   *
+   * @return the number of buffered answers
+   */
+  public int getBufferedCount() {
+    return buffered.get();
+  }
+
+  /**
+   * Returns whether the inference is currently suspended, or being suspended, because the
+   * subscriber has not requested the answers already found.
+   *
+   * @return whether the inference is held back by the subscriber
+   */
+  public boolean isPaused() {
+    final State current = state.get();
+    return current == State.PAUSING || current == State.PAUSED;
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private void publishExistingAnswers() {
+    started.set(true);
+    try {
+      enqueue(query.getAnswers());
+      finish(null);
+    } catch (RuntimeException ex) {
+      finish(ex);
+    }
+  }
+
+  /**
+   * Handles an inference which finished between our reading its status and registering our
+   * listener, and so whose final notifications the listener may not have received.
+   */
+  private void recheckStatus() {
+    final InferenceStatus status = query.getStatus();
+    if (done || status == null || !status.indicatesDone()) {
+      return;
+    }
+    started.set(true);
+    try {
+      final List<QueryAnswer> answers = query.getAnswers();
+      final int seen = received.get();
+      if (answers != null && answers.size() > seen) {
+        enqueue(answers.subList(seen, answers.size()));
+      }
+      finish(null);
+    } catch (RuntimeException ex) {
+      finish(ex);
+    }
+  }
+
+  private void startIfNecessary() {
+    if (started.compareAndSet(false, true)) {
+      final InferenceStatus status = query.getStatus();
+      if (status == null || !status.indicatesInferenceExists()) {
+        executor.execute(() -> {
+          try {
+            query.start();
+          } catch (RuntimeException ex) {
+            finish(ex);
+          }
+        });
+      }
+    }
+  }
+
+  private void enqueue(List<QueryAnswer> answers) {
+    if (cancelled || answers == null) {
+      return;
+    }
+    buffer.addAll(answers);
+    buffered.addAndGet(answers.size());
+  }
+
+  private void pauseIfNecessary() {
+    if (buffered.get() >= highWater && demand.get() == 0 && query.isContinuable()
+                && (state.compareAndSet(State.RUNNING, State.PAUSING)
+                            || state.compareAndSet(State.RESUMING, State.PAUSING))) {
+      LOG.debug("Suspending {}; {} answers awaiting demand", query, buffered.get());
+      query.stop(null);
+    }
+  }
+
+  private void resumeIfNecessary() {
+    if (!cancelled && !done && demand.get() > 0 && buffered.get() <= lowWater
+                && state.compareAndSet(State.PAUSED, State.RESUMING)) {
+      LOG.debug("Continuing {}", query);
+      executor.execute(() -> {
+        try {
+          query.continueQuery();
+        } catch (RuntimeException ex) {
+          finish(ex);
+        }
+      });
+    }
+  }
+
+  private void finish(Throwable throwable) {
+    if (!done) {
+      error = (throwable == null || throwable instanceof QueryRuntimeException)
+                      ? throwable
+                      : QueryRuntimeException.fromThrowable(throwable);
+      done = true;
+    }
+    drain();
+  }
+
+  /**
+   * Delivers buffered answers up to the current demand, then any terminal signal. Only one thread
+   * drains at a time; a thread which finds another draining leaves it to make another pass.
+   */
+  private void drain() {
+    if (!ready || wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      final long requested = demand.get();
+      long emitted = 0;
+      while (emitted != requested && !cancelled && !rejected) {
+        final QueryAnswer answer = buffer.poll();
+        if (answer == null) {
+          break;
+        }
+        buffered.decrementAndGet();
+        try {
+          subscriber.onNext(answer);
+        } catch (RuntimeException ex) {
+          LOG.error("Subscriber {} failed to handle an answer to {}", subscriber, query, ex);
+          cancel();
+        }
+        emitted++;
+      }
+      if (cancelled) {
+        buffer.clear();
+        buffered.set(0);
+      } else if (rejected || (done && buffer.isEmpty())) {
+        cancelled = true;
+        buffer.clear();
+        buffered.set(0);
+        if (error != null) {
+          subscriber.onError(error);
+        } else {
+          subscriber.onComplete();
+        }
+      } else {
+        if (emitted != 0 && requested != Long.MAX_VALUE) {
+          demand.addAndGet(-emitted);
+        }
+        resumeIfNecessary();
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void cancel() {
+    if (cancelled) {
+      return;
+    }
+    cancelled = true;
+    stopInference();
+  }
+
+  /**
+   * Rejects an invalid request: the inference is stopped, buffered answers are discarded, and
+   * <code>throwable</code> is signalled by {@link #drain() }, so that it is serialized with any
+   * other signal to the subscriber.
+   */
+  private void reject(Throwable throwable) {
+    if (cancelled || rejected) {
+      return;
+    }
+    error = throwable;
+    done = true;
+    rejected = true;
+    stopInference();
+    drain();
+  }
+
+  private void stopInference() {
+    final InferenceStatus status = query.getStatus();
+    if (status != null && status.indicatesInferenceExists() && !status.indicatesDone()) {
+      query.stop(null);
+    }
+  }
+
+  //====|    AnswerSubscription    |==============================================================//
+
+  private final class AnswerSubscription implements Subscription {
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        reject(new IllegalArgumentException("Requested " + n + " answers"));
+        return;
+      }
+      demand.accumulateAndGet(n, (current, added) -> {
+        final long sum = current + added;
+        return (sum < 0) ? Long.MAX_VALUE : sum;
+      });
+      startIfNecessary();
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      QueryAnswerPublisher.this.cancel();
+    }
+  }
+
+  //====|    AnswerListener    |==================================================================//
+
+  private final class AnswerListener implements QueryListener {
+
+    @Override
+    public void notifyInferenceCreated(Query query) {
+    }
+
+    @Override
+    public void notifyInferenceStatusChanged(InferenceStatus oldStatus, InferenceStatus newStatus,
+                                             InferenceSuspendReason suspendReason, Query query) {
+      if (newStatus == InferenceStatus.SUSPENDED) {
+        if (state.compareAndSet(State.PAUSING, State.PAUSED)) {
+          drain();
+        } else if (suspendReason != null && suspendReason.isError()) {
+          finish(new QueryRuntimeException(
+                  "Inference suspended: " + suspendReason.getInferenceStatusString()));
+        } else {
+          finish(null);
+        }
+      } else if (newStatus == InferenceStatus.DEAD) {
+        finish(null);
+      } else if (newStatus != null && newStatus.indicatesQueryError()) {
+        finish(new QueryRuntimeException("Query cannot be run: " + newStatus));
+      }
+    }
+
+    @Override
+    public void notifyInferenceAnswersAvailable(Query query, List<QueryAnswer> newAnswers) {
+      if (newAnswers != null) {
+        received.addAndGet(newAnswers.size());
+      }
+      enqueue(newAnswers);
+      pauseIfNecessary();
+      drain();
+    }
+
+    @Override
+    public void notifyInferenceTerminated(Query query, Exception exception) {
+      finish(exception);
+    }
+  }
+
+}
@@ -0,0 +1,193 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: QueryOutcome.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of running a single query as part of a batch (see
+ * {@link Query#runAll(java.util.List) }) or via a {@link com.cyc.query.exec.ParallelQueryExecutor}:
+ * either the query's results, or the exception which prevented them from being produced.
+ *
+ * <p>
+ * The underlying Query is left open so that its results can be read. Close each QueryOutcome once
+ * it has been processed, to free the inference resources on the Cyc server.
+ */
+public final class QueryOutcome implements AutoCloseable {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates the outcome of a query which ran to completion.
+   *
+   * @param query        the query
+   * @param resultSet    its results
+   * @param elapsedNanos how long it took to run
+   *
+   * @return a new QueryOutcome
+   */
+  public static QueryOutcome succeeded(Query query, QueryResultSet resultSet, long elapsedNanos) {
+    return new QueryOutcome(query, query, resultSet, null, false, elapsedNanos);
+  }
+
+  /**
+   * Creates the outcome of a query which failed.
+   *
+   * @param spec         the query, or <code>null</code> if it could not be constructed
+   * @param error        the cause of the failure
+   * @param elapsedNanos how long it ran before it failed
+   *
+   * @return a new QueryOutcome
+   */
+  public static QueryOutcome failed(QuerySpecification<?> spec, Throwable error,
+                                    long elapsedNanos) {
+    return new QueryOutcome(spec, (spec instanceof Query) ? (Query) spec : null, null,
+                            Objects.requireNonNull(error, "Error must not be null"), false,
+                            elapsedNanos);
+  }
+
+  /**
+   * Creates the outcome of a query which was run subject to a deadline.
+   *
+   * @param spec         the specification which was run
+   * @param query        the query, or <code>null</code> if it could not be constructed
+   * @param resultSet    its results, or <code>null</code> if it failed
+   * @param error        the cause of the failure, or <code>null</code> if it succeeded
+   * @param timedOut     whether the query was stopped because it overran its deadline
+   * @param elapsedNanos how long it ran
+   *
+   * @return a new QueryOutcome
+   */
+  public static QueryOutcome of(QuerySpecification<?> spec, Query query, QueryResultSet resultSet,
+                                Throwable error, boolean timedOut, long elapsedNanos) {
+    return new QueryOutcome(spec, query, resultSet, error, timedOut, elapsedNanos);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final QuerySpecification<?> specification;
+  private final Query query;
+  private final QueryResultSet resultSet;
+  private final Throwable error;
+  private final boolean timedOut;
+  private final long elapsedNanos;
+
+  //====|    Construction    |====================================================================//
+
+  private QueryOutcome(QuerySpecification<?> specification, Query query, QueryResultSet resultSet,
+                       Throwable error, boolean timedOut, long elapsedNanos) {
+    this.specification = specification;
+    this.query = query;
+    this.resultSet = resultSet;
+    this.error = error;
+    this.timedOut = timedOut;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the specification which was run.
+   *
+   * @return the query specification, or <code>null</code> if a batched query could not be
+   *         constructed
+   */
+  public QuerySpecification<?> getSpecification() {
+    return specification;
+  }
+
+  /**
+   * Returns the Query which was run on behalf of the specification.
+   *
+   * @return the query, or <code>null</code> if it could not be constructed
+   */
+  public Query getQuery() {
+    return query;
+  }
+
+  /**
+   * Returns the query's results.
+   *
+   * @return the result set, or <code>null</code> if the query failed
+   */
+  public QueryResultSet getResultSet() {
+    return resultSet;
+  }
+
+  /**
+   * Returns the exception which caused the query to fail.
+   *
+   * @return the exception, or <code>null</code> if the query succeeded
+   */
+  public Throwable getError() {
+    return error;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * Returns whether the query was stopped because it overran its deadline. A query which timed out
+   * may still have produced some answers.
+   *
+   * @return whether the query timed out
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  public int getAnswerCount() {
+    return (query != null && error == null) ? query.getAnswerCount() : 0;
+  }
+
+  /**
+   * Returns how long the query took to run, excluding the time it spent waiting for a thread.
+   *
+   * @param unit the time unit of the result
+   *
+   * @return the elapsed time
+   */
+  public long getElapsedTime(TimeUnit unit) {
+    return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Closes the underlying Query.
+   */
+  @Override
+  public void close() {
+    if (query != null) {
+      query.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "["
+                   + (isSuccessful() ? getAnswerCount() + " answers" : "failed: " + error)
+                   + (timedOut ? ", timed out" : "")
+                   + ", " + getElapsedTime(TimeUnit.MILLISECONDS) + "ms]";
+  }
+
+}
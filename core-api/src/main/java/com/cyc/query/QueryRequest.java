@@ -0,0 +1,86 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: QueryRequest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Context;
+import com.cyc.kb.Sentence;
+import com.cyc.query.parameters.InferenceParameters;
+import java.util.Objects;
+
+/**
+ * A query to be run as part of a batch via
+ * {@link com.cyc.query.spi.QueryService#runQueries(java.util.List) }: a sentence, the context in
+ * which to ask it, and optionally the inference parameters with which to run it. QueryRequests
+ * are immutable.
+ */
+public final class QueryRequest {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static QueryRequest of(Sentence sentence, Context ctx) {
+    return new QueryRequest(sentence, ctx, null);
+  }
+
+  public static QueryRequest of(Sentence sentence, Context ctx, InferenceParameters params) {
+    return new QueryRequest(sentence, ctx, params);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private final Sentence sentence;
+  private final Context context;
+  private final InferenceParameters parameters;
+
+  //====|    Construction    |====================================================================//
+
+  private QueryRequest(Sentence sentence, Context context, InferenceParameters parameters) {
+    this.sentence = Objects.requireNonNull(sentence, "Sentence must not be null");
+    this.context = Objects.requireNonNull(context, "Context must not be null");
+    this.parameters = (parameters != null) ? (InferenceParameters) parameters.clone() : null;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public Sentence getSentence() {
+    return sentence;
+  }
+
+  public Context getContext() {
+    return context;
+  }
+
+  /**
+   * Returns the inference parameters with which to run the query.
+   *
+   * @return the inference parameters, or <code>null</code> to use the defaults
+   */
+  public InferenceParameters getParameters() {
+    return (parameters != null) ? (InferenceParameters) parameters.clone() : null;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + sentence + " in " + context
+                   + ((parameters != null) ? ", " + parameters : "") + "]";
+  }
+
+}
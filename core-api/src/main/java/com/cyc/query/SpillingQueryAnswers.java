@@ -0,0 +1,646 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: SpillingQueryAnswers.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.Cyc;
+import com.cyc.kb.KbObject;
+import com.cyc.kb.Sentence;
+import com.cyc.kb.Variable;
+import com.cyc.kb.codec.KbBinaryCodec;
+import com.cyc.kb.codec.TermDictionary;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbException;
+import com.cyc.kb.exception.KbTypeException;
+import com.cyc.query.exception.QueryRuntimeException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link QueryAnswers} list which keeps its first <code>inMemoryThreshold</code> answers on the
+ * heap, and writes the rest to a memory-mapped temporary file in the {@link KbBinaryCodec} format.
+ * This limits the heap used by queries which may return very large numbers of answers, e.g. those
+ * run with <code>setMaxAnswerCount(null)</code>, as described below.
+ *
+ * <p>
+ * Spilled answers are encoded against a single {@link TermDictionary}, so each distinct term is
+ * written once, and each answer typically takes a few bytes per binding. Each spilled answer costs
+ * an 8-byte file offset on the heap. The dictionary also stays on the heap, holding the name or
+ * HLID of every distinct term in the spilled answers. Its size is proportional to the number of
+ * distinct terms rather than to the number of answers: small for the typical result which binds
+ * the same terms repeatedly, but growing with the answers for a result in which most answers bind
+ * new terms.
+ *
+ * <p>
+ * The KbObjects of the most recently spilled or read terms ({@value #TERM_CACHE_SIZE} of them) are
+ * kept, so that reading a spilled answer does not normally require the Cyc server; terms which have
+ * been evicted are looked up again via {@link Cyc#getKbObject(String) }. Spilled answers are
+ * returned as detached answers, whose {@link QueryAnswer#getId() } is <code>null</code> and whose
+ * {@link QueryAnswer#getSources() } is empty.
+ *
+ * <p>
+ * Random access and iteration behave as for any other list. Answers are appended via
+ * {@link #add(QueryAnswer) }, or read directly from a running Query via
+ * {@link #fetch(Query, int, Path) }; the list does not otherwise support modification.
+ * {@link #close() } deletes the temporary file.
+ *
+ * <p>
+ * This class is thread-safe.
+ */
+public class SpillingQueryAnswers extends AbstractList<QueryAnswer>
+        implements QueryAnswers<QueryAnswer>, RandomAccess, Closeable {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static SpillingQueryAnswers create(Collection<Variable> variables) {
+    return create(variables, DEFAULT_IN_MEMORY_THRESHOLD, null);
+  }
+
+  /**
+   * Creates an empty list.
+   *
+   * @param variables         the query's variables, which are the columns of the answers table
+   * @param inMemoryThreshold the number of answers to keep on the heap before spilling to disk
+   * @param directory         the directory in which to create the temporary file, or
+   *                          <code>null</code> for the default temporary-file directory
+   *
+   * @return a new SpillingQueryAnswers
+   */
+  public static SpillingQueryAnswers create(
+          Collection<Variable> variables, int inMemoryThreshold, Path directory) {
+    return new SpillingQueryAnswers(variables, inMemoryThreshold, directory, SEGMENT_SIZE);
+  }
+
+  /**
+   * Reads every answer which <code>query</code> has found, {@link #FETCH_SIZE} at a time via
+   * {@link Query#getAnswers(int, int) }, so that at most <code>inMemoryThreshold</code> answers
+   * plus one batch are ever on the heap.
+   *
+   * @param query             the query
+   * @param inMemoryThreshold the number of answers to keep on the heap before spilling to disk
+   * @param directory         the directory in which to create the temporary file, or
+   *                          <code>null</code> for the default temporary-file directory
+   *
+   * @return a new SpillingQueryAnswers
+   *
+   * @throws QueryRuntimeException if the query's variables cannot be determined
+   */
+  public static SpillingQueryAnswers fetch(Query query, int inMemoryThreshold, Path directory) {
+    final SpillingQueryAnswers answers;
+    try {
+      answers = create(query.getQueryVariables(), inMemoryThreshold, directory);
+    } catch (KbException ex) {
+      throw QueryRuntimeException.fromThrowable(ex);
+    }
+    try {
+      List<QueryAnswer> batch;
+      do {
+        batch = query.getAnswers(answers.size(), FETCH_SIZE);
+        for (QueryAnswer answer : batch) {
+          answers.add(answer);
+        }
+      } while (batch.size() == FETCH_SIZE);
+    } catch (RuntimeException ex) {
+      answers.close();
+      throw ex;
+    }
+    return answers;
+  }
+
+  public static SpillingQueryAnswers fetch(Query query) {
+    return fetch(query, DEFAULT_IN_MEMORY_THRESHOLD, null);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final Logger LOG = LoggerFactory.getLogger(SpillingQueryAnswers.class);
+
+  public static final int DEFAULT_IN_MEMORY_THRESHOLD = 10000;
+
+  /**
+   * The number of answers requested per round trip by {@link #fetch(Query, int, Path) }.
+   */
+  public static final int FETCH_SIZE = 1000;
+
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * The number of KbObjects from spilled answers which are kept for decoding.
+   */
+  public static final int TERM_CACHE_SIZE = 4096;
+
+  private static final String DEFAULT_COL_BORDER = "|";
+
+  private static final String DEFAULT_COL_PADDING = " ";
+
+  private final List<Variable> variables;
+  private final int inMemoryThreshold;
+  private final Path directory;
+  private final int segmentSize;
+  private final List<QueryAnswer> inMemory;
+  private final Map<String, Variable> variablesById = new HashMap<>();
+  private final Map<String, KbObject> terms = new LinkedHashMap<String, KbObject>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, KbObject> eldest) {
+      return size() > TERM_CACHE_SIZE;
+    }
+  };
+  private final KbBinaryCodec codec;
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+  private Path file;
+  private FileChannel channel;
+  private long fileSize = 0;
+  private long[] offsets = new long[0];
+  private int spilledCount = 0;
+  private long spilledBytes = 0;
+  private boolean closed = false;
+
+  //====|    Construction    |====================================================================//
+
+  protected SpillingQueryAnswers(
+          Collection<Variable> variables, int inMemoryThreshold, Path directory, int segmentSize) {
+    if (inMemoryThreshold < 0) {
+      throw new IllegalArgumentException(
+              "In-memory threshold must not be negative: " + inMemoryThreshold);
+    }
+    this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    for (Variable variable : variables) {
+      variablesById.put(variable.getId(), variable);
+    }
+    this.inMemoryThreshold = inMemoryThreshold;
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.inMemory = new ArrayList<>(Math.min(inMemoryThreshold, 1024));
+    this.codec = KbBinaryCodec.create(new TermDictionary()).withResolver(this::resolve);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public List<Variable> getVariables() {
+    return variables;
+  }
+
+  public int getInMemoryThreshold() {
+    return inMemoryThreshold;
+  }
+
+  /**
+   * Returns the number of answers which have been written to disk.
+   *
+   * @return the number of spilled answers
+   */
+  public synchronized int getSpilledCount() {
+    return spilledCount;
+  }
+
+  /**
+   * Returns the number of bytes of the temporary file which hold answers.
+   *
+   * @return the size of the spilled answers, in bytes
+   */
+  public synchronized long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Appends an answer, spilling it to disk if the in-memory threshold has been reached.
+   *
+   * @param answer the answer
+   *
+   * @return <code>true</code>
+   *
+   * @throws QueryRuntimeException if the answer cannot be written to disk
+   */
+  @Override
+  public synchronized boolean add(QueryAnswer answer) {
+    if (closed) {
+      throw new QueryRuntimeException("Answers have been closed");
+    }
+    if (inMemory.size() < inMemoryThreshold) {
+      inMemory.add(answer);
+    } else {
+      spill(answer);
+    }
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public synchronized QueryAnswer get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    if (index < inMemory.size()) {
+      return inMemory.get(index);
+    }
+    if (closed) {
+      throw new QueryRuntimeException("Answers have been closed");
+    }
+    final long offset = offsets[index - inMemory.size()];
+    final ByteBuffer in = segments.get((int) (offset >>> 32)).duplicate();
+    in.position((int) offset);
+    try {
+      return codec.decode(in, QueryAnswer.class);
+    } catch (KbTypeException | CreateException ex) {
+      throw QueryRuntimeException.fromThrowable(ex);
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return inMemory.size() + spilledCount;
+  }
+
+  /**
+   * Returns a result set over these answers. Closing the result set does not close this list.
+   *
+   * @return a new QueryResultSet
+   */
+  public QueryResultSet getResultSet() {
+    return new SpillingResultSet();
+  }
+
+  /**
+   * Deletes the temporary file. Answers which were held in memory remain available.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    segments.clear();
+    offsets = null;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        LOG.warn("Could not close spill file {}", file, ex);
+      }
+      LOG.debug("Deleted spill file {} holding {} answers", file, spilledCount);
+    }
+  }
+
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public boolean isTrue() throws QueryRuntimeException {
+    if (!variables.isEmpty()) {
+      throw new QueryRuntimeException("Query has open variables: " + variables);
+    }
+    return !isEmpty();
+  }
+
+  @Override
+  public boolean isProvable() {
+    return !isEmpty();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <O> List<O> getBindingsForVariable(Variable var) {
+    final List<O> result = new ArrayList<>(size());
+    for (QueryAnswer answer : this) {
+      result.add((O) answer.getBinding(var));
+    }
+    return result;
+  }
+
+  @Override
+  public <O> List<O> getBindingsForOnlyVariable() throws QueryRuntimeException {
+    return getBindingsForVariable(getOnlyVariable());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <O> Set<O> getUniqueBindingsForVariable(Variable var) {
+    final Set<O> result = new LinkedHashSet<>();
+    for (QueryAnswer answer : this) {
+      result.add((O) answer.getBinding(var));
+    }
+    return result;
+  }
+
+  @Override
+  public <O> Set<O> getUniqueBindingsForOnlyVariable() throws QueryRuntimeException {
+    return getUniqueBindingsForVariable(getOnlyVariable());
+  }
+
+  @Override
+  public Optional<QueryAnswer> getOnlyAnswer() throws QueryRuntimeException {
+    final int size = size();
+    if (size > 1) {
+      throw new QueryRuntimeException("Expected at most one answer, but found " + size);
+    }
+    return (size == 0) ? Optional.empty() : Optional.of(get(0));
+  }
+
+  @Override
+  public <O> Optional<O> getOnlyBindingForVariable(Variable var) throws QueryRuntimeException {
+    return getOnlyAnswer().map(answer -> answer.<O>getBinding(var));
+  }
+
+  @Override
+  public <O> Optional<O> getOnlyBindingForOnlyVariable() throws QueryRuntimeException {
+    return getOnlyBindingForVariable(getOnlyVariable());
+  }
+
+  @Override
+  public boolean containsAllBindings(Collection<QueryAnswer> answers) {
+    final Set<Map<Variable, Object>> expected = new HashSet<>();
+    for (QueryAnswer answer : answers) {
+      expected.add(answer.getBindings());
+    }
+    for (QueryAnswer answer : this) {
+      expected.remove(answer.getBindings());
+      if (expected.isEmpty()) {
+        return true;
+      }
+    }
+    return expected.isEmpty();
+  }
+
+  @Override
+  public List<String> toAnswersTableStrings(
+          boolean includeOuterBorder, String colBorder, String colPadding) {
+    final List<String> result = new ArrayList<>(size() + 1);
+    writeAnswersTable(result::add, includeOuterBorder, colBorder, colPadding);
+    return result;
+  }
+
+  @Override
+  public List<String> toAnswersTableStrings(boolean includeOuterBorder) {
+    return toAnswersTableStrings(includeOuterBorder, DEFAULT_COL_BORDER, DEFAULT_COL_PADDING);
+  }
+
+  /**
+   * Prints a table of the answers. Unlike {@link #toAnswersTableStrings(boolean) }, this reads the
+   * answers twice (once to size the columns, and once to print them) rather than building the
+   * whole table in memory.
+   *
+   * @param out                the stream to print to
+   * @param includeOuterBorder whether to print borders at the start and end of each line
+   * @param colBorder          the border between columns
+   * @param colPadding         the padding on each side of a value
+   */
+  @Override
+  public void printAnswersTable(
+          PrintStream out, boolean includeOuterBorder, String colBorder, String colPadding) {
+    writeAnswersTable(out::println, includeOuterBorder, colBorder, colPadding);
+  }
+
+  @Override
+  public void printAnswersTable(PrintStream out, boolean includeOuterBorder) {
+    printAnswersTable(out, includeOuterBorder, DEFAULT_COL_BORDER, DEFAULT_COL_PADDING);
+  }
+
+  @Override
+  public List<String> toBindingsStringsForVariable(Variable var) {
+    final List<String> result = new ArrayList<>(size());
+    for (QueryAnswer answer : this) {
+      result.add(String.valueOf(answer.<Object>getBinding(var)));
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[variables=" + variables + ", size=" + size()
+                   + ", spilled=" + getSpilledCount() + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private void spill(QueryAnswer answer) {
+    rememberTerms(answer);
+    final ByteBuffer encoded = codec.encode(answer);
+    final int length = encoded.remaining();
+    try {
+      if (segments.isEmpty() || segmentRemaining() < length) {
+        addSegment(Math.max(segmentSize, length));
+      }
+    } catch (IOException ex) {
+      throw QueryRuntimeException.fromThrowable("Could not write to spill file " + file, ex);
+    }
+    final int segmentIdx = segments.size() - 1;
+    final MappedByteBuffer segment = segments.get(segmentIdx);
+    if (spilledCount == offsets.length) {
+      offsets = Arrays.copyOf(offsets, Math.max(1024, offsets.length * 2));
+    }
+    offsets[spilledCount++] = ((long) segmentIdx << 32) | segment.position();
+    segment.put(encoded);
+    spilledBytes += length;
+  }
+
+  private int segmentRemaining() {
+    return segments.get(segments.size() - 1).remaining();
+  }
+
+  private void addSegment(int size) throws IOException {
+    if (channel == null) {
+      file = (directory != null)
+                     ? Files.createTempFile(directory, "cyc-answers-", ".bin")
+                     : Files.createTempFile("cyc-answers-", ".bin");
+      channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                 StandardOpenOption.DELETE_ON_CLOSE);
+      LOG.debug("Spilling answers beyond {} to {}", inMemoryThreshold, file);
+    }
+    segments.add(channel.map(FileChannel.MapMode.READ_WRITE, fileSize, size));
+    fileSize += size;
+  }
+
+  /**
+   * Records the KbObjects in <code>answer</code>, so that decoding it soon afterwards does not need
+   * to look them up again. Only the most recent {@value #TERM_CACHE_SIZE} are kept.
+   */
+  private void rememberTerms(QueryAnswer answer) {
+    for (Map.Entry<Variable, Object> binding : answer.getBindings().entrySet()) {
+      variablesById.putIfAbsent(binding.getKey().getId(), binding.getKey());
+      final Object value = binding.getValue();
+      if (value instanceof KbObject && !(value instanceof Sentence)) {
+        terms.put(((KbObject) value).getId(), (KbObject) value);
+      }
+    }
+  }
+
+  private KbObject resolve(String cycLOrId) throws KbTypeException, CreateException {
+    final Variable variable = variablesById.get(cycLOrId);
+    if (variable != null) {
+      return variable;
+    }
+    final KbObject term = terms.get(cycLOrId);
+    if (term != null) {
+      return term;
+    }
+    final KbObject resolved = Cyc.getKbObject(cycLOrId);
+    terms.put(cycLOrId, resolved);
+    return resolved;
+  }
+
+  private Variable getOnlyVariable() {
+    if (variables.size() != 1) {
+      throw new QueryRuntimeException("Expected exactly one variable, but found " + variables);
+    }
+    return variables.get(0);
+  }
+
+  private void writeAnswersTable(LineWriter out, boolean includeOuterBorder, String colBorder,
+                                 String colPadding) {
+    final int[] widths = new int[variables.size()];
+    for (int col = 0; col < widths.length; col++) {
+      widths[col] = variables.get(col).toString().length();
+    }
+    for (QueryAnswer answer : this) {
+      for (int col = 0; col < widths.length; col++) {
+        widths[col] = Math.max(widths[col], cell(answer, col).length());
+      }
+    }
+    final String[] cells = new String[widths.length];
+    for (int col = 0; col < widths.length; col++) {
+      cells[col] = variables.get(col).toString();
+    }
+    out.write(tableLine(cells, widths, includeOuterBorder, colBorder, colPadding));
+    for (QueryAnswer answer : this) {
+      for (int col = 0; col < widths.length; col++) {
+        cells[col] = cell(answer, col);
+      }
+      out.write(tableLine(cells, widths, includeOuterBorder, colBorder, colPadding));
+    }
+  }
+
+  private String cell(QueryAnswer answer, int col) {
+    final Variable var = variables.get(col);
+    return answer.hasBinding(var) ? String.valueOf(answer.<Object>getBinding(var)) : "";
+  }
+
+  private static String tableLine(String[] cells, int[] widths, boolean includeOuterBorder,
+                                  String colBorder, String colPadding) {
+    final StringBuilder sb = new StringBuilder();
+    if (includeOuterBorder) {
+      sb.append(colBorder);
+    }
+    for (int col = 0; col < cells.length; col++) {
+      if (col > 0) {
+        sb.append(colBorder);
+      }
+      sb.append(colPadding).append(cells[col]);
+      for (int i = cells[col].length(); i < widths[col]; i++) {
+        sb.append(' ');
+      }
+      sb.append(colPadding);
+    }
+    if (includeOuterBorder) {
+      sb.append(colBorder);
+    }
+    return sb.toString();
+  }
+
+  //====|    LineWriter    |======================================================================//
+
+  @FunctionalInterface
+  private interface LineWriter {
+
+    void write(String line);
+  }
+
+  //====|    SpillingResultSet    |===============================================================//
+
+  private final class SpillingResultSet extends AbstractQueryResultSet {
+
+    private boolean closed = false;
+
+    private SpillingResultSet() {
+      super(variables);
+    }
+
+    @Override
+    protected QueryAnswer getAnswerAt(int index) {
+      return (index < size()) ? get(index) : null;
+    }
+
+    @Override
+    protected int getAnswerCount() {
+      return size();
+    }
+
+    @Override
+    public boolean getTruthValue() {
+      return isTrue();
+    }
+
+    @Override
+    public InferenceIdentifier getInferenceIdentifier() {
+      return null;
+    }
+
+    @Override
+    public Integer getCurrentRowCount() {
+      return size();
+    }
+
+    @Override
+    public boolean isInferenceComplete() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+      return closed;
+    }
+
+    @Override
+    public Iterator<QueryAnswer> iterator() {
+      return SpillingQueryAnswers.this.iterator();
+    }
+  }
+
+}
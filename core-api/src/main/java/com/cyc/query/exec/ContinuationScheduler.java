@@ -0,0 +1,692 @@
+package com.cyc.query.exec;
+
+/*
+ * #%L
+ * File: ContinuationScheduler.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.query.InferenceStatus;
+import com.cyc.query.InferenceSuspendReason;
+import com.cyc.query.Query;
+import com.cyc.query.QueryAnswer;
+import com.cyc.query.QueryAnswers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns a set of continuable queries and runs them in increments ("slices"), so that many
+ * long-running inferences can share the Cyc server within global time and answer budgets. E.g.:
+ *
+ * <pre>
+ * try (ContinuationScheduler scheduler = ContinuationScheduler.builder()
+ *         .sliceTime(5, TimeUnit.SECONDS)
+ *         .timeBudget(10, TimeUnit.MINUTES)
+ *         .answerBudget(100000)
+ *         .build()) {
+ *   ScheduledQuery scheduled = scheduler.schedule(query);
+ *   scheduled.getFuture().join();
+ *   ...
+ * }
+ * </pre>
+ *
+ * <p>
+ * Each slice sets the query's {@link Query#setMaxTime(Integer) maximum time} (and, if a per-slice
+ * or global answer limit applies, its {@link Query#setMaxAnswerCount(Integer) maximum answer
+ * count}) and calls {@link Query#continueQuery() }, whose resource limits start over on each
+ * continuation. A query which overruns its slice by more than a grace period is stopped.
+ *
+ * <p>
+ * Whenever a worker is free, the scheduler runs a slice of the waiting query which has received the
+ * least weighted inference time. Queries which have not yet run come first. A slice which finds
+ * answers is weighted at a quarter of its length, so productive queries receive up to
+ * {@value #PRODUCTIVE_WEIGHT} times as many slices as unproductive ones, without starving them. A
+ * query which finds no new answers in {@link Builder#maxIdleSlices(int) } consecutive
+ * slices is considered stalled and is released: its answers are captured, and the query is
+ * {@link Query#close() closed} to free its inference on the server. A query is finished when its
+ * inference can no longer be continued.
+ *
+ * <p>
+ * The time budget is the total inference time of all slices; the answer budget is the total number
+ * of new answers found during all slices. When either is exhausted, no more slices are run, and
+ * queries which have not finished are left suspended, so that their owners may continue or close
+ * them. Each slice's answer limit is the remaining answer budget at the time it starts, so
+ * concurrent slices may together overshoot the budget slightly.
+ */
+public class ContinuationScheduler implements AutoCloseable {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static ContinuationScheduler create() {
+    return builder().build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  public static final long DEFAULT_SLICE_MILLIS = 5000;
+
+  public static final int DEFAULT_MAX_IDLE_SLICES = 3;
+
+  public static final long DEFAULT_OVERRUN_GRACE_MILLIS = 5000;
+
+  /**
+   * How many times more slices a query which is finding answers receives than one which is not.
+   */
+  public static final int PRODUCTIVE_WEIGHT = 4;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ContinuationScheduler.class);
+
+  private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+  private final int concurrency;
+  private final long sliceMillis;
+  private final Integer sliceAnswers;
+  private final long timeBudgetNanos;
+  private final long answerBudget;
+  private final int maxIdleSlices;
+  private final ThreadPoolExecutor workers;
+  private final ScheduledExecutorService watchdog;
+  private final List<ScheduledQuery> waiting = new ArrayList<>();
+  private int running = 0;
+  private long sequence = 0;
+  private long virtualTime = 0;
+  private long usedNanos = 0;
+  private long usedAnswers = 0;
+  private boolean closed = false;
+
+  //====|    Construction    |====================================================================//
+
+  private ContinuationScheduler(Builder builder) {
+    this.concurrency = builder.concurrency;
+    this.sliceMillis = builder.sliceMillis;
+    this.sliceAnswers = builder.sliceAnswers;
+    this.timeBudgetNanos = builder.timeBudgetNanos;
+    this.answerBudget = builder.answerBudget;
+    this.maxIdleSlices = builder.maxIdleSlices;
+    final String name = "ContinuationScheduler-" + SCHEDULER_COUNT.incrementAndGet();
+    this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                                          new LinkedBlockingQueue<>(), threadFactory(name));
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-watchdog"));
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Takes ownership of <code>query</code>, which may be new or suspended, and schedules it to be
+   * continued. The query's inference parameters are changed to make it continuable.
+   *
+   * @param query the query
+   *
+   * @return a handle on the scheduled query
+   *
+   * @throws IllegalStateException if the scheduler has been closed
+   */
+  public ScheduledQuery schedule(Query query) {
+    Objects.requireNonNull(query, "Query must not be null");
+    query.getInferenceParameters().setContinuable(true);
+    final ScheduledQuery scheduled;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Scheduler has been closed");
+      }
+      scheduled = new ScheduledQuery(query, sequence++);
+      if (isBudgetExhausted()) {
+        scheduled.finish(State.BUDGET_EXHAUSTED, null);
+        return scheduled;
+      }
+      scheduled.virtualTime = virtualTime;
+      waiting.add(scheduled);
+    }
+    dispatch();
+    return scheduled;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public synchronized int getWaitingCount() {
+    return waiting.size();
+  }
+
+  public synchronized int getRunningCount() {
+    return running;
+  }
+
+  /**
+   * Returns the inference time used by all slices so far.
+   *
+   * @param unit the time unit
+   *
+   * @return the time used
+   */
+  public synchronized long getTimeUsed(TimeUnit unit) {
+    return unit.convert(usedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the number of new answers found by all slices so far.
+   *
+   * @return the number of answers
+   */
+  public synchronized long getAnswersUsed() {
+    return usedAnswers;
+  }
+
+  public synchronized boolean isBudgetExhausted() {
+    return usedNanos >= timeBudgetNanos || usedAnswers >= answerBudget;
+  }
+
+  /**
+   * Stops scheduling, cancels (and releases) every waiting query, and waits for running slices to
+   * end.
+   */
+  @Override
+  public void close() {
+    final List<ScheduledQuery> cancelled;
+    synchronized (this) {
+      closed = true;
+      cancelled = new ArrayList<>(waiting);
+      waiting.clear();
+    }
+    for (ScheduledQuery scheduled : cancelled) {
+      release(scheduled, State.CANCELLED);
+    }
+    workers.shutdown();
+    try {
+      while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOG.info("Waiting for {} running slices to end", getRunningCount());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      workers.shutdownNow();
+    } finally {
+      watchdog.shutdownNow();
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getClass().getSimpleName() + "[waiting=" + waiting.size() + ", running=" + running
+                   + ", timeUsed=" + TimeUnit.NANOSECONDS.toMillis(usedNanos)
+                   + "ms, answersUsed=" + usedAnswers + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private void dispatch() {
+    final List<ScheduledQuery> exhausted = new ArrayList<>();
+    synchronized (this) {
+      if (isBudgetExhausted()) {
+        exhausted.addAll(waiting);
+        waiting.clear();
+      }
+      while (!closed && running < concurrency && !waiting.isEmpty()) {
+        final ScheduledQuery next = pickNext();
+        waiting.remove(next);
+        virtualTime = Math.max(virtualTime, next.virtualTime);
+        next.state = State.RUNNING;
+        running++;
+        workers.execute(() -> runSlice(next));
+      }
+    }
+    for (ScheduledQuery scheduled : exhausted) {
+      scheduled.finish(State.BUDGET_EXHAUSTED, null);
+    }
+  }
+
+  /**
+   * Returns the waiting query which should run next: the first query which has not yet run, or
+   * else the one with the least weighted inference time. Must be called while synchronized.
+   */
+  private ScheduledQuery pickNext() {
+    ScheduledQuery best = null;
+    for (ScheduledQuery candidate : waiting) {
+      if (best == null || comparePriority(candidate, best) < 0) {
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  private static int comparePriority(ScheduledQuery a, ScheduledQuery b) {
+    if ((a.sliceCount == 0) != (b.sliceCount == 0)) {
+      return (a.sliceCount == 0) ? -1 : 1;
+    }
+    if (a.sliceCount != 0 && a.virtualTime != b.virtualTime) {
+      return Long.compare(a.virtualTime, b.virtualTime);
+    }
+    return Long.compare(a.sequence, b.sequence);
+  }
+
+  private void runSlice(ScheduledQuery scheduled) {
+    final Query query = scheduled.query;
+    final long start = System.nanoTime();
+    int newAnswers = 0;
+    State outcome = State.FAILED;
+    Throwable error = null;
+    try {
+      final Integer answerLimit;
+      final long timeLimitMillis;
+      synchronized (this) {
+        final long remainingAnswers = answerBudget - usedAnswers;
+        if (remainingAnswers >= Integer.MAX_VALUE) {
+          answerLimit = sliceAnswers;
+        } else if (sliceAnswers == null) {
+          answerLimit = (int) remainingAnswers;
+        } else {
+          answerLimit = Math.min(sliceAnswers, (int) remainingAnswers);
+        }
+        timeLimitMillis = Math.min(
+                sliceMillis, TimeUnit.NANOSECONDS.toMillis(timeBudgetNanos - usedNanos));
+      }
+      final int answersBefore = query.getAnswerCount();
+      ScheduledFuture<?> overrun = null;
+      try {
+        query.setMaxTime(
+                (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeLimitMillis + 999)));
+        if (answerLimit != null) {
+          query.setMaxAnswerCount(Math.max(1, answerLimit));
+        }
+        overrun = watchdog.schedule(() -> {
+          LOG.warn("Stopping query which has overrun its {}ms slice: {}", timeLimitMillis, query);
+          query.stop(1);
+        }, timeLimitMillis + DEFAULT_OVERRUN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        query.continueQuery();
+      } catch (RuntimeException ex) {
+        LOG.debug("Continuing query failed: {}", query, ex);
+        error = ex;
+      } finally {
+        if (overrun != null) {
+          overrun.cancel(false);
+        }
+      }
+      newAnswers = Math.max(0, query.getAnswerCount() - answersBefore);
+      outcome = (error != null) ? State.FAILED : outcomeOf(scheduled, newAnswers);
+    } catch (RuntimeException | Error ex) {
+      LOG.warn("Slice of query failed: {}", query, ex);
+      error = ex;
+      outcome = State.FAILED;
+      if (ex instanceof Error) {
+        throw (Error) ex;
+      }
+    } finally {
+      endSlice(scheduled, outcome, error, newAnswers, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Books a finished slice against the budgets and either requeues its query or completes it.
+   * Always called, however the slice ended, so that <code>running</code> is decremented and the
+   * next slice is dispatched.
+   */
+  private void endSlice(ScheduledQuery scheduled, State outcome, Throwable error,
+                        int newAnswers, long elapsed) {
+    try {
+      scheduled.recordSlice(newAnswers, elapsed);
+      LOG.trace("Slice {} of {} found {} answers in {}ms; {}", scheduled.sliceCount,
+                scheduled.query, newAnswers, TimeUnit.NANOSECONDS.toMillis(elapsed), outcome);
+      final boolean cancelled;
+      synchronized (this) {
+        usedNanos += elapsed;
+        usedAnswers += newAnswers;
+        running--;
+        cancelled = scheduled.state == State.CANCELLED || (closed && outcome == State.WAITING);
+        if (outcome == State.WAITING && !cancelled) {
+          scheduled.state = State.WAITING;
+          waiting.add(scheduled);
+        }
+      }
+      if (cancelled) {
+        release(scheduled, State.CANCELLED);
+      } else if (outcome == State.STALLED) {
+        release(scheduled, State.STALLED);
+      } else if (outcome != State.WAITING) {
+        scheduled.finish(outcome, error);
+      }
+    } finally {
+      dispatch();
+    }
+  }
+
+  /**
+   * Determines what should happen to a query after a slice: whether it is finished, has failed or
+   * stalled, or should wait for another slice.
+   */
+  private State outcomeOf(ScheduledQuery scheduled, int newAnswers) {
+    final Query query = scheduled.query;
+    final InferenceStatus status = query.getStatus();
+    final InferenceSuspendReason reason = query.getSuspendReason();
+    if (status == InferenceStatus.TAUTOLOGY || status == InferenceStatus.CONTRADICTION
+                || status == InferenceStatus.ILL_FORMED
+                || (reason != null && reason.isError())) {
+      return State.FAILED;
+    }
+    if (status == InferenceStatus.DEAD || !query.isContinuable()
+                || (reason != null && !reason.isContinuable())) {
+      return State.DONE;
+    }
+    if (newAnswers == 0 && scheduled.idleSlices + 1 >= maxIdleSlices) {
+      return State.STALLED;
+    }
+    return State.WAITING;
+  }
+
+  /**
+   * Captures the query's answers and closes it, freeing its inference on the server.
+   */
+  private void release(ScheduledQuery scheduled, State state) {
+    final Query query = scheduled.query;
+    try {
+      scheduled.answers = query.getAnswers();
+    } catch (RuntimeException ex) {
+      LOG.warn("Could not capture answers of released query {}", query, ex);
+    }
+    try {
+      query.close();
+    } catch (RuntimeException ex) {
+      LOG.warn("Could not close released query {}", query, ex);
+    }
+    LOG.debug("Released {} query after {} slices: {}", state, scheduled.sliceCount, query);
+    scheduled.finish(state, null);
+  }
+
+  private static ThreadFactory threadFactory(String name) {
+    final AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  //====|    State enum    |======================================================================//
+
+  public static enum State {
+    /**
+     * Waiting for its next slice.
+     */
+    WAITING,
+    /**
+     * Running a slice.
+     */
+    RUNNING,
+    /**
+     * The inference has finished, and can no longer be continued.
+     */
+    DONE,
+    /**
+     * The query could not be run, or its inference failed.
+     */
+    FAILED,
+    /**
+     * The query found no new answers in its last several slices, and was released.
+     */
+    STALLED,
+    /**
+     * The scheduler's time or answer budget was exhausted before the inference finished. The query
+     * is left suspended.
+     */
+    BUDGET_EXHAUSTED,
+    /**
+     * The query was cancelled, or the scheduler was closed, and the query was released.
+     */
+    CANCELLED;
+
+    public boolean isFinal() {
+      return this != WAITING && this != RUNNING;
+    }
+  }
+
+  //====|    ScheduledQuery    |==================================================================//
+
+  /**
+   * A query owned by a ContinuationScheduler.
+   */
+  public final class ScheduledQuery {
+
+    private final Query query;
+    private final long sequence;
+    private final CompletableFuture<ScheduledQuery> future = new CompletableFuture<>();
+    private volatile State state = State.WAITING;
+    private volatile int sliceCount = 0;
+    private volatile long answerCount = 0;
+    private volatile long inferenceNanos = 0;
+    private volatile double yieldRate = 0;
+    private volatile Throwable error;
+    private volatile QueryAnswers<QueryAnswer> answers;
+    private int idleSlices = 0;
+    private long virtualTime;
+
+    private ScheduledQuery(Query query, long sequence) {
+      this.query = query;
+      this.sequence = sequence;
+    }
+
+    public Query getQuery() {
+      return query;
+    }
+
+    public State getState() {
+      return state;
+    }
+
+    public int getSliceCount() {
+      return sliceCount;
+    }
+
+    /**
+     * Returns the number of new answers found by this query's slices.
+     *
+     * @return the number of answers
+     */
+    public long getAnswerCount() {
+      return answerCount;
+    }
+
+    public long getInferenceTime(TimeUnit unit) {
+      return unit.convert(inferenceNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the query's recent yield.
+     *
+     * @return an exponentially weighted average of answers per second over recent slices
+     */
+    public double getYieldRate() {
+      return yieldRate;
+    }
+
+    public Throwable getError() {
+      return error;
+    }
+
+    /**
+     * Returns the answers which the query had found when it was released. As released queries are
+     * closed, this is the only way to obtain their answers.
+     *
+     * @return the answers, or <code>null</code> if the query has not been released
+     */
+    public QueryAnswers<QueryAnswer> getAnswers() {
+      return answers;
+    }
+
+    /**
+     * Returns a future which is completed, never exceptionally, when the query reaches a final
+     * {@link State}.
+     *
+     * @return a future completed with this ScheduledQuery
+     */
+    public CompletableFuture<ScheduledQuery> getFuture() {
+      return future;
+    }
+
+    /**
+     * Removes the query from the scheduler and releases it. A query which is running a slice is
+     * stopped, and released when the slice ends.
+     *
+     * @return whether the query had not already reached a final state
+     */
+    public boolean cancel() {
+      final boolean wasWaiting;
+      synchronized (ContinuationScheduler.this) {
+        if (state.isFinal()) {
+          return false;
+        }
+        wasWaiting = waiting.remove(this);
+        if (!wasWaiting) {
+          state = State.CANCELLED;
+        }
+      }
+      if (wasWaiting) {
+        release(this, State.CANCELLED);
+      } else {
+        query.stop(null);
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + "[" + state + ", slices=" + sliceCount + ", answers="
+                     + answerCount + ", query=" + query + "]";
+    }
+
+    private void recordSlice(int newAnswers, long elapsedNanos) {
+      final double rate = newAnswers / Math.max(1e-3, elapsedNanos / 1e9);
+      yieldRate = (sliceCount == 0) ? rate : (yieldRate + rate) / 2;
+      idleSlices = (newAnswers == 0) ? idleSlices + 1 : 0;
+      sliceCount++;
+      answerCount += newAnswers;
+      inferenceNanos += elapsedNanos;
+      virtualTime += (newAnswers > 0) ? elapsedNanos / PRODUCTIVE_WEIGHT : elapsedNanos;
+    }
+
+    private void finish(State state, Throwable error) {
+      this.error = error;
+      this.state = state;
+      future.complete(this);
+    }
+  }
+
+  //====|    Builder    |=========================================================================//
+
+  public static final class Builder {
+
+    private int concurrency = ParallelQueryExecutor.DEFAULT_CONCURRENCY;
+    private long sliceMillis = DEFAULT_SLICE_MILLIS;
+    private Integer sliceAnswers = null;
+    private long timeBudgetNanos = Long.MAX_VALUE;
+    private long answerBudget = Long.MAX_VALUE;
+    private int maxIdleSlices = DEFAULT_MAX_IDLE_SLICES;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the maximum number of queries to continue at once.
+     *
+     * @param concurrency the number of concurrent slices
+     *
+     * @return this Builder
+     */
+    public Builder concurrency(int concurrency) {
+      if (concurrency < 1) {
+        throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+      }
+      this.concurrency = concurrency;
+      return this;
+    }
+
+    /**
+     * Sets the length of each slice. As inference time limits are whole seconds, slices are
+     * rounded up to the next second.
+     *
+     * @param time the slice length
+     * @param unit the time unit
+     *
+     * @return this Builder
+     */
+    public Builder sliceTime(long time, TimeUnit unit) {
+      if (time <= 0) {
+        throw new IllegalArgumentException("Slice time must be positive: " + time);
+      }
+      this.sliceMillis = unit.toMillis(time);
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of answers a query may find in one slice.
+     *
+     * @param sliceAnswers the number of answers, or <code>null</code> for no limit
+     *
+     * @return this Builder
+     */
+    public Builder sliceAnswers(Integer sliceAnswers) {
+      this.sliceAnswers = sliceAnswers;
+      return this;
+    }
+
+    public Builder timeBudget(long time, TimeUnit unit) {
+      this.timeBudgetNanos = unit.toNanos(time);
+      return this;
+    }
+
+    public Builder answerBudget(long answers) {
+      this.answerBudget = answers;
+      return this;
+    }
+
+    /**
+     * Sets the number of consecutive slices without new answers after which a query is considered
+     * stalled and released.
+     *
+     * @param maxIdleSlices the number of idle slices
+     *
+     * @return this Builder
+     */
+    public Builder maxIdleSlices(int maxIdleSlices) {
+      if (maxIdleSlices < 1) {
+        throw new IllegalArgumentException("Max idle slices must be positive: " + maxIdleSlices);
+      }
+      this.maxIdleSlices = maxIdleSlices;
+      return this;
+    }
+
+    public ContinuationScheduler build() {
+      return new ContinuationScheduler(this);
+    }
+  }
+
+}
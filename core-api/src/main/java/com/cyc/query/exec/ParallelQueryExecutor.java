@@ -0,0 +1,377 @@
+package com.cyc.query.exec;
+
+/*
+ * #%L
+ * File: ParallelQueryExecutor.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.Cyc;
+import com.cyc.query.Query;
+import com.cyc.query.QueryOutcome;
+import com.cyc.query.QueryResultSet;
+import com.cyc.query.QuerySpecification;
+import com.cyc.session.CycAddress;
+import com.cyc.session.exception.SessionConfigurationException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs many independent queries concurrently, up to a fixed concurrency level, which is normally
+ * that of the Cyc server's {@link CycAddress#getConcurrencyLevel() }. E.g.:
+ *
+ * <pre>
+ * try (ParallelQueryExecutor executor = ParallelQueryExecutor.create()) {
+ *   Iterator&lt;QueryOutcome&gt; outcomes = executor.submitAll(specs);
+ *   while (outcomes.hasNext()) {
+ *     try (QueryOutcome outcome = outcomes.next()) {
+ *       ...
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>
+ * Each query runs on one of the executor's worker threads, and hence in that thread's
+ * {@link com.cyc.session.CycSession}; submitted specifications are copied via
+ * {@link Query#get(QuerySpecification) }, so they may have been created on any thread. A query
+ * whose inference parameters specify a {@link QuerySpecification#getInferenceParameters() maximum
+ * time} is stopped if it is still running that long after it started, plus a grace period, as a
+ * guard against inferences which do not honor their own time limit.
+ */
+public class ParallelQueryExecutor implements AutoCloseable {
+
+  //====|    Factory methods    |=================================================================//
+
+  /**
+   * Creates an executor whose concurrency level is that of the currently configured Cyc server,
+   * or {@value #DEFAULT_CONCURRENCY} if the server does not specify one.
+   *
+   * @return a new ParallelQueryExecutor
+   *
+   * @throws SessionConfigurationException if no Cyc server is configured
+   */
+  public static ParallelQueryExecutor create() throws SessionConfigurationException {
+    return forAddress(Cyc.getSessionManager().getSessionConfiguration().getCycAddress());
+  }
+
+  /**
+   * Creates an executor whose concurrency level is that of <code>address</code>, or
+   * {@value #DEFAULT_CONCURRENCY} if it does not specify one. Note that queries still run against
+   * the server which is configured for the worker threads' sessions.
+   *
+   * @param address a Cyc server address
+   *
+   * @return a new ParallelQueryExecutor
+   */
+  public static ParallelQueryExecutor forAddress(CycAddress address) {
+    return create(address.getConcurrencyLevel().orElse(DEFAULT_CONCURRENCY));
+  }
+
+  /**
+   * Creates an executor which runs up to <code>concurrency</code> queries at once.
+   *
+   * @param concurrency the maximum number of queries to run at once
+   *
+   * @return a new ParallelQueryExecutor
+   */
+  public static ParallelQueryExecutor create(int concurrency) {
+    return new ParallelQueryExecutor(concurrency, DEFAULT_DEADLINE_GRACE_MILLIS);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+
+  public static final long DEFAULT_DEADLINE_GRACE_MILLIS = 5000;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelQueryExecutor.class);
+
+  private static final AtomicInteger EXECUTOR_COUNT = new AtomicInteger();
+
+  private final int concurrency;
+  private final long deadlineGraceMillis;
+  private final ThreadPoolExecutor workers;
+  private final ScheduledExecutorService watchdog;
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicInteger running = new AtomicInteger();
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder answers = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final Object busyLock = new Object();
+  private long busyNanos;
+  private long busySince;
+
+  //====|    Construction    |====================================================================//
+
+  /**
+   * Creates an executor.
+   *
+   * @param concurrency         the maximum number of queries to run at once
+   * @param deadlineGraceMillis how long to let a query overrun its maximum time before stopping it
+   */
+  public ParallelQueryExecutor(int concurrency, long deadlineGraceMillis) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+    }
+    this.concurrency = concurrency;
+    this.deadlineGraceMillis = deadlineGraceMillis;
+    final String name = "ParallelQueryExecutor-" + EXECUTOR_COUNT.incrementAndGet();
+    this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                                          new LinkedBlockingQueue<>(), threadFactory(name));
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory(name + "-watchdog"));
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Submits a query to be run.
+   *
+   * @param spec the query to run
+   *
+   * @return a future which is completed, never exceptionally, with the query's outcome
+   *
+   * @throws RejectedExecutionException if this executor has been closed
+   */
+  public CompletableFuture<QueryOutcome> submit(QuerySpecification<?> spec) {
+    Objects.requireNonNull(spec, "Query specification must not be null");
+    final CompletableFuture<QueryOutcome> future = new CompletableFuture<>();
+    submitted.incrementAndGet();
+    try {
+      workers.execute(() -> runInto(spec, future));
+    } catch (RejectedExecutionException ex) {
+      submitted.decrementAndGet();
+      throw ex;
+    }
+    return future;
+  }
+
+  /**
+   * Submits many queries to be run, and returns their outcomes in the order in which they
+   * complete. The iterator's <code>next()</code> method blocks until another query completes.
+   *
+   * @param specs the queries to run
+   *
+   * @return an iterator over the queries' outcomes, in order of completion
+   */
+  public Iterator<QueryOutcome> submitAll(Collection<? extends QuerySpecification<?>> specs) {
+    final BlockingQueue<QueryOutcome> completed = new LinkedBlockingQueue<>();
+    final List<CompletableFuture<QueryOutcome>> futures = new ArrayList<>(specs.size());
+    for (QuerySpecification<?> spec : specs) {
+      futures.add(submit(spec).whenComplete((outcome, ex) -> completed.add(outcome)));
+    }
+    final int count = futures.size();
+    return new Iterator<QueryOutcome>() {
+      private int returned = 0;
+
+      @Override
+      public boolean hasNext() {
+        return returned < count;
+      }
+
+      @Override
+      public QueryOutcome next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        try {
+          final QueryOutcome outcome = completed.take();
+          returned++;
+          return outcome;
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while awaiting query outcomes", ex);
+        }
+      }
+    };
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public QueryExecutorStats getStats() {
+    final long wallClockNanos;
+    synchronized (busyLock) {
+      wallClockNanos = busyNanos + ((busySince != 0) ? System.nanoTime() - busySince : 0);
+    }
+    return new QueryExecutorStats(
+            concurrency, submitted.get(), workers.getQueue().size(), running.get(),
+            succeeded.sum(), failed.sum(), timedOut.sum(), answers.sum(), totalNanos.sum(),
+            maxNanos.get(), wallClockNanos);
+  }
+
+  /**
+   * Stops accepting queries, and waits for queries which have already been submitted to complete.
+   */
+  @Override
+  public void close() {
+    workers.shutdown();
+    try {
+      while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+        LOG.info("Waiting for queries to complete: {}", getStats());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      workers.shutdownNow();
+    } finally {
+      watchdog.shutdownNow();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + getStats();
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  /**
+   * Runs <code>spec</code> and completes <code>future</code> with its outcome, whatever happens;
+   * an Error is rethrown once the future has been completed.
+   */
+  private void runInto(QuerySpecification<?> spec, CompletableFuture<QueryOutcome> future) {
+    QueryOutcome outcome = null;
+    try {
+      outcome = run(spec);
+    } catch (RuntimeException | Error ex) {
+      LOG.warn("Query could not be run: {}", spec, ex);
+      outcome = QueryOutcome.failed(spec, ex, 0);
+      if (ex instanceof Error) {
+        throw (Error) ex;
+      }
+    } finally {
+      future.complete(outcome);
+    }
+  }
+
+  private QueryOutcome run(QuerySpecification<?> spec) {
+    markStarted();
+    try {
+      final long start = System.nanoTime();
+      final AtomicBoolean overran = new AtomicBoolean();
+      Query query = null;
+      QueryResultSet resultSet = null;
+      Throwable error = null;
+      ScheduledFuture<?> deadline = null;
+      try {
+        query = Query.get(spec);
+        deadline = scheduleDeadline(query, overran);
+        resultSet = query.performInference();
+      } catch (Exception ex) {
+        LOG.debug("Query failed: {}", spec, ex);
+        error = ex;
+      } finally {
+        if (deadline != null) {
+          deadline.cancel(false);
+        }
+      }
+      final long elapsed = System.nanoTime() - start;
+      final QueryOutcome outcome
+              = QueryOutcome.of(spec, query, resultSet, error, overran.get(), elapsed);
+      record(outcome, elapsed);
+      return outcome;
+    } finally {
+      markFinished();
+    }
+  }
+
+  private ScheduledFuture<?> scheduleDeadline(Query query, AtomicBoolean overran) {
+    final Integer maxTime = query.getMaxTime();
+    if (maxTime == null || maxTime <= 0) {
+      return null;
+    }
+    return watchdog.schedule(() -> {
+      LOG.warn("Stopping query which has overrun its {}s limit: {}", maxTime, query);
+      overran.set(true);
+      query.stop(1);
+    }, TimeUnit.SECONDS.toMillis(maxTime) + deadlineGraceMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void record(QueryOutcome outcome, long elapsed) {
+    if (outcome.isSuccessful()) {
+      succeeded.increment();
+      try {
+        answers.add(outcome.getAnswerCount());
+      } catch (RuntimeException ex) {
+        LOG.debug("Could not count the answers to {}", outcome.getQuery(), ex);
+      }
+    } else {
+      failed.increment();
+    }
+    if (outcome.isTimedOut()) {
+      timedOut.increment();
+    }
+    totalNanos.add(elapsed);
+    maxNanos.accumulateAndGet(elapsed, Math::max);
+  }
+
+  private void markStarted() {
+    if (running.getAndIncrement() == 0) {
+      synchronized (busyLock) {
+        if (busySince == 0) {
+          busySince = System.nanoTime();
+        }
+      }
+    }
+  }
+
+  private void markFinished() {
+    if (running.decrementAndGet() == 0) {
+      synchronized (busyLock) {
+        if (running.get() == 0 && busySince != 0) {
+          busyNanos += System.nanoTime() - busySince;
+          busySince = 0;
+        }
+      }
+    }
+  }
+
+  private static ThreadFactory threadFactory(String name) {
+    final AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+}
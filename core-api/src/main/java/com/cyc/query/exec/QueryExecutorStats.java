@@ -0,0 +1,153 @@
+package com.cyc.query.exec;
+
+/*
+ * #%L
+ * File: QueryExecutorStats.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the aggregate activity of a {@link ParallelQueryExecutor}.
+ */
+public final class QueryExecutorStats {
+
+  //====|    Fields    |==========================================================================//
+
+  private final int concurrency;
+  private final long submitted;
+  private final int queued;
+  private final int running;
+  private final long succeeded;
+  private final long failed;
+  private final long timedOut;
+  private final long answers;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long wallClockNanos;
+
+  //====|    Construction    |====================================================================//
+
+  QueryExecutorStats(int concurrency, long submitted, int queued, int running, long succeeded,
+                     long failed, long timedOut, long answers, long totalNanos, long maxNanos,
+                     long wallClockNanos) {
+    this.concurrency = concurrency;
+    this.submitted = submitted;
+    this.queued = queued;
+    this.running = running;
+    this.succeeded = succeeded;
+    this.failed = failed;
+    this.timedOut = timedOut;
+    this.answers = answers;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.wallClockNanos = wallClockNanos;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the maximum number of queries which the executor runs at once.
+   *
+   * @return the concurrency level
+   */
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  public long getSubmittedCount() {
+    return submitted;
+  }
+
+  /**
+   * Returns the number of queries which are waiting for a thread.
+   *
+   * @return the queue length
+   */
+  public int getQueuedCount() {
+    return queued;
+  }
+
+  public int getRunningCount() {
+    return running;
+  }
+
+  public long getSucceededCount() {
+    return succeeded;
+  }
+
+  public long getFailedCount() {
+    return failed;
+  }
+
+  /**
+   * Returns the number of queries which were stopped because they overran their deadlines. These
+   * are also counted as succeeded or failed.
+   *
+   * @return the number of queries which timed out
+   */
+  public long getTimedOutCount() {
+    return timedOut;
+  }
+
+  public long getCompletedCount() {
+    return succeeded + failed;
+  }
+
+  public long getAnswerCount() {
+    return answers;
+  }
+
+  /**
+   * Returns the mean time taken to run a query, excluding time spent in the queue.
+   *
+   * @param unit the time unit of the result
+   *
+   * @return the mean query time, or 0 if no queries have completed
+   */
+  public long getMeanTime(TimeUnit unit) {
+    final long completed = getCompletedCount();
+    return (completed == 0) ? 0 : unit.convert(totalNanos / completed, TimeUnit.NANOSECONDS);
+  }
+
+  public long getMaxTime(TimeUnit unit) {
+    return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the sum of the times taken by every completed query divided by the time during which
+   * at least one query was running; i.e., the speedup over running the same queries one at a time.
+   *
+   * @return the effective parallelism, or 0 if no queries have completed
+   */
+  public double getEffectiveParallelism() {
+    return (wallClockNanos == 0) ? 0 : (double) totalNanos / wallClockNanos;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[concurrency=" + concurrency
+                   + ", submitted=" + submitted + ", queued=" + queued + ", running=" + running
+                   + ", succeeded=" + succeeded + ", failed=" + failed + ", timedOut=" + timedOut
+                   + ", answers=" + answers + ", meanMs=" + getMeanTime(TimeUnit.MILLISECONDS)
+                   + ", maxMs=" + getMaxTime(TimeUnit.MILLISECONDS)
+                   + String.format(", parallelism=%.2f", getEffectiveParallelism()) + "]";
+  }
+
+}
@@ -0,0 +1,430 @@
+package com.cyc.query.exec;
+
+/*
+ * #%L
+ * File: QueryResultCache.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.cycl.CycLTokenizer;
+import com.cyc.kb.cycl.CycLTokenizer.TokenType;
+import com.cyc.kb.event.KbChangeEvent;
+import com.cyc.kb.event.KbChangeListener;
+import com.cyc.kb.exception.CycLParseException;
+import com.cyc.kb.exception.KbException;
+import com.cyc.query.Query;
+import com.cyc.query.QueryAnswer;
+import com.cyc.query.QueryRequest;
+import com.cyc.query.exception.QueryConstructionException;
+import com.cyc.query.parameters.InferenceParameters;
+import com.cyc.session.CycSession;
+import com.cyc.session.exception.SessionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An opt-in cache of query answers, for applications (such as dashboards) which repeatedly run
+ * identical queries. Queries are identified by a canonical form of their {@link QueryRequest}:
+ * the query sentence with its whitespace and constant prefixes normalized, the context, and those
+ * inference parameters which can affect the answers. Variables are not renamed, as the cached
+ * answers bind the original variables. Computing a key does not contact the Cyc server, so a hit
+ * constructs no Query and costs no round trips; a miss constructs, runs and closes exactly one.
+ *
+ * <p>
+ * Entries expire after a fixed time-to-live, and the least recently used entries are evicted when
+ * the cache is full. Queries with unresolved indexicals (e.g. <tt>#$Now</tt> or
+ * <tt>#$TheUser</tt>), whose answers depend on when and by whom they are asked, are never cached;
+ * this is checked on the query which a miss constructs anyway, and remembered for the request.
+ * The cache is cleared when the Cyc server's KB version changes, which it checks at most once per
+ * {@link #getVersionCheckInterval() version check interval}. Because any assertion may change the
+ * answers to a query, the cache is also cleared by every {@link KbChangeEvent} if it is
+ * registered as a listener:
+ *
+ * <pre>
+ * QueryResultCache cache = new QueryResultCache(1000, 5, TimeUnit.MINUTES);
+ * Cyc.getKbService().getChangeEventSource().subscribe(cache);
+ * List&lt;QueryAnswer&gt; answers = cache.getAnswers(QueryRequest.of(sentence, ctx, params));
+ * </pre>
+ *
+ * <p>
+ * By default, the KB version is that of the calling thread's current {@link CycSession}, and
+ * misses run their queries in that session.
+ */
+public class QueryResultCache implements KbChangeListener {
+
+  //====|    Fields    |==========================================================================//
+
+  public static final int DEFAULT_MAX_SIZE = 1000;
+
+  public static final long DEFAULT_TTL_SECONDS = 300;
+
+  public static final long DEFAULT_VERSION_CHECK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /**
+   * Inference parameters which control how an inference is run or retained, but not which answers
+   * it finds, and are therefore excluded from cache keys.
+   */
+  private static final Set<String> IGNORED_PARAMETERS = Collections.unmodifiableSet(
+          new HashSet<>(Arrays.asList(InferenceParameters.BROWSABLE,
+                                      InferenceParameters.CONTINUABLE,
+                                      InferenceParameters.METRICS,
+                                      InferenceParameters.PROBLEM_STORE)));
+
+  private static final Logger LOG = LoggerFactory.getLogger(QueryResultCache.class);
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Callable<String> kbVersionSource;
+  private final LinkedHashMap<String, CacheEntry> entries;
+  private final Set<String> uncacheable;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder bypasses = new LongAdder();
+  private volatile long versionCheckIntervalMillis = DEFAULT_VERSION_CHECK_INTERVAL_MILLIS;
+  private long nextVersionCheckNanos = System.nanoTime();
+  private String kbVersion;
+  private long generation;
+
+  //====|    Construction    |====================================================================//
+
+  /**
+   * Creates a cache which obtains the KB version from <code>kbVersionSource</code>.
+   *
+   * @param maxSize         the maximum number of cached queries
+   * @param ttl             how long answers are cached for
+   * @param unit            the unit of <code>ttl</code>
+   * @param kbVersionSource returns the Cyc server's current KB version string
+   */
+  public QueryResultCache(int maxSize, long ttl, TimeUnit unit, Callable<String> kbVersionSource) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+    }
+    if (ttl <= 0) {
+      throw new IllegalArgumentException("TTL must be positive: " + ttl);
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = unit.toNanos(ttl);
+    this.kbVersionSource
+            = Objects.requireNonNull(kbVersionSource, "KB version source must not be null");
+    this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+        return size() > QueryResultCache.this.maxSize;
+      }
+    };
+    this.uncacheable = Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > QueryResultCache.this.maxSize;
+              }
+            });
+  }
+
+  public QueryResultCache(int maxSize, long ttl, TimeUnit unit) {
+    this(maxSize, ttl, unit, QueryResultCache::currentKbVersion);
+  }
+
+  public QueryResultCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  /**
+   * Returns the answers to <code>request</code>, from the cache if possible; otherwise, constructs
+   * and runs the query, caches its answers if it is cacheable, and closes it. Concurrent misses for
+   * the same query may each run it.
+   *
+   * @param request the query
+   *
+   * @return the query's answers, as an unmodifiable list
+   *
+   * @throws QueryConstructionException if the query cannot be constructed
+   * @throws KbException                if the query's indexicals cannot be retrieved
+   */
+  public List<QueryAnswer> getAnswers(QueryRequest request)
+          throws QueryConstructionException, KbException {
+    final String key = keyOf(request);
+    if (System.nanoTime() - nextVersionCheckNanos >= 0) {
+      checkVersion();
+    }
+    final long loadGeneration;
+    final boolean knownUncacheable;
+    synchronized (this) {
+      loadGeneration = generation;
+      knownUncacheable = uncacheable.contains(key);
+      final CacheEntry entry = knownUncacheable ? null : entries.get(key);
+      if (entry != null) {
+        if (System.nanoTime() - entry.expiry < 0) {
+          hits.increment();
+          return entry.answers;
+        }
+        entries.remove(key);
+      }
+    }
+    try (Query query = newQuery(request)) {
+      final boolean cacheable = !knownUncacheable && isCacheable(query);
+      if (cacheable) {
+        misses.increment();
+      } else {
+        bypasses.increment();
+      }
+      query.performInference();
+      final List<QueryAnswer> answers
+              = Collections.unmodifiableList(new ArrayList<>(query.getAnswers()));
+      synchronized (this) {
+        if (!cacheable) {
+          uncacheable.add(key);
+        } else if (generation == loadGeneration) {
+          // If the cache was cleared while the query ran, the answers may predate the change.
+          entries.put(key, new CacheEntry(answers, System.nanoTime() + ttlNanos));
+        }
+      }
+      return answers;
+    }
+  }
+
+  /**
+   * Computes the cache key for <code>request</code>, without contacting the Cyc server. Requests
+   * which differ only in whitespace, in constant prefixes, or in ignored inference parameters have
+   * the same key.
+   *
+   * @param request the query
+   *
+   * @return the cache key
+   */
+  public static String keyOf(QueryRequest request) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(canonicalize(request.getSentence().stringApiValue()));
+    sb.append("\n").append(request.getContext());
+    final InferenceParameters params = request.getParameters();
+    if (params != null && !params.isEmpty()) {
+      final Map<String, Object> relevant = new TreeMap<>();
+      params.entrySet().stream()
+              .filter(param -> !IGNORED_PARAMETERS.contains(param.getKey()))
+              .forEach(param -> relevant.put(param.getKey(), param.getValue()));
+      sb.append("\n").append(relevant);
+    }
+    return sb.toString();
+  }
+
+  public synchronized void invalidate(QueryRequest request) {
+    entries.remove(keyOf(request));
+  }
+
+  public synchronized void clear() {
+    generation++;
+    entries.clear();
+    uncacheable.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getTtl(TimeUnit unit) {
+    return unit.convert(ttlNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the minimum interval between KB version checks.
+   *
+   * @return the interval in milliseconds
+   */
+  public long getVersionCheckInterval() {
+    return versionCheckIntervalMillis;
+  }
+
+  /**
+   * Sets the minimum interval between KB version checks. Answers computed for an earlier KB
+   * version may be returned until the next check.
+   *
+   * @param interval the interval
+   * @param unit     the unit of <code>interval</code>
+   *
+   * @throws IllegalArgumentException if <code>interval</code> is negative
+   */
+  public void setVersionCheckInterval(long interval, TimeUnit unit) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("Interval must not be negative: " + interval);
+    }
+    this.versionCheckIntervalMillis = unit.toMillis(interval);
+    synchronized (this) {
+      scheduleVersionCheck();
+    }
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of queries which were run without consulting the cache because they were
+   * not cacheable.
+   *
+   * @return the number of uncacheable queries
+   */
+  public long getBypassCount() {
+    return bypasses.sum();
+  }
+
+  /**
+   * Returns the fraction of cacheable queries which were answered from the cache.
+   *
+   * @return the hit ratio, or 0 if no cacheable queries have been run
+   */
+  public double getHitRatio() {
+    final long hitCount = hits.sum();
+    final long total = hitCount + misses.sum();
+    return (total == 0) ? 0 : (double) hitCount / total;
+  }
+
+  @Override
+  public void kbChanged(KbChangeEvent event) {
+    clear();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[size=" + size() + ", maxSize=" + maxSize
+                   + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+                   + ", bypasses=" + getBypassCount() + "]";
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  /**
+   * Normalizes whitespace and constant prefixes in <code>cycl</code>.
+   */
+  static String canonicalize(String cycl) {
+    final CycLTokenizer tokenizer = new CycLTokenizer(cycl);
+    final StringBuilder sb = new StringBuilder(cycl.length());
+    try {
+      TokenType previous = null;
+      for (TokenType type = tokenizer.next(); type != TokenType.END; type = tokenizer.next()) {
+        if (previous != null && previous != TokenType.OPEN_PAREN && type != TokenType.CLOSE_PAREN) {
+          sb.append(' ');
+        }
+        previous = type;
+        final String text = tokenizer.getText();
+        switch (type) {
+          case CONSTANT:
+            sb.append(text.startsWith("#$") ? "" : "#$").append(text);
+            break;
+          case STRING:
+            sb.append('"')
+                    .append(tokenizer.getStringValue().replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append('"');
+            break;
+          default:
+            sb.append(text);
+            break;
+        }
+      }
+    } catch (CycLParseException ex) {
+      LOG.debug("Could not canonicalize {}; using it verbatim", cycl, ex);
+      return cycl;
+    }
+    return sb.toString();
+  }
+
+  private static String currentKbVersion() throws SessionException {
+    return CycSession.getCurrent().getServerInfo().getCycKbVersionString();
+  }
+
+  private static Query newQuery(QueryRequest request) throws QueryConstructionException {
+    final InferenceParameters params = request.getParameters();
+    return (params != null)
+                   ? Query.get(request.getSentence(), request.getContext(), params)
+                   : Query.get(request.getSentence(), request.getContext());
+  }
+
+  private static boolean isCacheable(Query query) throws KbException {
+    final Set<KbObject> indexicals = query.getUnresolvedIndexicals();
+    return indexicals == null || indexicals.isEmpty();
+  }
+
+  private void scheduleVersionCheck() {
+    nextVersionCheckNanos = System.nanoTime()
+                                    + TimeUnit.MILLISECONDS.toNanos(versionCheckIntervalMillis);
+  }
+
+  /**
+   * Clears the cache if the KB version has changed since the last check. Failures are logged, and
+   * the cache is retained until the next check.
+   */
+  private void checkVersion() {
+    synchronized (this) {
+      if (System.nanoTime() - nextVersionCheckNanos < 0) {
+        return;
+      }
+      scheduleVersionCheck();
+    }
+    final String currentVersion;
+    try {
+      currentVersion = kbVersionSource.call();
+    } catch (Exception ex) {
+      LOG.warn("Could not check the KB version for {}", this, ex);
+      return;
+    }
+    synchronized (this) {
+      if (kbVersion != null && !kbVersion.equals(currentVersion)) {
+        LOG.debug("KB version changed from {} to {}; clearing {}", kbVersion, currentVersion, this);
+        clear();
+      }
+      kbVersion = currentVersion;
+    }
+  }
+
+  //====|    CacheEntry    |======================================================================//
+
+  private static final class CacheEntry {
+
+    private final List<QueryAnswer> answers;
+    private final long expiry;
+
+    private CacheEntry(List<QueryAnswer> answers, long expiry) {
+      this.answers = answers;
+      this.expiry = expiry;
+    }
+  }
+
+}
@@ -0,0 +1,240 @@
+package com.cyc.query.export;
+
+/*
+ * #%L
+ * File: ColumnarAnswerExporter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.query.ColumnarQueryResultSet;
+import com.cyc.query.ColumnarQueryResultSet.ColumnType;
+import com.cyc.query.QueryAnswer;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Exports answers in a simple columnar binary format. Answers are buffered into row groups of up to
+ * <code>rowGroupSize</code> rows via {@link ColumnarQueryResultSet.Builder}, and each group is
+ * written column by column, so readers can skip the columns they do not need and numeric columns
+ * are stored as raw primitives.
+ *
+ * <p>
+ * All integers are big-endian, as written by {@link DataOutputStream}; strings are an
+ * <code>int</code> byte length followed by UTF-8 bytes. The layout is:
+ *
+ * <pre>
+ * file      := "CYCA" version:byte columnCount:int columnName:string* rowGroup* 0:int
+ * rowGroup  := rowCount:int column*
+ * column    := type:byte nulls:byte[(rowCount + 7) / 8] values
+ * values    := EMPTY:   (nothing)
+ *            | LONG:    long[rowCount]
+ *            | DOUBLE:  double[rowCount]
+ *            | BOOLEAN: byte[rowCount]
+ *            | DATE:    long[rowCount]  (milliseconds since the epoch)
+ *            | OBJECT:  dictionarySize:int string[dictionarySize] code:int[rowCount]
+ * </pre>
+ *
+ * where <tt>type</tt> is the ordinal of {@link ColumnType}, bit <tt>i % 8</tt> of byte
+ * <tt>i / 8</tt> of <tt>nulls</tt> is set if row <tt>i</tt> is unbound, unbound rows hold
+ * <code>0</code> (or code <code>-1</code>), and OBJECT values are written as text (see
+ * {@link QueryAnswerExporter#format(Object) }) and dictionary-encoded per row group.
+ */
+public class ColumnarAnswerExporter extends QueryAnswerExporter {
+
+  //====|    Fields    |==========================================================================//
+
+  public static final byte FORMAT_VERSION = 1;
+
+  public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+  private static final byte[] MAGIC = {'C', 'Y', 'C', 'A'};
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataOutputStream out;
+  private final int rowGroupSize;
+  private ColumnarQueryResultSet.Builder rowGroup;
+  private int rowGroupCount = 0;
+
+  //====|    Construction    |====================================================================//
+
+  public ColumnarAnswerExporter(OutputStream out, List<Variable> columns) {
+    this(out, columns, DEFAULT_ROW_GROUP_SIZE);
+  }
+
+  public ColumnarAnswerExporter(OutputStream out, List<Variable> columns, int rowGroupSize) {
+    super(columns);
+    if (rowGroupSize < 1) {
+      throw new IllegalArgumentException("Row group size must be positive: " + rowGroupSize);
+    }
+    this.out = new DataOutputStream(new BufferedOutputStream(
+            Objects.requireNonNull(out, "Output stream must not be null"), BUFFER_SIZE));
+    this.rowGroupSize = rowGroupSize;
+    this.rowGroup = ColumnarQueryResultSet.builder(columns);
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public int getRowGroupSize() {
+    return rowGroupSize;
+  }
+
+  /**
+   * Flushes the underlying stream. Answers in the current, incomplete row group are not written
+   * until it is full or the export is {@link #finish() finished}.
+   *
+   * @throws IOException if the stream cannot be flushed
+   */
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected void writeHeader() throws IOException {
+    out.write(MAGIC);
+    out.writeByte(FORMAT_VERSION);
+    out.writeInt(getColumns().size());
+    for (Variable column : getColumns()) {
+      writeString(column.toString());
+    }
+  }
+
+  @Override
+  protected void writeRow(QueryAnswer answer) throws IOException {
+    rowGroup.addRow(answer);
+    if (++rowGroupCount >= rowGroupSize) {
+      writeRowGroup();
+    }
+  }
+
+  @Override
+  protected void writeTrailer() throws IOException {
+    if (rowGroupCount > 0) {
+      writeRowGroup();
+    }
+    out.writeInt(0);
+  }
+
+  @Override
+  protected void closeOutput() throws IOException {
+    out.close();
+  }
+
+  private void writeRowGroup() throws IOException {
+    final ColumnarQueryResultSet rows = rowGroup.build();
+    final int rowCount = rowGroupCount;
+    rowGroup = ColumnarQueryResultSet.builder(getColumns());
+    rowGroupCount = 0;
+    out.writeInt(rowCount);
+    for (int col = 0; col < getColumns().size(); col++) {
+      final ColumnType type = rows.getColumnType(col);
+      out.writeByte(type.ordinal());
+      writeNulls(rows, col, rowCount);
+      switch (type) {
+        case EMPTY:
+          break;
+        case LONG:
+          for (int row = 1; row <= rowCount; row++) {
+            rows.absolute(row);
+            out.writeLong(rows.getLong(col));
+          }
+          break;
+        case DOUBLE:
+          for (int row = 1; row <= rowCount; row++) {
+            rows.absolute(row);
+            out.writeDouble(rows.getDouble(col));
+          }
+          break;
+        case BOOLEAN:
+          for (int row = 1; row <= rowCount; row++) {
+            rows.absolute(row);
+            out.writeByte(rows.getBoolean(col) ? 1 : 0);
+          }
+          break;
+        case DATE:
+          for (int row = 1; row <= rowCount; row++) {
+            rows.absolute(row);
+            out.writeLong(rows.isNull(col) ? 0 : rows.getDate(col).getTime());
+          }
+          break;
+        default:
+          writeObjectColumn(rows, col, rowCount);
+          break;
+      }
+    }
+  }
+
+  private void writeNulls(ColumnarQueryResultSet rows, int col, int rowCount) throws IOException {
+    final byte[] nulls = new byte[(rowCount + 7) / 8];
+    for (int row = 1; row <= rowCount; row++) {
+      rows.absolute(row);
+      if (rows.isNull(col)) {
+        nulls[(row - 1) / 8] |= 1 << ((row - 1) % 8);
+      }
+    }
+    out.write(nulls);
+  }
+
+  private void writeObjectColumn(ColumnarQueryResultSet rows, int col, int rowCount)
+          throws IOException {
+    final Map<String, Integer> dictionary = new HashMap<>();
+    final String[] values = new String[rowCount];
+    final int[] codes = new int[rowCount];
+    for (int row = 1; row <= rowCount; row++) {
+      rows.absolute(row);
+      final Object value = rows.getObject(col, Object.class);
+      if (value == null) {
+        codes[row - 1] = -1;
+        continue;
+      }
+      final String text = format(value);
+      Integer code = dictionary.get(text);
+      if (code == null) {
+        code = dictionary.size();
+        dictionary.put(text, code);
+        values[code] = text;
+      }
+      codes[row - 1] = code;
+    }
+    out.writeInt(dictionary.size());
+    for (int i = 0; i < dictionary.size(); i++) {
+      writeString(values[i]);
+    }
+    for (int code : codes) {
+      out.writeInt(code);
+    }
+  }
+
+  private void writeString(String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+}
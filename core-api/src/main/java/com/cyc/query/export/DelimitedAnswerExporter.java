@@ -0,0 +1,162 @@
+package com.cyc.query.export;
+
+/*
+ * #%L
+ * File: DelimitedAnswerExporter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.query.QueryAnswer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exports answers as delimited text: one line per answer, preceded by a header line of column
+ * names (without their leading <code>?</code>). Unbound values are written as empty fields.
+ *
+ * <p>
+ * {@link #csv(Writer, List) CSV} output follows RFC 4180: fields containing the delimiter, a
+ * double quote or a line break are quoted, and lines end with CRLF. {@link #tsv(Writer, List) TSV}
+ * output is never quoted; tabs, line breaks and backslashes within values are escaped as
+ * <tt>\t</tt>, <tt>\n</tt>, <tt>\r</tt> and <tt>\\</tt>, and lines end with LF.
+ */
+public class DelimitedAnswerExporter extends QueryAnswerExporter {
+
+  //====|    Factory methods    |=================================================================//
+
+  public static DelimitedAnswerExporter csv(Writer out, List<Variable> columns) {
+    return new DelimitedAnswerExporter(out, columns, ',', "\r\n", true);
+  }
+
+  public static DelimitedAnswerExporter tsv(Writer out, List<Variable> columns) {
+    return new DelimitedAnswerExporter(out, columns, '\t', "\n", false);
+  }
+
+  //====|    Fields    |==========================================================================//
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Writer out;
+  private final char delimiter;
+  private final String lineSeparator;
+  private final boolean quoted;
+
+  //====|    Construction    |====================================================================//
+
+  protected DelimitedAnswerExporter(Writer out, List<Variable> columns, char delimiter,
+                                    String lineSeparator, boolean quoted) {
+    super(columns);
+    this.out = new BufferedWriter(
+            Objects.requireNonNull(out, "Writer must not be null"), BUFFER_SIZE);
+    this.delimiter = delimiter;
+    this.lineSeparator = lineSeparator;
+    this.quoted = quoted;
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected void writeHeader() throws IOException {
+    for (int col = 0; col < getColumns().size(); col++) {
+      if (col > 0) {
+        out.write(delimiter);
+      }
+      writeField(getColumnName(col));
+    }
+    out.write(lineSeparator);
+  }
+
+  @Override
+  protected void writeRow(QueryAnswer answer) throws IOException {
+    for (int col = 0; col < getColumns().size(); col++) {
+      if (col > 0) {
+        out.write(delimiter);
+      }
+      final Object value = getValue(answer, col);
+      if (value != null) {
+        writeField(format(value));
+      }
+    }
+    out.write(lineSeparator);
+  }
+
+  @Override
+  protected void closeOutput() throws IOException {
+    out.close();
+  }
+
+  private void writeField(String value) throws IOException {
+    if (quoted) {
+      if (needsQuoting(value)) {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+          final char c = value.charAt(i);
+          if (c == '"') {
+            out.write('"');
+          }
+          out.write(c);
+        }
+        out.write('"');
+      } else {
+        out.write(value);
+      }
+      return;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '\t':
+          out.write("\\t");
+          break;
+        case '\n':
+          out.write("\\n");
+          break;
+        case '\r':
+          out.write("\\r");
+          break;
+        case '\\':
+          out.write("\\\\");
+          break;
+        default:
+          out.write(c);
+      }
+    }
+  }
+
+  private boolean needsQuoting(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
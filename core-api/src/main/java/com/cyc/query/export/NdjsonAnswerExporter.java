@@ -0,0 +1,139 @@
+package com.cyc.query.export;
+
+/*
+ * #%L
+ * File: NdjsonAnswerExporter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.query.QueryAnswer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exports answers as newline-delimited JSON: one JSON object per line, keyed by column name
+ * (without the leading <code>?</code>). Integral and finite floating-point numbers and booleans are
+ * written as JSON numbers and booleans, unbound values as <code>null</code>, and other values as
+ * strings (see {@link QueryAnswerExporter#format(Object) }). There is no header.
+ */
+public class NdjsonAnswerExporter extends QueryAnswerExporter {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Writer out;
+  private final String[] keys;
+
+  //====|    Construction    |====================================================================//
+
+  public NdjsonAnswerExporter(Writer out, List<Variable> columns) {
+    super(columns);
+    this.out = new BufferedWriter(
+            Objects.requireNonNull(out, "Writer must not be null"), BUFFER_SIZE);
+    this.keys = new String[columns.size()];
+    for (int col = 0; col < keys.length; col++) {
+      keys[col] = quote(getColumnName(col)) + ":";
+    }
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  @Override
+  protected void writeHeader() {
+  }
+
+  @Override
+  protected void writeRow(QueryAnswer answer) throws IOException {
+    out.write('{');
+    for (int col = 0; col < keys.length; col++) {
+      if (col > 0) {
+        out.write(',');
+      }
+      out.write(keys[col]);
+      writeValue(getValue(answer, col));
+    }
+    out.write("}\n");
+  }
+
+  @Override
+  protected void closeOutput() throws IOException {
+    out.close();
+  }
+
+  private void writeValue(Object value) throws IOException {
+    if (value == null) {
+      out.write("null");
+    } else if (value instanceof Boolean
+                       || value instanceof Long || value instanceof Integer
+                       || value instanceof Short || value instanceof Byte
+                       || value instanceof BigInteger) {
+      out.write(value.toString());
+    } else if ((value instanceof Double || value instanceof Float)
+                       && !Double.isNaN(((Number) value).doubleValue())
+                       && !Double.isInfinite(((Number) value).doubleValue())) {
+      out.write(value.toString());
+    } else {
+      out.write(quote(format(value)));
+    }
+  }
+
+  private static String quote(String value) {
+    final StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+}
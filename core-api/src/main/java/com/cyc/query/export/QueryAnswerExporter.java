@@ -0,0 +1,300 @@
+package com.cyc.query.export;
+
+/*
+ * #%L
+ * File: QueryAnswerExporter.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.query.Query;
+import com.cyc.query.QueryAnswer;
+import com.cyc.query.QueryAnswerPublisher;
+import com.cyc.query.exception.QueryRuntimeException;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes query answers to a stream, one at a time, without accumulating them. Answers may be
+ * written individually via {@link #write(QueryAnswer) }, from any iterable via
+ * {@link #writeAll(Iterable) }, or as a running Query finds them via {@link #export(Query) }.
+ *
+ * <p>
+ * Subclasses define the format. The header is written before the first answer (or by
+ * {@link #finish() } if there are none), and any trailer is written by {@link #finish() }, which
+ * {@link #close() } calls. Exporters are not thread-safe.
+ */
+public abstract class QueryAnswerExporter implements Closeable, Flushable {
+
+  //====|    Fields    |==========================================================================//
+
+  private static final int BATCH_SIZE = QueryAnswerPublisher.DEFAULT_BUFFER_SIZE;
+
+  private final List<Variable> columns;
+  private long rowCount = 0;
+  private boolean started = false;
+  private boolean finished = false;
+
+  //====|    Construction    |====================================================================//
+
+  protected QueryAnswerExporter(List<Variable> columns) {
+    this.columns = Collections.unmodifiableList(
+            new ArrayList<>(Objects.requireNonNull(columns, "Columns must not be null")));
+  }
+
+  //====|    Public methods    |==================================================================//
+
+  public List<Variable> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the number of answers which have been written.
+   *
+   * @return the number of answers written
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Writes a single answer. Variables which are not among the exporter's columns are ignored, and
+   * columns which the answer does not bind are written as empty or null values.
+   *
+   * @param answer the answer
+   *
+   * @throws IOException if the answer cannot be written
+   */
+  public void write(QueryAnswer answer) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Exporter has been finished");
+    }
+    start();
+    writeRow(answer);
+    rowCount++;
+  }
+
+  /**
+   * Writes every answer in <code>answers</code>, e.g. a
+   * {@link com.cyc.query.SpillingQueryAnswers} or a {@link com.cyc.query.QueryResultSet}.
+   *
+   * @param answers the answers
+   *
+   * @return the number of answers written
+   *
+   * @throws IOException if an answer cannot be written
+   */
+  public long writeAll(Iterable<? extends QueryAnswer> answers) throws IOException {
+    long count = 0;
+    for (QueryAnswer answer : answers) {
+      write(answer);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Writes the answers to <code>query</code> as the inference finds them, and returns when it
+   * finishes. Answers are delivered via a {@link QueryAnswerPublisher}, so a continuable inference
+   * is suspended whenever the exporter falls behind, and only a bounded number of answers (see
+   * {@link QueryAnswerPublisher#DEFAULT_BUFFER_SIZE}) are held in memory. The query is started if
+   * it has not been. The inference is started and continued on the calling thread, which must
+   * therefore be one on which <code>query</code> can be used.
+   *
+   * @param query the query
+   *
+   * @return the number of answers written
+   *
+   * @throws IOException           if an answer cannot be written, in which case the inference is
+   *                               stopped
+   * @throws QueryRuntimeException if the inference fails
+   */
+  public long export(Query query) throws IOException {
+    final long initialCount = rowCount;
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    // The publisher's start and continue tasks run on this thread, which waits for them below:
+    final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+    final Runnable wake = () -> {
+    };
+    QueryAnswerPublisher.of(query, tasks::add).subscribe(new QueryAnswerPublisher.Subscriber() {
+      private QueryAnswerPublisher.Subscription subscription;
+      private int outstanding;
+
+      @Override
+      public void onSubscribe(QueryAnswerPublisher.Subscription subscription) {
+        this.subscription = subscription;
+        outstanding = BATCH_SIZE;
+        subscription.request(BATCH_SIZE);
+      }
+
+      @Override
+      public void onNext(QueryAnswer answer) {
+        try {
+          write(answer);
+        } catch (IOException | RuntimeException ex) {
+          error.compareAndSet(null, ex);
+          subscription.cancel();
+          done.countDown();
+          tasks.add(wake);
+          return;
+        }
+        if (--outstanding <= BATCH_SIZE / 2) {
+          outstanding += BATCH_SIZE / 2;
+          subscription.request(BATCH_SIZE / 2);
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        error.compareAndSet(null, throwable);
+        done.countDown();
+        tasks.add(wake);
+      }
+
+      @Override
+      public void onComplete() {
+        done.countDown();
+        tasks.add(wake);
+      }
+    });
+    try {
+      while (done.getCount() > 0) {
+        tasks.take().run();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while exporting answers to " + query);
+    }
+    final Throwable t = error.get();
+    if (t instanceof IOException) {
+      throw (IOException) t;
+    } else if (t != null) {
+      throw QueryRuntimeException.fromThrowable(t);
+    }
+    flush();
+    return rowCount - initialCount;
+  }
+
+  /**
+   * Writes the header, if no answers have been written, and any trailer required by the format,
+   * and flushes the output. No more answers may be written.
+   *
+   * @throws IOException if the output cannot be written
+   */
+  public void finish() throws IOException {
+    if (!finished) {
+      start();
+      writeTrailer();
+      finished = true;
+    }
+    flush();
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * Finishes the export and closes the underlying output.
+   *
+   * @throws IOException if the output cannot be written or closed
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      closeOutput();
+    }
+  }
+
+  //====|    Abstract methods    |================================================================//
+
+  protected abstract void writeHeader() throws IOException;
+
+  protected abstract void writeRow(QueryAnswer answer) throws IOException;
+
+  protected void writeTrailer() throws IOException {
+  }
+
+  protected abstract void closeOutput() throws IOException;
+
+  //====|    Internal methods    |================================================================//
+
+  /**
+   * Returns the value which <code>answer</code> binds to the column at <code>columnIndex</code>.
+   *
+   * @param answer      the answer
+   * @param columnIndex the column index
+   *
+   * @return the value, or <code>null</code> if the column is unbound
+   */
+  protected Object getValue(QueryAnswer answer, int columnIndex) {
+    final Variable column = columns.get(columnIndex);
+    return answer.hasBinding(column) ? answer.getBinding(column) : null;
+  }
+
+  /**
+   * Formats a non-numeric value as text. Dates are written in ISO-8601 format, and other values,
+   * including KbObjects, via {@link Object#toString() }.
+   *
+   * @param value the value
+   *
+   * @return the text
+   */
+  protected static String format(Object value) {
+    if (value instanceof Date) {
+      // java.sql.Date and Time do not support toInstant(), so go via a plain Date:
+      return new Date(((Date) value).getTime()).toInstant().toString();
+    }
+    return String.valueOf(value);
+  }
+
+  /**
+   * Returns the name of a column without its leading <code>?</code>; e.g. <tt>X</tt> for
+   * <tt>?X</tt>.
+   *
+   * @param columnIndex the column index
+   *
+   * @return the column name
+   */
+  protected String getColumnName(int columnIndex) {
+    final String name = columns.get(columnIndex).toString();
+    return name.startsWith("?") ? name.substring(1) : name;
+  }
+
+  private void start() throws IOException {
+    if (!started) {
+      started = true;
+      writeHeader();
+    }
+  }
+
+}
@@ -0,0 +1,28 @@
+/**
+ * Streaming writers which export query answers to files, such as
+ * {@link com.cyc.query.export.DelimitedAnswerExporter CSV and TSV},
+ * {@link com.cyc.query.export.NdjsonAnswerExporter newline-delimited JSON} and
+ * {@link com.cyc.query.export.ColumnarAnswerExporter a columnar binary format}.
+ */
+package com.cyc.query.export;
+
+/*
+ * #%L
+ * File: package-info.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
@@ -27,9 +27,15 @@ import com.cyc.kb.Sentence;
 import com.cyc.kb.exception.KbException;
 import com.cyc.kb.exception.KbTypeException;
 import com.cyc.query.Query;
+import com.cyc.query.QueryOutcome;
+import com.cyc.query.QueryRequest;
+import com.cyc.query.QueryResultSet;
+import com.cyc.query.QuerySpecification;
 import com.cyc.query.exception.QueryConstructionException;
 import com.cyc.query.parameters.InferenceParameters;
 import com.cyc.session.exception.UnsupportedCycOperationException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -178,6 +184,67 @@ public interface QueryService {
   Query getQuery(String idStr, Map<String, String> indexicals)
           throws QueryConstructionException, KbTypeException, UnsupportedCycOperationException;
 
+  /**
+   * Constructs a new Query with the same sentence, context, inference parameters and substitutions
+   * as <code>spec</code>. Queries are bound to the session of the thread which created them, so
+   * this is the way to run an existing QuerySpecification (including a Query) on another thread.
+   *
+   * @param spec the query specification to copy
+   *
+   * @return a new Query
+   *
+   * @throws QueryConstructionException
+   */
+  default Query getQuery(QuerySpecification<?> spec) throws QueryConstructionException {
+    final Query query;
+    try {
+      query = getQuery(spec.getQuerySentence(), spec.getContext());
+    } catch (KbException ex) {
+      throw QueryConstructionException.fromThrowable(ex);
+    }
+    if (spec.getInferenceParameters() != null) {
+      query.getInferenceParameters().putAll(spec.getInferenceParameters());
+    }
+    if (spec.getSubstitutions() != null && !spec.getSubstitutions().isEmpty()) {
+      query.addSubstitutions(spec.getSubstitutions());
+    }
+    return query;
+  }
+
+  /**
+   * Runs a batch of queries, and returns the outcome of each, in the same order. A query which
+   * cannot be constructed or run does not prevent the others from running; its outcome records
+   * the exception instead. Each query is left open so that its results may be read; close each
+   * {@link QueryOutcome} when done with it.
+   *
+   * <p>
+   * The default implementation constructs and runs each query in turn; implementations should
+   * override it to submit the whole batch, and retrieve all of the results, in a single exchange
+   * with the Cyc server.
+   *
+   * @param requests the queries to run
+   *
+   * @return the outcome of each query
+   */
+  default List<QueryOutcome> runQueries(List<QueryRequest> requests) {
+    final List<QueryOutcome> outcomes = new ArrayList<>(requests.size());
+    for (QueryRequest request : requests) {
+      final long start = System.nanoTime();
+      Query query = null;
+      try {
+        query = (request.getParameters() != null)
+                        ? getQuery(request.getSentence(), request.getContext(),
+                                   request.getParameters())
+                        : getQuery(request.getSentence(), request.getContext());
+        final QueryResultSet resultSet = query.performInference();
+        outcomes.add(QueryOutcome.succeeded(query, resultSet, System.nanoTime() - start));
+      } catch (QueryConstructionException | RuntimeException ex) {
+        outcomes.add(QueryOutcome.failed(query, ex, System.nanoTime() - start));
+      }
+    }
+    return outcomes;
+  }
+
   /**
    * Closes all unclosed queries.
    *
@@ -0,0 +1,174 @@
+package com.cyc.kb.cache;
+
+/*
+ * #%L
+ * File: KbNameBloomFilterTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.event.KbChangeEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KbNameBloomFilterTest {
+
+  private static final int COUNT = 10000;
+
+  @Test
+  public void testNoFalseNegatives() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(COUNT, 0.01);
+    final List<String> names = names("Term", COUNT);
+    filter.addAll(names);
+    for (String name : names) {
+      assertTrue(name, filter.mightContain(name));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(COUNT, 0.01);
+    filter.addAll(names("Term", COUNT));
+    int falsePositives = 0;
+    for (String name : names("Missing", COUNT)) {
+      if (filter.mightContain(name)) {
+        falsePositives++;
+      }
+    }
+    assertTrue("False positives: " + falsePositives, falsePositives < COUNT * 0.02);
+    assertTrue(filter.getExpectedFpp() < 0.02);
+  }
+
+  @Test
+  public void testEmptyFilter() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(0, 0.01);
+    assertFalse(filter.mightContain("Dog"));
+    assertEquals(0.0, filter.getExpectedFpp(), 0.0);
+  }
+
+  @Test
+  public void testPrefixIsIgnored() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(10, 0.01);
+    filter.add("#$Dog");
+    filter.add("Cat");
+    assertTrue(filter.mightContain("Dog"));
+    assertTrue(filter.mightContain("#$Cat"));
+  }
+
+  @Test
+  public void testUnfilterableStringsMightBePresent() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(10, 0.01);
+    for (String s : Arrays.asList(
+            "", "#$", "?X", "(isa Dog Animal)", "\"a string\"", "two words")) {
+      assertFalse(s, KbNameBloomFilter.isFilterable(s));
+      assertTrue(s, filter.mightContain(s));
+    }
+    assertTrue(KbNameBloomFilter.isFilterable("#$Dog"));
+    assertTrue(KbNameBloomFilter.isFilterable("Mx4rvVjaoJwpEbGdrcN5Y29ycA"));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(COUNT, 0.01);
+    filter.addAll(names("Term", COUNT));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    filter.writeTo(out);
+    final KbNameBloomFilter read
+            = KbNameBloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(filter.getNumBits(), read.getNumBits());
+    assertEquals(filter.getNumHashes(), read.getNumHashes());
+    for (String name : names("Term", COUNT)) {
+      assertTrue(name, read.mightContain(name));
+    }
+    for (String name : names("Missing", 1000)) {
+      assertEquals(name, filter.mightContain(name), read.mightContain(name));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadBadMagic() throws IOException {
+    KbNameBloomFilter.readFrom(new ByteArrayInputStream(new byte[32]));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadTruncated() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    KbNameBloomFilter.create(COUNT, 0.01).writeTo(out);
+    final byte[] bytes = out.toByteArray();
+    KbNameBloomFilter.readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+  }
+
+  @Test
+  public void testFromDump() throws IOException {
+    final Path dump = Files.createTempFile("names", ".txt");
+    try {
+      Files.write(dump, Arrays.asList("Dog", "", "  #$Cat  ", "Mx4rvVjaoJwpEbGdrcN5Y29ycA"),
+                  StandardCharsets.UTF_8);
+      final KbNameBloomFilter filter = KbNameBloomFilter.fromDump(dump, 0.001);
+      assertTrue(filter.mightContain("Dog"));
+      assertTrue(filter.mightContain("Cat"));
+      assertTrue(filter.mightContain("Mx4rvVjaoJwpEbGdrcN5Y29ycA"));
+    } finally {
+      Files.delete(dump);
+    }
+  }
+
+  @Test
+  public void testKbChanged() {
+    final KbNameBloomFilter filter = KbNameBloomFilter.create(100, 0.001);
+    filter.kbChanged(KbChangeEvent.asserted("Assertion1", "isa", Arrays.asList("Id1", "Id2")));
+    filter.kbChanged(KbChangeEvent.renamed("Id3", "OldName", "NewName"));
+    for (String s : Arrays.asList("Id1", "Id2", "Id3", "NewName")) {
+      assertTrue(s, filter.mightContain(s));
+    }
+    filter.kbChanged(KbChangeEvent.killed("Id1", "Dog"));
+    assertTrue(filter.mightContain("Id1"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeInsertions() {
+    KbNameBloomFilter.create(-1, 0.01);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFpp() {
+    KbNameBloomFilter.create(10, 1.0);
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static List<String> names(String prefix, int count) {
+    final List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      names.add(prefix + i);
+    }
+    return names;
+  }
+
+}
@@ -0,0 +1,233 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: KbBinaryCodecTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObject;
+import com.cyc.kb.cycl.CycLFormula;
+import com.cyc.kb.cycl.CycLTerm;
+import com.cyc.kb.exception.CreateException;
+import com.cyc.kb.exception.KbCodecException;
+import com.cyc.kb.exception.KbTypeException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class KbBinaryCodecTest {
+
+  private final Map<String, KbObject> terms = new HashMap<>();
+  private KbBinaryCodec codec;
+
+  @Before
+  public void setUp() {
+    codec = KbBinaryCodec.create().withResolver(id -> {
+      final KbObject term = terms.get(id);
+      if (term == null) {
+        throw new CreateException("No term " + id);
+      }
+      return term;
+    });
+  }
+
+  @Test
+  public void testScalars() throws Exception {
+    for (Object value : Arrays.asList(null, "", "text \u00e9\u4e2d", 0, -17, Long.MAX_VALUE, 1.5f,
+                                      -2.25, new BigInteger("123456789012345678901234567890"),
+                                      new BigDecimal("-1234.5678"), new Date(1234567890123L))) {
+      assertEquals(value, roundTrip(value));
+    }
+  }
+
+  @Test
+  public void testNumbersKeepTheirClasses() throws Exception {
+    assertEquals(Integer.class, roundTrip(7).getClass());
+    assertEquals(Long.class, roundTrip(7L).getClass());
+    assertEquals(Float.class, roundTrip(7f).getClass());
+    assertEquals(Double.class, roundTrip(7d).getClass());
+  }
+
+  @Test
+  public void testCollections() throws Exception {
+    final List<Object> list
+            = Arrays.asList("a", 1, Arrays.asList(2L, null), Collections.emptyList());
+    assertEquals(list, roundTrip(list));
+    final LinkedHashSet<Object> set = new LinkedHashSet<>(Arrays.asList("z", "a", 3));
+    final Object decoded = roundTrip(set);
+    assertEquals(set, decoded);
+    assertEquals(new ArrayList<>(set), new ArrayList<>((LinkedHashSet<?>) decoded));
+  }
+
+  @Test
+  public void testCycL() throws Exception {
+    final CycLFormula formula = CycLFormula.of(
+            CycLTerm.constant("and"),
+            CycLFormula.of(CycLTerm.constant("isa"), CycLTerm.variable("X"),
+                           CycLTerm.constant("Dog")),
+            CycLFormula.of(CycLTerm.constant("comment"), CycLTerm.variable("X"), "a dog", 3L));
+    assertEquals(formula, roundTrip(formula));
+    assertEquals(CycLTerm.keyword("KW"), roundTrip(CycLTerm.keyword("KW")));
+  }
+
+  @Test
+  public void testTermsAreWrittenOnce() throws Exception {
+    final KbObject dog = term("Mx4rvVjaoJwpEbGdrcN5Y29ycA", "Dog");
+    final ByteBuffer once = codec.encode(Collections.singletonList(dog));
+    final ByteBuffer many = codec.encode(Collections.nCopies(100, dog));
+    assertEquals(once.remaining() + 99 * 2, many.remaining());
+    final List<?> decoded = codec.decode(many, List.class);
+    assertEquals(100, decoded.size());
+    assertSame(dog, decoded.get(0));
+    assertSame(dog, decoded.get(99));
+  }
+
+  @Test
+  public void testSharedDictionary() throws Exception {
+    final TermDictionary dictionary = new TermDictionary();
+    final KbBinaryCodec shared = KbBinaryCodec.create(dictionary)
+            .withResolver(id -> terms.get(id));
+    final KbObject dog = term("Mx4rvVjaoJwpEbGdrcN5Y29ycA", "Dog");
+    final ByteBuffer encoded = shared.encode(Arrays.asList(dog, "x"));
+    assertEquals(1, dictionary.size());
+    assertEquals(Arrays.asList(dog, "x"), shared.decode(encoded));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testSharedDictionaryRequired() throws Exception {
+    final KbBinaryCodec shared = KbBinaryCodec.create(new TermDictionary());
+    codec.decode(shared.encode("x"));
+  }
+
+  @Test
+  public void testDecodeAdvancesPosition() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.allocate(256);
+    final int first = codec.encode("first", buffer);
+    codec.encode(2, buffer);
+    buffer.flip();
+    assertEquals("first", codec.decode(buffer));
+    assertEquals(first, buffer.position());
+    assertEquals(2, codec.decode(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testWrongType() throws Exception {
+    codec.decode(codec.encode("text"), Integer.class);
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testUnsupportedValue() {
+    codec.encode(new Object());
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testNotBinaryFormat() throws Exception {
+    codec.decode(ByteBuffer.wrap("not encoded".getBytes("UTF-8")));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testTruncatedInput() throws Exception {
+    final ByteBuffer encoded = codec.encode(Arrays.asList("a", "b", "c"));
+    encoded.limit(encoded.limit() - 2);
+    codec.decode(encoded);
+  }
+
+  @Test
+  public void testMaxDepth() throws Exception {
+    final Object nested = nest(KbBinaryCodec.MAX_DEPTH);
+    assertEquals(nested, roundTrip(nested));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testEncodeTooDeep() {
+    codec.encode(nest(KbBinaryCodec.MAX_DEPTH + 1));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testDecodeTooDeep() throws Exception {
+    final int depth = KbBinaryCodec.MAX_DEPTH + 1;
+    final ByteBuffer buffer = ByteBuffer.allocate(6 + 2 * depth);
+    buffer.put(KbBinaryCodec.MAGIC).put(KbBinaryCodec.TYPE_VALUE)
+            .put((byte) KbBinaryCodec.FORMAT_VERSION);
+    buffer.put((byte) 0).put((byte) 0); // flags, and an empty dictionary
+    for (int i = 0; i < depth; i++) {
+      buffer.put((byte) 13).put((byte) 1); // a list of one element
+    }
+    buffer.put((byte) 0); // null
+    buffer.flip();
+    codec.decode(buffer);
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private Object roundTrip(Object value) throws KbTypeException, CreateException {
+    final ByteBuffer encoded = codec.encode(value);
+    final Object decoded = codec.decode(encoded);
+    assertFalse(encoded.hasRemaining());
+    return decoded;
+  }
+
+  private KbObject term(String id, String name) {
+    final KbObject term = (KbObject) Proxy.newProxyInstance(
+            KbObject.class.getClassLoader(), new Class<?>[]{KbObject.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getId":
+                  return id;
+                case "toString":
+                case "stringApiValue":
+                  return name;
+                case "hashCode":
+                  return id.hashCode();
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  return null;
+              }
+            });
+    terms.put(id, term);
+    return term;
+  }
+
+  private static Object nest(int depth) {
+    Object value = null;
+    for (int i = 0; i < depth; i++) {
+      value = Collections.singletonList(value);
+    }
+    return value;
+  }
+
+}
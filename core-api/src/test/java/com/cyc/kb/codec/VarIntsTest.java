@@ -0,0 +1,105 @@
+package com.cyc.kb.codec;
+
+/*
+ * #%L
+ * File: VarIntsTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.KbCodecException;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VarIntsTest {
+
+  private static final long[] VALUES = {
+    0, 1, 63, 64, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, 1L << 35, Long.MAX_VALUE,
+    -1, -64, -65, Integer.MIN_VALUE, Long.MIN_VALUE
+  };
+
+  @Test
+  public void testUnsignedRoundTrip() {
+    for (long value : VALUES) {
+      final ByteBuffer buffer = ByteBuffer.allocate(VarInts.MAX_LENGTH);
+      VarInts.writeUnsigned(buffer, value);
+      assertEquals("Length of " + value, VarInts.sizeOfUnsigned(value), buffer.position());
+      buffer.flip();
+      assertEquals(value, VarInts.readUnsigned(buffer));
+      assertFalse(buffer.hasRemaining());
+    }
+  }
+
+  @Test
+  public void testSignedRoundTrip() {
+    for (long value : VALUES) {
+      final ByteBuffer buffer = ByteBuffer.allocate(VarInts.MAX_LENGTH);
+      VarInts.writeSigned(buffer, value);
+      buffer.flip();
+      assertEquals(value, VarInts.readSigned(buffer));
+    }
+  }
+
+  @Test
+  public void testSizes() {
+    assertEquals(1, VarInts.sizeOfUnsigned(0));
+    assertEquals(1, VarInts.sizeOfUnsigned(127));
+    assertEquals(2, VarInts.sizeOfUnsigned(128));
+    assertEquals(VarInts.MAX_LENGTH, VarInts.sizeOfUnsigned(-1));
+  }
+
+  @Test
+  public void testSmallNegativeNumbersAreCompact() {
+    final ByteBuffer buffer = ByteBuffer.allocate(VarInts.MAX_LENGTH);
+    VarInts.writeSigned(buffer, -1);
+    assertEquals(1, buffer.position());
+  }
+
+  @Test
+  public void testKnownEncoding() {
+    final ByteBuffer buffer = ByteBuffer.allocate(VarInts.MAX_LENGTH);
+    VarInts.writeUnsigned(buffer, 300);
+    buffer.flip();
+    assertEquals((byte) 0xAC, buffer.get(0));
+    assertEquals((byte) 0x02, buffer.get(1));
+    assertEquals(2, buffer.remaining());
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testTruncated() {
+    VarInts.readUnsigned(ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0x80}));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testTooLong() {
+    final byte[] bytes = new byte[VarInts.MAX_LENGTH + 1];
+    java.util.Arrays.fill(bytes, (byte) 0x80);
+    VarInts.readUnsigned(ByteBuffer.wrap(bytes));
+  }
+
+  @Test(expected = KbCodecException.class)
+  public void testUnsignedIntOutOfRange() {
+    final ByteBuffer buffer = ByteBuffer.allocate(VarInts.MAX_LENGTH);
+    VarInts.writeUnsigned(buffer, Integer.MAX_VALUE + 1L);
+    buffer.flip();
+    VarInts.readUnsignedInt(buffer);
+  }
+
+}
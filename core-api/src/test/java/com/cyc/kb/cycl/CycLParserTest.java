@@ -0,0 +1,156 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLParserTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.exception.CycLParseException;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CycLParserTest {
+
+  @Test
+  public void testParseFormula() throws CycLParseException {
+    final CycLFormula formula = CycLParser.parseFormula("(#$isa ?X #$Dog)");
+    assertEquals(CycLTerm.constant("isa"), formula.getOperator());
+    assertTrue(formula.hasOperator("isa"));
+    assertEquals(2, formula.getArity());
+    assertEquals(CycLTerm.variable("X"), formula.getArgument(1));
+    assertEquals(CycLTerm.constant("Dog"), formula.getArgument(2));
+  }
+
+  @Test
+  public void testAtoms() throws CycLParseException {
+    assertEquals(CycLTerm.constant("Dog"), CycLParser.parse("#$Dog"));
+    assertEquals(CycLTerm.keyword("KW"), CycLParser.parse(":KW"));
+    assertEquals("a \"b\"", CycLParser.parse("\"a \\\"b\\\"\""));
+    assertEquals(7L, CycLParser.parse("7"));
+  }
+
+  @Test
+  public void testNestedFormula() throws CycLParseException {
+    final CycLFormula formula
+            = CycLParser.parseFormula("(#$and (#$isa ?X #$Dog) (#$likesAsFriend ?X \"Rex\"))");
+    assertEquals(2, formula.getArity());
+    final CycLFormula second = (CycLFormula) formula.getArgument(2);
+    assertEquals("Rex", second.getArgument(2));
+  }
+
+  @Test
+  public void testConstantPrefixIsOptional() throws CycLParseException {
+    assertEquals(CycLParser.parseFormula("(#$genls #$Dog #$Animal)"),
+                 CycLParser.parseFormula("(genls Dog   Animal)"));
+  }
+
+  @Test
+  public void testToCycLRoundTrip() throws CycLParseException {
+    final String cycl = "(#$and (#$isa ?X #$Dog) (#$comment ?X \"a \\\"b\\\"\") (#$age ?X 3))";
+    final CycLFormula formula = CycLParser.parseFormula(cycl);
+    assertEquals(cycl, formula.toCycL());
+    assertEquals(formula, CycLParser.parseFormula(formula.toCycL()));
+  }
+
+  @Test
+  public void testEqualsAndHashCode() throws CycLParseException {
+    final CycLFormula a = CycLParser.parseFormula("(#$isa ?X #$Dog)");
+    final CycLFormula b = CycLFormula.of(CycLTerm.constant("isa"), CycLTerm.variable("X"),
+                                         CycLTerm.constant("Dog"));
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertNotEquals(a, CycLParser.parseFormula("(#$isa ?Y #$Dog)"));
+  }
+
+  @Test
+  public void testDwimShorthand() throws CycLParseException {
+    final CycLFormula formula = (CycLFormula) CycLParser.parseDwim("(#$member 1 {2 [3]})");
+    final CycLFormula set = (CycLFormula) formula.getArgument(2);
+    assertEquals(CycLTerm.THE_SET, set.getOperator());
+    assertEquals(CycLFormula.of(CycLTerm.THE_LIST, 3L), set.getArgument(2));
+  }
+
+  @Test(expected = CycLParseException.class)
+  public void testShorthandRequiresDwim() throws CycLParseException {
+    CycLParser.parse("(#$member 1 {2 3})");
+  }
+
+  @Test
+  public void testMalformedInput() {
+    for (String cycl : Arrays.asList("", "(", ")", "(#$isa ?X", "#$Dog #$Cat", "(#$isa))")) {
+      try {
+        CycLParser.parse(cycl);
+        throw new AssertionError("Parsed malformed CycL: " + cycl);
+      } catch (CycLParseException ex) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test(expected = CycLParseException.class)
+  public void testParseFormulaRejectsAtoms() throws CycLParseException {
+    CycLParser.parseFormula("#$Dog");
+  }
+
+  @Test
+  public void testMaxDepth() throws CycLParseException {
+    final CycLFormula formula = (CycLFormula) CycLParser.parse(nested(CycLParser.MAX_DEPTH));
+    assertEquals(formula, CycLParser.parse(formula.toCycL()));
+    assertEquals(formula.hashCode(), CycLParser.parse(formula.toCycL()).hashCode());
+  }
+
+  @Test
+  public void testTooDeep() {
+    try {
+      CycLParser.parse(nested(CycLParser.MAX_DEPTH + 1));
+      throw new AssertionError("Parsed a formula nested beyond the maximum depth");
+    } catch (CycLParseException ex) {
+      assertFalse(ex.getMessage().isEmpty());
+    }
+  }
+
+  @Test
+  public void testReusableParser() throws CycLParseException {
+    final CycLParser parser = new CycLParser(false);
+    assertEquals(CycLTerm.constant("Dog"), parser.read("#$Dog"));
+    assertEquals(CycLFormula.of(CycLTerm.constant("isa"), CycLTerm.constant("Dog"),
+                                CycLTerm.constant("Collection")),
+                 parser.read("(#$isa #$Dog #$Collection)"));
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static String nested(int depth) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      sb.append("(#$f ");
+    }
+    sb.append("1");
+    for (int i = 0; i < depth; i++) {
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,131 @@
+package com.cyc.kb.cycl;
+
+/*
+ * #%L
+ * File: CycLTokenizerTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.cycl.CycLTokenizer.TokenType;
+import com.cyc.kb.exception.CycLParseException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CycLTokenizerTest {
+
+  @Test
+  public void testTokenTypes() throws CycLParseException {
+    assertEquals(Arrays.asList(TokenType.OPEN_PAREN, TokenType.CONSTANT, TokenType.VARIABLE,
+                               TokenType.KEYWORD, TokenType.STRING, TokenType.NUMBER,
+                               TokenType.OPEN_BRACE, TokenType.CLOSE_BRACE,
+                               TokenType.OPEN_BRACKET, TokenType.CLOSE_BRACKET,
+                               TokenType.CLOSE_PAREN, TokenType.END),
+                 typesOf("(#$isa ?X :KW \"str\" 42 {} [])"));
+  }
+
+  @Test
+  public void testTextExcludesPrefixes() throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer("#$Dog ?X :KW");
+    tokenizer.next();
+    assertEquals("Dog", tokenizer.getText());
+    tokenizer.next();
+    assertEquals("X", tokenizer.getText());
+    tokenizer.next();
+    assertEquals("KW", tokenizer.getText());
+  }
+
+  @Test
+  public void testConstantWithoutPrefix() throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer("Dog");
+    assertEquals(TokenType.CONSTANT, tokenizer.next());
+    assertEquals("Dog", tokenizer.getText());
+  }
+
+  @Test
+  public void testPositions() throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer("  (#$isa");
+    tokenizer.next();
+    assertEquals(2, tokenizer.getStart());
+    assertEquals(3, tokenizer.getEnd());
+    tokenizer.next();
+    assertEquals(8, tokenizer.getEnd());
+  }
+
+  @Test
+  public void testEscapedString() throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer("\"a \\\"quoted\\\" word\"");
+    assertEquals(TokenType.STRING, tokenizer.next());
+    assertEquals("a \"quoted\" word", tokenizer.getStringValue());
+    assertEquals(TokenType.END, tokenizer.next());
+  }
+
+  @Test
+  public void testNumbers() throws CycLParseException {
+    assertEquals(42L, numberOf("42"));
+    assertEquals(-7L, numberOf("-7"));
+    assertEquals(-3.5, numberOf("-3.5"));
+    assertEquals(Long.MAX_VALUE, numberOf(Long.toString(Long.MAX_VALUE)));
+    assertEquals(Long.MIN_VALUE, numberOf(Long.toString(Long.MIN_VALUE)));
+    assertEquals(new BigInteger("123456789012345678901"), numberOf("123456789012345678901"));
+  }
+
+  @Test
+  public void testEmptyInput() throws CycLParseException {
+    assertEquals(Arrays.asList(TokenType.END), typesOf("   "));
+  }
+
+  @Test(expected = CycLParseException.class)
+  public void testUnterminatedString() throws CycLParseException {
+    typesOf("(#$comment #$Dog \"unterminated)");
+  }
+
+  @Test
+  public void testReset() throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer("#$Dog");
+    tokenizer.next();
+    tokenizer.reset("?X");
+    assertEquals(TokenType.VARIABLE, tokenizer.next());
+    assertTrue(tokenizer.textEquals("X"));
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static List<TokenType> typesOf(String cycl) throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer(cycl);
+    final List<TokenType> types = new ArrayList<>();
+    TokenType type;
+    do {
+      type = tokenizer.next();
+      types.add(type);
+    } while (type != TokenType.END);
+    return types;
+  }
+
+  private static Number numberOf(String cycl) throws CycLParseException {
+    final CycLTokenizer tokenizer = new CycLTokenizer(cycl);
+    assertEquals(TokenType.NUMBER, tokenizer.next());
+    return tokenizer.getNumberValue();
+  }
+
+}
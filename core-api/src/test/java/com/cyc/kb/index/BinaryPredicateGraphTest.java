@@ -0,0 +1,166 @@
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: BinaryPredicateGraphTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.index.BinaryPredicateGraph.Direction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryPredicateGraphTest {
+
+  private BinaryPredicateGraph graph;
+
+  /**
+   * Sets up a small region hierarchy:
+   * <pre>
+   *   Earth -&gt; Europe -&gt; France -&gt; Paris
+   *                    -&gt; Spain
+   *         -&gt; Asia   -&gt; Japan
+   *   Loop1 -&gt; Loop2 -&gt; Loop1
+   * </pre>
+   */
+  @Before
+  public void setUp() {
+    graph = BinaryPredicateGraph.builder()
+            .addEdge("Earth", "Europe")
+            .addEdge("Earth", "Asia")
+            .addEdge("Europe", "France")
+            .addEdge("Europe", "Spain")
+            .addEdge("France", "Paris")
+            .addEdge("Asia", "Japan")
+            .addEdge("Loop1", "Loop2")
+            .addEdge("Loop2", "Loop1")
+            .build();
+  }
+
+  @Test
+  public void testCounts() {
+    assertEquals(9, graph.getNodeCount());
+    assertEquals(8, graph.getEdgeCount());
+    assertTrue(graph.contains("Paris"));
+    assertFalse(graph.contains("Mars"));
+    assertTrue(graph.estimateMemoryBytes() > 0);
+  }
+
+  @Test
+  public void testNeighbors() {
+    assertEquals(Arrays.asList("Europe", "Asia"), graph.getNeighbors("Earth", Direction.FORWARD));
+    assertEquals(Collections.emptyList(), graph.getNeighbors("Earth", Direction.BACKWARD));
+    assertEquals(Arrays.asList("France", "Spain", "Earth"),
+                 graph.getNeighbors("Europe", Direction.BOTH));
+    assertEquals(Collections.emptyList(), graph.getNeighbors("Mars", Direction.BOTH));
+  }
+
+  @Test
+  public void testReachable() {
+    assertEquals(new LinkedHashSet<>(Arrays.asList("Europe", "Asia", "France", "Spain", "Japan",
+                                                   "Paris")),
+                 graph.getReachable("Earth", Direction.FORWARD, -1));
+    assertEquals(new HashSet<>(Arrays.asList("Europe", "Asia")),
+                 graph.getReachable("Earth", Direction.FORWARD, 1));
+    assertEquals(new HashSet<>(Arrays.asList("France", "Europe", "Earth")),
+                 graph.getReachable("Paris", Direction.BACKWARD, -1));
+    assertEquals(Collections.emptySet(), graph.getReachable("Paris", Direction.FORWARD, -1));
+    assertEquals(Collections.emptySet(), graph.getReachable("Mars", Direction.FORWARD, -1));
+  }
+
+  @Test
+  public void testReachableIncludesStartOnlyOnCycle() {
+    assertEquals(new HashSet<>(Arrays.asList("Loop1", "Loop2")),
+                 graph.getReachable("Loop1", Direction.FORWARD, -1));
+    assertFalse(graph.getReachable("Earth", Direction.FORWARD, -1).contains("Earth"));
+  }
+
+  @Test
+  public void testShortestPath() {
+    assertEquals(Arrays.asList("Earth", "Europe", "France", "Paris"),
+                 graph.getShortestPath("Earth", "Paris", Direction.FORWARD));
+    assertEquals(Arrays.asList("Paris", "France", "Europe", "Earth", "Asia", "Japan"),
+                 graph.getShortestPath("Paris", "Japan", Direction.BOTH));
+    assertEquals(Collections.singletonList("Spain"),
+                 graph.getShortestPath("Spain", "Spain", Direction.FORWARD));
+    assertEquals(Collections.emptyList(),
+                 graph.getShortestPath("Paris", "Japan", Direction.FORWARD));
+    assertEquals(Collections.emptyList(),
+                 graph.getShortestPath("Earth", "Loop1", Direction.BOTH));
+    assertTrue(graph.isReachable("Japan", "Earth", Direction.BACKWARD));
+    assertFalse(graph.isReachable("Japan", "Earth", Direction.FORWARD));
+    assertFalse(graph.isReachable("Earth", "Mars", Direction.BOTH));
+  }
+
+  @Test
+  public void testRepeatedTraversalsAreIndependent() {
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(4, graph.getShortestPath("Earth", "Paris", Direction.FORWARD).size());
+      assertEquals(6, graph.getReachable("Earth", Direction.FORWARD, -1).size());
+    }
+  }
+
+  @Test
+  public void testLargeGraph() {
+    final int length = 100000;
+    final BinaryPredicateGraph.Builder builder = BinaryPredicateGraph.builder();
+    for (int i = 0; i < length; i++) {
+      builder.addEdge(i, i + 1);
+    }
+    final BinaryPredicateGraph chain = builder.build();
+    assertEquals(length + 1, chain.getNodeCount());
+    final List<Object> path = chain.getShortestPath(0, length, Direction.FORWARD);
+    assertEquals(length + 1, path.size());
+    assertEquals(length, path.get(length));
+    assertEquals(10, chain.getReachable(length, Direction.BACKWARD, 10).size());
+    // A smaller graph must still traverse correctly after the large one's workspace is released
+    assertEquals(Arrays.asList("Earth", "Asia", "Japan"),
+                 graph.getShortestPath("Earth", "Japan", Direction.FORWARD));
+  }
+
+  @Test
+  public void testDuplicateEdgesAreKept() {
+    final BinaryPredicateGraph duplicates = BinaryPredicateGraph.builder()
+            .addEdge("A", "B")
+            .addEdge("A", "B")
+            .build();
+    assertEquals(2, duplicates.getNodeCount());
+    assertEquals(2, duplicates.getEdgeCount());
+    assertEquals(Arrays.asList("B", "B"), duplicates.getNeighbors("A", Direction.FORWARD));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBuiltGraphCannotBeRefreshed() throws Exception {
+    graph.refresh();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullNode() {
+    BinaryPredicateGraph.builder().addEdge("A", null);
+  }
+
+}
@@ -0,0 +1,203 @@
+package com.cyc.kb.index;
+
+/*
+ * #%L
+ * File: ConstantPrefixIndexTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.KbObjectType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConstantPrefixIndexTest {
+
+  private static final int COLLECTION = KbObjectType.COLLECTION.getMask();
+  private static final int PREDICATE = KbObjectType.PREDICATE.getMask();
+  private static final int INDIVIDUAL = KbObjectType.INDIVIDUAL.getMask();
+
+  @Test
+  public void testRanking() {
+    final ConstantPrefixIndex index = ConstantPrefixIndex.builder()
+            .add("Dog", COLLECTION, 5)
+            .add("DogBreed", COLLECTION, 5)
+            .add("dogma", INDIVIDUAL, 1)
+            .add("#$Doghouse", COLLECTION, 9)
+            .add("Domain", COLLECTION, 100)
+            .build();
+    assertEquals(Arrays.asList("Doghouse", "Dog", "DogBreed", "dogma"),
+                 names(index.complete("dog", 10)));
+    assertEquals(Arrays.asList("Doghouse", "Dog"), names(index.complete("#$DOG", 2)));
+    assertEquals(Arrays.asList("dogma"),
+                 names(index.complete("dog", 10, KbObjectType.INDIVIDUAL)));
+    assertEquals(4, index.count("Dog"));
+    assertEquals(5, index.count(""));
+    assertEquals(0, index.count("Cat"));
+    assertEquals(Collections.emptyList(), index.complete("Cat", 10));
+    assertEquals(Collections.emptyList(), index.complete("Dog", 0));
+  }
+
+  @Test
+  public void testDuplicatesAreMerged() {
+    final ConstantPrefixIndex index = ConstantPrefixIndex.builder()
+            .add("isa", PREDICATE, 3)
+            .add("#$isa", INDIVIDUAL, 7)
+            .add("Isa", COLLECTION, 1)
+            .build();
+    assertEquals(2, index.size());
+    final PrefixMatch isa = index.complete("isa", 1).get(0);
+    assertEquals("isa", isa.getName());
+    assertEquals(PREDICATE | INDIVIDUAL, isa.getTypeMask());
+    assertEquals(7, isa.getWeight());
+    assertTrue(isa.isType(KbObjectType.PREDICATE));
+  }
+
+  @Test
+  public void testPrecomputedMatchesAgreeWithScan() {
+    final Random random = new Random(42);
+    final int[] masks = {COLLECTION, PREDICATE, INDIVIDUAL, COLLECTION | INDIVIDUAL,
+                         KbObjectType.FUNCTION.getMask(), KbObjectType.CONTEXT.getMask()};
+    final Map<String, int[]> constants = new LinkedHashMap<>();
+    final ConstantPrefixIndex.Builder builder = ConstantPrefixIndex.builder();
+    for (int i = 0; i < 5000; i++) {
+      final String name = randomName(random);
+      final int mask = masks[random.nextInt(masks.length)];
+      final int weight = random.nextInt(20);
+      builder.add(name, mask, weight);
+      final int[] previous = constants.get(name);
+      constants.put(name, (previous == null)
+                          ? new int[]{mask, weight}
+                          : new int[]{previous[0] | mask, Math.max(previous[1], weight)});
+    }
+    final ConstantPrefixIndex index = builder.build();
+    assertEquals(constants.size(), index.size());
+    final List<String> prefixes = new ArrayList<>(Arrays.asList("", "a", "B", "ab", "BaA", "x"));
+    for (int i = 0; i < 50; i++) {
+      prefixes.add(randomName(random).substring(0, 1 + random.nextInt(2)));
+    }
+    for (String prefix : prefixes) {
+      for (int k : new int[]{1, 5, ConstantPrefixIndex.MAX_PRECOMPUTED_K, 40}) {
+        assertEquals(prefix + "/" + k,
+                     expected(constants, prefix, k, 0), index.complete(prefix, k));
+        for (KbObjectType type : ConstantPrefixIndex.INDEXED_TYPES) {
+          assertEquals(prefix + "/" + k + "/" + type,
+                       expected(constants, prefix, k, type.getMask()),
+                       index.complete(prefix, k, type));
+        }
+        assertEquals(expected(constants, prefix, k, COLLECTION | PREDICATE),
+                     index.complete(prefix, k,
+                                    EnumSet.of(KbObjectType.COLLECTION, KbObjectType.PREDICATE)));
+      }
+    }
+  }
+
+  @Test
+  public void testFromDump() throws IOException {
+    final Path dump = Files.createTempFile("constants", ".txt");
+    try {
+      Files.write(dump, Arrays.asList("Dog\tcollection,FIRST_ORDER_COLLECTION\t10",
+                                      "",
+                                      "Dogma",
+                                      "isa\tPREDICATE,BINARY_PREDICATE\t100"),
+                  StandardCharsets.UTF_8);
+      final ConstantPrefixIndex index = ConstantPrefixIndex.fromDump(dump);
+      assertEquals(3, index.size());
+      final List<PrefixMatch> dogs = index.complete("Do", 10);
+      assertEquals(Arrays.asList("Dog", "Dogma"), names(dogs));
+      assertEquals(EnumSet.of(KbObjectType.COLLECTION, KbObjectType.FIRST_ORDER_COLLECTION),
+                   dogs.get(0).getTypes());
+      assertEquals(10, dogs.get(0).getWeight());
+      assertEquals(EnumSet.of(KbObjectType.TERM), dogs.get(1).getTypes());
+    } finally {
+      Files.delete(dump);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testFromDumpMalformed() throws IOException {
+    final Path dump = Files.createTempFile("constants", ".txt");
+    try {
+      Files.write(dump, Arrays.asList("Dog\tNOT_A_TYPE"), StandardCharsets.UTF_8);
+      ConstantPrefixIndex.fromDump(dump);
+    } finally {
+      Files.delete(dump);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyName() {
+    ConstantPrefixIndex.builder().add("#$", COLLECTION, 0);
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static String randomName(Random random) {
+    final char[] name = new char[2 + random.nextInt(6)];
+    for (int i = 0; i < name.length; i++) {
+      name[i] = "abAB".charAt(random.nextInt(4));
+    }
+    return new String(name);
+  }
+
+  private static List<PrefixMatch> expected(
+          Map<String, int[]> constants, String prefix, int k, int typeMask) {
+    final List<PrefixMatch> matches = new ArrayList<>();
+    for (Map.Entry<String, int[]> constant : constants.entrySet()) {
+      final String name = constant.getKey();
+      final int mask = constant.getValue()[0];
+      if (name.toLowerCase().startsWith(prefix.toLowerCase())
+                  && (typeMask == 0 || (mask & typeMask) != 0)) {
+        matches.add(new PrefixMatch(name, mask, constant.getValue()[1]));
+      }
+    }
+    matches.sort((m1, m2) -> {
+      if (m1.getWeight() != m2.getWeight()) {
+        return Integer.compare(m2.getWeight(), m1.getWeight());
+      }
+      if (m1.getName().length() != m2.getName().length()) {
+        return m1.getName().length() - m2.getName().length();
+      }
+      final int result = m1.getName().compareToIgnoreCase(m2.getName());
+      return (result != 0) ? result : m1.getName().compareTo(m2.getName());
+    });
+    return matches.subList(0, Math.min(k, matches.size()));
+  }
+
+  private static List<String> names(List<PrefixMatch> matches) {
+    final List<String> names = new ArrayList<>();
+    for (PrefixMatch match : matches) {
+      names.add(match.getName());
+    }
+    return names;
+  }
+
+}
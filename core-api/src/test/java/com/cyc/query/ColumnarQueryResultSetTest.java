@@ -0,0 +1,253 @@
+package com.cyc.query;
+
+/*
+ * #%L
+ * File: ColumnarQueryResultSetTest.java
+ * Project: Core API
+ * %%
+ * Copyright (C) 2015 - 2019 Cycorp, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.cyc.kb.Variable;
+import com.cyc.query.ColumnarQueryResultSet.ColumnType;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarQueryResultSetTest {
+
+  private final Variable a = variable("?A");
+  private final Variable b = variable("?B");
+  private final Variable c = variable("?C");
+
+  @Test
+  public void testColumnTypes() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(
+            Arrays.asList(a, b, c, variable("?D"), variable("?E"), variable("?F")))
+            .addRow(1, 1.5f, Long.MAX_VALUE, true, new Date(1000), null)
+            .addRow((short) 2, null, 2.5, false, null, null)
+            .addRow(3L, 2.25, "text", null, new Date(2000), null)
+            .build();
+    assertEquals(ColumnType.LONG, rs.getColumnType(0));
+    assertEquals(ColumnType.DOUBLE, rs.getColumnType(1));
+    assertEquals(ColumnType.OBJECT, rs.getColumnType(2));
+    assertEquals(ColumnType.BOOLEAN, rs.getColumnType(3));
+    assertEquals(ColumnType.DATE, rs.getColumnType(4));
+    assertEquals(ColumnType.EMPTY, rs.getColumnType(5));
+  }
+
+  @Test
+  public void testNumbersAreReboxedWithTheirOriginalClass() {
+    final List<Object> column = Arrays.asList(
+            1, (short) 2, (byte) 3, 4L, Integer.MIN_VALUE, Long.MAX_VALUE, null);
+    final ColumnarQueryResultSet.Builder builder = ColumnarQueryResultSet.builder(
+            Arrays.asList(a, b));
+    final List<Object> doubles = Arrays.asList(1.5f, 2.5, null, 7, -0.25f, 3L, 1e300);
+    for (int i = 0; i < column.size(); i++) {
+      builder.addRow(column.get(i), doubles.get(i));
+    }
+    final ColumnarQueryResultSet rs = builder.build();
+    assertEquals(ColumnType.LONG, rs.getColumnType(0));
+    assertEquals(ColumnType.DOUBLE, rs.getColumnType(1));
+    assertEquals(column, objects(rs, 0));
+    assertEquals(doubles, objects(rs, 1));
+    assertEquals(classes(column), classes(objects(rs, 0)));
+    assertEquals(classes(doubles), classes(objects(rs, 1)));
+  }
+
+  @Test
+  public void testUniformColumnKeepsItsClass() {
+    final ColumnarQueryResultSet.Builder builder = ColumnarQueryResultSet.builder(
+            Arrays.asList(a));
+    for (int i = 0; i < 1000; i++) {
+      builder.addRow(i);
+    }
+    final ColumnarQueryResultSet rs = builder.build();
+    for (Object value : objects(rs, 0)) {
+      assertEquals(Integer.class, value.getClass());
+    }
+  }
+
+  @Test
+  public void testLargeIntegersStayExact() {
+    final long big = (1L << 53) + 1;
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(0.5)
+            .addRow(big)
+            .build();
+    assertEquals(ColumnType.OBJECT, rs.getColumnType(0));
+    assertEquals(Arrays.<Object>asList(0.5, big), objects(rs, 0));
+    rs.last();
+    assertEquals(big, rs.getLong(0));
+  }
+
+  @Test
+  public void testPrimitiveGetters() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a, b, c))
+            .addRow(7, 2.75, true)
+            .addRow(null, null, null)
+            .addRow(new BigInteger("12"), "x", false)
+            .build();
+    assertTrue(rs.next());
+    assertEquals(7, rs.getInt(0));
+    assertEquals(7.0, rs.getDouble(0), 0.0);
+    assertEquals(2, rs.getLong(1));
+    assertEquals(2.75f, rs.getFloat(1), 0.0f);
+    assertTrue(rs.getBoolean(2));
+    assertTrue(rs.next());
+    assertTrue(rs.isNull(0));
+    assertEquals(0, rs.getLong(0));
+    assertEquals(0.0, rs.getDouble(1), 0.0);
+    assertFalse(rs.getBoolean(2));
+    assertNull(rs.getObject(0, Object.class));
+    assertTrue(rs.next());
+    assertEquals(12, rs.getInt(0));
+    assertFalse(rs.getBoolean(2));
+    assertEquals("x", rs.getString(1));
+    assertEquals("x", rs.getString("B"));
+  }
+
+  @Test
+  public void testDates() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(new Date(1234))
+            .addRow((Object) null)
+            .build();
+    assertTrue(rs.next());
+    final Date date = rs.getDate(0);
+    assertEquals(new Date(1234), date);
+    date.setTime(0);
+    assertEquals(new Date(1234), rs.getDate(0));
+    assertTrue(rs.next());
+    assertNull(rs.getDate(0));
+  }
+
+  @Test
+  public void testNavigation() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(1)
+            .addRow(2)
+            .build();
+    assertEquals(2, rs.getAnswerCount());
+    assertTrue(rs.isBeforeFirst());
+    assertTrue(rs.last());
+    assertTrue(rs.isLast());
+    assertEquals(2, rs.getInt(0));
+    assertFalse(rs.next());
+    assertTrue(rs.isAfterLast());
+    assertTrue(rs.previous());
+    assertEquals(2, rs.getInt(0));
+    assertTrue(rs.first());
+    assertEquals(1, rs.getInt(0));
+    final List<Object> bindings = new ArrayList<>();
+    for (QueryAnswer answer : rs) {
+      bindings.add(answer.getBinding(a));
+    }
+    assertEquals(Arrays.<Object>asList(1, 2), bindings);
+  }
+
+  @Test
+  public void testEmpty() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a)).build();
+    assertEquals(0, rs.getAnswerCount());
+    assertFalse(rs.next());
+    assertFalse(rs.isAfterLast());
+  }
+
+  @Test
+  public void testCopy() {
+    final ColumnarQueryResultSet source = ColumnarQueryResultSet.builder(Arrays.asList(a, b))
+            .addRow(1, "one")
+            .addRow((short) 2, null)
+            .build();
+    final ColumnarQueryResultSet copy = ColumnarQueryResultSet.from(source);
+    assertEquals(objects(source, 0), objects(copy, 0));
+    assertEquals(classes(objects(source, 0)), classes(objects(copy, 0)));
+    assertEquals(objects(source, 1), objects(copy, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypedGetterInvalidColumn() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(1)
+            .build();
+    rs.first();
+    rs.getLong(5);
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testGetObjectInvalidColumn() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(1)
+            .build();
+    rs.first();
+    rs.getObject(5, Object.class);
+  }
+
+  @Test(expected = ArrayIndexOutOfBoundsException.class)
+  public void testNoCurrentRow() {
+    final ColumnarQueryResultSet rs = ColumnarQueryResultSet.builder(Arrays.asList(a))
+            .addRow(1)
+            .build();
+    rs.getLong(0);
+  }
+
+  //====|    Internal methods    |================================================================//
+
+  private static Variable variable(String name) {
+    return (Variable) Proxy.newProxyInstance(
+            Variable.class.getClassLoader(), new Class<?>[]{Variable.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "toString":
+                  return name;
+                case "hashCode":
+                  return name.hashCode();
+                case "equals":
+                  return proxy == args[0];
+                default:
+                  return null;
+              }
+            });
+  }
+
+  private static List<Object> objects(ColumnarQueryResultSet rs, int columnIndex) {
+    final List<Object> values = new ArrayList<>();
+    rs.beforeFirst();
+    while (rs.next()) {
+      values.add(rs.getObject(columnIndex, Object.class));
+    }
+    return values;
+  }
+
+  private static List<Class<?>> classes(List<Object> values) {
+    final List<Class<?>> classes = new ArrayList<>();
+    for (Object value : values) {
+      classes.add((value == null) ? null : value.getClass());
+    }
+    return classes;
+  }
+
+}